@@ -0,0 +1,121 @@
+package com.adauction.group19.benchmark;
+
+import com.adauction.group19.model.AgeRange;
+import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.model.Context;
+import com.adauction.group19.model.Gender;
+import com.adauction.group19.model.Income;
+import com.adauction.group19.service.FileParserService;
+import com.adauction.group19.utils.CampaignLogGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Synthetic logs and filters shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    /**
+     * The seed of every generated data set, so runs are comparable.
+     */
+    static final long SEED = 19;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Generated logs in a temporary directory.
+     */
+    static final class Logs {
+        final File directory;
+        final File impressions;
+        final File clicks;
+        final File serverLogs;
+
+        private Logs(File directory) {
+            this.directory = directory;
+            this.impressions = new File(directory, "impression_log.csv");
+            this.clicks = new File(directory, "click_log.csv");
+            this.serverLogs = new File(directory, "server_log.csv");
+        }
+
+        /**
+         * Deletes the directory and the logs in it.
+         */
+        void delete() throws IOException {
+            try (Stream<Path> paths = Files.walk(directory.toPath())) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    /**
+     * Writes a campaign of the given size, with a user for every four impressions.
+     * @param impressions the number of impressions
+     * @return the logs
+     */
+    static Logs generate(long impressions) throws IOException {
+        Logs logs = new Logs(Files.createTempDirectory("adauction-benchmark").toFile());
+        CampaignLogGenerator generator = new CampaignLogGenerator();
+        generator.setSeed(SEED);
+        generator.setImpressionCount(impressions);
+        generator.setUserCount(Math.max(1, impressions / 4));
+        generator.write(logs.impressions, logs.clicks, logs.serverLogs);
+        return logs;
+    }
+
+    /**
+     * Generates a campaign and loads it, deleting the logs afterwards.
+     * @param impressions the number of impressions
+     * @return the loaded campaign data
+     */
+    static CampaignData load(long impressions) throws Exception {
+        Logs logs = generate(impressions);
+        try {
+            return new FileParserService().parseCampaignData(logs.impressions, logs.clicks, logs.serverLogs);
+        } finally {
+            logs.delete();
+        }
+    }
+
+    /**
+     * Returns a representative filter by name: none, one gender, a narrow
+     * segment, or several contexts.
+     * @param name "none", "gender", "segment" or "contexts"
+     * @return the filter, in the order gender, age, income, context
+     */
+    static List<Set<Enum<?>>> filter(String name) {
+        List<Set<Enum<?>>> filter = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            filter.add(new HashSet<>());
+        }
+        switch (name) {
+            case "none":
+                break;
+            case "gender":
+                filter.get(0).add(Gender.FEMALE);
+                break;
+            case "segment":
+                filter.get(0).add(Gender.MALE);
+                filter.get(1).add(AgeRange.AGE_25_34);
+                filter.get(2).add(Income.HIGH);
+                break;
+            case "contexts":
+                filter.get(3).addAll(Arrays.asList(Context.NEWS, Context.SHOPPING));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown filter: " + name);
+        }
+        return filter;
+    }
+}
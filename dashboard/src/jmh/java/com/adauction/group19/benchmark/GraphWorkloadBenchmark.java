@@ -0,0 +1,83 @@
+package com.adauction.group19.benchmark;
+
+import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.model.Metric;
+import com.adauction.group19.model.MetricQueryEngine;
+import com.adauction.group19.model.MetricSeries;
+import com.adauction.group19.model.TimeGranularity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The work of one metrics screen update: the totals of every metric plus every
+ * metric's series over the whole campaign, as the graph asks for them. The cold
+ * case clears the query cache first, as after loading or changing a filter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4G"})
+public class GraphWorkloadBenchmark {
+
+    @Param({"1000000"})
+    public long impressions;
+
+    @Param({"HOURLY", "DAILY"})
+    public TimeGranularity granularity;
+
+    @Param({"none", "segment"})
+    public String filterName;
+
+    @Param({"true", "false"})
+    public boolean coldCache;
+
+    private CampaignData campaignData;
+    private Map<Metric, List<Set<Enum<?>>>> filters;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        campaignData = BenchmarkData.load(impressions);
+        campaignData.buildIndexes();
+        filters = new EnumMap<>(Metric.class);
+        for (Metric metric : Metric.values()) {
+            filters.put(metric, BenchmarkData.filter(filterName));
+        }
+        from = campaignData.getFirstDate().atStartOfDay();
+        to = campaignData.getLastDate().plusDays(1).atStartOfDay();
+    }
+
+    @Setup(Level.Invocation)
+    public void clearCache() {
+        if (coldCache) {
+            campaignData.getQueryCache().clear();
+        }
+    }
+
+    @Benchmark
+    public Map<Metric, MetricSeries> updateGraph() {
+        MetricQueryEngine engine = new MetricQueryEngine(campaignData);
+        engine.queryTotals(filters);
+        return engine.query(from, to, granularity, filters);
+    }
+}
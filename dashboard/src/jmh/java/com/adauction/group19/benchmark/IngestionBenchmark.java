@@ -0,0 +1,85 @@
+package com.adauction.group19.benchmark;
+
+import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.service.FileParserService;
+import com.adauction.group19.service.IngestionMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading time of each log type on its own, the other two logs holding only
+ * their header, in every ingestion mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4G"})
+public class IngestionBenchmark {
+
+    /**
+     * The log that is loaded.
+     */
+    public enum Log {
+        IMPRESSIONS, CLICKS, SERVER_LOG
+    }
+
+    @Param({"1000000"})
+    public long impressions;
+
+    @Param({"IMPRESSIONS", "CLICKS", "SERVER_LOG"})
+    public Log log;
+
+    @Param({"SEQUENTIAL", "PARALLEL", "MAPPED"})
+    public IngestionMode mode;
+
+    private BenchmarkData.Logs logs;
+    private File impressionFile;
+    private File clickFile;
+    private File serverFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        logs = BenchmarkData.generate(impressions);
+        impressionFile = log == Log.IMPRESSIONS ? logs.impressions
+            : header("empty_impression_log.csv", "Date,ID,Gender,Age,Income,Context,Impression Cost");
+        clickFile = log == Log.CLICKS ? logs.clicks : header("empty_click_log.csv", "Date,ID,Click Cost");
+        serverFile = log == Log.SERVER_LOG ? logs.serverLogs
+            : header("empty_server_log.csv", "Entry Date,ID,Exit Date,Pages Viewed,Conversion");
+    }
+
+    private File header(String name, String header) throws IOException {
+        File file = new File(logs.directory, name);
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write(header + "\n");
+        }
+        return file;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        logs.delete();
+    }
+
+    @Benchmark
+    public CampaignData parse() throws Exception {
+        return new FileParserService().parseCampaignData(impressionFile, clickFile, serverFile, mode);
+    }
+}
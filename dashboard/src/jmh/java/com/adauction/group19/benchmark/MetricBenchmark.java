@@ -0,0 +1,216 @@
+package com.adauction.group19.benchmark;
+
+import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.model.CostQuantileIndex;
+import com.adauction.group19.model.QuantileSketch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every campaign total, per-day and per-hour metric call under representative
+ * filters, on a loaded campaign with its indexes built.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4G"})
+public class MetricBenchmark {
+
+    @Param({"1000000"})
+    public long impressions;
+
+    @Param({"none", "gender", "segment", "contexts"})
+    public String filterName;
+
+    private CampaignData campaignData;
+    private List<Set<Enum<?>>> filter;
+    private LocalDateTime date;
+    private LocalDateTime hour;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        campaignData = BenchmarkData.load(impressions);
+        campaignData.buildIndexes();
+        filter = BenchmarkData.filter(filterName);
+        // A day and an hour in the middle of the campaign
+        date = campaignData.getFirstDate().plusDays(7).atStartOfDay();
+        hour = date.plusHours(13);
+    }
+
+    @Benchmark
+    public int totalImpressions() {
+        return campaignData.getTotalImpressions(filter);
+    }
+
+    @Benchmark
+    public int totalClicks() {
+        return campaignData.getTotalClicks(filter);
+    }
+
+    @Benchmark
+    public int totalConversions() {
+        return campaignData.getTotalConversions(filter);
+    }
+
+    @Benchmark
+    public int totalUniques() {
+        return campaignData.getTotalUniques(filter);
+    }
+
+    @Benchmark
+    public int totalBounces() {
+        return campaignData.getTotalBounces(filter);
+    }
+
+    @Benchmark
+    public double totalCost() {
+        return campaignData.getTotalCost(filter);
+    }
+
+    @Benchmark
+    public double ctr() {
+        return campaignData.getCTR(filter);
+    }
+
+    @Benchmark
+    public double cpa() {
+        return campaignData.getCPA(filter);
+    }
+
+    @Benchmark
+    public double cpc() {
+        return campaignData.getCPC(filter);
+    }
+
+    @Benchmark
+    public double cpm() {
+        return campaignData.getCPM(filter);
+    }
+
+    @Benchmark
+    public double bounceRate() {
+        return campaignData.getBounceRate(filter);
+    }
+
+    @Benchmark
+    public QuantileSketch totalClickCostSketch() {
+        return campaignData.getTotalCostSketch(CostQuantileIndex.Costs.CLICKS, filter);
+    }
+
+    @Benchmark
+    public int impressionsForDate() {
+        return campaignData.getImpressionsForDate(date, filter);
+    }
+
+    @Benchmark
+    public int clicksForDate() {
+        return campaignData.getClicksForDate(date, filter);
+    }
+
+    @Benchmark
+    public int uniquesForDate() {
+        return campaignData.getUniquesForDate(date, filter);
+    }
+
+    @Benchmark
+    public int bouncesForDate() {
+        return campaignData.getBouncesForDate(date, filter);
+    }
+
+    @Benchmark
+    public int conversionsForDate() {
+        return campaignData.getConversionsForDate(date, filter);
+    }
+
+    @Benchmark
+    public double totalCostForDate() {
+        return campaignData.getTotalCostForDate(date, filter);
+    }
+
+    @Benchmark
+    public double bounceRateForDate() {
+        return campaignData.getBounceRateForDate(date, filter);
+    }
+
+    @Benchmark
+    public double ctrForDate() {
+        return campaignData.getCTRForDate(date, filter);
+    }
+
+    @Benchmark
+    public double cpaForDate() {
+        return campaignData.getCPAForDate(date, filter);
+    }
+
+    @Benchmark
+    public double cpcForDate() {
+        return campaignData.getCPCForDate(date, filter);
+    }
+
+    @Benchmark
+    public double cpmForDate() {
+        return campaignData.getCPMForDate(date, filter);
+    }
+
+    @Benchmark
+    public int hourlyImpressions() {
+        return campaignData.getHourlyImpressions(hour, filter);
+    }
+
+    @Benchmark
+    public int hourlyClicks() {
+        return campaignData.getHourlyClicks(hour, filter);
+    }
+
+    @Benchmark
+    public int hourlyConversions() {
+        return campaignData.getHourlyConversions(hour, filter);
+    }
+
+    @Benchmark
+    public double hourlyTotalCost() {
+        return campaignData.getHourlyTotalCost(hour, filter);
+    }
+
+    @Benchmark
+    public double hourlyBounceRate() {
+        return campaignData.getHourlyBounceRate(hour, filter);
+    }
+
+    @Benchmark
+    public double hourlyCTR() {
+        return campaignData.getHourlyCTR(hour, filter);
+    }
+
+    @Benchmark
+    public double hourlyCPA() {
+        return campaignData.getHourlyCPA(hour, filter);
+    }
+
+    @Benchmark
+    public double hourlyCPC() {
+        return campaignData.getHourlyCPC(hour, filter);
+    }
+
+    @Benchmark
+    public double hourlyCPM() {
+        return campaignData.getHourlyCPM(hour, filter);
+    }
+}
@@ -0,0 +1,76 @@
+package com.adauction.group19.benchmark;
+
+import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.utils.SerializationUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving and loading a campaign in the compact binary format and in the Java
+ * serialization used by older versions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4G"})
+public class SerializationBenchmark {
+
+    @Param({"1000000"})
+    public long impressions;
+
+    private CampaignData campaignData;
+    private byte[] encoded;
+    private byte[] javaSerialised;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        campaignData = BenchmarkData.load(impressions);
+        encoded = SerializationUtil.serialiseCampaign(campaignData);
+        javaSerialised = SerializationUtil.serialise(campaignData);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return SerializationUtil.serialiseCampaign(campaignData);
+    }
+
+    @Benchmark
+    public CampaignData decode() throws IOException, ClassNotFoundException {
+        return SerializationUtil.deserialiseCampaign(encoded);
+    }
+
+    @Benchmark
+    public CampaignData encodeRoundTrip() throws IOException, ClassNotFoundException {
+        return SerializationUtil.deserialiseCampaign(SerializationUtil.serialiseCampaign(campaignData));
+    }
+
+    @Benchmark
+    public byte[] javaSerialise() throws IOException {
+        return SerializationUtil.serialise(campaignData);
+    }
+
+    @Benchmark
+    public Object javaDeserialise() throws IOException, ClassNotFoundException {
+        return SerializationUtil.deserialise(javaSerialised);
+    }
+
+    @Benchmark
+    public Object javaRoundTrip() throws IOException, ClassNotFoundException {
+        return SerializationUtil.deserialise(SerializationUtil.serialise(campaignData));
+    }
+}
@@ -0,0 +1,345 @@
+package com.adauction.group19;
+
+import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.model.CampaignReport;
+import com.adauction.group19.model.DemographicFilter;
+import com.adauction.group19.model.ExportWriter;
+import com.adauction.group19.model.Metric;
+import com.adauction.group19.model.TimeGranularity;
+import com.adauction.group19.service.FileParserService;
+import com.adauction.group19.service.IngestionMode;
+import com.adauction.group19.service.PdfReportRenderer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs campaign analytics from the command line, without starting JavaFX, for
+ * scheduled runs on machines with no desktop. Each campaign's logs are loaded once,
+ * then the selected metrics are computed for every range and granularity asked for
+ * and written as CSV, JSON and/or PDF. Campaigns are processed in parallel on a
+ * pool of worker threads. Run with {@code --help} for the options.
+ */
+public class BatchMain {
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+        "Usage: BatchMain [options] [CAMPAIGN_DIR...]",
+        "A campaign directory holds impression_log.csv, click_log.csv and server_log.csv.",
+        "  --logs IMPRESSIONS,CLICKS,SERVER  a campaign given by its three log files (repeatable)",
+        "  --out DIR                 directory to write the results to (default: current directory)",
+        "  --format F,...            csv, json and/or pdf (default: pdf)",
+        "  --metrics M,...           metrics to compute, e.g. Impressions,CTR,\"Bounce Rate\" (default: all)",
+        "  --granularity G,...       HOURLY, DAILY and/or WEEKLY (default: DAILY)",
+        "  --range FROM:TO           dates to include, e.g. 2015-01-01:2015-01-07 (repeatable;",
+        "                            default: the whole campaign)",
+        "  --filter NAME=V,...       gender, age, income or context, e.g. age=25-34,35-44 (repeatable)",
+        "  --threads N               campaigns processed at once (default: number of processors)",
+        "  --mode M                  ingestion mode: SEQUENTIAL, PARALLEL or MAPPED (default: SEQUENTIAL)");
+
+    /**
+     * A campaign to process: its name and three log files.
+     */
+    private record CampaignLogs(String name, File impressions, File clicks, File serverLogs) {
+    }
+
+    /**
+     * A range of whole days, or null for the whole campaign.
+     */
+    private record DateRange(LocalDate from, LocalDate to) {
+    }
+
+    private final List<CampaignLogs> campaigns = new ArrayList<>();
+    private File outputDirectory = new File(".");
+    private Set<ExportWriter.Format> formats = EnumSet.noneOf(ExportWriter.Format.class);
+    private boolean pdf;
+    private Set<Metric> metrics = EnumSet.allOf(Metric.class);
+    private Set<TimeGranularity> granularities = EnumSet.of(TimeGranularity.DAILY);
+    private final List<DateRange> ranges = new ArrayList<>();
+    private final List<Set<Enum<?>>> filter = new ArrayList<>();
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private IngestionMode mode = IngestionMode.SEQUENTIAL;
+    private final PrintStream out;
+    private final PrintStream err;
+
+    /**
+     * Creates a batch that reports to the given streams.
+     * @param out Where to report progress.
+     * @param err Where to report errors.
+     */
+    public BatchMain(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+        for (int i = 0; i < DemographicFilter.DIMENSION_COUNT; i++) {
+            filter.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Runs the batch and exits with its status.
+     * @param args The options and campaign directories.
+     */
+    public static void main(String[] args) {
+        System.exit(new BatchMain(System.out, System.err).run(args));
+    }
+
+    /**
+     * Runs the batch.
+     * @param args The options and campaign directories.
+     * @return 0 if every campaign was processed, 1 if any failed and 2 if the options are not valid.
+     */
+    public int run(String[] args) {
+        try {
+            if (!parseArguments(args)) {
+                out.println(USAGE);
+                return 0;
+            }
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+        return runCampaigns() ? 0 : 1;
+    }
+
+    /**
+     * Reads the command line.
+     * @param args The options and campaign directories.
+     * @return False if only the usage was asked for.
+     * @throws IllegalArgumentException If an option is not valid.
+     */
+    private boolean parseArguments(String[] args) {
+        List<String> formatNames = new ArrayList<>(List.of("pdf"));
+        boolean formatsGiven = false;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--help")) {
+                return false;
+            }
+            if (!arg.startsWith("--")) {
+                File directory = new File(arg);
+                addCampaign(directory.getName(), new File(directory, "impression_log.csv"),
+                    new File(directory, "click_log.csv"), new File(directory, "server_log.csv"));
+                continue;
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--logs" -> {
+                    String[] files = value.split(",");
+                    if (files.length != 3) {
+                        throw new IllegalArgumentException("--logs needs three files: " + value);
+                    }
+                    File impressions = new File(files[0].trim());
+                    addCampaign(impressions.getName().replaceFirst("\\.csv$", ""), impressions,
+                        new File(files[1].trim()), new File(files[2].trim()));
+                }
+                case "--out" -> outputDirectory = new File(value);
+                case "--format" -> {
+                    if (!formatsGiven) {
+                        formatNames.clear();
+                        formatsGiven = true;
+                    }
+                    formatNames.addAll(split(value));
+                }
+                case "--metrics" -> metrics = parseMetrics(value);
+                case "--granularity" -> {
+                    granularities = EnumSet.noneOf(TimeGranularity.class);
+                    for (String granularity : split(value)) {
+                        granularities.add(TimeGranularity.valueOf(granularity.toUpperCase(Locale.ROOT)));
+                    }
+                }
+                case "--range" -> ranges.add(parseRange(value));
+                case "--filter" -> parseFilter(value);
+                case "--threads" -> threads = Integer.parseInt(value);
+                case "--mode" -> mode = IngestionMode.valueOf(value.toUpperCase(Locale.ROOT));
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        for (String format : formatNames) {
+            if (format.equalsIgnoreCase("pdf")) {
+                pdf = true;
+            } else {
+                formats.add(ExportWriter.Format.fromExtension(format));
+            }
+        }
+        if (campaigns.isEmpty()) {
+            throw new IllegalArgumentException("No campaigns given");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        if (granularities.isEmpty() || formats.isEmpty() && !pdf) {
+            throw new IllegalArgumentException("At least one granularity and format is needed");
+        }
+        if (ranges.isEmpty()) {
+            ranges.add(null);
+        }
+        return true;
+    }
+
+    /**
+     * Adds a campaign, numbering its name if another campaign has the same one.
+     */
+    private void addCampaign(String name, File impressions, File clicks, File serverLogs) {
+        String unique = name;
+        for (int copy = 2; nameTaken(unique); copy++) {
+            unique = name + "-" + copy;
+        }
+        campaigns.add(new CampaignLogs(unique, impressions, clicks, serverLogs));
+    }
+
+    private boolean nameTaken(String name) {
+        return campaigns.stream().anyMatch(campaign -> campaign.name().equals(name));
+    }
+
+    private static List<String> split(String value) {
+        List<String> parts = new ArrayList<>();
+        for (String part : value.split(",")) {
+            if (!part.isBlank()) {
+                parts.add(part.trim());
+            }
+        }
+        return parts;
+    }
+
+    private static Set<Metric> parseMetrics(String value) {
+        Set<Metric> metrics = EnumSet.noneOf(Metric.class);
+        for (String name : split(value)) {
+            metrics.add(Metric.parse(name));
+        }
+        return metrics;
+    }
+
+    private static DateRange parseRange(String value) {
+        String[] dates = value.split(":");
+        if (dates.length != 2) {
+            throw new IllegalArgumentException("A range is FROM:TO: " + value);
+        }
+        DateRange range;
+        try {
+            range = new DateRange(LocalDate.parse(dates[0].trim()), LocalDate.parse(dates[1].trim()));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Dates are YYYY-MM-DD: " + value);
+        }
+        if (range.to().isBefore(range.from())) {
+            throw new IllegalArgumentException("Range ends before it starts: " + value);
+        }
+        return range;
+    }
+
+    private void parseFilter(String value) {
+        int equals = value.indexOf('=');
+        int dimension = equals < 0 ? -1 : DemographicFilter.dimensionOf(value.substring(0, equals));
+        if (dimension < 0) {
+            throw new IllegalArgumentException("A filter is gender, age, income or context=VALUES: " + value);
+        }
+        for (String name : split(value.substring(equals + 1))) {
+            filter.get(dimension).add(DemographicFilter.parseValue(dimension, name));
+        }
+    }
+
+    /**
+     * Processes every campaign on the worker pool.
+     * @return True if every campaign was processed.
+     */
+    private boolean runCampaigns() {
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            err.println("Cannot create directory " + outputDirectory);
+            return false;
+        }
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(threads, campaigns.size()));
+        try {
+            List<Future<List<File>>> results = new ArrayList<>();
+            for (CampaignLogs campaign : campaigns) {
+                results.add(workers.submit(() -> process(campaign)));
+            }
+            boolean succeeded = true;
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    for (File file : results.get(i).get()) {
+                        out.println("Wrote " + file);
+                    }
+                } catch (ExecutionException e) {
+                    err.println("Error processing " + campaigns.get(i).name() + ": " + e.getCause());
+                    succeeded = false;
+                }
+            }
+            return succeeded;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Loads one campaign and writes the results for each range and granularity.
+     * @param campaign The campaign.
+     * @return The files written.
+     * @throws Exception If the logs cannot be read or the results written.
+     */
+    private List<File> process(CampaignLogs campaign) throws Exception {
+        for (File log : List.of(campaign.impressions(), campaign.clicks(), campaign.serverLogs())) {
+            if (!log.isFile()) {
+                throw new IOException("Missing log " + log);
+            }
+        }
+        CampaignData campaignData = new FileParserService().parseCampaignData(campaign.impressions(),
+            campaign.clicks(), campaign.serverLogs(), mode);
+        if (!campaignData.hasImpressions()) {
+            throw new IllegalStateException("No impressions in " + campaign.impressions());
+        }
+
+        Map<Metric, List<Set<Enum<?>>>> filters = new EnumMap<>(Metric.class);
+        for (Metric metric : metrics) {
+            filters.put(metric, filter);
+        }
+        List<File> files = new ArrayList<>();
+        for (DateRange range : ranges) {
+            LocalDate first = range == null ? campaignData.getFirstDate() : range.from();
+            LocalDate last = range == null ? campaignData.getLastDate() : range.to();
+            for (TimeGranularity granularity : granularities) {
+                // Hourly results cover the same days as the others, not just the first as on screen
+                CampaignReport report = CampaignReport.query(campaign.name(), campaignData, first.atStartOfDay(),
+                    last.plusDays(1).atStartOfDay(), granularity, filters);
+                String baseName = campaign.name() + "_" + first + "_" + last + "_"
+                    + granularity.name().toLowerCase(Locale.ROOT);
+                for (ExportWriter.Format format : formats) {
+                    File file = new File(outputDirectory, baseName + "." + format.name().toLowerCase(Locale.ROOT));
+                    try (Writer writer = new BufferedWriter(new FileWriter(file))) {
+                        report.toExportData().write(format, writer);
+                    }
+                    files.add(file);
+                }
+                if (pdf) {
+                    File file = new File(outputDirectory, baseName + ".pdf");
+                    new PdfReportRenderer().render(report, file);
+                    files.add(file);
+                }
+            }
+        }
+        return files;
+    }
+}
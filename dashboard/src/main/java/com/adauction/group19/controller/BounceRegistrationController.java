@@ -1,7 +1,7 @@
 package com.adauction.group19.controller;
 
 import com.adauction.group19.model.BounceCriteria;
-import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.model.CampaignSnapshot;
 import com.adauction.group19.service.CampaignDataStore;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -18,7 +18,7 @@ public class BounceRegistrationController {
     @FXML private Button saveButton, cancelButton;
 
     private Stage stage; // The popup stage if you want to close it
-    private CampaignData campaignData;
+    private CampaignSnapshot campaignData;
     private BounceCriteria bounceCriteria;
     private MetricsScreenController metricsScreenController;
 
@@ -41,10 +41,11 @@ public class BounceRegistrationController {
 
     @FXML
     public void handleSave() {
-        bounceCriteria.setMinPagesViewed((int) minPagesViewed.getValue());
-        bounceCriteria.setMinTimeOnSiteSeconds((int) minTime.getValue());
-        bounceCriteria.setConsiderPagesViewed(considerPagesViewed.isSelected());
-        bounceCriteria.setConsiderTimeOnSite(considerTime.isSelected());
+        bounceCriteria = new BounceCriteria(minPagesViewed.getValue(), minTime.getValue(),
+            considerPagesViewed.isSelected(), considerTime.isSelected());
+        // The stored campaign is frozen, so it is replaced by a view under the new criteria
+        BounceCriteria criteria = bounceCriteria;
+        campaignData = CampaignDataStore.getInstance().updateCampaignData(data -> data.withBounceCriteria(criteria));
 
         metricsScreenController.updateGraph();
 
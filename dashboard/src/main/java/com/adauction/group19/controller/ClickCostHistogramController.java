@@ -1,8 +1,17 @@
 package com.adauction.group19.controller;
 
+import com.adauction.group19.model.AgeRange;
+import com.adauction.group19.model.CampaignSnapshot;
+import com.adauction.group19.model.Context;
+import com.adauction.group19.model.CostQuantileIndex;
+import com.adauction.group19.model.Gender;
+import com.adauction.group19.model.Income;
+import com.adauction.group19.model.QuantileSketch;
+import com.adauction.group19.service.CampaignDataStore;
 import com.adauction.group19.service.ClickDistributionService;
 import com.adauction.group19.view.MainMenuScreen;
 import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
 import javafx.fxml.FXML;
 import javafx.scene.chart.BarChart;
 import javafx.scene.chart.CategoryAxis;
@@ -10,12 +19,19 @@ import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.Spinner;
 import javafx.scene.control.SpinnerValueFactory;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import org.controlsfx.control.CheckComboBox;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class ClickCostHistogramController {
 
@@ -23,10 +39,14 @@ public class ClickCostHistogramController {
     @FXML private Spinner<Integer> binsSpinner;
     @FXML private Button goBackButton;
     @FXML private Button updateButton;
+    @FXML private CheckComboBox<String> genderCheckCombo, ageCheckCombo, incomeCheckCombo, contextCheckCombo;
+    @FXML private Label percentilesLabel;
 
     private Stage stage;
     private final ClickDistributionService service;
     private String currentFilePath;
+    private CampaignSnapshot campaignData;
+    private final Map<String, Enum<?>> filterNameMap = new HashMap<>();
     private BarChart<String, Number> histogram;
     private boolean chartInitialized = false;
 
@@ -50,6 +70,8 @@ public class ClickCostHistogramController {
             }
             
             System.out.println("FXML injection successful");
+
+            setupFilters();
             
             // Initialize the spinner
             if (binsSpinner.getValueFactory() == null) {
@@ -59,6 +81,13 @@ public class ClickCostHistogramController {
                 );
             }
 
+            // Re-binning the loaded campaign is cheap, so follow the spinner directly
+            binsSpinner.valueProperty().addListener((observable, oldValue, newValue) -> {
+                if (chartInitialized && campaignData != null) {
+                    updateHistogram();
+                }
+            });
+
             // Defer chart creation until the scene is ready
             Platform.runLater(this::initializeChart);
             
@@ -114,7 +143,7 @@ public class ClickCostHistogramController {
             System.out.println("Chart initialization complete");
 
             // If we have data waiting to be displayed, show it now
-            if (currentFilePath != null && !currentFilePath.isEmpty()) {
+            if (hasData()) {
                 updateHistogram();
             }
         } catch (Exception e) {
@@ -128,10 +157,17 @@ public class ClickCostHistogramController {
         this.stage = stage;
     }
 
+    /**
+     * Shows the click costs of the loaded campaign, or of the given click log file
+     * when no campaign is loaded.
+     * @param filePath the click log to fall back to, may be null
+     */
     public void loadData(String filePath) {
         try {
-            System.out.println("Loading data from: " + filePath);
+            this.campaignData = CampaignDataStore.getInstance().getCampaignData();
             this.currentFilePath = filePath;
+            System.out.println(campaignData != null ? "Loading data from the loaded campaign"
+                : "Loading data from: " + filePath);
             
             // If the chart isn't ready yet, data will be loaded when it is
             if (!chartInitialized) {
@@ -170,7 +206,7 @@ public class ClickCostHistogramController {
 
     private void updateHistogram() {
         try {
-            if (currentFilePath == null || currentFilePath.isEmpty()) {
+            if (!hasData()) {
                 showError("Data Error", "No data file loaded", "Please load a click log file first.");
                 return;
             }
@@ -183,7 +219,9 @@ public class ClickCostHistogramController {
 
             System.out.println("Updating histogram with bins: " + binsSpinner.getValue());
             int bins = binsSpinner.getValue();
-            Map<Double, Integer> distribution = service.calculateClickCostDistribution(currentFilePath, bins);
+            Map<Double, Integer> distribution = campaignData != null
+                ? service.calculateClickCostDistribution(campaignData, getFilter(), bins)
+                : service.calculateClickCostDistribution(currentFilePath, bins);
             
             if (distribution.isEmpty()) {
                 showError("Data Error", "No data to display", "The click log file contains no valid click cost data.");
@@ -201,6 +239,7 @@ public class ClickCostHistogramController {
             });
             
             histogram.getData().add(series);
+            updatePercentiles();
             System.out.println("Histogram updated successfully");
             
         } catch (Exception e) {
@@ -210,6 +249,89 @@ public class ClickCostHistogramController {
         }
     }
 
+    /**
+     * Shows the median, 90th and 99th percentile click cost of the filtered clicks.
+     */
+    private void updatePercentiles() {
+        if (percentilesLabel == null) {
+            return;
+        }
+        if (campaignData == null) {
+            percentilesLabel.setText("");
+            return;
+        }
+        QuantileSketch costs = campaignData.getTotalCostSketch(CostQuantileIndex.Costs.CLICKS, getFilter());
+        percentilesLabel.setText(String.format("Median: $%.2f   90th: $%.2f   99th: $%.2f",
+            costs.getQuantile(0.5), costs.getQuantile(0.9), costs.getQuantile(0.99)));
+    }
+
+    private boolean hasData() {
+        return campaignData != null || (currentFilePath != null && !currentFilePath.isEmpty());
+    }
+
+    /**
+     * Fills the demographic filter options, as on the graph settings screen.
+     */
+    private void setupFilters() {
+        if (genderCheckCombo == null) {
+            return;
+        }
+        genderCheckCombo.getItems().addAll("Male", "Female");
+        ageCheckCombo.getItems().addAll("Under 25", "25-34", "35-44", "45-54", "Over 54");
+        incomeCheckCombo.getItems().addAll("Low", "Medium", "High");
+        contextCheckCombo.getItems().addAll("News", "Shopping", "Social Media", "Blog");
+
+        filterNameMap.put("Male", Gender.MALE);
+        filterNameMap.put("Female", Gender.FEMALE);
+        filterNameMap.put("Under 25", AgeRange.AGE_25_MINUS);
+        filterNameMap.put("25-34", AgeRange.AGE_25_34);
+        filterNameMap.put("35-44", AgeRange.AGE_35_44);
+        filterNameMap.put("45-54", AgeRange.AGE_45_54);
+        filterNameMap.put("Over 54", AgeRange.AGE_55_PLUS);
+        filterNameMap.put("Low", Income.LOW);
+        filterNameMap.put("Medium", Income.MEDIUM);
+        filterNameMap.put("High", Income.HIGH);
+        filterNameMap.put("News", Context.NEWS);
+        filterNameMap.put("Shopping", Context.SHOPPING);
+        filterNameMap.put("Social Media", Context.SOCIAL_MEDIA);
+        filterNameMap.put("Blog", Context.BLOG);
+
+        ListChangeListener<String> listener = change -> {
+            if (chartInitialized && campaignData != null) {
+                updateHistogram();
+            }
+        };
+        for (CheckComboBox<String> combo : filterCombos()) {
+            combo.getCheckModel().getCheckedItems().addListener(listener);
+        }
+    }
+
+    private List<CheckComboBox<String>> filterCombos() {
+        return List.of(genderCheckCombo, ageCheckCombo, incomeCheckCombo, contextCheckCombo);
+    }
+
+    /**
+     * Returns the checked demographics, in the gender, age, income, context order
+     * used by {@link com.adauction.group19.model.DemographicFilter}. An empty set allows every value.
+     */
+    private List<Set<Enum<?>>> getFilter() {
+        List<Set<Enum<?>>> filter = new ArrayList<>();
+        if (genderCheckCombo == null) {
+            for (int i = 0; i < 4; i++) {
+                filter.add(new HashSet<>());
+            }
+            return filter;
+        }
+        for (CheckComboBox<String> combo : filterCombos()) {
+            Set<Enum<?>> allowed = new HashSet<>();
+            for (String item : combo.getCheckModel().getCheckedItems()) {
+                allowed.add(filterNameMap.get(item));
+            }
+            filter.add(allowed);
+        }
+        return filter;
+    }
+
     private void showError(String title, String header, String content) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle(title);
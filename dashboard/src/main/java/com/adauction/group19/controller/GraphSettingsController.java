@@ -27,7 +27,7 @@ public class GraphSettingsController {
     @FXML private Button saveButton;
 
     private Stage stage; // The popup stage if you want to close it
-    private CampaignData campaignData;
+    private CampaignSnapshot campaignData;
     private MetricsScreenController metricsScreenController;
 
     private String lastTimeInterval = "";
@@ -1,20 +1,20 @@
 package com.adauction.group19.controller;
 
-import com.adauction.group19.model.Campaign;
-import com.adauction.group19.model.CampaignData;
 import com.adauction.group19.model.User;
 import com.adauction.group19.service.*;
-import com.adauction.group19.utils.SerializationUtil;
 import com.adauction.group19.view.MainMenuScreen;
-import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.Cursor;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextField;
+import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
@@ -46,6 +46,25 @@ public class InputDataController {
     private File clickFile;
     private File serverFile;
 
+    /**
+     * The upload progress controls, shown while an upload is running.
+     */
+    @FXML
+    private VBox progressBox;
+    @FXML
+    private ProgressBar progressBar;
+    @FXML
+    private Label statusLabel;
+    @FXML
+    private Button uploadButton;
+    @FXML
+    private Button cancelUploadButton;
+
+    /**
+     * The upload running in the background, if any.
+     */
+    private CampaignIngestionTask ingestionTask;
+
     /**
      * The stage for the screen.
      */
@@ -117,51 +136,59 @@ public class InputDataController {
     }
 
     /**
-     * Handles the upload of the files.
+     * Handles the upload of the files. The campaign is parsed and saved in the background,
+     * and becomes the current campaign as soon as it has been parsed.
      */
     @FXML
     public void handleFileUpload() {
         // All 3 files must be present for upload
         if (impressionFile != null && clickFile != null && serverFile != null) {
-            FileParserService fileParserService = new FileParserService();
-            CampaignData campaignData;
-            try {
-                campaignData = fileParserService.parseCampaignData(impressionFile, clickFile, serverFile);
-            } catch (Exception e) {
-                e.printStackTrace();
-                // throw error message to user
-                Alert alert = new Alert(Alert.AlertType.WARNING);
-                alert.setTitle("Error Parsing Campaign Data");
-                alert.setHeaderText("Error Parsing Campaign Data");
-                alert.setContentText("Error parsing campaign data: " + e.getMessage());
-                alert.showAndWait();
+            if (ingestionTask != null && ingestionTask.isRunning()) {
                 return;
             }
 
-            CampaignDataStore.getInstance().setCampaignData(campaignData);
-
             // Create default campaign name
             User user = UserSession.getInstance().getCurrentUser();
             String campaignName = "Campaign " + (CampaignDataManager.getInstance().getTotalCampaignCount() + 1);
 
-            byte[] data;
-            try {
-                data = SerializationUtil.serialise(campaignData);
-            } catch (Exception e) {
+            CampaignIngestionTask task = new CampaignIngestionTask(impressionFile, clickFile, serverFile,
+                IngestionMode.PARALLEL, user.getId(), campaignName,
+                campaignData -> CampaignDataStore.getInstance().setCampaignData(campaignData));
+            ingestionTask = task;
+
+            task.setOnSucceeded(event -> {
+                showProgress(false);
+                System.out.println("Files uploaded successfully!");
+            });
+            task.setOnCancelled(event -> {
+                showProgress(false);
+                System.out.println("Upload cancelled.");
+            });
+            task.setOnFailed(event -> {
+                showProgress(false);
+                Throwable e = task.getException();
                 e.printStackTrace();
 
                 // throw error message to user
+                String title = task.isParsed() ? "Error Saving Campaign Data" : "Error Parsing Campaign Data";
                 Alert alert = new Alert(Alert.AlertType.WARNING);
-                alert.setTitle("Error Serializing Campaign Data");
-                alert.setHeaderText("Error Serializing Campaign Data");
-                alert.setContentText("Error serializing campaign data: " + e.getMessage());
+                alert.setTitle(title);
+                alert.setHeaderText(title);
+                alert.setContentText(e.getMessage());
                 alert.showAndWait();
-                return;
-            }
+            });
 
-            Campaign campaign = CampaignDataManager.getInstance().addCampaign(user.getId(),campaignName, data);
+            if (progressBar != null) {
+                progressBar.progressProperty().bind(task.progressProperty());
+                statusLabel.textProperty().bind(task.messageProperty());
+                // The campaign is being saved once parsed, which is not interrupted
+                cancelUploadButton.disableProperty().bind(task.parsedProperty());
+            }
+            showProgress(true);
 
-            System.out.println("Files uploaded successfully!");
+            Thread thread = new Thread(task, "campaign-ingestion");
+            thread.setDaemon(true);
+            thread.start();
         } else {
             Alert alert = new Alert(Alert.AlertType.WARNING);
             alert.setTitle("Please Select All Files");
@@ -171,6 +198,34 @@ public class InputDataController {
         }
     }
 
+    /**
+     * Handles the cancel button, stopping an upload that is still being parsed.
+     */
+    @FXML
+    private void handleCancelUpload() {
+        if (ingestionTask != null) {
+            ingestionTask.cancel();
+        }
+    }
+
+    /**
+     * Shows or hides the upload progress controls.
+     * @param uploading Whether an upload is running.
+     */
+    private void showProgress(boolean uploading) {
+        if (progressBox == null) {
+            return;
+        }
+        if (!uploading) {
+            progressBar.progressProperty().unbind();
+            statusLabel.textProperty().unbind();
+            cancelUploadButton.disableProperty().unbind();
+            cancelUploadButton.setDisable(false);
+        }
+        progressBox.setVisible(uploading);
+        progressBox.setManaged(uploading);
+        uploadButton.setDisable(uploading);
+    }
 
     /**
      * Opens a file chooser dialog to select a file.
@@ -141,7 +141,7 @@ public class MainMenuController {
     @FXML
     public void handleManageSavedCampaignsButton(ActionEvent actionEvent) {
         User user = UserSession.getInstance().getCurrentUser();
-        if (CampaignDataManager.getInstance().getUserCampaigns(user.getId(), user.getRole()).isEmpty()) {
+        if (!CampaignDataManager.getInstance().hasUserCampaigns(user.getId(), user.getRole())) {
             Alert alert = new Alert(Alert.AlertType.WARNING);
             alert.setTitle("No saved Campaign Data");
             alert.setHeaderText("Campaign Data Not Found");
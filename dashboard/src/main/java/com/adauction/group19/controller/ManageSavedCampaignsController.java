@@ -1,11 +1,10 @@
 package com.adauction.group19.controller;
 
-import com.adauction.group19.model.Campaign;
-import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.model.CampaignSummary;
 import com.adauction.group19.model.User;
 import com.adauction.group19.model.UserRole;
 import com.adauction.group19.service.*;
-import com.adauction.group19.utils.SerializationUtil;
+import com.adauction.group19.utils.MemoryFootprint;
 import com.adauction.group19.view.MainMenuScreen;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -23,6 +22,7 @@ import javafx.stage.Stage;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 /**
@@ -32,11 +32,18 @@ import java.util.List;
 public class ManageSavedCampaignsController {
 
     public static ManageSavedCampaignsController instance;
-    List<Campaign> campaigns;
+    List<CampaignSummary> campaigns;
+
+    private static final DateTimeFormatter CREATED_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
     @FXML private VBox campaignListContainer;
     private User user;
 
+    /**
+     * The campaign load in progress, if any.
+     */
+    private CampaignLoadTask loadTask;
+
     /**
      * The stage for the screen.
      */
@@ -50,9 +57,9 @@ public class ManageSavedCampaignsController {
         user = UserSession.getInstance().getCurrentUser();
 
         User user = UserSession.getInstance().getCurrentUser();
-        campaigns = CampaignDataManager.getInstance().getUserCampaigns(user.getId(), user.getRole());
+        campaigns = CampaignDataManager.getInstance().getUserCampaignSummaries(user.getId(), user.getRole());
 
-        for (Campaign campaign : campaigns) {
+        for (CampaignSummary campaign : campaigns) {
             if (user.getRole() == UserRole.USER)
                 campaignListContainer.getChildren().add(createUserCampaignRow(campaign));
             else if (user.getRole() == UserRole.ADMIN)
@@ -83,12 +90,33 @@ public class ManageSavedCampaignsController {
         }
     }
 
-    private HBox createAdminCampaignRow(Campaign c) {
+    /**
+     * Creates the name label of a campaign row, with its size, row counts and creation time below.
+     * @param c The campaign.
+     * @return The label box.
+     */
+    private VBox createCampaignLabel(CampaignSummary c) {
+        Label name = new Label(c.getCampaignName());
+        name.getStyleClass().add("label-text");
+
+        StringBuilder details = new StringBuilder(MemoryFootprint.format(c.getDataSize()));
+        if (c.hasRowCounts()) {
+            details.append(String.format(" · %,d impressions · %,d clicks · %,d server log entries",
+                c.getImpressionCount(), c.getClickCount(), c.getServerLogCount()));
+        }
+        if (c.getCreatedAt() != null) {
+            details.append(" · ").append(c.getCreatedAt().format(CREATED_FORMAT));
+        }
+        Label detailLabel = new Label(details.toString());
+
+        return new VBox(2, name, detailLabel);
+    }
+
+    private HBox createAdminCampaignRow(CampaignSummary c) {
         HBox row = new HBox(10);
         row.setAlignment(Pos.CENTER);
 
-        Label name = new Label(c.getCampaignName());
-        name.getStyleClass().add("label-text");
+        VBox name = createCampaignLabel(c);
 
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
@@ -116,12 +144,11 @@ public class ManageSavedCampaignsController {
         return row;
     }
 
-    private HBox createUserCampaignRow(Campaign c) {
+    private HBox createUserCampaignRow(CampaignSummary c) {
         HBox row = new HBox(10);
         row.setAlignment(Pos.CENTER);
 
-        Label name = new Label(c.getCampaignName());
-        name.getStyleClass().add("label-text");
+        VBox name = createCampaignLabel(c);
 
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
@@ -145,12 +172,11 @@ public class ManageSavedCampaignsController {
         return row;
     }
 
-    private HBox createViewerCampaignRow(Campaign c) {
+    private HBox createViewerCampaignRow(CampaignSummary c) {
         HBox row = new HBox(10);
         row.setAlignment(Pos.CENTER);
 
-        Label name = new Label(c.getCampaignName());
-        name.getStyleClass().add("label-text");
+        VBox name = createCampaignLabel(c);
 
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
@@ -166,7 +192,7 @@ public class ManageSavedCampaignsController {
         return row;
     }
 
-    private void onRename(Campaign c) {
+    private void onRename(CampaignSummary c) {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/ChangeName.fxml"));
             Parent root = loader.load();
@@ -190,9 +216,9 @@ public class ManageSavedCampaignsController {
 
     protected void refreshList() {
         campaignListContainer.getChildren().clear();
-        campaigns = CampaignDataManager.getInstance().getUserCampaigns(user.getId(), user.getRole());
+        campaigns = CampaignDataManager.getInstance().getUserCampaignSummaries(user.getId(), user.getRole());
 
-        for (Campaign campaign : campaigns) {
+        for (CampaignSummary campaign : campaigns) {
             if (user.getRole() == UserRole.USER)
                 campaignListContainer.getChildren().add(createUserCampaignRow(campaign));
             else if (user.getRole() == UserRole.ADMIN)
@@ -202,7 +228,7 @@ public class ManageSavedCampaignsController {
         }
     }
 
-    private void onDelete(Campaign c) {
+    private void onDelete(CampaignSummary c) {
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
         alert.setTitle("Delete Campaign");
         alert.setHeaderText("Are you sure you want to delete this campaign?");
@@ -221,32 +247,45 @@ public class ManageSavedCampaignsController {
         });
     }
 
-    private void onLoad(Campaign c) {
-        CampaignData campaignData;
-        try {
-            campaignData = (CampaignData) SerializationUtil.deserialise(c.getData());
-        } catch (Exception e) {
+    private void onLoad(CampaignSummary c) {
+        if (loadTask != null && loadTask.isRunning()) {
+            return;
+        }
+
+        // Decoding a campaign can take a while, so it is done off the JavaFX thread
+        CampaignLoadTask task = new CampaignLoadTask(c, user);
+        loadTask = task;
+        campaignListContainer.setDisable(true);
+
+        task.setOnSucceeded(event -> {
+            campaignListContainer.setDisable(false);
+            CampaignDataStore.getInstance().setCampaignData(task.getValue());
+
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("Campaign Data Loaded");
+            alert.setHeaderText(c.getCampaignName() + " Loaded");
+            alert.setContentText("Campaign data loaded successfully.");
+            alert.showAndWait();
+        });
+        task.setOnFailed(event -> {
+            campaignListContainer.setDisable(false);
+            Throwable e = task.getException();
             e.printStackTrace();
+
             // throw error message to user
             Alert alert = new Alert(Alert.AlertType.WARNING);
             alert.setTitle("Error Loading Campaign Data");
             alert.setHeaderText("Error Loading Campaign Data");
             alert.setContentText("Error loading campaign data: " + e.getMessage());
             alert.showAndWait();
+        });
 
-            return;
-        }
-
-        CampaignDataStore.getInstance().setCampaignData(campaignData);
-
-        Alert alert = new Alert(Alert.AlertType.INFORMATION);
-        alert.setTitle("Campaign Data Loaded");
-        alert.setHeaderText(c.getCampaignName() + " Loaded");
-        alert.setContentText("Campaign data loaded successfully.");
-        alert.showAndWait();
+        Thread thread = new Thread(task, "campaign-load");
+        thread.setDaemon(true);
+        thread.start();
     }
 
-    private void onAssign(Campaign c) {
+    private void onAssign(CampaignSummary c) {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/AssignViewer.fxml"));
             Parent root = loader.load();
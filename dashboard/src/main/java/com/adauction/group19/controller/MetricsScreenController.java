@@ -1,34 +1,36 @@
 package com.adauction.group19.controller;
 
-import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.model.CampaignSnapshot;
+import com.adauction.group19.model.CampaignReport;
 import com.adauction.group19.model.ExportData;
+import com.adauction.group19.model.ExportWriter;
 import com.adauction.group19.model.Gender;
+import com.adauction.group19.model.Metric;
+import com.adauction.group19.model.MetricQueryEngine;
+import com.adauction.group19.model.MetricSeries;
+import com.adauction.group19.model.TimeGranularity;
 import com.adauction.group19.service.CampaignDataStore;
+import com.adauction.group19.service.LatestQueryRunner;
+import com.adauction.group19.service.PdfReportRenderer;
 import com.adauction.group19.utils.ThemeManager;
 import com.adauction.group19.view.MainMenuScreen;
 
 import java.awt.image.BufferedImage;
 import java.io.BufferedWriter;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.WeekFields;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import javax.imageio.ImageIO;
 
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 
 import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -54,6 +56,11 @@ import javafx.util.StringConverter;
  */
 public class MetricsScreenController {
 
+    /**
+     * The buffer size of export writers, so large exports are written in few system calls.
+     */
+    private static final int EXPORT_BUFFER_SIZE = 1 << 16;
+
     @FXML public Button graphSettingsBtn;
     // UI components
     @FXML private LineChart<String, Number> lineChart;
@@ -72,10 +79,11 @@ public class MetricsScreenController {
 
     // Class variables
     private Stage stage;
-    private CampaignData campaignData;
+    private CampaignSnapshot campaignData;
     private LocalDate startDate;
     private LocalDate endDate;
     private TimeGranularity currentGranularity = TimeGranularity.HOURLY;
+    private final LatestQueryRunner queryRunner = new LatestQueryRunner("metric-query");
 
     private Map<String, List<Set<Enum<?>>>> filterMap = new HashMap<>();
     private List<String> metricKeys = List.of(
@@ -92,11 +100,6 @@ public class MetricsScreenController {
             "Bounce Rate"
     );
 
-    // Time granularity enum
-    private enum TimeGranularity {
-        HOURLY, DAILY, WEEKLY
-    }
-
     /**
      * Initializes the controller after FXML is loaded.
      */
@@ -195,22 +198,13 @@ public class MetricsScreenController {
      * Initializes the date range based on available campaign data.
      */
     private void initializeDateRange() {
-        if (campaignData == null || campaignData.getImpressionDates().isEmpty()) {
+        if (campaignData == null || !campaignData.hasImpressions()) {
             return;
         }
 
         // Find the earliest and latest dates in the campaign data
-        List<LocalDateTime> impressionDates = campaignData.getImpressionDates();
-
-        startDate = impressionDates.stream()
-            .map(LocalDateTime::toLocalDate)
-            .min(LocalDate::compareTo)
-            .orElse(LocalDate.now());
-
-        endDate = impressionDates.stream()
-            .map(LocalDateTime::toLocalDate)
-            .max(LocalDate::compareTo)
-            .orElse(LocalDate.now());
+        startDate = campaignData.getFirstDate();
+        endDate = campaignData.getLastDate();
     }
 
     public void setDates(LocalDate startDate, LocalDate endDate) {
@@ -237,20 +231,24 @@ public class MetricsScreenController {
             return;
         }
 
-        // Set summary labels for totals
-        lblImpressions.setText("(" + campaignData.getTotalImpressions(filterMap.get("Impressions")) + ")");
-        lblClicks.setText("(" + campaignData.getTotalClicks(filterMap.get("Clicks")) + ")");
-        lblUniques.setText("(" + campaignData.getTotalUniques(filterMap.get("Uniques")) + ")");
-        lblBounces.setText("(" + campaignData.getTotalBounces(filterMap.get("Bounces")) + ")");
-        lblConversions.setText("(" + campaignData.getTotalConversions(filterMap.get("Conversions")) + ")");
-
-        // Format to 2 decimal places for financial metrics
-        lblTotalCost.setText("($" + formatDouble(campaignData.getTotalCost(filterMap.get("Cost"))) + ")");
-        lblCTR.setText("(" + formatDouble(campaignData.getCTR(filterMap.get("CTR"))) + "%)");
-        lblCPA.setText("($" + formatDouble(campaignData.getCPA(filterMap.get("CPA"))) + ")");
-        lblCPC.setText("($" + formatDouble(campaignData.getCPC(filterMap.get("CPC"))) + ")");
-        lblCPM.setText("($" + formatDouble(campaignData.getCPM(filterMap.get("CPM"))) + ")");
-        lblBounceRate.setText("(" + formatDouble(campaignData.getBounceRate(filterMap.get("Bounce Rate"))) + "%)");
+        // Set summary labels for totals, all from one pass over the campaign data
+        Map<Metric, List<Set<Enum<?>>>> filters = new EnumMap<>(Metric.class);
+        for (Metric metric : Metric.values()) {
+            filters.put(metric, getTotalsFilter(metric));
+        }
+        Map<Metric, Double> totals = new MetricQueryEngine(campaignData).queryTotals(filters);
+        for (Metric metric : Metric.values()) {
+            updateMetricLabel(metric.getDisplayName(), totals.get(metric));
+        }
+    }
+
+    /**
+     * Gets the demographic filter used for the campaign total of a metric.
+     * @param metric The metric.
+     * @return The filter set for the metric in the filter map.
+     */
+    private List<Set<Enum<?>>> getTotalsFilter(Metric metric) {
+        return filterMap.get(metric == Metric.TOTAL_COST ? "Cost" : metric.getDisplayName());
     }
 
     /**
@@ -287,8 +285,8 @@ public class MetricsScreenController {
      */
     private void toggleMetric(String seriesName, CheckBox checkBox, Label label) {
         if (checkBox.isSelected()) {
-            // Add metric series to the chart
-            addMetricSeries(seriesName);
+            // Recompute the selected series, including the new one
+            updateSelectedMetrics();
         } else {
             // Remove the specific series
             lineChart.getData().removeIf(series -> series.getName().equals(seriesName));
@@ -309,49 +307,25 @@ public class MetricsScreenController {
             return;
         }
 
-        switch (seriesName) {
-            case "Impressions":
-                label.setText("(" + campaignData.getTotalImpressions(filterMap.get("Impressions")) + ")");
-                break;
-            case "Clicks":
-                label.setText("(" + campaignData.getTotalClicks(filterMap.get("Clicks")) + ")");
-                break;
-            case "Uniques":
-                label.setText("(" + campaignData.getTotalUniques(filterMap.get("Uniques")) + ")");
-                break;
-            case "Bounces":
-                label.setText("(" + campaignData.getTotalBounces(filterMap.get("Bounces")) + ")");
-                break;
-            case "Conversions":
-                label.setText("(" + campaignData.getTotalConversions(filterMap.get("Conversions")) + ")");
-                break;
-            case "Total Cost":
-                label.setText("($" + formatDouble(campaignData.getTotalCost(filterMap.get("Cost"))) + ")");
-                break;
-            case "CTR":
-                label.setText("(" + formatDouble(campaignData.getCTR(filterMap.get("CTR"))) + "%)");
-                break;
-            case "CPA":
-                label.setText("($" + formatDouble(campaignData.getCPA(filterMap.get("CPA"))) + ")");
-                break;
-            case "CPC":
-                label.setText("($" + formatDouble(campaignData.getCPC(filterMap.get("CPC"))) + ")");
-                break;
-            case "CPM":
-                label.setText("($" + formatDouble(campaignData.getCPM(filterMap.get("CPM"))) + ")");
-                break;
-            case "Bounce Rate":
-                label.setText("(" + formatDouble(campaignData.getBounceRate(filterMap.get("Bounce Rate"))) + "%)");
-                break;
-            default:
-                label.setText("(0)");
+        Metric metric = Metric.fromDisplayName(seriesName);
+        if (metric == null) {
+            label.setText("(0)");
+            return;
         }
+        Map<Metric, List<Set<Enum<?>>>> filters = new EnumMap<>(Metric.class);
+        filters.put(metric, getTotalsFilter(metric));
+        updateMetricLabel(seriesName, new MetricQueryEngine(campaignData).queryTotals(filters).get(metric));
     }
 
     /**
      * Updates the graph based on the selected date range and granularity.
      */
     public void updateGraph() {
+        // The stored campaign may have been replaced, e.g. by a view under other bounce criteria
+        CampaignSnapshot current = CampaignDataStore.getInstance().getCampaignData();
+        if (current != null) {
+            campaignData = current;
+        }
         if (campaignData == null) {
             return;
         }
@@ -386,116 +360,119 @@ public class MetricsScreenController {
      * Updates all selected metric series on the graph.
      */
     private void updateSelectedMetrics() {
-        if (chkImpressions.isSelected()) addMetricSeries("Impressions");
-        if (chkClicks.isSelected()) addMetricSeries("Clicks");
-        if (chkUniques.isSelected()) addMetricSeries("Uniques");
-        if (chkBounces.isSelected()) addMetricSeries("Bounces");
-        if (chkConversions.isSelected()) addMetricSeries("Conversions");
-        if (chkTotalCost.isSelected()) addMetricSeries("Total Cost");
-        if (chkCTR.isSelected()) addMetricSeries("CTR");
-        if (chkCPA.isSelected()) addMetricSeries("CPA");
-        if (chkCPC.isSelected()) addMetricSeries("CPC");
-        if (chkCPM.isSelected()) addMetricSeries("CPM");
-        if (chkBounceRate.isSelected()) addMetricSeries("Bounce Rate");
+        List<String> selected = new ArrayList<>();
+        if (chkImpressions.isSelected()) selected.add("Impressions");
+        if (chkClicks.isSelected()) selected.add("Clicks");
+        if (chkUniques.isSelected()) selected.add("Uniques");
+        if (chkBounces.isSelected()) selected.add("Bounces");
+        if (chkConversions.isSelected()) selected.add("Conversions");
+        if (chkTotalCost.isSelected()) selected.add("Total Cost");
+        if (chkCTR.isSelected()) selected.add("CTR");
+        if (chkCPA.isSelected()) selected.add("CPA");
+        if (chkCPC.isSelected()) selected.add("CPC");
+        if (chkCPM.isSelected()) selected.add("CPM");
+        if (chkBounceRate.isSelected()) selected.add("Bounce Rate");
+        addMetricSeries(selected);
     }
 
     /**
-     * Adds a metric series to the line chart.
-     * @param seriesName The name of the series.
+     * Computes metric series in the background and shows them on the line chart
+     * once they are ready. All of the series are computed together in one pass
+     * over the campaign data. A newer request cancels this one, so only the
+     * series for the latest settings are shown.
+     * @param seriesNames The names of the series.
      */
-    private void addMetricSeries(String seriesName) {
-        if (campaignData == null) {
+    private void addMetricSeries(List<String> seriesNames) {
+        if (campaignData == null || startDate == null || endDate == null || seriesNames.isEmpty()) {
+            queryRunner.cancel();
             return;
         }
 
-        XYChart.Series<String, Number> series = new XYChart.Series<>();
-        series.setName(seriesName);
-
-        // Get the x-axis labels
+        // Copy the settings, as the query reads them off the JavaFX thread
+        Map<Metric, List<Set<Enum<?>>>> filters = new EnumMap<>(Metric.class);
+        for (String seriesName : seriesNames) {
+            filters.put(Metric.fromDisplayName(seriesName), copyFilter(getFilterForSeries(seriesName)));
+        }
+        TimeGranularity granularity = currentGranularity;
+        CampaignSnapshot data = campaignData;
         List<String> xLabels = getXAxisLabels();
 
-        // Track period total for the label
-        double periodTotal = 0;
-
-        // For metrics that need special handling (unique users, bounce rate)
-        if (seriesName.equals("Uniques") || seriesName.equals("Bounces")) {
-            if (currentGranularity == TimeGranularity.HOURLY) {
-                // For hourly granularity, show daily values across all hours
-                for (String xLabel : xLabels) {
-                    LocalDateTime dateTime = parseXAxisLabel(xLabel);
-                    double value = seriesName.equals("Uniques")
-                        ? campaignData.getUniquesForDate(dateTime, filterMap.get("Uniques"))
-                        : campaignData.getBouncesForDate(dateTime, filterMap.get("Bounce Rate"));
-                    series.getData().add(new XYChart.Data<>(xLabel, value));
-                    periodTotal += value;
-                }
-            } else {
-                // For daily/weekly granularity
-                if (seriesName.equals("Uniques")) {
-                    // For uniques, track unique IDs over the period
-                    Set<Object> periodUniqueIds = new HashSet<>();
-
-                    for (String xLabel : xLabels) {
-                        LocalDateTime dateTime = parseXAxisLabel(xLabel);
-                        int uniquesValue = campaignData.getUniquesForDate(dateTime, filterMap.get("Uniques"));
-                        series.getData().add(new XYChart.Data<>(xLabel, uniquesValue));
-
-                        // Collect unique IDs for the period total
-                        for (Object[] impression : campaignData.getImpressions(filterMap.get("Impressions"))) {
-                            LocalDateTime impressionTime = (LocalDateTime) impression[0];
-
-                            if (isInTimeRange(impressionTime, dateTime)) {
-                                periodUniqueIds.add(impression[1]); // ID at index 1
-                            }
-                        }
-                    }
-                    periodTotal = periodUniqueIds.size();
-                } else {
-                    // For bounces, sum values
-                    for (String xLabel : xLabels) {
-                        LocalDateTime dateTime = parseXAxisLabel(xLabel);
-                        int bounceValue = campaignData.getBouncesForDate(dateTime, filterMap.get("Bounce Rate"));
-                        series.getData().add(new XYChart.Data<>(xLabel, bounceValue));
-                        periodTotal += bounceValue;
-                    }
-                }
+        // Bucket i of the query covers the period of x-axis label i
+        LocalDateTime from = startDate.atStartOfDay();
+        LocalDateTime to = getRangeEnd(from, granularity);
+
+        queryRunner.submit(() -> new MetricQueryEngine(data).query(from, to, granularity, filters),
+            results -> showMetricSeries(seriesNames, xLabels, results));
+    }
+
+    /**
+     * Replaces the chart series with newly computed values. Series unchecked while
+     * they were being computed are left out.
+     * @param seriesNames The names of the series, in the order to add them.
+     * @param xLabels The x-axis labels the values were computed for.
+     * @param results The computed series.
+     */
+    private void showMetricSeries(List<String> seriesNames, List<String> xLabels, Map<Metric, MetricSeries> results) {
+        lineChart.getData().removeIf(series -> seriesNames.contains(series.getName()));
+
+        for (String seriesName : seriesNames) {
+            CheckBox checkBox = getCheckBoxForSeries(seriesName);
+            if (checkBox != null && !checkBox.isSelected()) {
+                continue;
             }
-        } else {
-            // For regular metrics, just get the value for each label
-            for (String xLabel : xLabels) {
-                LocalDateTime dateTime = parseXAxisLabel(xLabel);
-                double value = getMetricValueForDateTime(seriesName, dateTime);
-                series.getData().add(new XYChart.Data<>(xLabel, value));
-                periodTotal += value;
+            MetricSeries values = results.get(Metric.fromDisplayName(seriesName));
+
+            XYChart.Series<String, Number> series = new XYChart.Series<>();
+            series.setName(seriesName);
+            for (int i = 0; i < xLabels.size() && i < values.size(); i++) {
+                series.getData().add(new XYChart.Data<>(xLabels.get(i), values.getValue(i)));
             }
+            lineChart.getData().add(series);
+
+            // Update the label with the period total
+            updateMetricLabel(seriesName, values.getTotal());
         }
+    }
 
-        // Add the series to the chart
-        lineChart.getData().add(series);
+    /**
+     * Gets the end of the range shown on the chart: one day for the hourly view and
+     * the selected end date otherwise.
+     * @param from The start of the range.
+     * @param granularity The granularity of the chart.
+     * @return The end of the range, exclusive.
+     */
+    private LocalDateTime getRangeEnd(LocalDateTime from, TimeGranularity granularity) {
+        return granularity == TimeGranularity.HOURLY
+            ? from.plusDays(1)
+            : endDate.plusDays(1).atStartOfDay();
+    }
 
-        // Update the label with the period total
-        updateMetricLabel(seriesName, periodTotal);
+    /**
+     * Copies a filter so later changes to the filter map do not affect a running query.
+     * @param filter The filter to copy, may be null.
+     * @return The copy.
+     */
+    private static List<Set<Enum<?>>> copyFilter(List<Set<Enum<?>>> filter) {
+        if (filter == null) {
+            return null;
+        }
+        List<Set<Enum<?>>> copy = new ArrayList<>(filter.size());
+        for (Set<Enum<?>> values : filter) {
+            copy.add(values == null ? null : new HashSet<>(values));
+        }
+        return copy;
     }
 
     /**
-     * Checks if an impression time is within the time range of the x-axis label.
-     * @param impressionTime The time of the impression.
-     * @param labelTime The time represented by the x-axis label.
-     * @return True if the impression time is within the time range.
+     * Gets the demographic filter for a series.
+     * @param seriesName The name of the series.
+     * @return The filter set for the series in the filter map.
      */
-    private boolean isInTimeRange(LocalDateTime impressionTime, LocalDateTime labelTime) {
-        switch (currentGranularity) {
-            case HOURLY:
-                return impressionTime.getHour() == labelTime.getHour() &&
-                    impressionTime.toLocalDate().equals(labelTime.toLocalDate());
-            case WEEKLY:
-                WeekFields weekFields = WeekFields.of(Locale.getDefault());
-                return impressionTime.get(weekFields.weekOfWeekBasedYear()) ==
-                    labelTime.get(weekFields.weekOfWeekBasedYear()) &&
-                    impressionTime.getYear() == labelTime.getYear();
-            case DAILY:
-            default:
-                return impressionTime.toLocalDate().equals(labelTime.toLocalDate());
+    private List<Set<Enum<?>>> getFilterForSeries(String seriesName) {
+        switch (seriesName) {
+            case "Total Cost": return filterMap.get("Cost");
+            case "Bounces": return filterMap.get("Bounce Rate");
+            default: return filterMap.get(seriesName);
         }
     }
 
@@ -517,6 +494,28 @@ public class MetricsScreenController {
         }
     }
 
+    /**
+     * Gets the checkbox for a series.
+     * @param seriesName The name of the series.
+     * @return The checkbox for the series.
+     */
+    private CheckBox getCheckBoxForSeries(String seriesName) {
+        switch (seriesName) {
+            case "Impressions": return chkImpressions;
+            case "Clicks": return chkClicks;
+            case "Uniques": return chkUniques;
+            case "Bounces": return chkBounces;
+            case "Conversions": return chkConversions;
+            case "Total Cost": return chkTotalCost;
+            case "CTR": return chkCTR;
+            case "CPA": return chkCPA;
+            case "CPC": return chkCPC;
+            case "CPM": return chkCPM;
+            case "Bounce Rate": return chkBounceRate;
+            default: return null;
+        }
+    }
+
     /**
      * Gets the label for a series.
      * @param seriesName The name of the series.
@@ -539,90 +538,6 @@ public class MetricsScreenController {
         }
     }
 
-    /**
-     * Gets the metric value for a specific date and time.
-     * @param seriesName The name of the series.
-     * @param dateTime The date and time to get the value for.
-     * @return The metric value.
-     */
-    private double getMetricValueForDateTime(String seriesName, LocalDateTime dateTime) {
-        switch (seriesName) {
-            case "Impressions":
-                return currentGranularity == TimeGranularity.HOURLY
-                    ? campaignData.getHourlyImpressions(dateTime, filterMap.get("Impressions"))
-                    : campaignData.getImpressionsForDate(dateTime, filterMap.get("Impressions"));
-            case "Clicks":
-                return currentGranularity == TimeGranularity.HOURLY
-                    ? campaignData.getHourlyClicks(dateTime, filterMap.get("Clicks"))
-                    : campaignData.getClicksForDate(dateTime, filterMap.get("Clicks"));
-            case "Conversions":
-                return currentGranularity == TimeGranularity.HOURLY
-                    ? campaignData.getHourlyConversions(dateTime, filterMap.get("Conversions"))
-                    : campaignData.getConversionsForDate(dateTime, filterMap.get("Conversions"));
-            case "Total Cost":
-                return currentGranularity == TimeGranularity.HOURLY
-                    ? campaignData.getHourlyTotalCost(dateTime, filterMap.get("Cost"))
-                    : campaignData.getTotalCostForDate(dateTime, filterMap.get("Cost"));
-            case "CTR":
-                return currentGranularity == TimeGranularity.HOURLY
-                    ? campaignData.getHourlyCTR(dateTime, filterMap.get("CTR"))
-                    : campaignData.getCTRForDate(dateTime, filterMap.get("CTR"));
-            case "CPA":
-                return currentGranularity == TimeGranularity.HOURLY
-                    ? campaignData.getHourlyCPA(dateTime, filterMap.get("CPA"))
-                    : campaignData.getCPAForDate(dateTime, filterMap.get("CPA"));
-            case "CPC":
-                return currentGranularity == TimeGranularity.HOURLY
-                    ? campaignData.getHourlyCPC(dateTime, filterMap.get("CPC"))
-                    : campaignData.getCPCForDate(dateTime, filterMap.get("CPC"));
-            case "CPM":
-                return currentGranularity == TimeGranularity.HOURLY
-                    ? campaignData.getHourlyCPM(dateTime, filterMap.get("CPM"))
-                    : campaignData.getCPMForDate(dateTime, filterMap.get("CPM"));
-            case "Bounce Rate":
-                return currentGranularity == TimeGranularity.HOURLY
-                    ? campaignData.getHourlyBounceRate(dateTime, filterMap.get("Bounce Rate"))
-                    : campaignData.getBounceRateForDate(dateTime, filterMap.get("Bounce Rate"));
-            case "Uniques":
-                return campaignData.getUniquesForDate(dateTime, filterMap.get("Uniques"));
-            case "Bounces":
-                return campaignData.getBouncesForDate(dateTime, filterMap.get("Bounce Rate"));
-            default:
-                return 0.0;
-        }
-    }
-
-    /**
-     * Parses an X-axis label into a LocalDateTime object.
-     * @param label The label to parse.
-     * @return The LocalDateTime object.
-     */
-    private LocalDateTime parseXAxisLabel(String label) {
-        try {
-            switch (currentGranularity) {
-                case HOURLY:
-                    // Format: YYYY-MM-DD HH:mm
-                    return LocalDateTime.parse(label, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-                case WEEKLY:
-                    // Format: YYYY-WW (Week of year)
-                    String[] parts = label.split("-W");
-                    int year = Integer.parseInt(parts[0]);
-                    int weekOfYear = Integer.parseInt(parts[1]);
-                    WeekFields weekFields = WeekFields.of(Locale.getDefault());
-                    return LocalDate.ofYearDay(year, 1)
-                        .with(weekFields.weekOfWeekBasedYear(), weekOfYear)
-                        .atStartOfDay();
-                case DAILY:
-                default:
-                    // Format: YYYY-MM-DD
-                    return LocalDate.parse(label).atStartOfDay();
-            }
-        } catch (Exception e) {
-            System.err.println("Error parsing label: " + label + " - " + e.getMessage());
-            return LocalDateTime.now();
-        }
-    }
-
     /**
      * Generates X-axis labels based on the current date range and granularity.
      * @return List of X-axis labels.
@@ -687,42 +602,6 @@ public class MetricsScreenController {
         this.stage = stage;
     }
 
-    /**
-     * Gets the export data.
-     * @return The export data.
-     */
-    public ExportData getExportData() {
-        List<XYChart.Series<String, Number>> series = lineChart.getData();
-        if (series.isEmpty()) {
-            Alert alert = new Alert(Alert.AlertType.ERROR);
-            alert.setTitle("Error");
-            alert.setHeaderText("No data to export");
-            alert.setContentText("Please select a date range and add some data to the graph.");
-            alert.showAndWait();
-            return null;
-        }
-
-        List<String> header = series.stream()
-            .map(XYChart.Series::getName)
-            .toList();
-
-        Set<String> allDates = series.stream()
-            .flatMap(s -> s.getData().stream().map(XYChart.Data::getXValue))
-            .collect(Collectors.toCollection(TreeSet::new));
-        TreeMap<String, List<Number>> dateToValue = new TreeMap<>();
-        for (String date : allDates) {
-            dateToValue.put(date, new ArrayList<>());
-        }
-
-        for (XYChart.Series<String, Number> s : series) {
-            for (XYChart.Data<String, Number> d : s.getData()) {
-                dateToValue.get(d.getXValue()).add(d.getYValue());
-            }
-        }
-
-        return new ExportData(header, dateToValue);
-    }
-
     /**
      * Chooses a file to export the data to.
      * @param format The format to export the data to.
@@ -744,20 +623,98 @@ public class MetricsScreenController {
      * @param data The text data to export.
      */
     public void exportTextFile(String format, String data) {
+        exportTextFile(format, writer -> writer.write(data));
+    }
+
+    /**
+     * Chooses a file and streams an export into it through a buffered writer.
+     * @param format The format to export the data to.
+     * @param export Writes the export.
+     */
+    private void exportTextFile(String format, TextExport export) {
         File file = chooseFile(format);
         if (file != null) {
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-                writer.write(data);
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(file), EXPORT_BUFFER_SIZE)) {
+                export.writeTo(writer);
             } catch (IOException e) {
-                Alert alert = new Alert(Alert.AlertType.ERROR);
-                alert.setTitle("Error");
-                alert.setHeaderText("Error exporting file");
-                alert.setContentText("Error exporting file: " + e.getMessage());
-                alert.showAndWait();
+                showExportError(e);
             }
         }
     }
 
+    /**
+     * Writes an export to a writer.
+     */
+    @FunctionalInterface
+    private interface TextExport {
+        void writeTo(Writer writer) throws IOException;
+    }
+
+    private static void showExportSaved(String title, String header, File file) {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle(title);
+        alert.setHeaderText(header);
+        alert.setContentText("Saved to " + file.getAbsolutePath());
+        alert.showAndWait();
+    }
+
+    private static void showExportError(Throwable e) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Error");
+        alert.setHeaderText("Error exporting file");
+        alert.setContentText("Error exporting file: " + e.getMessage());
+        alert.showAndWait();
+    }
+
+    /**
+     * Writes the chart's points straight from its series, one row per x-axis label
+     * in axis order, without copying them into an {@link ExportData} first.
+     * @param format The format to write.
+     * @param out Where to write.
+     * @throws IOException If writing fails.
+     */
+    private void writeChartData(ExportWriter.Format format, Writer out) throws IOException {
+        List<XYChart.Series<String, Number>> series = new ArrayList<>(lineChart.getData());
+        List<String> header = series.stream().map(XYChart.Series::getName).toList();
+        // Each series holds its points in axis order, so one position per series is enough
+        int[] positions = new int[series.size()];
+        Number[] values = new Number[series.size()];
+        List<Number> row = Arrays.asList(values);
+        try (ExportWriter writer = ExportWriter.create(format, out, "Date", header)) {
+            for (String label : xAxis.getCategories()) {
+                boolean found = false;
+                for (int i = 0; i < values.length; i++) {
+                    List<XYChart.Data<String, Number>> data = series.get(i).getData();
+                    if (positions[i] < data.size() && data.get(positions[i]).getXValue().equals(label)) {
+                        values[i] = data.get(positions[i]++).getYValue();
+                        found = true;
+                    } else {
+                        values[i] = Double.NaN;
+                    }
+                }
+                if (found) {
+                    writer.writeRow(label, row);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks there is a chart to export, telling the user if not.
+     * @return True if the chart has data.
+     */
+    private boolean hasChartData() {
+        if (lineChart.getData().isEmpty()) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Error");
+            alert.setHeaderText("No data to export");
+            alert.setContentText("Please select a date range and add some data to the graph.");
+            alert.showAndWait();
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Get the Image of the LineChart.
      * @return The Image of the LineChart.
@@ -889,90 +846,39 @@ public class MetricsScreenController {
 
     @FXML
     public void handleExportPDF(ActionEvent actionEvent) {
+        if (!hasChartData() || startDate == null || endDate == null) {
+            return;
+        }
         File file = chooseFile("pdf");
         if (file == null) {
             return;
         }
-    
-        try (PDDocument document = new PDDocument()) {
-            // Create first page
-            PDPage page = new PDPage(PDRectangle.A4);
-            document.addPage(page);
-            
-            // Get the chart image
-            BufferedImage chartImage = getLineChartImage();
-            ByteArrayOutputStream chartBaos = new ByteArrayOutputStream();
-            ImageIO.write(chartImage, "png", chartBaos);
-            byte[] chartImageBytes = chartBaos.toByteArray();
-            PDImageXObject pdImage = PDImageXObject.createFromByteArray(document, chartImageBytes, "chart");
-    
-            // Calculate dimensions with margins
-            float margin = 30; // 30 points (~10mm) margin on all sides
-            float pageWidth = PDRectangle.A4.getWidth() - 2 * margin;
-            float pageHeight = PDRectangle.A4.getHeight() - 2 * margin;
-            
-            // Scale image to fit page width while maintaining aspect ratio
-            float scale = Math.min(pageWidth / pdImage.getWidth(), (pageHeight * 0.6f) / pdImage.getHeight());
-            float scaledWidth = pdImage.getWidth() * scale;
-            float scaledHeight = pdImage.getHeight() * scale;
-    
-            // First content stream for the first page
-            PDPageContentStream contentStream = new PDPageContentStream(document, page);
-            
-            try {
-                // Add title
-                contentStream.beginText();
-                contentStream.setFont(PDType1Font.HELVETICA_BOLD, 16);
-                contentStream.newLineAtOffset(margin, PDRectangle.A4.getHeight() - margin - 20);
-                contentStream.showText("Campaign Performance Report");
-                contentStream.endText();
-    
-                // Add chart image (centered horizontally)
-                float imageX = margin + (pageWidth - scaledWidth) / 2;
-                float imageY = PDRectangle.A4.getHeight() - margin - scaledHeight - 30;
-                contentStream.drawImage(pdImage, imageX, imageY, scaledWidth, scaledHeight);
-    
-                // Add the analysis text
-                String analysisText = getPerformanceAnalysisText();
-                contentStream.beginText();
-                contentStream.setFont(PDType1Font.HELVETICA, 14);
-                contentStream.newLineAtOffset(margin, imageY-20);
-                
-                // Split text into lines and add to PDF
-                for (String line : analysisText.split("\n")) {
-                    String text = line.trim();
-                    if (text.startsWith("#")) {
-                        text = text.substring(1);
-                        contentStream.setFont(PDType1Font.HELVETICA_BOLD, 14);
-                    } else {
-                        contentStream.setFont(PDType1Font.HELVETICA, 12);
-                    }
-                    contentStream.showText(text);
-                    contentStream.newLineAtOffset(0, -15); // Move to next line
-                }
-                contentStream.endText();
-    
-                // Add footer to last page
-                contentStream.beginText();
-                contentStream.setFont(PDType1Font.HELVETICA_OBLIQUE, 8);
-                contentStream.newLineAtOffset(margin, margin - 10);
-                contentStream.showText("Generated on: " + LocalDate.now().format(DateTimeFormatter.ISO_DATE));
-                contentStream.endText();
-            } finally {
-                contentStream.close();
-            }
-    
-            document.save(file);
-            System.out.println("PDF generated at: " + file.getAbsolutePath());
-            System.out.println("File size: " + file.length() + " bytes");
-            System.out.println("Content written:\n" + getPerformanceAnalysisText());
-        } catch (IOException e) {
-            Alert alert = new Alert(Alert.AlertType.ERROR);
-            alert.setTitle("Error");
-            alert.setHeaderText("Error exporting file");
-            alert.setContentText("Error exporting file: " + e.getMessage());
-            alert.showAndWait();
+
+        // Copy the settings of the chart, as the report is made off the JavaFX thread
+        Map<Metric, List<Set<Enum<?>>>> filters = new EnumMap<>(Metric.class);
+        for (XYChart.Series<String, Number> series : lineChart.getData()) {
+            filters.put(Metric.fromDisplayName(series.getName()), copyFilter(getFilterForSeries(series.getName())));
         }
+        TimeGranularity granularity = currentGranularity;
+        CampaignSnapshot data = campaignData;
+        LocalDateTime from = startDate.atStartOfDay();
+        LocalDateTime to = getRangeEnd(from, granularity);
+        List<String> notes = Arrays.asList(getPerformanceAnalysisText().split("\n"));
+
+        Task<Void> export = new Task<>() {
+            @Override
+            protected Void call() throws IOException {
+                CampaignReport report = CampaignReport.query("Campaign Performance Report", data, from, to,
+                    granularity, filters).withNotes(notes);
+                new PdfReportRenderer().render(report, file);
+                return null;
+            }
+        };
+        export.setOnSucceeded(event -> showExportSaved("Export PDF", "Report exported", file));
+        export.setOnFailed(event -> showExportError(export.getException()));
+        Thread thread = new Thread(export, "pdf-export");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     /**
@@ -981,12 +887,9 @@ public class MetricsScreenController {
      */
     @FXML
     public void handleExportCSV(ActionEvent actionEvent) {
-        ExportData exportData = getExportData();
-        if (exportData == null) {
-            return;
+        if (hasChartData()) {
+            exportTextFile("csv", writer -> writeChartData(ExportWriter.Format.CSV, writer));
         }
-        String csv = exportData.toCSV();
-        exportTextFile("csv", csv);
     }
 
 
@@ -996,12 +899,70 @@ public class MetricsScreenController {
      */
     @FXML
     public void handleExportJSON(ActionEvent actionEvent) {
-        ExportData exportData = getExportData();
-        if (exportData == null) {
+        if (hasChartData()) {
+            exportTextFile("json", writer -> writeChartData(ExportWriter.Format.JSON, writer));
+        }
+    }
+
+    /**
+     * Handles the export events button. Exports every impression, click or server
+     * log entry passing that metric's filter, as CSV or JSON by the file chosen.
+     * The rows are streamed to the file in the background.
+     * @param actionEvent The action event.
+     */
+    @FXML
+    public void handleExportEvents(ActionEvent actionEvent) {
+        if (campaignData == null) {
             return;
         }
-        String json = exportData.toJSON();
-        exportTextFile("json", json);
+        ChoiceDialog<String> logDialog = new ChoiceDialog<>("Impressions", "Impressions", "Clicks", "Server Logs");
+        logDialog.setTitle("Export Events");
+        logDialog.setHeaderText("Which events do you want to export?");
+        Optional<String> log = logDialog.showAndWait();
+        if (log.isEmpty()) {
+            return;
+        }
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export " + log.get());
+        fileChooser.setInitialFileName(log.get().toLowerCase().replace(' ', '_'));
+        fileChooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("csv file", "*.csv"),
+            new FileChooser.ExtensionFilter("json file", "*.json")
+        );
+        File file = fileChooser.showSaveDialog(stage);
+        if (file == null) {
+            return;
+        }
+        ExportWriter.Format format = file.getName().toLowerCase().endsWith(".json")
+            ? ExportWriter.Format.JSON
+            : ExportWriter.Format.CSV;
+
+        CampaignSnapshot data = campaignData;
+        String logName = log.get();
+        List<Set<Enum<?>>> filter = copyFilter(getTotalsFilter(switch (logName) {
+            case "Clicks" -> Metric.CLICKS;
+            case "Server Logs" -> Metric.CONVERSIONS;
+            default -> Metric.IMPRESSIONS;
+        }));
+        Task<Void> export = new Task<>() {
+            @Override
+            protected Void call() throws IOException {
+                try (BufferedWriter writer = new BufferedWriter(new FileWriter(file), EXPORT_BUFFER_SIZE)) {
+                    switch (logName) {
+                        case "Clicks" -> data.exportClicks(filter, format, writer);
+                        case "Server Logs" -> data.exportServerLogs(filter, format, writer);
+                        default -> data.exportImpressions(filter, format, writer);
+                    }
+                }
+                return null;
+            }
+        };
+        export.setOnSucceeded(event -> showExportSaved("Export Events", logName + " exported", file));
+        export.setOnFailed(event -> showExportError(export.getException()));
+        Thread thread = new Thread(export, "event-export");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     /**
@@ -1010,6 +971,7 @@ public class MetricsScreenController {
      */
     @FXML
     public void handleBackButton(ActionEvent actionEvent) {
+        queryRunner.shutdown();
         if (stage != null) {
             Scene mainMenuScene = MainMenuScreen.getScene(stage);
             stage.setScene(mainMenuScene);
@@ -1024,21 +986,13 @@ public class MetricsScreenController {
      */
     @FXML
     public void handleQuickDateRange(ActionEvent actionEvent) {
-        if (campaignData == null || campaignData.getImpressionDates().isEmpty()) {
+        if (campaignData == null || !campaignData.hasImpressions()) {
             return;
         }
 
         // Get campaign date range
-        List<LocalDateTime> impressionDates = campaignData.getImpressionDates();
-        LocalDate firstDate = impressionDates.stream()
-            .map(LocalDateTime::toLocalDate)
-            .min(LocalDate::compareTo)
-            .orElse(LocalDate.now());
-
-        LocalDate lastDate = impressionDates.stream()
-            .map(LocalDateTime::toLocalDate)
-            .max(LocalDate::compareTo)
-            .orElse(LocalDate.now());
+        LocalDate firstDate = campaignData.getFirstDate();
+        LocalDate lastDate = campaignData.getLastDate();
 
         // Set date range based on button clicked
         Button sourceButton = (Button) actionEvent.getSource();
@@ -1,6 +1,7 @@
 package com.adauction.group19.model;
 
 import java.io.Serializable;
+import java.util.Objects;
 
 /**
  * This class encapsulates the criteria used to determine if a session should be
@@ -46,6 +47,14 @@ public class BounceCriteria implements Serializable {
     this.considerTimeOnSite = considerTimeOnSite;
   }
 
+  /**
+   * Creates a copy of the given bounce criteria
+   * @param other The criteria to copy
+   */
+  public BounceCriteria(BounceCriteria other) {
+    this(other.minPagesViewed, other.minTimeOnSiteSeconds, other.considerPagesViewed, other.considerTimeOnSite);
+  }
+
   // Getters and setters
   public int getMinPagesViewed() {
     return minPagesViewed;
@@ -78,4 +87,55 @@ public class BounceCriteria implements Serializable {
   public void setConsiderTimeOnSite(boolean considerTimeOnSite) {
     this.considerTimeOnSite = considerTimeOnSite;
   }
-}
\ No newline at end of file
+
+  /**
+   * Determines if a session is a bounce under these criteria.
+   * @param entryEpochSecond The entry time in epoch seconds, {@link EpochSeconds#ABSENT} if unknown
+   * @param exitEpochSecond The exit time in epoch seconds, {@link EpochSeconds#ABSENT} if unknown
+   * @param pagesViewed The number of pages viewed
+   * @return true if the session is considered a bounce, false otherwise
+   */
+  public boolean isBounce(long entryEpochSecond, long exitEpochSecond, int pagesViewed) {
+    boolean hasTimeOnPage = entryEpochSecond != EpochSeconds.ABSENT && exitEpochSecond != EpochSeconds.ABSENT;
+
+    // Calculate time on page if both timestamps are present
+    long timeOnPageSeconds = hasTimeOnPage ? exitEpochSecond - entryEpochSecond : 0;
+
+    // Check if it's a bounce based on pages viewed
+    boolean bounceByPages = considerPagesViewed && pagesViewed < minPagesViewed;
+
+    // Check if it's a bounce based on time on site
+    boolean bounceByTime = considerTimeOnSite && hasTimeOnPage && timeOnPageSeconds < minTimeOnSiteSeconds;
+
+    // If considering both criteria, consider it a bounce if either is true
+    if (considerPagesViewed && considerTimeOnSite) {
+      return bounceByPages || bounceByTime;
+    }
+    // Otherwise, only consider the criteria that are enabled
+    else if (considerPagesViewed) {
+      return bounceByPages;
+    }
+    else if (considerTimeOnSite) {
+      return bounceByTime;
+    }
+
+    // If no criteria are enabled, default to no bounces
+    return false;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof BounceCriteria)) return false;
+    BounceCriteria that = (BounceCriteria) o;
+    return minPagesViewed == that.minPagesViewed
+        && minTimeOnSiteSeconds == that.minTimeOnSiteSeconds
+        && considerPagesViewed == that.considerPagesViewed
+        && considerTimeOnSite == that.considerTimeOnSite;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(minPagesViewed, minTimeOnSiteSeconds, considerPagesViewed, considerTimeOnSite);
+  }
+}
@@ -0,0 +1,163 @@
+package com.adauction.group19.model;
+
+import java.util.Arrays;
+
+/**
+ * Derived server log columns for counting bounces under any {@link BounceCriteria}.
+ * <p>
+ * Each session's time on site is kept as whole seconds and its pages viewed as a
+ * short, so checking a row against the criteria is two array reads. The sessions
+ * are also sorted by (segment, pages viewed, time on site). Within one segment and
+ * pages viewed value, the sessions that bounce by time are a prefix of the sorted
+ * run, so the campaign's bounce count for any criteria and filter is found by
+ * binary search without visiting the rows.
+ */
+public class BounceIndex {
+
+    /**
+     * The time on site of a session without both an entry and exit time.
+     * Sorts before every real time on site.
+     */
+    static final int NO_DWELL = Integer.MIN_VALUE;
+
+    private final int[] dwellSeconds;
+    private final short[] pagesViewed;
+
+    /**
+     * The time on site of every session, in (segment, pages viewed, time) order.
+     */
+    private final int[] sortedDwell;
+
+    /**
+     * Runs of {@link #sortedDwell} sharing a segment and pages viewed value: run i
+     * covers [runStart[i], runStart[i + 1]) and holds sessions with runPages[i] pages.
+     * The runs of segment s are [segmentRuns[s], segmentRuns[s + 1]).
+     */
+    private final int[] runStart;
+    private final short[] runPages;
+    private final int[] segmentRuns = new int[HourlyCube.SEGMENT_COUNT + 1];
+
+    private BounceIndex(int[] dwellSeconds, short[] pagesViewed, long[] sortedKeys) {
+        this.dwellSeconds = dwellSeconds;
+        this.pagesViewed = pagesViewed;
+
+        int rows = sortedKeys.length;
+        sortedDwell = new int[rows];
+        int[] starts = new int[rows + 1];
+        short[] pages = new short[rows];
+        int runs = 0;
+        long previousRun = -1;
+        for (int i = 0; i < rows; i++) {
+            sortedDwell[i] = (int) sortedKeys[i] ^ Integer.MIN_VALUE;
+            long run = sortedKeys[i] >>> 32;
+            if (run != previousRun) {
+                int segment = (int) (run >>> 16);
+                // Segments with no sessions get empty run ranges
+                for (int s = segmentOf(previousRun) + 1; s <= segment; s++) {
+                    segmentRuns[s] = runs;
+                }
+                starts[runs] = i;
+                pages[runs] = (short) ((run & 0xffff) + Short.MIN_VALUE);
+                runs++;
+                previousRun = run;
+            }
+        }
+        for (int s = segmentOf(previousRun) + 1; s < segmentRuns.length; s++) {
+            segmentRuns[s] = runs;
+        }
+        starts[runs] = rows;
+        runStart = Arrays.copyOf(starts, runs + 1);
+        runPages = Arrays.copyOf(pages, runs);
+    }
+
+    private static int segmentOf(long run) {
+        return run < 0 ? -1 : (int) (run >>> 16);
+    }
+
+    /**
+     * Builds the index for a server log.
+     * @param users the user dictionary
+     * @param serverLogs the server log
+     * @return the index
+     */
+    public static BounceIndex build(UserDictionary users, ServerLogColumns serverLogs) {
+        int rows = serverLogs.size();
+        int[] dwellSeconds = new int[rows];
+        short[] pagesViewed = new short[rows];
+        long[] keys = new long[rows];
+        for (int row = 0; row < rows; row++) {
+            long entry = serverLogs.getEntryTime(row);
+            long exit = serverLogs.getExitTime(row);
+            dwellSeconds[row] = entry == EpochSeconds.ABSENT || exit == EpochSeconds.ABSENT
+                ? NO_DWELL
+                : (int) Math.max(NO_DWELL + 1L, Math.min(Integer.MAX_VALUE, exit - entry));
+            pagesViewed[row] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, serverLogs.getPagesViewed(row)));
+
+            int user = serverLogs.getUser(row);
+            int segment = user == UserDictionary.NO_USER ? HourlyCube.NO_PROFILE_SEGMENT : HourlyCube.segmentOf(users, user);
+            // Segment, then pages and time shifted to sort as unsigned
+            keys[row] = (long) segment << 48
+                | (long) (pagesViewed[row] - Short.MIN_VALUE) << 32
+                | (dwellSeconds[row] ^ Integer.MIN_VALUE) & 0xffffffffL;
+        }
+        Arrays.sort(keys);
+        return new BounceIndex(dwellSeconds, pagesViewed, keys);
+    }
+
+    /**
+     * Returns whether a session is a bounce, as {@link BounceCriteria#isBounce} would.
+     * @param row the server log row
+     * @param criteria the bounce criteria
+     * @return true if the session bounced
+     */
+    public boolean isBounce(int row, BounceCriteria criteria) {
+        boolean byPages = criteria.isConsiderPagesViewed() && pagesViewed[row] < criteria.getMinPagesViewed();
+        boolean byTime = criteria.isConsiderTimeOnSite() && dwellSeconds[row] != NO_DWELL
+            && dwellSeconds[row] < criteria.getMinTimeOnSiteSeconds();
+        return byPages || byTime;
+    }
+
+    /**
+     * Counts the bounces of every session, whatever its time, whose user passes a filter.
+     * @param criteria the bounce criteria
+     * @param filter the demographic filter
+     * @return the number of bounces
+     */
+    public int countBounces(BounceCriteria criteria, DemographicFilter filter) {
+        boolean byPages = criteria.isConsiderPagesViewed();
+        boolean byTime = criteria.isConsiderTimeOnSite();
+        int count = 0;
+        for (int segment = 0; segment < HourlyCube.SEGMENT_COUNT; segment++) {
+            if (segmentRuns[segment] == segmentRuns[segment + 1] || !HourlyCube.segmentMatches(filter, segment)) {
+                continue;
+            }
+            for (int run = segmentRuns[segment]; run < segmentRuns[segment + 1]; run++) {
+                int from = runStart[run];
+                int to = runStart[run + 1];
+                if (byPages && runPages[run] < criteria.getMinPagesViewed()) {
+                    count += to - from;
+                } else if (byTime) {
+                    // Sessions without a time on site sort first and never bounce by time
+                    count += lowerBound(from, to, criteria.getMinTimeOnSiteSeconds())
+                        - lowerBound(from, to, NO_DWELL + 1);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the first position in [from, to) whose time on site is at least the value.
+     */
+    private int lowerBound(int from, int to, int value) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (sortedDwell[mid] < value) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+}
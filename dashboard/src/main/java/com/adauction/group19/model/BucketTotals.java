@@ -0,0 +1,114 @@
+package com.adauction.group19.model;
+
+/**
+ * The per-bucket totals of one {@link MetricQueryEngine} query for one filter,
+ * from which every {@link Metric} can be derived. Only the bounce counts depend on
+ * the bounce criteria, so when those change {@link #withBounces} swaps in new counts
+ * and keeps the rest. Instances are not changed once built, so they can be shared
+ * through the {@link MetricQueryCache}.
+ */
+final class BucketTotals {
+    private final long[] impressions;
+    private final long[] clicks;
+    private final long[] conversions;
+    private final long[] bounces;
+    private final double[] costs;
+    private final int[] uniques;
+    private final int rangeUniques;
+    private final BounceCriteria criteria;
+
+    /**
+     * @param uniques the distinct users per bucket, or null if they were not counted
+     * @param rangeUniques the distinct users over the whole range
+     * @param criteria the criteria the bounces were counted with, not changed afterwards
+     */
+    BucketTotals(long[] impressions, long[] clicks, long[] conversions, long[] bounces, double[] costs,
+                 int[] uniques, int rangeUniques, BounceCriteria criteria) {
+        this.impressions = impressions;
+        this.clicks = clicks;
+        this.conversions = conversions;
+        this.bounces = bounces;
+        this.costs = costs;
+        this.uniques = uniques;
+        this.rangeUniques = rangeUniques;
+        this.criteria = criteria;
+    }
+
+    /**
+     * Returns whether the bounces were counted with criteria equal to the given ones.
+     */
+    boolean hasBouncesFor(BounceCriteria criteria) {
+        return this.criteria.equals(criteria);
+    }
+
+    /**
+     * Returns these totals with bounce counts for other criteria.
+     */
+    BucketTotals withBounces(long[] bounces, BounceCriteria criteria) {
+        return new BucketTotals(impressions, clicks, conversions, bounces, costs, uniques, rangeUniques, criteria);
+    }
+
+    int bucketCount() {
+        return impressions.length;
+    }
+
+    /**
+     * Returns whether these totals can answer a metric. Uniques are only counted
+     * when asked for, as they need a set of users per bucket.
+     */
+    boolean covers(Metric metric) {
+        return metric != Metric.UNIQUES || uniques != null;
+    }
+
+    MetricSeries toSeries(Metric metric) {
+        double[] values = new double[impressions.length];
+        long totalImpressions = 0;
+        long totalClicks = 0;
+        long totalConversions = 0;
+        long totalBounces = 0;
+        double totalCost = 0;
+        for (int bucket = 0; bucket < values.length; bucket++) {
+            values[bucket] = metric == Metric.UNIQUES
+                ? uniques[bucket]
+                : value(metric, impressions[bucket], clicks[bucket], conversions[bucket], bounces[bucket],
+                    costs[bucket]);
+            totalImpressions += impressions[bucket];
+            totalClicks += clicks[bucket];
+            totalConversions += conversions[bucket];
+            totalBounces += bounces[bucket];
+            totalCost += costs[bucket];
+        }
+        double total = metric == Metric.UNIQUES
+            ? rangeUniques
+            : value(metric, totalImpressions, totalClicks, totalConversions, totalBounces, totalCost);
+        return new MetricSeries(metric, values, total);
+    }
+
+    private static double value(Metric metric, long impressions, long clicks, long conversions, long bounces,
+                                double cost) {
+        switch (metric) {
+            case IMPRESSIONS:
+                return impressions;
+            case CLICKS:
+                return clicks;
+            case CONVERSIONS:
+                return conversions;
+            case BOUNCES:
+                return bounces;
+            case TOTAL_COST:
+                return cost;
+            case CTR:
+                return impressions == 0 ? 0 : (double) clicks / impressions * 100;
+            case CPA:
+                return conversions == 0 ? 0 : cost / conversions;
+            case CPC:
+                return clicks == 0 ? 0 : cost / clicks;
+            case CPM:
+                return impressions == 0 ? 0 : cost / impressions * 1000;
+            case BOUNCE_RATE:
+                return clicks == 0 ? 0 : Math.min((double) bounces / clicks * 100, 100);
+            default:
+                throw new IllegalArgumentException("Unknown metric " + metric);
+        }
+    }
+}
@@ -1,27 +1,161 @@
 package com.adauction.group19.model;
 
+import com.adauction.group19.utils.MemoryFootprint;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
-import java.time.Duration;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 /**
  * This class represents the data for a campaign.
+ * The logs are stored column by column in primitive arrays (epoch-second times,
+ * costs, dictionary-encoded user IDs and byte demographic codes) rather than as
+ * one object per row.
+ * <p>
+ * Campaign data is filled while a campaign is loaded and then {@linkplain #freeze() frozen}.
+ * Frozen data cannot be changed and has its indexes built, so once it has been safely
+ * published, e.g. through {@code CampaignDataStore}, any number of threads can query
+ * it at once. Other bounce criteria give a {@linkplain #withBounceCriteria derived view}
+ * rather than changing the data in place. Code that only reads frozen data holds it
+ * as a {@link CampaignSnapshot}, which has none of the methods that change it.
  */
-public class CampaignData implements Serializable {
+public final class CampaignData implements Serializable, CampaignSnapshot {
     private static final long serialVersionUID = 1L;
 
+    /**
+     * The fields written by serialisation. Streams written before the columnar
+     * layout hold "impressions", "clicks", "serverLogs" and "userMap" row lists
+     * instead, which {@link #readObject} converts on load.
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("userDictionary", UserDictionary.class),
+        new ObjectStreamField("impressionColumns", CostEventColumns.class),
+        new ObjectStreamField("clickColumns", CostEventColumns.class),
+        new ObjectStreamField("serverLogColumns", ServerLogColumns.class),
+        new ObjectStreamField("bounceCriteria", BounceCriteria.class)
+    };
+
+    /**
+     * The user IDs and demographics shared by all logs.
+     */
+    private UserDictionary users = new UserDictionary();
+
     /**
      * The impressions, clicks, and server logs for the campaign.
      */
-    private List<Object[]> impressions = new ArrayList<>();
-    private List<Object[]> clicks = new ArrayList<>();
-    private List<Object[]> serverLogs = new ArrayList<>();
-    private HashMap<String, Object[]> userMap = new HashMap<>();
+    private CostEventColumns impressions = new CostEventColumns();
+    private CostEventColumns clicks = new CostEventColumns();
+    private ServerLogColumns serverLogs = new ServerLogColumns();
     private BounceCriteria bounceCriteria = new BounceCriteria(); // Initialize with default criteria
 
+    /**
+     * Hourly totals per demographic segment, built on first use and dropped when rows are added.
+     * Null with {@code cubeBuilt} set means the data spans too many hours for a cube. The
+     * cube is published by the volatile write of {@code cubeBuilt}.
+     */
+    private transient HourlyCube hourlyCube;
+    private transient volatile boolean cubeBuilt;
+
+    /**
+     * Bitmap indexes of the rows per demographic value, built on first use and dropped when rows are added.
+     */
+    private transient volatile SegmentIndex impressionIndex;
+    private transient volatile SegmentIndex clickIndex;
+    private transient volatile SegmentIndex serverLogIndex;
+
+    /**
+     * Results of metric queries, created on first use and cleared when rows are added.
+     */
+    private transient volatile MetricQueryCache queryCache;
+
+    /**
+     * Server log columns for recounting bounces, built on first use.
+     */
+    private transient volatile BounceIndex bounceIndex;
+
+    /**
+     * The click costs sorted per segment for the click cost histogram, built on first use.
+     */
+    private transient volatile ClickCostIndex clickCostIndex;
+
+    /**
+     * Sketches of the impression and click costs per day and segment, built on first use.
+     */
+    private transient volatile CostQuantileIndex costQuantileIndex;
+
+    /**
+     * Whether an index, the hourly cube or the query cache may hold anything derived
+     * from the rows, which adding rows then has to drop. Rows are added one at a time
+     * while loading, before any of these exist, so most adds skip the invalidation.
+     */
+    private transient volatile boolean derived;
+
+    /**
+     * Whether the data can no longer change, see {@link #freeze()}.
+     */
+    private transient volatile boolean frozen;
+
+    /**
+     * The precision of the uniques sketches, or {@link #EXACT_UNIQUES}. A setting of
+     * this session, not saved with the data.
+     */
+    private transient int uniquesPrecision = HyperLogLog.DEFAULT_PRECISION;
+
+    /**
+     * The uniques precision that counts distinct users exactly instead of estimating.
+     */
+    public static final int EXACT_UNIQUES = HourlyCube.NO_SKETCHES;
+
+    private static final long HOURS_PER_DAY = EpochSeconds.SECONDS_PER_DAY / EpochSeconds.SECONDS_PER_HOUR;
+
+    /**
+     * The time range used for campaign totals.
+     */
+    private static final long ALL_TIME_FROM = Long.MIN_VALUE;
+    private static final long ALL_TIME_TO = Long.MAX_VALUE;
+
+    private static final DateTimeFormatter EVENT_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * The demographic values as written in the logs, by enum ordinal, for exports.
+     */
+    private static final String[] GENDER_NAMES = {"Male", "Female"};
+    private static final String[] AGE_RANGE_NAMES = {"<25", "25-34", "35-44", "45-54", ">54", "Unknown"};
+    private static final String[] INCOME_NAMES = {"Low", "Medium", "High", "Unknown"};
+    private static final String[] CONTEXT_NAMES = {"Blog", "News", "Shopping", "Social Media", "Unknown"};
+
+    /**
+     * Creates empty campaign data.
+     */
+    public CampaignData() {
+    }
+
+    /**
+     * Creates campaign data from decoded columns, see {@link CampaignDataCodec}.
+     * @param users the user dictionary
+     * @param impressions the impression columns
+     * @param clicks the click columns
+     * @param serverLogs the server log columns
+     * @param bounceCriteria the bounce criteria
+     */
+    CampaignData(UserDictionary users, CostEventColumns impressions, CostEventColumns clicks,
+                 ServerLogColumns serverLogs, BounceCriteria bounceCriteria) {
+        this.users = users;
+        this.impressions = impressions;
+        this.clicks = clicks;
+        this.serverLogs = serverLogs;
+        this.bounceCriteria = bounceCriteria;
+    }
+
     /**
      * Adds an impression to the campaign data.
      * @param dateTime date and time of the impression
@@ -32,62 +166,178 @@ public class CampaignData implements Serializable {
      * @param impressionCost cost of the impression
      */
     public void addImpression(LocalDateTime dateTime, String id, Gender gender, AgeRange ageRange, Income income, Context context, double impressionCost) {
-        // Now, index 0: dateTime, index 1: impressionCost, index 2: id,
-        impressions.add(new Object[]{dateTime, impressionCost, id});
-        userMap.put(id, new Object[]{gender, ageRange, income, context});
+        addImpression(EpochSeconds.of(dateTime), id, gender, ageRange, income, context, impressionCost);
+    }
+
+    /**
+     * Adds an impression to the campaign data.
+     * @param epochSecond date and time of the impression in epoch seconds
+     * @param gender gender of the user
+     * @param ageRange age range of the user
+     * @param income income of the user
+     * @param context context of the impression
+     * @param impressionCost cost of the impression
+     */
+    public void addImpression(long epochSecond, String id, Gender gender, AgeRange ageRange, Income income, Context context, double impressionCost) {
+        checkMutable();
+        int user = users.intern(id);
+        users.setProfile(user, gender, ageRange, income, context);
+        impressions.add(epochSecond, impressionCost, user);
+        invalidateIndexes();
+    }
+
+    /**
+     * Adds an impression for a user code from {@link #internUser}.
+     * @param epochSecond date and time of the impression in epoch seconds
+     * @param user the user code
+     * @param gender gender of the user
+     * @param ageRange age range of the user
+     * @param income income of the user
+     * @param context context of the impression
+     * @param impressionCost cost of the impression
+     */
+    public void addImpression(long epochSecond, int user, Gender gender, AgeRange ageRange, Income income, Context context, double impressionCost) {
+        checkMutable();
+        users.setProfile(user, gender, ageRange, income, context);
+        impressions.add(epochSecond, impressionCost, user);
+        invalidateIndexes();
+    }
+
+    /**
+     * Returns the user code for an ID read straight from a file buffer, see
+     * {@link UserDictionary#intern(ByteBuffer, int, int)}.
+     * @param bytes the buffer holding the ID
+     * @param start the index of the first byte
+     * @param end the index after the last byte
+     * @return the user code
+     */
+    public int internUser(ByteBuffer bytes, int start, int end) {
+        checkMutable();
+        return users.intern(bytes, start, end);
     }
 
+    /**
+     * Sets the bounce criteria while the data is being filled. Frozen data gives a
+     * view under other criteria with {@link #withBounceCriteria} instead.
+     * @param bounceCriteria the bounce criteria
+     * @throws IllegalStateException if the data is frozen
+     */
     public void setBounceCriteria(BounceCriteria bounceCriteria) {
+        checkMutable();
         this.bounceCriteria = bounceCriteria;
     }
 
     /**
-     * Returns the bounce criteria for the campaign data.
+     * Returns the bounce criteria for the campaign data. Frozen data returns a copy,
+     * so its criteria cannot be changed in place.
      * @return the bounce criteria
      */
     public BounceCriteria getBounceCriteria() {
-        return bounceCriteria;
+        return frozen ? new BounceCriteria(bounceCriteria) : bounceCriteria;
     }
 
     /**
-     * Determines if a server log entry represents a bounce based on the current bounce criteria.
-     * @param serverLog The server log entry to check
-     * @return true if the entry is considered a bounce, false otherwise
+     * Makes the data read-only and builds its indexes, so that it can be shared by
+     * threads that only query it. Call once loading has finished; later calls do nothing.
+     * Synchronized, so threads freezing the same data at once build its indexes only
+     * once, and none of them returns before the indexes are complete.
+     * @return this campaign data
      */
-    private boolean isBounce(Object[] serverLog) {
-        LocalDateTime entryDateTime = (LocalDateTime) serverLog[0];
-        LocalDateTime exitDateTime = (LocalDateTime) serverLog[1];
-        int pagesViewed = (int) serverLog[2];
-        long timeOnPageSeconds = 0;
-
-        // Calculate time on page if both timestamps are present
-        if (entryDateTime != null && exitDateTime != null) {
-            timeOnPageSeconds = Duration.between(entryDateTime, exitDateTime).getSeconds();
+    public synchronized CampaignData freeze() {
+        if (!frozen) {
+            trimToSize();
+            // A copy, so callers holding the criteria cannot change the frozen data
+            bounceCriteria = new BounceCriteria(bounceCriteria);
+            buildIndexes();
+            getQueryCache();
+            frozen = true;
         }
+        return this;
+    }
 
-        // Check if it's a bounce based on pages viewed
-        boolean bounceByPages = bounceCriteria.isConsiderPagesViewed() &&
-            pagesViewed < bounceCriteria.getMinPagesViewed();
+    /**
+     * Returns whether the data is frozen.
+     * @return true if the data can no longer change
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
 
-        // Check if it's a bounce based on time on site
-        boolean bounceByTime = bounceCriteria.isConsiderTimeOnSite() &&
-            entryDateTime != null && exitDateTime != null &&
-            timeOnPageSeconds < bounceCriteria.getMinTimeOnSiteSeconds();
+    /**
+     * Returns a frozen view of this data that counts bounces under other criteria.
+     * The view shares the columns and every index that does not depend on the
+     * criteria, so only the bounces are counted again, and this data is left as it is.
+     * It also shares the query cache, whose entries record the criteria their bounces
+     * were counted with, so cached queries only have their bounces recounted.
+     * @param criteria the bounce criteria of the view
+     * @return the view, or this data if the criteria are the same
+     * @throws IllegalStateException if the data is not frozen
+     */
+    public CampaignData withBounceCriteria(BounceCriteria criteria) {
+        if (!frozen) {
+            throw new IllegalStateException("Only frozen campaign data has views");
+        }
+        if (criteria.equals(bounceCriteria)) {
+            return this;
+        }
+        CampaignData view = new CampaignData(users, impressions, clicks, serverLogs, new BounceCriteria(criteria));
+        view.uniquesPrecision = uniquesPrecision;
+        view.impressionIndex = impressionIndex;
+        view.clickIndex = clickIndex;
+        view.serverLogIndex = serverLogIndex;
+        view.bounceIndex = bounceIndex;
+        view.clickCostIndex = clickCostIndex;
+        view.costQuantileIndex = costQuantileIndex;
+        view.hourlyCube = hourlyCube == null ? null : hourlyCube.withBounces(view.bounceCriteria, serverLogs);
+        view.cubeBuilt = true;
+        view.queryCache = getQueryCache();
+        view.derived = true;
+        view.frozen = true;
+        return view;
+    }
 
-        // If considering both criteria, consider it a bounce if either is true
-        if (bounceCriteria.isConsiderPagesViewed() && bounceCriteria.isConsiderTimeOnSite()) {
-            return bounceByPages || bounceByTime;
+    private void checkMutable() {
+        if (frozen) {
+            throw new IllegalStateException("Frozen campaign data cannot be changed");
         }
-        // Otherwise, only consider the criteria that are enabled
-        else if (bounceCriteria.isConsiderPagesViewed()) {
-            return bounceByPages;
+    }
+
+    /**
+     * Sets how uniques are counted. Filtered and per-period uniques are estimated
+     * from HyperLogLog sketches kept per hour and demographic segment; a higher
+     * precision costs more memory for a smaller error.
+     * @param precision the sketch precision, between {@link HyperLogLog#MIN_PRECISION} and
+     *                  {@link HyperLogLog#MAX_PRECISION}, or {@link #EXACT_UNIQUES} to count exactly
+     */
+    public void setUniquesPrecision(int precision) {
+        checkMutable();
+        if (precision != EXACT_UNIQUES
+            && (precision < HyperLogLog.MIN_PRECISION || precision > HyperLogLog.MAX_PRECISION)) {
+            throw new IllegalArgumentException("Invalid uniques precision: " + precision);
         }
-        else if (bounceCriteria.isConsiderTimeOnSite()) {
-            return bounceByTime;
+        if (precision != uniquesPrecision) {
+            uniquesPrecision = precision;
+            hourlyCube = null;
+            cubeBuilt = false;
+            clearQueryCache();
         }
+    }
+
+    /**
+     * Returns how uniques are counted.
+     * @return the sketch precision, or {@link #EXACT_UNIQUES}
+     */
+    public int getUniquesPrecision() {
+        return uniquesPrecision;
+    }
 
-        // If no criteria are enabled, default to no bounces
-        return false;
+    /**
+     * Determines if a server log entry represents a bounce based on the current bounce criteria.
+     * @param row The server log row to check
+     * @return true if the entry is considered a bounce, false otherwise
+     */
+    private boolean isBounce(int row) {
+        return getBounceIndex().isBounce(row, bounceCriteria);
     }
 
 
@@ -97,7 +347,30 @@ public class CampaignData implements Serializable {
      * @param clickCost cost of the click
      */
     public void addClick(LocalDateTime dateTime, double clickCost, String id) {
-        clicks.add(new Object[]{dateTime, clickCost, id});
+        addClick(EpochSeconds.of(dateTime), clickCost, id);
+    }
+
+    /**
+     * Adds a click to the campaign data.
+     * @param epochSecond date and time of the click in epoch seconds
+     * @param clickCost cost of the click
+     */
+    public void addClick(long epochSecond, double clickCost, String id) {
+        checkMutable();
+        clicks.add(epochSecond, clickCost, users.intern(id));
+        invalidateIndexes();
+    }
+
+    /**
+     * Adds a click for a user code from {@link #internUser}.
+     * @param epochSecond date and time of the click in epoch seconds
+     * @param clickCost cost of the click
+     * @param user the user code
+     */
+    public void addClick(long epochSecond, double clickCost, int user) {
+        checkMutable();
+        clicks.add(epochSecond, clickCost, user);
+        invalidateIndexes();
     }
 
     /**
@@ -108,68 +381,508 @@ public class CampaignData implements Serializable {
      * @param conversion whether the user converted
      */
     public void addServerLogEntry(LocalDateTime entryDateTime, LocalDateTime exitDateTime, int pagesViewed, boolean conversion, String id) {
-        serverLogs.add(new Object[]{entryDateTime, exitDateTime, pagesViewed, conversion, id});
+        addServerLogEntry(EpochSeconds.of(entryDateTime), EpochSeconds.of(exitDateTime), pagesViewed, conversion, id);
     }
 
-    // Filter is a list of sets of objects
-    // Each set is a filter for a specific attribute
-    // e.g. filter = [{ MALE, FEMALE }, { AGE_25_34, AGE_35_44 }, { LOW, MEDIUM }, { BLOG, NEWS }]
-    private boolean filterMatches(List<Set<Enum<?>>> filter, Object[] data) {
-        // Assume if data is null then it does match the filter
-        if (data == null) {
-            return true;
+    /**
+     * Adds a server log entry to the campaign data.
+     * @param entryEpochSecond date and time of the entry in epoch seconds
+     * @param exitEpochSecond date and time of the exit in epoch seconds, {@link EpochSeconds#ABSENT} if unknown
+     * @param pagesViewed number of pages viewed
+     * @param conversion whether the user converted
+     */
+    public void addServerLogEntry(long entryEpochSecond, long exitEpochSecond, int pagesViewed, boolean conversion, String id) {
+        checkMutable();
+        serverLogs.add(entryEpochSecond, exitEpochSecond, pagesViewed, conversion, users.intern(id));
+        invalidateIndexes();
+    }
+
+    /**
+     * Adds a server log entry for a user code from {@link #internUser}.
+     * @param entryEpochSecond date and time of the entry in epoch seconds
+     * @param exitEpochSecond date and time of the exit in epoch seconds, {@link EpochSeconds#ABSENT} if unknown
+     * @param pagesViewed number of pages viewed
+     * @param conversion whether the user converted
+     * @param user the user code
+     */
+    public void addServerLogEntry(long entryEpochSecond, long exitEpochSecond, int pagesViewed, boolean conversion, int user) {
+        checkMutable();
+        serverLogs.add(entryEpochSecond, exitEpochSecond, pagesViewed, conversion, user);
+        invalidateIndexes();
+    }
+
+    /**
+     * Appends all rows of another campaign, such as one parsed from a later chunk of the same logs.
+     * Users are re-coded into this campaign's dictionary and later demographics overwrite earlier
+     * ones, so appending chunks in file order gives the same result as adding their rows one by one.
+     * @param other the campaign data to append
+     */
+    public void append(CampaignData other) {
+        checkMutable();
+        int[] codes = new int[other.users.size()];
+        for (int user = 0; user < codes.length; user++) {
+            codes[user] = users.intern(other.users.getId(user));
+            users.copyProfile(codes[user], other.users, user);
         }
-        for (int i = 0; i < filter.size(); i++) {
-            if (!filter.get(i).contains(data[i]) && !filter.get(i).isEmpty()) {
-                return false;
+        appendCostEvents(impressions, other.impressions, codes);
+        appendCostEvents(clicks, other.clicks, codes);
+        ServerLogColumns from = other.serverLogs;
+        for (int row = 0; row < from.size(); row++) {
+            serverLogs.add(from.getEntryTime(row), from.getExitTime(row), from.getPagesViewed(row),
+                from.isConversion(row), recode(codes, from.getUser(row)));
+        }
+        invalidateIndexes();
+    }
+
+    private static void appendCostEvents(CostEventColumns to, CostEventColumns from, int[] codes) {
+        for (int row = 0; row < from.size(); row++) {
+            to.add(from.getTime(row), from.getCost(row), recode(codes, from.getUser(row)));
+        }
+    }
+
+    private static int recode(int[] codes, int user) {
+        return user == UserDictionary.NO_USER ? UserDictionary.NO_USER : codes[user];
+    }
+
+    /**
+     * Builds the aggregates used to answer per-hour and per-day metrics.
+     * Called once loading has finished so the first graph does not pay for it.
+     */
+    public void buildIndexes() {
+        getHourlyCube();
+        getImpressionIndex();
+        getClickIndex();
+        getServerLogIndex();
+    }
+
+    private void invalidateIndexes() {
+        if (!derived) {
+            return;
+        }
+        derived = false;
+        hourlyCube = null;
+        cubeBuilt = false;
+        impressionIndex = null;
+        clickIndex = null;
+        serverLogIndex = null;
+        bounceIndex = null;
+        clickCostIndex = null;
+        costQuantileIndex = null;
+        clearQueryCache();
+    }
+
+    private void markDerived() {
+        if (!derived) {
+            derived = true;
+        }
+    }
+
+    private synchronized void clearQueryCache() {
+        if (queryCache != null) {
+            queryCache.clear();
+        }
+    }
+
+    /**
+     * Returns the cache of metric query results for this campaign, see {@link MetricQueryEngine}.
+     * @return the query cache
+     */
+    public MetricQueryCache getQueryCache() {
+        MetricQueryCache cache = queryCache;
+        if (cache == null) {
+            synchronized (this) {
+                if (queryCache == null) {
+                    queryCache = new MetricQueryCache();
+                }
+                cache = queryCache;
+            }
+        }
+        // Results may be cached from now on, even if the cache was cleared earlier
+        markDerived();
+        return cache;
+    }
+
+    /**
+     * Returns the bounce index of the server log, building it on first use. Only the
+     * build is synchronized, as queries on several threads may ask for it; once built
+     * it is read without locking.
+     */
+    BounceIndex getBounceIndex() {
+        BounceIndex index = bounceIndex;
+        if (index == null) {
+            synchronized (this) {
+                if (bounceIndex == null) {
+                    markDerived();
+                    bounceIndex = BounceIndex.build(users, serverLogs);
+                }
+                index = bounceIndex;
             }
         }
-        return true;
+        return index;
+    }
+
+    /**
+     * Returns the click costs sorted per demographic segment, building them on first use.
+     * @return the click cost index
+     */
+    public ClickCostIndex getClickCostIndex() {
+        ClickCostIndex index = clickCostIndex;
+        if (index == null) {
+            synchronized (this) {
+                if (clickCostIndex == null) {
+                    markDerived();
+                    clickCostIndex = ClickCostIndex.build(users, clicks);
+                }
+                index = clickCostIndex;
+            }
+        }
+        return index;
+    }
+
+    private CostQuantileIndex getCostQuantileIndex() {
+        CostQuantileIndex index = costQuantileIndex;
+        if (index == null) {
+            synchronized (this) {
+                if (costQuantileIndex == null) {
+                    markDerived();
+                    costQuantileIndex = CostQuantileIndex.build(users, impressions, clicks,
+                        QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+                }
+                index = costQuantileIndex;
+            }
+        }
+        return index;
+    }
+
+    private SegmentIndex getImpressionIndex() {
+        SegmentIndex index = impressionIndex;
+        if (index == null) {
+            synchronized (this) {
+                if (impressionIndex == null) {
+                    markDerived();
+                    impressionIndex = SegmentIndex.build(users, impressions.size(), impressions::getUser);
+                }
+                index = impressionIndex;
+            }
+        }
+        return index;
+    }
+
+    private SegmentIndex getClickIndex() {
+        SegmentIndex index = clickIndex;
+        if (index == null) {
+            synchronized (this) {
+                if (clickIndex == null) {
+                    markDerived();
+                    clickIndex = SegmentIndex.build(users, clicks.size(), clicks::getUser);
+                }
+                index = clickIndex;
+            }
+        }
+        return index;
+    }
+
+    private SegmentIndex getServerLogIndex() {
+        SegmentIndex index = serverLogIndex;
+        if (index == null) {
+            synchronized (this) {
+                if (serverLogIndex == null) {
+                    markDerived();
+                    serverLogIndex = SegmentIndex.build(users, serverLogs.size(), serverLogs::getUser);
+                }
+                index = serverLogIndex;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the hourly cube if it holds user sketches, for estimating uniques.
+     * @return the cube, or null if uniques are counted exactly or no cube could be built
+     */
+    HourlyCube getUniquesCube() {
+        HourlyCube cube = getHourlyCube();
+        return cube != null && cube.hasUserSketches() ? cube : null;
+    }
+
+    private HourlyCube getHourlyCube() {
+        if (!cubeBuilt) {
+            synchronized (this) {
+                if (!cubeBuilt) {
+                    markDerived();
+                    hourlyCube = HourlyCube.build(users, impressions, clicks, serverLogs, bounceCriteria,
+                        uniquesPrecision);
+                    cubeBuilt = true;
+                }
+            }
+        }
+        if (hourlyCube != null && !frozen) {
+            // The criteria can be edited in place from the bounce settings screen
+            hourlyCube.refreshBounces(bounceCriteria, serverLogs);
+        }
+        return hourlyCube;
+    }
+
+    /**
+     * Releases the spare capacity left in the columns once loading has finished.
+     * Frozen data has already been trimmed, so this does nothing.
+     */
+    public void trimToSize() {
+        if (frozen) {
+            return;
+        }
+        users.trimToSize();
+        impressions.trimToSize();
+        clicks.trimToSize();
+        serverLogs.trimToSize();
     }
 
     /**
      * Returns all the impression data for the campaign.
+     * Each row is built on demand as {dateTime, impressionCost, id}.
      * @param filter the filter to apply to the impressions
      * @return The impressions data for the campaign.
      */
     public List<Object[]> getImpressions(List<Set<Enum<?>>> filter) {
-        List<Object[]> filteredImpressions = new ArrayList<>();
-        for (Object[] impression : impressions) {
-            if (filterMatches(filter, userMap.get(impression[2]))) {
-                filteredImpressions.add(impression);
-            }
-        }
-        return filteredImpressions;
+        return getCostEvents(impressions, getImpressionIndex().select(new DemographicFilter(filter)));
     }
 
     /**
      * Returns all the click data for the campaign.
+     * Each row is built on demand as {dateTime, clickCost, id}.
      * @return The click data for the campaign.
      */
     public List<Object[]> getClicks(List<Set<Enum<?>>> filter) {
-        List<Object[]> filteredClicks = new ArrayList<>();
-        for (Object[] click : clicks) {
-            if (filterMatches(filter, userMap.get(click[2]))) {
-                filteredClicks.add(click);
-            }
-        }
-        return filteredClicks;
+        return getCostEvents(clicks, getClickIndex().select(new DemographicFilter(filter)));
     }
 
     /**
      * Returns all the server logs for the campaign.
+     * Each row is built on demand as {entryDateTime, exitDateTime, pagesViewed, conversion, id}.
      * @return The server logs for the campaign.
      */
     public List<Object[]> getServerLogs(List<Set<Enum<?>>> filter) {
-        List<Object[]> filteredServerLogs = new ArrayList<>();
-        for (Object[] serverLog : serverLogs) {
-            if (filterMatches(filter, userMap.get(serverLog[4]))) {
-                filteredServerLogs.add(serverLog);
-            }
+        BitSet rows = getServerLogIndex().select(new DemographicFilter(filter));
+        List<Object[]> filteredServerLogs = new ArrayList<>(rows.cardinality());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            filteredServerLogs.add(new Object[]{
+                EpochSeconds.toLocalDateTime(serverLogs.getEntryTime(row)),
+                EpochSeconds.toLocalDateTime(serverLogs.getExitTime(row)),
+                serverLogs.getPagesViewed(row),
+                serverLogs.isConversion(row),
+                users.getId(serverLogs.getUser(row))
+            });
         }
         return filteredServerLogs;
     }
 
+    /**
+     * Writes the impressions passing a filter as Date, Impression Cost, ID, Gender,
+     * Age, Income, Context rows, with the demographics of each impression's user.
+     * Rows are read from the columns and written one at a time, so memory use does
+     * not grow with the number of rows exported.
+     * @param filter the filter to apply to the impressions
+     * @param format the export format
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    public void exportImpressions(List<Set<Enum<?>>> filter, ExportWriter.Format format, Writer out)
+            throws IOException {
+        BitSet rows = getImpressionIndex().select(new DemographicFilter(filter));
+        try (ExportWriter writer = ExportWriter.create(format, out, "Date",
+                List.of("Impression Cost", "ID", "Gender", "Age", "Income", "Context"))) {
+            Object[] values = new Object[6];
+            List<Object> row = Arrays.asList(values);
+            for (int i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+                int user = impressions.getUser(i);
+                values[0] = impressions.getCost(i);
+                values[1] = users.getId(user);
+                values[2] = profileValue(GENDER_NAMES, users.getGender(user));
+                values[3] = profileValue(AGE_RANGE_NAMES, users.getAgeRange(user));
+                values[4] = profileValue(INCOME_NAMES, users.getIncome(user));
+                values[5] = profileValue(CONTEXT_NAMES, users.getContext(user));
+                writer.writeRow(formatEventTime(impressions.getTime(i)), row);
+            }
+        }
+    }
+
+    /**
+     * Writes the clicks passing a filter as Date, Click Cost, ID rows, one at a time.
+     * @param filter the filter to apply to the clicks
+     * @param format the export format
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    public void exportClicks(List<Set<Enum<?>>> filter, ExportWriter.Format format, Writer out) throws IOException {
+        exportCostEvents(clicks, getClickIndex().select(new DemographicFilter(filter)), "Click Cost", format, out);
+    }
+
+    /**
+     * Writes the server logs passing a filter as Entry Date, Exit Date, Pages Viewed,
+     * Conversion, ID rows, one at a time. A missing exit date is written as "n/a".
+     * @param filter the filter to apply to the server logs
+     * @param format the export format
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    public void exportServerLogs(List<Set<Enum<?>>> filter, ExportWriter.Format format, Writer out)
+            throws IOException {
+        BitSet rows = getServerLogIndex().select(new DemographicFilter(filter));
+        try (ExportWriter writer = ExportWriter.create(format, out, "Entry Date",
+                List.of("Exit Date", "Pages Viewed", "Conversion", "ID"))) {
+            Object[] values = new Object[4];
+            List<Object> row = Arrays.asList(values);
+            for (int i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+                values[0] = formatEventTime(serverLogs.getExitTime(i));
+                values[1] = serverLogs.getPagesViewed(i);
+                values[2] = serverLogs.isConversion(i);
+                values[3] = users.getId(serverLogs.getUser(i));
+                writer.writeRow(formatEventTime(serverLogs.getEntryTime(i)), row);
+            }
+        }
+    }
+
+    private void exportCostEvents(CostEventColumns columns, BitSet matchingRows, String costColumn,
+                                  ExportWriter.Format format, Writer out) throws IOException {
+        try (ExportWriter writer = ExportWriter.create(format, out, "Date", List.of(costColumn, "ID"))) {
+            Object[] values = new Object[2];
+            List<Object> row = Arrays.asList(values);
+            for (int i = matchingRows.nextSetBit(0); i >= 0; i = matchingRows.nextSetBit(i + 1)) {
+                values[0] = columns.getCost(i);
+                values[1] = users.getId(columns.getUser(i));
+                writer.writeRow(formatEventTime(columns.getTime(i)), row);
+            }
+        }
+    }
+
+    /**
+     * Returns a demographic value as in the logs, or "n/a" for a user with no profile.
+     */
+    private static String profileValue(String[] names, byte ordinal) {
+        return ordinal == UserDictionary.NO_PROFILE ? "n/a" : names[ordinal];
+    }
+
+    /**
+     * Formats an event time as in the logs, "yyyy-MM-dd HH:mm:ss", or "n/a" if absent.
+     */
+    private static String formatEventTime(long epochSecond) {
+        LocalDateTime time = EpochSeconds.toLocalDateTime(epochSecond);
+        return time == null ? "n/a" : EVENT_TIME_FORMAT.format(time);
+    }
+
+    private List<Object[]> getCostEvents(CostEventColumns columns, BitSet matchingRows) {
+        List<Object[]> rows = new ArrayList<>(matchingRows.cardinality());
+        for (int row = matchingRows.nextSetBit(0); row >= 0; row = matchingRows.nextSetBit(row + 1)) {
+            rows.add(new Object[]{
+                EpochSeconds.toLocalDateTime(columns.getTime(row)), columns.getCost(row), users.getId(columns.getUser(row))
+            });
+        }
+        return rows;
+    }
+
+    // Scans shared by the metric methods. They visit only the rows the segment index
+    // selects for the filter. Time ranges are [from, to) in epoch seconds; server log
+    // entries are placed by their entry time.
+
+    private int countEvents(CostEventColumns columns, SegmentIndex index, DemographicFilter filter, long from, long to) {
+        BitSet rows = index.select(filter);
+        if (from == ALL_TIME_FROM && to == ALL_TIME_TO) {
+            return rows.cardinality();
+        }
+        int count = 0;
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            long time = columns.getTime(row);
+            if (time >= from && time < to) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private double sumCosts(CostEventColumns columns, SegmentIndex index, DemographicFilter filter, long from, long to) {
+        BitSet rows = index.select(filter);
+        double total = 0;
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            long time = columns.getTime(row);
+            if (time >= from && time < to) {
+                total += columns.getCost(row);
+            }
+        }
+        return total;
+    }
+
+    private int countConversions(DemographicFilter filter, long from, long to) {
+        BitSet rows = getServerLogIndex().select(filter);
+        int count = 0;
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            long time = serverLogs.getEntryTime(row);
+            if (serverLogs.isConversion(row) && time >= from && time < to) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int countBounces(DemographicFilter filter, long from, long to) {
+        BitSet rows = getServerLogIndex().select(filter);
+        int count = 0;
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            long time = serverLogs.getEntryTime(row);
+            if (time >= from && time < to && isBounce(row)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sums a measure over the hours [fromHour, toHour) from the cube, or by scanning
+     * the columns when no cube could be built.
+     */
+    private double measure(HourlyCube.Measure measure, DemographicFilter filter, long fromHour, long toHour) {
+        HourlyCube cube = getHourlyCube();
+        if (cube != null) {
+            return cube.sum(measure, cube.segmentMask(filter), fromHour, toHour);
+        }
+        long from = fromHour * EpochSeconds.SECONDS_PER_HOUR;
+        long to = toHour * EpochSeconds.SECONDS_PER_HOUR;
+        switch (measure) {
+            case IMPRESSIONS:
+                return countEvents(impressions, getImpressionIndex(), filter, from, to);
+            case CLICKS:
+                return countEvents(clicks, getClickIndex(), filter, from, to);
+            case CONVERSIONS:
+                return countConversions(filter, from, to);
+            case BOUNCES:
+                return countBounces(filter, from, to);
+            case IMPRESSION_COST:
+                return sumCosts(impressions, getImpressionIndex(), filter, from, to);
+            case CLICK_COST:
+            default:
+                return sumCosts(clicks, getClickIndex(), filter, from, to);
+        }
+    }
+
+    private int countForDate(HourlyCube.Measure measure, LocalDateTime date, List<Set<Enum<?>>> filter) {
+        long from = firstHourOf(date);
+        return (int) measure(measure, new DemographicFilter(filter), from, from + HOURS_PER_DAY);
+    }
+
+    private int countForHour(HourlyCube.Measure measure, LocalDateTime dateTime, List<Set<Enum<?>>> filter) {
+        long hour = EpochSeconds.hourOf(dateTime);
+        return (int) measure(measure, new DemographicFilter(filter), hour, hour + 1);
+    }
+
+    private double costBetween(List<Set<Enum<?>>> filter, long fromHour, long toHour) {
+        DemographicFilter demographicFilter = new DemographicFilter(filter);
+        return measure(HourlyCube.Measure.IMPRESSION_COST, demographicFilter, fromHour, toHour)
+            + measure(HourlyCube.Measure.CLICK_COST, demographicFilter, fromHour, toHour);
+    }
+
+    private static long firstHourOf(LocalDateTime date) {
+        return EpochSeconds.dayOf(date) * HOURS_PER_DAY;
+    }
+
     // Extra methods for calculating important metrics
 
     /**
@@ -177,7 +890,7 @@ public class CampaignData implements Serializable {
      * @return the total number of impressions.
      */
     public int getTotalImpressions(List<Set<Enum<?>>> filter) {
-        return getImpressions(filter).size();
+        return countEvents(impressions, getImpressionIndex(), new DemographicFilter(filter), ALL_TIME_FROM, ALL_TIME_TO);
     }
 
     /**
@@ -185,7 +898,7 @@ public class CampaignData implements Serializable {
      * @return the total number of clicks.
      */
     public int getTotalClicks(List<Set<Enum<?>>> filter) {
-        return getClicks(filter).size();
+        return countEvents(clicks, getClickIndex(), new DemographicFilter(filter), ALL_TIME_FROM, ALL_TIME_TO);
     }
 
     /**
@@ -193,20 +906,19 @@ public class CampaignData implements Serializable {
      * @return the total number of conversions.
      */
     public int getTotalConversions(List<Set<Enum<?>>> filter) {
-        int totalConversions = 0;
-        for (Object[] serverLog : serverLogs) {
-            if ((boolean) serverLog[3] && filterMatches(filter, userMap.get(serverLog[4]))) {
-                totalConversions++;
-            }
-        }
-        return totalConversions;
+        return countConversions(new DemographicFilter(filter), ALL_TIME_FROM, ALL_TIME_TO);
     }
     /**
      * Returns the total number of unique users (based on unique IP or session tracking).
      * @return the total number of unique users.
      */
     public int getTotalUniques(List<Set<Enum<?>>> filter) {
-        return userMap.size();
+        DemographicFilter demographicFilter = new DemographicFilter(filter);
+        if (demographicFilter.isUnrestricted()) {
+            // Every user with an impression has a profile, so this is exact
+            return users.getProfiledCount();
+        }
+        return countUniques(demographicFilter, ALL_TIME_FROM, ALL_TIME_TO);
     }
 
 
@@ -215,13 +927,7 @@ public class CampaignData implements Serializable {
      * @return the total number of bounces
      */
     public int getTotalBounces(List<Set<Enum<?>>> filter) {
-        int totalBounces = 0;
-        for (Object[] serverLog : serverLogs) {
-            if (isBounce(serverLog) && filterMatches(filter, userMap.get(serverLog[4]))) {
-                totalBounces++;
-            }
-        }
-        return totalBounces;
+        return getBounceIndex().countBounces(bounceCriteria, new DemographicFilter(filter));
     }
 
 
@@ -231,18 +937,9 @@ public class CampaignData implements Serializable {
      * @return the total cost of the campaign.
      */
     public double getTotalCost(List<Set<Enum<?>>> filter) {
-        double totalCost = 0;
-        for (Object[] impression : impressions) {
-            if (filterMatches(filter, userMap.get(impression[2]))) {
-                totalCost += (double) impression[1];
-            }
-        }
-        for (Object[] click : clicks) {
-            if (filterMatches(filter, userMap.get(click[2]))) {
-                totalCost += (double) click[1];
-            }
-        }
-        return totalCost;
+        DemographicFilter demographicFilter = new DemographicFilter(filter);
+        return sumCosts(impressions, getImpressionIndex(), demographicFilter, ALL_TIME_FROM, ALL_TIME_TO)
+            + sumCosts(clicks, getClickIndex(), demographicFilter, ALL_TIME_FROM, ALL_TIME_TO);
     }
 
     /**
@@ -299,22 +996,28 @@ public class CampaignData implements Serializable {
     }
 
     public List<LocalDateTime> getImpressionDates() {
-        List<LocalDateTime> impressionDates = new ArrayList<>();
-        for (Object[] impression : impressions) {
-            impressionDates.add((LocalDateTime) impression[0]);
+        List<LocalDateTime> impressionDates = new ArrayList<>(impressions.size());
+        for (int row = 0; row < impressions.size(); row++) {
+            impressionDates.add(EpochSeconds.toLocalDateTime(impressions.getTime(row)));
         }
         return impressionDates;
     }
 
+    /**
+     * Returns whether any impressions have been loaded.
+     * @return true if there is at least one impression
+     */
+    public boolean hasImpressions() {
+        return impressions.size() > 0;
+    }
+
     /**
      * Returns the Click-Through Rate (CTR) = (Total Clicks / Total Impressions) * 100.
      * @param date the date to get the impressions for.
      * @return the number of impressions for the given date.
      */
     public int getImpressionsForDate(LocalDateTime date, List<Set<Enum<?>>> filter) {
-        return (int) getImpressions(filter).stream()
-            .filter(entry -> ((LocalDateTime) entry[0]).toLocalDate().equals(date.toLocalDate()))
-            .count();
+        return countForDate(HourlyCube.Measure.IMPRESSIONS, date, filter);
     }
 
     /**
@@ -323,9 +1026,7 @@ public class CampaignData implements Serializable {
      * @return the number of clicks for the given date.
      */
     public int getClicksForDate(LocalDateTime date, List<Set<Enum<?>>> filter) {
-        return (int) getClicks(filter).stream()
-            .filter(entry -> ((LocalDateTime) entry[0]).toLocalDate().equals(date.toLocalDate()))
-            .count();
+        return countForDate(HourlyCube.Measure.CLICKS, date, filter);
     }
 
     /**
@@ -334,14 +1035,56 @@ public class CampaignData implements Serializable {
      * @return the number of unique users for the given date.
      */
     public int getUniquesForDate(LocalDateTime date, List<Set<Enum<?>>> filter) {
-        Set<Object> uniqueIds = new HashSet<>();
-        for (Object[] impression : getImpressions(filter)) {
-            LocalDate impressionDate = ((LocalDateTime) impression[0]).toLocalDate();
-            if (impressionDate.equals(date.toLocalDate())) {
-                uniqueIds.add(impression[1]);
+        long from = firstHourOf(date) * EpochSeconds.SECONDS_PER_HOUR;
+        return countUniques(new DemographicFilter(filter), from, from + EpochSeconds.SECONDS_PER_DAY);
+    }
+
+    /**
+     * Counts the distinct users with impressions in [from, to), from the cube's user
+     * sketches when the range is whole hours, otherwise exactly.
+     */
+    private int countUniques(DemographicFilter filter, long from, long to) {
+        HourlyCube cube = getUniquesCube();
+        if (cube != null
+            && (from == ALL_TIME_FROM || Math.floorMod(from, EpochSeconds.SECONDS_PER_HOUR) == 0)
+            && (to == ALL_TIME_TO || Math.floorMod(to, EpochSeconds.SECONDS_PER_HOUR) == 0)) {
+            long fromHour = from == ALL_TIME_FROM ? Long.MIN_VALUE : EpochSeconds.hourOf(from);
+            long toHour = to == ALL_TIME_TO ? Long.MAX_VALUE : EpochSeconds.hourOf(to);
+            return (int) cube.mergeUserSketches(cube.segmentMask(filter), fromHour, toHour).estimate();
+        }
+        BitSet rows = getImpressionIndex().select(filter);
+        BitSet uniqueUsers = new BitSet(users.size());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            long time = impressions.getTime(row);
+            int user = impressions.getUser(row);
+            if (time >= from && time < to && user != UserDictionary.NO_USER) {
+                uniqueUsers.set(user);
             }
         }
-        return uniqueIds.size();
+        return uniqueUsers.cardinality();
+    }
+
+    /**
+     * Returns a sketch of the impression or click costs on the given date, for percentiles.
+     * @param costs the costs to include
+     * @param date the date
+     * @param filter the demographic filter
+     * @return a sketch of the matching costs
+     */
+    public QuantileSketch getCostSketchForDate(CostQuantileIndex.Costs costs, LocalDateTime date,
+                                               List<Set<Enum<?>>> filter) {
+        long day = EpochSeconds.dayOf(date);
+        return getCostQuantileIndex().merge(costs, new DemographicFilter(filter), day, day + 1);
+    }
+
+    /**
+     * Returns a sketch of all impression or click costs of the campaign, for percentiles.
+     * @param costs the costs to include
+     * @param filter the demographic filter
+     * @return a sketch of the matching costs
+     */
+    public QuantileSketch getTotalCostSketch(CostQuantileIndex.Costs costs, List<Set<Enum<?>>> filter) {
+        return getCostQuantileIndex().merge(costs, new DemographicFilter(filter), Long.MIN_VALUE, Long.MAX_VALUE);
     }
 
     /**
@@ -350,10 +1093,7 @@ public class CampaignData implements Serializable {
      * @return the number of bounces for the given date
      */
     public int getBouncesForDate(LocalDateTime date, List<Set<Enum<?>>> filter) {
-        return (int) getServerLogs(filter).stream()
-            .filter(entry -> ((LocalDateTime) entry[0]).toLocalDate().equals(date.toLocalDate()))
-            .filter(this::isBounce)
-            .count();
+        return countForDate(HourlyCube.Measure.BOUNCES, date, filter);
     }
 
     /**
@@ -362,9 +1102,7 @@ public class CampaignData implements Serializable {
      * @return the number of conversions for the given date.
      */
     public int getConversionsForDate(LocalDateTime date, List<Set<Enum<?>>> filter) {
-        return (int) getServerLogs(filter).stream()
-            .filter(entry -> ((LocalDateTime) entry[0]).toLocalDate().equals(date.toLocalDate()) && (boolean) entry[3])
-            .count();
+        return countForDate(HourlyCube.Measure.CONVERSIONS, date, filter);
     }
 
     /**
@@ -373,31 +1111,8 @@ public class CampaignData implements Serializable {
      * @return the total cost for the given date.
      */
     public double getTotalCostForDate(LocalDateTime date, List<Set<Enum<?>>> filter) {
-        double total = getImpressions(filter).stream()
-            .filter(entry -> ((LocalDateTime) entry[0]).toLocalDate().equals(date.toLocalDate()))
-            .mapToDouble(entry -> {
-                if (entry[1] instanceof Double) { // Correct index for Impression Cost
-                    return (double) entry[1];
-                } else {
-                    System.err.println("Unexpected type in impressions cost: " + entry[1].getClass().getName());
-                    return 0.0; // Ignore invalid values
-                }
-            })
-            .sum();
-
-        total += getClicks(filter).stream()
-            .filter(entry -> ((LocalDateTime) entry[0]).toLocalDate().equals(date.toLocalDate()))
-            .mapToDouble(entry -> {
-                if (entry[1] instanceof Double) { // Click Cost should be at index 1
-                    return (double) entry[1];
-                } else {
-                    System.err.println("Unexpected type in clicks cost: " + entry[1].getClass().getName());
-                    return 0.0;
-                }
-            })
-            .sum();
-
-        return total;
+        long from = firstHourOf(date);
+        return costBetween(filter, from, from + HOURS_PER_DAY);
     }
 
     /**
@@ -464,10 +1179,29 @@ public class CampaignData implements Serializable {
      * @return the earliest date in the campaign data.
      */
     public LocalDate getFirstDate() {
-        return impressions.stream()
-            .map(entry -> ((LocalDateTime) entry[0]).toLocalDate()) // Extract dates
-            .min(LocalDate::compareTo) // Get the earliest date
-            .orElse(LocalDate.now()); // Default to today if no data exists
+        if (impressions.size() == 0) {
+            return LocalDate.now(); // Default to today if no data exists
+        }
+        long first = Long.MAX_VALUE;
+        for (int row = 0; row < impressions.size(); row++) {
+            first = Math.min(first, impressions.getTime(row));
+        }
+        return EpochSeconds.dateOfDay(EpochSeconds.dayOf(first));
+    }
+
+    /**
+     * Returns the latest date in the campaign data.
+     * @return the latest date in the campaign data.
+     */
+    public LocalDate getLastDate() {
+        if (impressions.size() == 0) {
+            return LocalDate.now(); // Default to today if no data exists
+        }
+        long last = Long.MIN_VALUE;
+        for (int row = 0; row < impressions.size(); row++) {
+            last = Math.max(last, impressions.getTime(row));
+        }
+        return EpochSeconds.dateOfDay(EpochSeconds.dayOf(last));
     }
 
     /**
@@ -476,10 +1210,7 @@ public class CampaignData implements Serializable {
      * @return the number of hourly impressions for the given date.
      */
     public int getHourlyImpressions(LocalDateTime dateTime, List<Set<Enum<?>>> filter) {
-        return (int) getImpressions(filter).stream()
-            .filter(entry -> ((LocalDateTime) entry[0]).getHour() == dateTime.getHour()
-                && ((LocalDateTime) entry[0]).toLocalDate().equals(dateTime.toLocalDate()))
-            .count();
+        return countForHour(HourlyCube.Measure.IMPRESSIONS, dateTime, filter);
     }
 
     /**
@@ -488,10 +1219,7 @@ public class CampaignData implements Serializable {
      * @return the number of hourly clicks for the given date.
      */
     public int getHourlyClicks(LocalDateTime dateTime, List<Set<Enum<?>>> filter) {
-        return (int) getClicks(filter).stream()
-            .filter(entry -> ((LocalDateTime) entry[0]).getHour() == dateTime.getHour()
-                && ((LocalDateTime) entry[0]).toLocalDate().equals(dateTime.toLocalDate()))
-            .count();
+        return countForHour(HourlyCube.Measure.CLICKS, dateTime, filter);
     }
 
     /**
@@ -500,11 +1228,7 @@ public class CampaignData implements Serializable {
      * @return the number of hourly conversions for the given date.
      */
     public int getHourlyConversions(LocalDateTime dateTime, List<Set<Enum<?>>> filter) {
-        return (int) getServerLogs(filter).stream()
-            .filter(entry -> ((LocalDateTime) entry[0]).getHour() == dateTime.getHour()
-                && ((LocalDateTime) entry[0]).toLocalDate().equals(dateTime.toLocalDate()))
-            .filter(entry -> (boolean) entry[3])
-            .count();
+        return countForHour(HourlyCube.Measure.CONVERSIONS, dateTime, filter);
     }
 
     /**
@@ -513,33 +1237,8 @@ public class CampaignData implements Serializable {
      * @return the hourly total cost for the given date.
      */
     public double getHourlyTotalCost(LocalDateTime dateTime, List<Set<Enum<?>>> filter) {
-        double total = getImpressions(filter).stream()
-            .filter(entry -> ((LocalDateTime) entry[0]).getHour() == dateTime.getHour()
-                && ((LocalDateTime) entry[0]).toLocalDate().equals(dateTime.toLocalDate()))
-            .mapToDouble(entry -> {
-                if (entry[1] instanceof Double) { // Ensure correct index
-                    return (double) entry[1];
-                } else {
-                    System.err.println("Unexpected type in hourly impressions cost: " + entry[1].getClass().getName());
-                    return 0.0; // Ignore invalid values
-                }
-            })
-            .sum();
-
-        total += getClicks(filter).stream()
-            .filter(entry -> ((LocalDateTime) entry[0]).getHour() == dateTime.getHour()
-                && ((LocalDateTime) entry[0]).toLocalDate().equals(dateTime.toLocalDate()))
-            .mapToDouble(entry -> {
-                if (entry[1] instanceof Double) {
-                    return (double) entry[1];
-                } else {
-                    System.err.println("Unexpected type in hourly clicks cost: " + entry[1].getClass().getName());
-                    return 0.0;
-                }
-            })
-            .sum();
-
-        return total;
+        long hour = EpochSeconds.hourOf(dateTime);
+        return costBetween(filter, hour, hour + 1);
     }
 
 
@@ -594,18 +1293,158 @@ public class CampaignData implements Serializable {
      */
     public double getHourlyBounceRate(LocalDateTime dateTime, List<Set<Enum<?>>> filter) {
         int clicks = getHourlyClicks(dateTime, filter);
-        int bounces = (int) getServerLogs(filter).stream()
-            .filter(entry -> ((LocalDateTime) entry[0]).getHour() == dateTime.getHour()
-                && ((LocalDateTime) entry[0]).toLocalDate().equals(dateTime.toLocalDate()))
-            .filter(this::isBounce)
-            .count();
+        int bounces = countForHour(HourlyCube.Measure.BOUNCES, dateTime, filter);
         if (clicks == 0) return 0;
         double bounceRate = ((double) bounces / clicks) * 100;
         return Math.min(bounceRate, 100);
     }
 
+    /**
+     * Returns the number of rows in the impression log, ignoring filters.
+     * @return the number of impressions
+     */
+    public int getImpressionCount() {
+        return impressions.size();
+    }
 
+    /**
+     * Returns the number of rows in the click log, ignoring filters.
+     * @return the number of clicks
+     */
+    public int getClickCount() {
+        return clicks.size();
+    }
 
+    /**
+     * Returns the number of rows in the server log, ignoring filters.
+     * @return the number of server log entries
+     */
+    public int getServerLogCount() {
+        return serverLogs.size();
+    }
 
+    /**
+     * Estimates the heap used by this campaign's columns and user dictionary.
+     * @return the estimated size in bytes
+     */
+    public long estimateMemoryFootprint() {
+        return users.estimateBytes() + impressions.estimateBytes() + clicks.estimateBytes() + serverLogs.estimateBytes();
+    }
 
+    /**
+     * Estimates the heap this campaign keeps alive: its columns and user dictionary
+     * plus the hourly cube and row indexes built so far.
+     * @return the estimated size in bytes
+     */
+    public long estimateRetainedFootprint() {
+        long bytes = estimateMemoryFootprint();
+        HourlyCube cube = hourlyCube;
+        if (cube != null) {
+            bytes += cube.estimateBytes();
+        }
+        for (SegmentIndex index : new SegmentIndex[] {impressionIndex, clickIndex, serverLogIndex}) {
+            if (index != null) {
+                bytes += index.estimateBytes();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimates the heap the same data would need in the original {@code List<Object[]>} row layout.
+     * @return the estimated size in bytes
+     */
+    public long estimateRowLayoutFootprint() {
+        return MemoryFootprint.estimateRowLayout(impressions.size(), clicks.size(), serverLogs.size(),
+            users.getProfiledCount(), users.getAverageIdLength());
+    }
+
+    UserDictionary getUserDictionary() {
+        return users;
+    }
+
+    CostEventColumns getImpressionColumns() {
+        return impressions;
+    }
+
+    CostEventColumns getClickColumns() {
+        return clicks;
+    }
+
+    ServerLogColumns getServerLogColumns() {
+        return serverLogs;
+    }
+
+    /**
+     * Writes the columns.
+     * @param out the stream to write to
+     * @throws IOException if the stream fails
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("userDictionary", users);
+        fields.put("impressionColumns", impressions);
+        fields.put("clickColumns", clicks);
+        fields.put("serverLogColumns", serverLogs);
+        fields.put("bounceCriteria", bounceCriteria);
+        out.writeFields();
+    }
+
+    /**
+     * Reads the columns, converting data saved in the original row layout where found.
+     * @param in the stream to read from
+     * @throws IOException if the stream fails
+     * @throws ClassNotFoundException if a class in the stream cannot be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        bounceCriteria = (BounceCriteria) fields.get("bounceCriteria", new BounceCriteria());
+        uniquesPrecision = HyperLogLog.DEFAULT_PRECISION;
+
+        if (fields.getObjectStreamClass().getField("impressions") != null) {
+            users = new UserDictionary();
+            impressions = new CostEventColumns();
+            clicks = new CostEventColumns();
+            serverLogs = new ServerLogColumns();
+            readRowLayout(fields);
+            trimToSize();
+        } else {
+            users = (UserDictionary) fields.get("userDictionary", null);
+            impressions = (CostEventColumns) fields.get("impressionColumns", null);
+            clicks = (CostEventColumns) fields.get("clickColumns", null);
+            serverLogs = (ServerLogColumns) fields.get("serverLogColumns", null);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readRowLayout(ObjectInputStream.GetField fields) throws IOException {
+        List<Object[]> impressionRows = (List<Object[]>) fields.get("impressions", null);
+        List<Object[]> clickRows = (List<Object[]>) fields.get("clicks", null);
+        List<Object[]> serverLogRows = (List<Object[]>) fields.get("serverLogs", null);
+        Map<String, Object[]> userMap = (Map<String, Object[]>) fields.get("userMap", null);
+
+        if (impressionRows != null) {
+            for (Object[] row : impressionRows) {
+                impressions.add(EpochSeconds.of((LocalDateTime) row[0]), (double) row[1], users.intern((String) row[2]));
+            }
+        }
+        if (userMap != null) {
+            for (Map.Entry<String, Object[]> entry : userMap.entrySet()) {
+                Object[] profile = entry.getValue();
+                users.setProfile(users.intern(entry.getKey()),
+                    (Gender) profile[0], (AgeRange) profile[1], (Income) profile[2], (Context) profile[3]);
+            }
+        }
+        if (clickRows != null) {
+            for (Object[] row : clickRows) {
+                clicks.add(EpochSeconds.of((LocalDateTime) row[0]), (double) row[1], users.intern((String) row[2]));
+            }
+        }
+        if (serverLogRows != null) {
+            for (Object[] row : serverLogRows) {
+                serverLogs.add(EpochSeconds.of((LocalDateTime) row[0]), EpochSeconds.of((LocalDateTime) row[1]),
+                    (int) row[2], (boolean) row[3], users.intern((String) row[4]));
+            }
+        }
+    }
 }
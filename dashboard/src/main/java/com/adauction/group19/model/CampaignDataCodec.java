@@ -0,0 +1,345 @@
+package com.adauction.group19.model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Binary format for saved campaigns, used in place of Java serialization.
+ * <p>
+ * The layout is a header (magic number and format version) and the bounce
+ * criteria, then:
+ * <ul>
+ *   <li>the user dictionary: each ID once, then one byte per user packing all
+ *   four demographics into its {@link HourlyCube} segment;</li>
+ *   <li>the impression and click columns: times as zig-zag varint deltas from
+ *   the previous row, costs as raw doubles, user codes as varints;</li>
+ *   <li>the server log columns: entry times as deltas, exit times as deltas from
+ *   the entry time, pages viewed as varints, conversions as a bit set, user codes
+ *   as varints.</li>
+ * </ul>
+ * Deltas wrap on overflow, so every value round-trips exactly, including
+ * {@link EpochSeconds#ABSENT}.
+ */
+public final class CampaignDataCodec {
+
+    /**
+     * The first four bytes of an encoded campaign, "ADCD". A Java serialization
+     * stream starts with 0xACED, so the two can always be told apart.
+     */
+    private static final int MAGIC = 0x41444344;
+
+    /**
+     * The current format version. Readers reject newer versions.
+     */
+    public static final short FORMAT_VERSION = 1;
+
+    private CampaignDataCodec() {
+    }
+
+    /**
+     * Returns whether the bytes start with this format's header.
+     * @param data the saved bytes
+     * @return true if the data was written by {@link #encode}
+     */
+    public static boolean isEncoded(byte[] data) {
+        return data != null && data.length >= Integer.BYTES && ByteBuffer.wrap(data).getInt(0) == MAGIC;
+    }
+
+    /**
+     * Encodes a campaign.
+     * @param campaignData the campaign to encode
+     * @return the encoded bytes
+     */
+    public static byte[] encode(CampaignData campaignData) {
+        UserDictionary users = campaignData.getUserDictionary();
+        CostEventColumns impressions = campaignData.getImpressionColumns();
+        CostEventColumns clicks = campaignData.getClickColumns();
+        ServerLogColumns serverLogs = campaignData.getServerLogColumns();
+
+        // Roughly the size of a typical campaign, so the buffer rarely grows
+        Output out = new Output(64 + users.size() * 24
+            + (impressions.size() + clicks.size()) * 14 + serverLogs.size() * 10);
+        out.putInt(MAGIC);
+        out.putShort(FORMAT_VERSION);
+
+        BounceCriteria criteria = campaignData.getBounceCriteria();
+        out.putVarLong(criteria.getMinPagesViewed());
+        out.putVarLong(criteria.getMinTimeOnSiteSeconds());
+        out.put((byte) ((criteria.isConsiderPagesViewed() ? 1 : 0) | (criteria.isConsiderTimeOnSite() ? 2 : 0)));
+
+        writeUsers(out, users);
+        writeCostEvents(out, impressions);
+        writeCostEvents(out, clicks);
+        writeServerLogs(out, serverLogs);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a campaign written by {@link #encode}.
+     * @param data the encoded bytes
+     * @return the campaign
+     * @throws IOException if the data is not in this format, is from a newer version, or is truncated
+     */
+    public static CampaignData decode(byte[] data) throws IOException {
+        if (!isEncoded(data)) {
+            throw new IOException("Not an encoded campaign");
+        }
+        ByteBuffer in = ByteBuffer.wrap(data);
+        in.getInt();
+        short version = in.getShort();
+        if (version > FORMAT_VERSION) {
+            throw new IOException("Unsupported campaign format version " + version);
+        }
+
+        try {
+            int minPages = (int) getVarLong(in);
+            int minTime = (int) getVarLong(in);
+            byte flags = in.get();
+            BounceCriteria criteria = new BounceCriteria(minPages, minTime, (flags & 1) != 0, (flags & 2) != 0);
+
+            UserDictionary users = readUsers(in);
+            CostEventColumns impressions = readCostEvents(in);
+            CostEventColumns clicks = readCostEvents(in);
+            ServerLogColumns serverLogs = readServerLogs(in);
+            return new CampaignData(users, impressions, clicks, serverLogs, criteria);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Encoded campaign is truncated or corrupt");
+        }
+    }
+
+    private static void writeUsers(Output out, UserDictionary users) {
+        int count = users.size();
+        out.putVarLong(count);
+        for (int code = 0; code < count; code++) {
+            byte[] id = users.getId(code).getBytes(StandardCharsets.UTF_8);
+            out.putVarLong(id.length);
+            out.put(id);
+        }
+        for (int code = 0; code < count; code++) {
+            // All 241 segments, including the no-profile one, fit in an unsigned byte
+            out.put((byte) HourlyCube.segmentOf(users, code));
+        }
+    }
+
+    private static UserDictionary readUsers(ByteBuffer in) throws IOException {
+        int count = readCount(in);
+        UserDictionary users = new UserDictionary();
+        byte[] idBytes = new byte[32];
+        for (int i = 0; i < count; i++) {
+            int length = readCount(in);
+            if (length > idBytes.length) {
+                idBytes = new byte[length];
+            }
+            in.get(idBytes, 0, length);
+            users.intern(new String(idBytes, 0, length, StandardCharsets.UTF_8));
+        }
+
+        int contexts = DemographicFilter.valueCount(3);
+        int incomes = DemographicFilter.valueCount(2);
+        int ageRanges = DemographicFilter.valueCount(1);
+        for (int code = 0; code < count; code++) {
+            int segment = in.get() & 0xff;
+            if (segment == HourlyCube.NO_PROFILE_SEGMENT) {
+                continue;
+            }
+            users.setProfileOrdinals(code, (byte) (segment / contexts / incomes / ageRanges),
+                (byte) (segment / contexts / incomes % ageRanges),
+                (byte) (segment / contexts % incomes), (byte) (segment % contexts));
+        }
+        users.trimToSize();
+        return users;
+    }
+
+    private static void writeCostEvents(Output out, CostEventColumns columns) {
+        int size = columns.size();
+        out.putVarLong(size);
+        long previous = 0;
+        for (int row = 0; row < size; row++) {
+            long time = columns.getTime(row);
+            out.putVarLong(zigZag(time - previous));
+            previous = time;
+        }
+        for (int row = 0; row < size; row++) {
+            out.putDouble(columns.getCost(row));
+        }
+        for (int row = 0; row < size; row++) {
+            out.putVarLong(columns.getUser(row) + 1L);
+        }
+    }
+
+    private static CostEventColumns readCostEvents(ByteBuffer in) throws IOException {
+        int size = readCount(in);
+        long[] times = new long[size];
+        double[] costs = new double[size];
+        int[] users = new int[size];
+        long previous = 0;
+        for (int row = 0; row < size; row++) {
+            previous += unZigZag(getVarLong(in));
+            times[row] = previous;
+        }
+        for (int row = 0; row < size; row++) {
+            costs[row] = in.getDouble();
+        }
+        for (int row = 0; row < size; row++) {
+            users[row] = (int) getVarLong(in) - 1;
+        }
+        return new CostEventColumns(times, costs, users);
+    }
+
+    private static void writeServerLogs(Output out, ServerLogColumns columns) {
+        int size = columns.size();
+        out.putVarLong(size);
+        long previous = 0;
+        for (int row = 0; row < size; row++) {
+            long entry = columns.getEntryTime(row);
+            out.putVarLong(zigZag(entry - previous));
+            previous = entry;
+        }
+        for (int row = 0; row < size; row++) {
+            out.putVarLong(zigZag(columns.getExitTime(row) - columns.getEntryTime(row)));
+        }
+        for (int row = 0; row < size; row++) {
+            out.putVarLong(zigZag(columns.getPagesViewed(row)));
+        }
+        byte[] conversions = new byte[(size + 7) / 8];
+        for (int row = 0; row < size; row++) {
+            if (columns.isConversion(row)) {
+                conversions[row >> 3] |= (byte) (1 << (row & 7));
+            }
+        }
+        out.put(conversions);
+        for (int row = 0; row < size; row++) {
+            out.putVarLong(columns.getUser(row) + 1L);
+        }
+    }
+
+    private static ServerLogColumns readServerLogs(ByteBuffer in) throws IOException {
+        int size = readCount(in);
+        long[] entryTimes = new long[size];
+        long[] exitTimes = new long[size];
+        int[] pagesViewed = new int[size];
+        boolean[] conversions = new boolean[size];
+        int[] users = new int[size];
+        long previous = 0;
+        for (int row = 0; row < size; row++) {
+            previous += unZigZag(getVarLong(in));
+            entryTimes[row] = previous;
+        }
+        for (int row = 0; row < size; row++) {
+            exitTimes[row] = entryTimes[row] + unZigZag(getVarLong(in));
+        }
+        for (int row = 0; row < size; row++) {
+            pagesViewed[row] = (int) unZigZag(getVarLong(in));
+        }
+        byte[] conversionBits = new byte[(size + 7) / 8];
+        in.get(conversionBits);
+        for (int row = 0; row < size; row++) {
+            conversions[row] = (conversionBits[row >> 3] & (1 << (row & 7))) != 0;
+        }
+        for (int row = 0; row < size; row++) {
+            users[row] = (int) getVarLong(in) - 1;
+        }
+        return new ServerLogColumns(entryTimes, exitTimes, pagesViewed, conversions, users);
+    }
+
+    /**
+     * Reads a row or byte count, rejecting values the remaining bytes cannot hold.
+     * Every row takes at least one byte, so this stops a corrupt count from
+     * allocating huge arrays.
+     */
+    private static int readCount(ByteBuffer in) throws IOException {
+        long count = getVarLong(in);
+        if (count < 0 || count > in.remaining()) {
+            throw new IOException("Invalid count " + count + " in encoded campaign");
+        }
+        return (int) count;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint.
+     */
+    private static long getVarLong(ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in encoded campaign");
+    }
+
+    /**
+     * A byte buffer that doubles in size as it fills.
+     */
+    private static final class Output {
+        private ByteBuffer buffer;
+
+        private Output(int initialCapacity) {
+            buffer = ByteBuffer.allocate(Math.max(initialCapacity, 64));
+        }
+
+        private void ensureRemaining(int bytes) {
+            if (buffer.remaining() < bytes) {
+                int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+                ByteBuffer larger = ByteBuffer.allocate(capacity);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+
+        private void put(byte value) {
+            ensureRemaining(1);
+            buffer.put(value);
+        }
+
+        private void put(byte[] values) {
+            ensureRemaining(values.length);
+            buffer.put(values);
+        }
+
+        private void putShort(short value) {
+            ensureRemaining(Short.BYTES);
+            buffer.putShort(value);
+        }
+
+        private void putInt(int value) {
+            ensureRemaining(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        private void putDouble(double value) {
+            ensureRemaining(Double.BYTES);
+            buffer.putDouble(value);
+        }
+
+        /**
+         * Writes an unsigned LEB128 varint: 7 bits per byte, high bit set on all but the last.
+         */
+        private void putVarLong(long value) {
+            ensureRemaining(10);
+            while ((value & ~0x7fL) != 0) {
+                buffer.put((byte) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        }
+    }
+}
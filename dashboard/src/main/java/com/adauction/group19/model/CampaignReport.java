@@ -0,0 +1,141 @@
+package com.adauction.group19.model;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The contents of a campaign report: metric series over a range, their totals and
+ * some notes, ready to be rendered without the UI.
+ *
+ * @param title The report title.
+ * @param from The start of the range.
+ * @param to The end of the range, exclusive.
+ * @param granularity The bucket width of the series.
+ * @param labels The label of each bucket.
+ * @param series The series of each metric, in the order of {@link Metric}.
+ * @param notes Lines of text to print under the charts; lines starting with "#" are headings.
+ */
+public record CampaignReport(String title, LocalDateTime from, LocalDateTime to, TimeGranularity granularity,
+                             List<String> labels, Map<Metric, MetricSeries> series, List<String> notes) {
+
+    private static final DateTimeFormatter HOUR_LABEL = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final DateTimeFormatter DAY_LABEL = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    /**
+     * Queries the series of a report in one pass over the campaign data.
+     * @param title The report title.
+     * @param campaignData The campaign data.
+     * @param from The start of the range.
+     * @param to The end of the range, exclusive.
+     * @param granularity The bucket width.
+     * @param filters The metrics to include, each with its demographic filter.
+     * @return The report, with notes on the peaks of the counted metrics.
+     */
+    public static CampaignReport query(String title, CampaignSnapshot campaignData, LocalDateTime from,
+                                       LocalDateTime to, TimeGranularity granularity,
+                                       Map<Metric, List<Set<Enum<?>>>> filters) {
+        Map<Metric, MetricSeries> series = new MetricQueryEngine(campaignData).query(from, to, granularity, filters);
+        List<String> labels = labels(from, to, granularity);
+        return new CampaignReport(title, from, to, granularity, labels, series, peakNotes(labels, series));
+    }
+
+    /**
+     * Returns a copy of this report with other notes.
+     * @param notes The notes.
+     * @return The new report.
+     */
+    public CampaignReport withNotes(List<String> notes) {
+        return new CampaignReport(title, from, to, granularity, labels, series, notes);
+    }
+
+    /**
+     * Returns the series as export data, one row per bucket and one column per metric.
+     * @return The export data.
+     */
+    public ExportData toExportData() {
+        List<String> header = new ArrayList<>();
+        for (Metric metric : series.keySet()) {
+            header.add(metric.getDisplayName());
+        }
+        TreeMap<String, List<Number>> dateToValue = new TreeMap<>();
+        for (int i = 0; i < labels.size(); i++) {
+            List<Number> values = new ArrayList<>(series.size());
+            for (MetricSeries metricSeries : series.values()) {
+                values.add(i < metricSeries.size() ? metricSeries.getValue(i) : Double.NaN);
+            }
+            dateToValue.put(labels.get(i), values);
+        }
+        return new ExportData(header, dateToValue);
+    }
+
+    /**
+     * Labels the buckets of a range by their start: the hour for hourly buckets and
+     * the day otherwise.
+     * @param from The start of the range.
+     * @param to The end of the range, exclusive.
+     * @param granularity The bucket width.
+     * @return One label per bucket.
+     */
+    public static List<String> labels(LocalDateTime from, LocalDateTime to, TimeGranularity granularity) {
+        int buckets = MetricQueryEngine.bucketCount(from, to, granularity);
+        DateTimeFormatter format = granularity == TimeGranularity.HOURLY ? HOUR_LABEL : DAY_LABEL;
+        List<String> labels = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            labels.add(format.format(from.plusSeconds(i * granularity.getSeconds())));
+        }
+        return labels;
+    }
+
+    /**
+     * Formats a metric value as the metrics screen does: costs in dollars, rates as
+     * percentages and counts as whole numbers.
+     * @param metric The metric.
+     * @param value The value.
+     * @return The formatted value.
+     */
+    public static String formatValue(Metric metric, double value) {
+        return switch (metric) {
+            case TOTAL_COST, CPA, CPC, CPM -> String.format("$%.2f", value);
+            case CTR, BOUNCE_RATE -> String.format("%.2f%%", value);
+            default -> String.format("%,d", (long) value);
+        };
+    }
+
+    private static List<String> peakNotes(List<String> labels, Map<Metric, MetricSeries> series) {
+        List<String> notes = new ArrayList<>();
+        notes.add("#Summary");
+        for (MetricSeries values : series.values()) {
+            notes.add("• " + values.getMetric().getDisplayName() + ": "
+                + formatValue(values.getMetric(), values.getTotal()));
+        }
+        Map<Metric, Integer> peaks = new EnumMap<>(Metric.class);
+        for (Metric metric : List.of(Metric.IMPRESSIONS, Metric.CLICKS, Metric.CONVERSIONS)) {
+            MetricSeries values = series.get(metric);
+            if (values == null || values.size() == 0) {
+                continue;
+            }
+            int peak = 0;
+            for (int i = 1; i < values.size(); i++) {
+                if (values.getValue(i) > values.getValue(peak)) {
+                    peak = i;
+                }
+            }
+            if (values.getValue(peak) > 0 && peak < labels.size()) {
+                peaks.put(metric, peak);
+            }
+        }
+        if (!peaks.isEmpty()) {
+            notes.add("#Peaks");
+            peaks.forEach((metric, peak) -> notes.add("• " + metric.getDisplayName() + ": " + labels.get(peak)
+                + " (" + formatValue(metric, series.get(metric).getValue(peak)) + ")"));
+        }
+        return Collections.unmodifiableList(notes);
+    }
+}
@@ -0,0 +1,375 @@
+package com.adauction.group19.model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A read-only view of a loaded campaign, as shared by the screens, queries and
+ * exports. Only {@link CampaignData} implements it, and the snapshots handed out by
+ * {@code CampaignDataStore} are {@linkplain CampaignData#freeze() frozen}, so code
+ * holding one can query it from any thread but has no way to change it. Other
+ * bounce criteria give a new snapshot with {@link #withBounceCriteria}.
+ */
+public sealed interface CampaignSnapshot permits CampaignData {
+
+    /**
+     * Returns the number of rows in the impression log, ignoring filters.
+     * @return the number of impressions
+     */
+    int getImpressionCount();
+
+    /**
+     * Returns the number of rows in the click log, ignoring filters.
+     * @return the number of clicks
+     */
+    int getClickCount();
+
+    /**
+     * Returns the number of rows in the server log, ignoring filters.
+     * @return the number of server log entries
+     */
+    int getServerLogCount();
+
+    /**
+     * Returns whether any impressions have been loaded.
+     * @return true if there is at least one impression
+     */
+    boolean hasImpressions();
+
+    /**
+     * Returns the earliest date in the campaign data.
+     * @return the earliest date in the campaign data.
+     */
+    LocalDate getFirstDate();
+
+    /**
+     * Returns the latest date in the campaign data.
+     * @return the latest date in the campaign data.
+     */
+    LocalDate getLastDate();
+
+    /**
+     * Returns a copy of the bounce criteria, so the criteria cannot be changed in place.
+     * @return the bounce criteria
+     */
+    BounceCriteria getBounceCriteria();
+
+    /**
+     * Returns a snapshot of the same campaign that counts bounces under other criteria.
+     * Only the bounces are counted again; this snapshot is left as it is.
+     * @param criteria the bounce criteria of the view
+     * @return the view, or this snapshot if the criteria are the same
+     */
+    CampaignSnapshot withBounceCriteria(BounceCriteria criteria);
+
+    /**
+     * Returns how uniques are counted.
+     * @return the sketch precision, or {@link CampaignData#EXACT_UNIQUES}
+     */
+    int getUniquesPrecision();
+
+    /**
+     * Returns the cache of metric query results for this campaign, see {@link MetricQueryEngine}.
+     * @return the query cache
+     */
+    MetricQueryCache getQueryCache();
+
+    /**
+     * Returns the click costs sorted per demographic segment, building them on first use.
+     * @return the click cost index
+     */
+    ClickCostIndex getClickCostIndex();
+
+    /**
+     * Returns all the impression data for the campaign.
+     * Each row is built on demand as {dateTime, impressionCost, id}.
+     * @param filter the filter to apply to the impressions
+     * @return The impressions data for the campaign.
+     */
+    List<Object[]> getImpressions(List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns all the click data for the campaign.
+     * Each row is built on demand as {dateTime, clickCost, id}.
+     * @return The click data for the campaign.
+     */
+    List<Object[]> getClicks(List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns all the server logs for the campaign.
+     * Each row is built on demand as {entryDateTime, exitDateTime, pagesViewed, conversion, id}.
+     * @return The server logs for the campaign.
+     */
+    List<Object[]> getServerLogs(List<Set<Enum<?>>> filter);
+
+    /**
+     * Writes the impressions passing a filter as Date, Impression Cost, ID, Gender,
+     * Age, Income, Context rows, with the demographics of each impression's user.
+     * Rows are read from the columns and written one at a time, so memory use does
+     * not grow with the number of rows exported.
+     * @param filter the filter to apply to the impressions
+     * @param format the export format
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    void exportImpressions(List<Set<Enum<?>>> filter, ExportWriter.Format format, Writer out) throws IOException;
+
+    /**
+     * Writes the clicks passing a filter as Date, Click Cost, ID rows, one at a time.
+     * @param filter the filter to apply to the clicks
+     * @param format the export format
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    void exportClicks(List<Set<Enum<?>>> filter, ExportWriter.Format format, Writer out) throws IOException;
+
+    /**
+     * Writes the server logs passing a filter as Entry Date, Exit Date, Pages Viewed,
+     * Conversion, ID rows, one at a time. A missing exit date is written as "n/a".
+     * @param filter the filter to apply to the server logs
+     * @param format the export format
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    void exportServerLogs(List<Set<Enum<?>>> filter, ExportWriter.Format format, Writer out) throws IOException;
+
+    /**
+     * Returns the total number of impressions.
+     * @return the total number of impressions.
+     */
+    int getTotalImpressions(List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the total number of clicks.
+     * @return the total number of clicks.
+     */
+    int getTotalClicks(List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the total number of conversions.
+     * @return the total number of conversions.
+     */
+    int getTotalConversions(List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the total number of unique users (based on unique IP or session tracking).
+     * @return the total number of unique users.
+     */
+    int getTotalUniques(List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the total number of bounces based on the current bounce criteria.
+     * @return the total number of bounces
+     */
+    int getTotalBounces(List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the total cost of impressions and clicks combined.
+     * @return the total cost of the campaign.
+     */
+    double getTotalCost(List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the Click-Through Rate (CTR) = (Total Clicks / Total Impressions) * 100.
+     * @return the CTR percentage.
+     */
+    double getCTR(List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the Cost Per Acquisition (CPA) = Total Cost / Total Conversions.
+     * @return the CPA value.
+     */
+    double getCPA(List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the Cost Per Click (CPC) = Total Cost / Total Clicks.
+     * @return the CPC value.
+     */
+    double getCPC(List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the Cost Per Thousand Impressions (CPM) = (Total Cost / Total Impressions) * 1000.
+     * @return the CPM value.
+     */
+    double getCPM(List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the Bounce Rate = (Total Bounces / Total Clicks) * 100.
+     * @return the bounce rate percentage.
+     */
+    double getBounceRate(List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns a sketch of all impression or click costs of the campaign, for percentiles.
+     * @param costs the costs to include
+     * @param filter the demographic filter
+     * @return a sketch of the matching costs
+     */
+    QuantileSketch getTotalCostSketch(CostQuantileIndex.Costs costs, List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the number of impressions for the given date.
+     * @param date the date to get the impressions for.
+     * @return the number of impressions for the given date.
+     */
+    int getImpressionsForDate(LocalDateTime date, List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the number of clicks for the given date.
+     * @param date the date to get the clicks for.
+     * @return the number of clicks for the given date.
+     */
+    int getClicksForDate(LocalDateTime date, List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the number of unique users for the given date.
+     * @param date the date to get the uniques for.
+     * @return the number of unique users for the given date.
+     */
+    int getUniquesForDate(LocalDateTime date, List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the number of bounces for the given date based on the current bounce criteria.
+     * @param date the date to get the bounces for
+     * @return the number of bounces for the given date
+     */
+    int getBouncesForDate(LocalDateTime date, List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the number of conversions for the given date.
+     * @param date the date to get the conversions for.
+     * @return the number of conversions for the given date.
+     */
+    int getConversionsForDate(LocalDateTime date, List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the total cost for the given date.
+     * @param date the date to get the total cost for.
+     * @return the total cost for the given date.
+     */
+    double getTotalCostForDate(LocalDateTime date, List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the Click-Through Rate (CTR) = (Total Clicks / Total Impressions) * 100.
+     * @param date the date to get the CTR for.
+     * @return the CTR percentage for the given date.
+     */
+    double getCTRForDate(LocalDateTime date, List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the Cost Per Acquisition (CPA) = Total Cost / Total Conversions.
+     * @param date the date to get the CPA for.
+     * @return the CPA value for the given date.
+     */
+    double getCPAForDate(LocalDateTime date, List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the Cost Per Click (CPC) = Total Cost / Total Clicks.
+     * @param date the date to get the CPC for.
+     * @return the CPC value for the given date.
+     */
+    double getCPCForDate(LocalDateTime date, List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the Cost Per Thousand Impressions (CPM) = (Total Cost / Total Impressions) * 1000.
+     * @param date the date to get the CPM for.
+     * @return the CPM value for the given date.
+     */
+    double getCPMForDate(LocalDateTime date, List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the Bounce Rate = (Total Bounces / Total Clicks) * 100.
+     * @param date the date to get the bounce rate for.
+     * @return the bounce rate percentage for the given date.
+     */
+    double getBounceRateForDate(LocalDateTime date, List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns a sketch of the impression or click costs on the given date, for percentiles.
+     * @param costs the costs to include
+     * @param date the date
+     * @param filter the demographic filter
+     * @return a sketch of the matching costs
+     */
+    QuantileSketch getCostSketchForDate(CostQuantileIndex.Costs costs, LocalDateTime date, List<Set<Enum<?>>> filter);
+
+    /**
+     * Gets the hourly impressions for a given date
+     * @param dateTime the date to get the hourly impressions for.
+     * @return the number of hourly impressions for the given date.
+     */
+    int getHourlyImpressions(LocalDateTime dateTime, List<Set<Enum<?>>> filter);
+
+    /**
+     * Gets the hourly clicks for a given date.
+     * @param dateTime the date to get the hourly clicks for.
+     * @return the number of hourly clicks for the given date.
+     */
+    int getHourlyClicks(LocalDateTime dateTime, List<Set<Enum<?>>> filter);
+
+    /**
+     * Gets the hourly conversions for a given date.
+     * @param dateTime the date to get the hourly conversions for.
+     * @return the number of hourly conversions for the given date.
+     */
+    int getHourlyConversions(LocalDateTime dateTime, List<Set<Enum<?>>> filter);
+
+    /**
+     * Gets the hourly total cost for a given date.
+     * @param dateTime the date to get the hourly total cost for.
+     * @return the hourly total cost for the given date.
+     */
+    double getHourlyTotalCost(LocalDateTime dateTime, List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the Click-Through Rate (CTR) = (Total Clicks / Total Impressions) * 100.
+     * @param dateTime the date and time to get the hourly CTR for.
+     * @return the hourly CTR percentage for the given date and time.
+     */
+    double getHourlyCTR(LocalDateTime dateTime, List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the Cost Per Acquisition (CPA) = Total Cost / Total Conversions.
+     * @param dateTime the date and time to get the hourly CPA for.
+     * @return the hourly CPA value for the given date and time.
+     */
+    double getHourlyCPA(LocalDateTime dateTime, List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the Cost Per Click (CPC) = Total Cost / Total Clicks.
+     * @param dateTime the date and time to get the hourly CPC for.
+     * @return the hourly CPC value for the given date and time.
+     */
+    double getHourlyCPC(LocalDateTime dateTime, List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the Cost Per Thousand Impressions (CPM) = (Total Cost / Total Impressions) * 1000.
+     * @param dateTime the date and time to get the hourly CPM for.
+     * @return the hourly CPM value for the given date and time.
+     */
+    double getHourlyCPM(LocalDateTime dateTime, List<Set<Enum<?>>> filter);
+
+    /**
+     * Returns the Bounce Rate = (Total Bounces / Total Clicks) * 100 for the given hour.
+     * @param dateTime the date and time to get the hourly bounce rate for
+     * @return the hourly bounce rate percentage for the given date and time
+     */
+    double getHourlyBounceRate(LocalDateTime dateTime, List<Set<Enum<?>>> filter);
+
+    /**
+     * Estimates the heap used by this campaign's columns and user dictionary.
+     * @return the estimated size in bytes
+     */
+    long estimateMemoryFootprint();
+
+    /**
+     * Estimates the heap this campaign keeps alive: its columns and user dictionary
+     * plus the hourly cube and row indexes built so far.
+     * @return the estimated size in bytes
+     */
+    long estimateRetainedFootprint();
+}
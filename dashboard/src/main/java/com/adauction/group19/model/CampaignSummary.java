@@ -0,0 +1,108 @@
+package com.adauction.group19.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * The listing details of a saved campaign, without its data.
+ * Row counts are -1 for campaigns saved before they were recorded.
+ */
+public class CampaignSummary {
+    private int id;
+    private int userId;
+    private String campaignName;
+    private long dataSize;
+    private int impressionCount = -1;
+    private int clickCount = -1;
+    private int serverLogCount = -1;
+    private LocalDateTime createdAt;
+    private int dataVersion;
+
+    // Getters and setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public String getCampaignName() {
+        return campaignName;
+    }
+
+    public void setCampaignName(String campaignName) {
+        this.campaignName = campaignName;
+    }
+
+    /**
+     * Returns the size of the saved data.
+     * @return the size in bytes
+     */
+    public long getDataSize() {
+        return dataSize;
+    }
+
+    public void setDataSize(long dataSize) {
+        this.dataSize = dataSize;
+    }
+
+    public int getImpressionCount() {
+        return impressionCount;
+    }
+
+    public void setImpressionCount(int impressionCount) {
+        this.impressionCount = impressionCount;
+    }
+
+    public int getClickCount() {
+        return clickCount;
+    }
+
+    public void setClickCount(int clickCount) {
+        this.clickCount = clickCount;
+    }
+
+    public int getServerLogCount() {
+        return serverLogCount;
+    }
+
+    public void setServerLogCount(int serverLogCount) {
+        this.serverLogCount = serverLogCount;
+    }
+
+    /**
+     * Returns whether the row counts are known.
+     * @return true if the campaign was saved with its row counts
+     */
+    public boolean hasRowCounts() {
+        return impressionCount >= 0;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Returns the version of the saved data, which goes up whenever the data is replaced.
+     * @return the data version
+     */
+    public int getDataVersion() {
+        return dataVersion;
+    }
+
+    public void setDataVersion(int dataVersion) {
+        this.dataVersion = dataVersion;
+    }
+}
@@ -0,0 +1,138 @@
+package com.adauction.group19.model;
+
+import java.util.Arrays;
+
+/**
+ * The click costs of a campaign grouped by the clicking user's demographic segment
+ * and sorted within each segment, built once from the click column. The number of
+ * clicks below any cost for any filter is then a binary search per matching
+ * segment, so a histogram can be re-binned at any bin count without visiting the
+ * clicks again.
+ */
+public class ClickCostIndex {
+
+    private final double[] sortedCosts;
+
+    /**
+     * The costs of segment s are [segmentStart[s], segmentStart[s + 1]).
+     */
+    private final int[] segmentStart;
+
+    private ClickCostIndex(double[] sortedCosts, int[] segmentStart) {
+        this.sortedCosts = sortedCosts;
+        this.segmentStart = segmentStart;
+    }
+
+    /**
+     * Builds the index for a click log.
+     * @param users the user dictionary
+     * @param clicks the click log
+     * @return the index
+     */
+    public static ClickCostIndex build(UserDictionary users, CostEventColumns clicks) {
+        int rows = clicks.size();
+        int[] rowSegments = new int[rows];
+        int[] segmentStart = new int[HourlyCube.SEGMENT_COUNT + 1];
+        for (int row = 0; row < rows; row++) {
+            int user = clicks.getUser(row);
+            rowSegments[row] = user == UserDictionary.NO_USER
+                ? HourlyCube.NO_PROFILE_SEGMENT : HourlyCube.segmentOf(users, user);
+            segmentStart[rowSegments[row] + 1]++;
+        }
+        for (int segment = 0; segment < HourlyCube.SEGMENT_COUNT; segment++) {
+            segmentStart[segment + 1] += segmentStart[segment];
+        }
+
+        double[] sortedCosts = new double[rows];
+        int[] next = Arrays.copyOf(segmentStart, HourlyCube.SEGMENT_COUNT);
+        for (int row = 0; row < rows; row++) {
+            sortedCosts[next[rowSegments[row]]++] = clicks.getCost(row);
+        }
+        for (int segment = 0; segment < HourlyCube.SEGMENT_COUNT; segment++) {
+            Arrays.sort(sortedCosts, segmentStart[segment], segmentStart[segment + 1]);
+        }
+        return new ClickCostIndex(sortedCosts, segmentStart);
+    }
+
+    /**
+     * Counts the clicks whose user passes a filter.
+     * @param filter the demographic filter
+     * @return the number of clicks
+     */
+    public int count(DemographicFilter filter) {
+        int count = 0;
+        for (int segment = 0; segment < HourlyCube.SEGMENT_COUNT; segment++) {
+            if (HourlyCube.segmentMatches(filter, segment)) {
+                count += segmentStart[segment + 1] - segmentStart[segment];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the clicks passing a filter that cost less than a value.
+     * @param filter the demographic filter
+     * @param cost the cost
+     * @return the number of cheaper clicks
+     */
+    public int countBelow(DemographicFilter filter, double cost) {
+        int count = 0;
+        for (int segment = 0; segment < HourlyCube.SEGMENT_COUNT; segment++) {
+            int from = segmentStart[segment];
+            int to = segmentStart[segment + 1];
+            if (from < to && HourlyCube.segmentMatches(filter, segment)) {
+                count += lowerBound(from, to, cost) - from;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the lowest cost of a click passing a filter.
+     * @param filter the demographic filter
+     * @return the lowest cost, or NaN if no click passes
+     */
+    public double min(DemographicFilter filter) {
+        double min = Double.NaN;
+        for (int segment = 0; segment < HourlyCube.SEGMENT_COUNT; segment++) {
+            int from = segmentStart[segment];
+            if (from < segmentStart[segment + 1] && HourlyCube.segmentMatches(filter, segment)
+                && !(sortedCosts[from] >= min)) {
+                min = sortedCosts[from];
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Returns the highest cost of a click passing a filter.
+     * @param filter the demographic filter
+     * @return the highest cost, or NaN if no click passes
+     */
+    public double max(DemographicFilter filter) {
+        double max = Double.NaN;
+        for (int segment = 0; segment < HourlyCube.SEGMENT_COUNT; segment++) {
+            int to = segmentStart[segment + 1];
+            if (segmentStart[segment] < to && HourlyCube.segmentMatches(filter, segment)
+                && !(sortedCosts[to - 1] <= max)) {
+                max = sortedCosts[to - 1];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the first position in [from, to) whose cost is at least the value.
+     */
+    private int lowerBound(int from, int to, double cost) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (sortedCosts[mid] < cost) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+}
@@ -0,0 +1,114 @@
+package com.adauction.group19.model;
+
+import com.adauction.group19.utils.MemoryFootprint;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Column store for a log whose rows are (time, cost, user): the impression log
+ * and the click log. Each column is a primitive array indexed by row.
+ */
+public class CostEventColumns implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * The time of each event in epoch seconds.
+     */
+    private long[] times = new long[INITIAL_CAPACITY];
+
+    /**
+     * The cost of each event.
+     */
+    private double[] costs = new double[INITIAL_CAPACITY];
+
+    /**
+     * The user code of each event, see {@link UserDictionary}.
+     */
+    private int[] users = new int[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * Creates empty columns.
+     */
+    public CostEventColumns() {
+    }
+
+    /**
+     * Creates columns that take ownership of the given arrays, which must all have the same length.
+     * @param times the time of each event
+     * @param costs the cost of each event
+     * @param users the user code of each event
+     */
+    CostEventColumns(long[] times, double[] costs, int[] users) {
+        this.times = times;
+        this.costs = costs;
+        this.users = users;
+        this.size = times.length;
+    }
+
+    /**
+     * Appends a row.
+     * @param epochSecond the time of the event
+     * @param cost the cost of the event
+     * @param user the user code
+     */
+    public void add(long epochSecond, double cost, int user) {
+        if (size == times.length) {
+            grow(size + 1);
+        }
+        times[size] = epochSecond;
+        costs[size] = cost;
+        users[size] = user;
+        size++;
+    }
+
+    public long getTime(int row) {
+        return times[row];
+    }
+
+    public double getCost(int row) {
+        return costs[row];
+    }
+
+    public int getUser(int row) {
+        return users[row];
+    }
+
+    /**
+     * Returns the number of rows.
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Releases the spare capacity left over from growing the arrays.
+     */
+    public void trimToSize() {
+        times = Arrays.copyOf(times, size);
+        costs = Arrays.copyOf(costs, size);
+        users = Arrays.copyOf(users, size);
+    }
+
+    /**
+     * Estimates the heap used by the columns.
+     * @return the estimated size in bytes
+     */
+    public long estimateBytes() {
+        return MemoryFootprint.array(times.length, Long.BYTES)
+            + MemoryFootprint.array(costs.length, Double.BYTES)
+            + MemoryFootprint.array(users.length, Integer.BYTES);
+    }
+
+    private void grow(int minCapacity) {
+        int newLength = Math.max(minCapacity, times.length + (times.length >> 1));
+        times = Arrays.copyOf(times, newLength);
+        costs = Arrays.copyOf(costs, newLength);
+        users = Arrays.copyOf(users, newLength);
+    }
+}
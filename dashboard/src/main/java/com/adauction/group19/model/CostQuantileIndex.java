@@ -0,0 +1,94 @@
+package com.adauction.group19.model;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@link QuantileSketch}es of the impression and click costs per (day, demographic
+ * segment), built in one pass over the cost columns without sorting or keeping the
+ * costs. Percentiles for any range of days and any filter come from merging the
+ * sketches of the matching cells.
+ */
+public class CostQuantileIndex {
+
+    /**
+     * The cost columns that are sketched.
+     */
+    public enum Costs {
+        IMPRESSIONS, CLICKS
+    }
+
+    /**
+     * The sketches of each day holding costs, indexed by segment, null where a segment has none.
+     */
+    private final Map<Costs, TreeMap<Long, QuantileSketch[]>> sketches = Map.of(
+        Costs.IMPRESSIONS, new TreeMap<>(),
+        Costs.CLICKS, new TreeMap<>());
+
+    private final double relativeAccuracy;
+
+    private CostQuantileIndex(double relativeAccuracy) {
+        this.relativeAccuracy = relativeAccuracy;
+    }
+
+    /**
+     * Builds the index for the impression and click logs.
+     * @param users the user dictionary
+     * @param impressions the impression log
+     * @param clicks the click log
+     * @param relativeAccuracy the relative accuracy of the sketches
+     * @return the index
+     */
+    public static CostQuantileIndex build(UserDictionary users, CostEventColumns impressions, CostEventColumns clicks,
+                                          double relativeAccuracy) {
+        CostQuantileIndex index = new CostQuantileIndex(relativeAccuracy);
+        int[] userSegments = new int[users.size()];
+        for (int user = 0; user < users.size(); user++) {
+            userSegments[user] = HourlyCube.segmentOf(users, user);
+        }
+        index.add(Costs.IMPRESSIONS, impressions, userSegments);
+        index.add(Costs.CLICKS, clicks, userSegments);
+        return index;
+    }
+
+    private void add(Costs costs, CostEventColumns columns, int[] userSegments) {
+        TreeMap<Long, QuantileSketch[]> days = sketches.get(costs);
+        for (int row = 0; row < columns.size(); row++) {
+            int user = columns.getUser(row);
+            int segment = user == UserDictionary.NO_USER ? HourlyCube.NO_PROFILE_SEGMENT : userSegments[user];
+            QuantileSketch[] daySketches = days.computeIfAbsent(EpochSeconds.dayOf(columns.getTime(row)),
+                day -> new QuantileSketch[HourlyCube.SEGMENT_COUNT]);
+            if (daySketches[segment] == null) {
+                daySketches[segment] = new QuantileSketch(relativeAccuracy);
+            }
+            daySketches[segment].add(columns.getCost(row));
+        }
+    }
+
+    /**
+     * Merges the sketches of a range of days for the segments passing a filter.
+     * @param costs the costs to include
+     * @param filter the demographic filter
+     * @param fromDay the first day, as counted by {@link EpochSeconds#dayOf(long)}
+     * @param toDay the day after the last one
+     * @return a new sketch of the matching costs
+     */
+    public QuantileSketch merge(Costs costs, DemographicFilter filter, long fromDay, long toDay) {
+        QuantileSketch merged = new QuantileSketch(relativeAccuracy);
+        if (fromDay >= toDay) {
+            return merged;
+        }
+        boolean[] mask = new boolean[HourlyCube.SEGMENT_COUNT];
+        for (int segment = 0; segment < mask.length; segment++) {
+            mask[segment] = HourlyCube.segmentMatches(filter, segment);
+        }
+        for (QuantileSketch[] daySketches : sketches.get(costs).subMap(fromDay, toDay).values()) {
+            for (int segment = 0; segment < daySketches.length; segment++) {
+                if (mask[segment] && daySketches[segment] != null) {
+                    merged.merge(daySketches[segment]);
+                }
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,175 @@
+package com.adauction.group19.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A demographic filter compiled from the {@code List<Set<Enum<?>>>} form used by the
+ * metrics screen, e.g. [{ MALE, FEMALE }, { AGE_25_34 }, { LOW, MEDIUM }, { BLOG, NEWS }].
+ * Position 0 is gender, 1 age range, 2 income and 3 context. An empty set places no
+ * restriction on its dimension, and users without demographics match every filter.
+ */
+public class DemographicFilter {
+
+    private static final Class<?>[] DIMENSIONS = {Gender.class, AgeRange.class, Income.class, Context.class};
+
+    /**
+     * The number of demographic dimensions.
+     */
+    public static final int DIMENSION_COUNT = DIMENSIONS.length;
+
+    /**
+     * The name of each dimension, as used on the command line and in query parameters.
+     */
+    public static final List<String> DIMENSION_NAMES = List.of("gender", "age", "income", "context");
+
+    /**
+     * Demographic values by their lower-case log text and constant name.
+     */
+    private static final Map<String, Enum<?>> VALUES_BY_NAME = new HashMap<>();
+
+    static {
+        VALUES_BY_NAME.putAll(Map.ofEntries(
+            Map.entry("male", Gender.MALE), Map.entry("female", Gender.FEMALE),
+            Map.entry("<25", AgeRange.AGE_25_MINUS), Map.entry("25-34", AgeRange.AGE_25_34),
+            Map.entry("35-44", AgeRange.AGE_35_44), Map.entry("45-54", AgeRange.AGE_45_54),
+            Map.entry(">54", AgeRange.AGE_55_PLUS),
+            Map.entry("low", Income.LOW), Map.entry("medium", Income.MEDIUM), Map.entry("high", Income.HIGH),
+            Map.entry("blog", Context.BLOG), Map.entry("news", Context.NEWS),
+            Map.entry("shopping", Context.SHOPPING), Map.entry("social media", Context.SOCIAL_MEDIA)));
+        for (Class<?> dimension : DIMENSIONS) {
+            for (Object value : dimension.getEnumConstants()) {
+                VALUES_BY_NAME.put(((Enum<?>) value).name().toLowerCase(Locale.ROOT), (Enum<?>) value);
+            }
+        }
+    }
+
+    /**
+     * The allowed ordinals per dimension, or null where the dimension is unrestricted.
+     */
+    private final boolean[][] allowed = new boolean[DIMENSIONS.length][];
+
+    private final boolean unrestricted;
+
+    /**
+     * Compiles a filter.
+     * @param filter the filter to compile, may be null or shorter than four entries
+     */
+    public DemographicFilter(List<Set<Enum<?>>> filter) {
+        boolean anyRestriction = false;
+        if (filter != null) {
+            for (int i = 0; i < Math.min(filter.size(), DIMENSIONS.length); i++) {
+                Set<Enum<?>> values = filter.get(i);
+                if (values == null || values.isEmpty()) {
+                    continue;
+                }
+                allowed[i] = new boolean[DIMENSIONS[i].getEnumConstants().length];
+                for (Enum<?> value : values) {
+                    // Values of the wrong type can never match, as with Set.contains
+                    if (value != null && value.getDeclaringClass() == DIMENSIONS[i]) {
+                        allowed[i][value.ordinal()] = true;
+                    }
+                }
+                anyRestriction = true;
+            }
+        }
+        unrestricted = !anyRestriction;
+    }
+
+    /**
+     * Returns whether the filter lets every row through.
+     * @return true if no dimension is restricted
+     */
+    public boolean isUnrestricted() {
+        return unrestricted;
+    }
+
+    /**
+     * Returns whether the given user passes the filter.
+     * @param users the user dictionary
+     * @param user the user code
+     * @return true if the user matches
+     */
+    public boolean matches(UserDictionary users, int user) {
+        if (unrestricted || !users.hasProfile(user)) {
+            return true;
+        }
+        return allows(0, users.getGender(user))
+            && allows(1, users.getAgeRange(user))
+            && allows(2, users.getIncome(user))
+            && allows(3, users.getContext(user));
+    }
+
+    /**
+     * Returns whether the given ordinal is allowed in a dimension.
+     * @param dimension the dimension index (0 gender, 1 age range, 2 income, 3 context)
+     * @param ordinal the enum ordinal
+     * @return true if the value passes
+     */
+    public boolean allows(int dimension, int ordinal) {
+        return allowed[dimension] == null || allowed[dimension][ordinal];
+    }
+
+    /**
+     * Returns whether a dimension limits which values pass.
+     * @param dimension the dimension index
+     * @return true if the dimension has a non-empty set of values
+     */
+    public boolean isRestricted(int dimension) {
+        return allowed[dimension] != null;
+    }
+
+    /**
+     * Returns the number of values in a dimension.
+     * @param dimension the dimension index
+     * @return the number of enum constants
+     */
+    public static int valueCount(int dimension) {
+        return DIMENSIONS[dimension].getEnumConstants().length;
+    }
+
+    /**
+     * Finds a dimension by its name in {@link #DIMENSION_NAMES}.
+     * @param name the name, in any case
+     * @return the dimension index, or -1 if there is none
+     */
+    public static int dimensionOf(String name) {
+        return DIMENSION_NAMES.indexOf(name.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Reads a demographic value as it appears in the logs, e.g. "25-34", or by its
+     * constant name, e.g. AGE_25_34.
+     * @param dimension the dimension index
+     * @param name the value, in any case
+     * @return the value
+     * @throws IllegalArgumentException if the dimension has no such value
+     */
+    public static Enum<?> parseValue(int dimension, String name) {
+        Enum<?> value = VALUES_BY_NAME.get(name.trim().toLowerCase(Locale.ROOT));
+        if (value == null || value.getDeclaringClass() != DIMENSIONS[dimension]) {
+            throw new IllegalArgumentException("Unknown " + DIMENSION_NAMES.get(dimension) + ": " + name);
+        }
+        return value;
+    }
+
+    /**
+     * Filters are equal when they let the same values through, whatever the order
+     * or type of the sets they were compiled from.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DemographicFilter)) return false;
+        return Arrays.deepEquals(allowed, ((DemographicFilter) o).allowed);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.deepHashCode(allowed);
+    }
+}
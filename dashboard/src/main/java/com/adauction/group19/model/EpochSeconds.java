@@ -0,0 +1,87 @@
+package com.adauction.group19.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Helpers for the primitive timestamps stored by the campaign data columns.
+ * Log timestamps carry no zone, so they are stored as seconds since the epoch
+ * read as UTC, which keeps day and hour bucketing a plain integer division.
+ */
+public final class EpochSeconds {
+
+    /**
+     * Marker for a missing timestamp (e.g. an "n/a" exit date).
+     */
+    public static final long ABSENT = Long.MIN_VALUE;
+
+    public static final long SECONDS_PER_HOUR = 3600;
+    public static final long SECONDS_PER_DAY = 86400;
+
+    private EpochSeconds() {
+    }
+
+    /**
+     * Converts a date and time to epoch seconds.
+     * @param dateTime the date and time, may be null
+     * @return the epoch seconds, or {@link #ABSENT} if dateTime is null
+     */
+    public static long of(LocalDateTime dateTime) {
+        return dateTime == null ? ABSENT : dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Converts epoch seconds back to a date and time.
+     * @param epochSecond the epoch seconds
+     * @return the date and time, or null if the value is {@link #ABSENT}
+     */
+    public static LocalDateTime toLocalDateTime(long epochSecond) {
+        return epochSecond == ABSENT ? null : LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Returns the index of the hour containing the given time.
+     * @param epochSecond the epoch seconds
+     * @return the number of whole hours since the epoch
+     */
+    public static long hourOf(long epochSecond) {
+        return Math.floorDiv(epochSecond, SECONDS_PER_HOUR);
+    }
+
+    /**
+     * Returns the index of the day containing the given time.
+     * @param epochSecond the epoch seconds
+     * @return the number of whole days since the epoch
+     */
+    public static long dayOf(long epochSecond) {
+        return Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+    }
+
+    /**
+     * Returns the index of the hour containing the given date and time.
+     * @param dateTime the date and time
+     * @return the number of whole hours since the epoch
+     */
+    public static long hourOf(LocalDateTime dateTime) {
+        return hourOf(of(dateTime));
+    }
+
+    /**
+     * Returns the index of the day containing the given date and time.
+     * @param dateTime the date and time
+     * @return the number of whole days since the epoch
+     */
+    public static long dayOf(LocalDateTime dateTime) {
+        return dateTime.toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Returns the date for a day index.
+     * @param day the number of whole days since the epoch
+     * @return the date
+     */
+    public static LocalDate dateOfDay(long day) {
+        return LocalDate.ofEpochDay(day);
+    }
+}
@@ -1,9 +1,12 @@
 package com.adauction.group19.model;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * Record ExportData
@@ -15,25 +18,35 @@ import java.util.stream.IntStream;
  */
 public record ExportData(List<String> header, TreeMap<String, List<Number>> dateToValue) {
 	public String toCSV() {
-        String headerLine = "Date," + String.join(",", header);
-		String dataLines = dateToValue.entrySet().stream()
-			.map(entry -> entry.getKey() + "," + entry.getValue().stream()
-				.map(Object::toString)
-				.collect(Collectors.joining(",")))
-			.collect(Collectors.joining("\n"));
-
-        return headerLine + "\n" + dataLines;
+        return toText(ExportWriter.Format.CSV);
 	}
 
 	public String toJSON() {
-        return "[" + dateToValue.entrySet().stream()
-               .map(entry -> {
-                    String date = entry.getKey();
-                    String dataJson = IntStream.range(0, header.size())
-                           .mapToObj(j -> "\"" + header.get(j) + "\": " + entry.getValue().get(j))
-                           .collect(Collectors.joining(","));
-                    return "{\"date\": \"" + date + "\", \"data\": {" + dataJson + "}}";
-                })
-               .collect(Collectors.joining(",")) + "]";
+        return toText(ExportWriter.Format.JSON);
+	}
+
+	/**
+	 * Writes the data row by row, without building the document in memory.
+	 * @param format The format to write.
+	 * @param out Where to write.
+	 * @throws IOException If writing fails.
+	 */
+	public void write(ExportWriter.Format format, Writer out) throws IOException {
+        try (ExportWriter writer = ExportWriter.create(format, out, "Date", header)) {
+            for (Map.Entry<String, List<Number>> entry : dateToValue.entrySet()) {
+                writer.writeRow(entry.getKey(), entry.getValue());
+            }
+        }
+	}
+
+	private String toText(ExportWriter.Format format) {
+        StringWriter out = new StringWriter();
+        try {
+            write(format, out);
+        } catch (IOException e) {
+            // A StringWriter does not throw
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
 	}
 }
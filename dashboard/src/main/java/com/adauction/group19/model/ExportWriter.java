@@ -0,0 +1,188 @@
+package com.adauction.group19.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes exported rows one at a time in CSV or JSON, so an export never has to be
+ * held in memory. Each row has a date (or other label) and one value per column.
+ * <p>
+ * CSV has a header line of the date column name and the column names, then one
+ * line per row. JSON is an array of {@code {"date": ..., "data": {column: value}}}
+ * objects. Numbers and booleans are written as they are and anything else as text.
+ * Closing writes the end of the document and flushes, but does not close the
+ * underlying writer.
+ */
+public abstract class ExportWriter implements Closeable {
+
+    /**
+     * The export formats.
+     */
+    public enum Format {
+        CSV, JSON;
+
+        /**
+         * Returns the format for a file extension.
+         * @param extension "csv" or "json", in any case
+         * @return the format
+         */
+        public static Format fromExtension(String extension) {
+            return valueOf(extension.toUpperCase());
+        }
+    }
+
+    protected final Writer out;
+    protected final List<String> columns;
+    protected boolean firstRow = true;
+    private boolean closed;
+
+    private ExportWriter(Writer out, List<String> columns) {
+        this.out = out;
+        this.columns = columns;
+    }
+
+    /**
+     * Creates a writer and writes the start of the document.
+     * @param format the format
+     * @param out where to write
+     * @param dateColumn the name of the date column, used by CSV
+     * @param columns the names of the value columns
+     * @return the writer
+     * @throws IOException if writing fails
+     */
+    public static ExportWriter create(Format format, Writer out, String dateColumn, List<String> columns)
+            throws IOException {
+        ExportWriter writer = format == Format.CSV ? new CsvWriter(out, columns) : new JsonWriter(out, columns);
+        writer.writeStart(dateColumn);
+        return writer;
+    }
+
+    /**
+     * Writes one row.
+     * @param date the date or label of the row
+     * @param values one value per column
+     * @throws IOException if writing fails
+     * @throws IndexOutOfBoundsException if there are fewer values than columns
+     */
+    public abstract void writeRow(String date, List<?> values) throws IOException;
+
+    protected abstract void writeStart(String dateColumn) throws IOException;
+
+    protected abstract void writeEnd() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            writeEnd();
+            out.flush();
+        }
+    }
+
+    private static final class CsvWriter extends ExportWriter {
+
+        private CsvWriter(Writer out, List<String> columns) {
+            super(out, columns);
+        }
+
+        @Override
+        protected void writeStart(String dateColumn) throws IOException {
+            out.write(quote(dateColumn));
+            out.write(',');
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(quote(columns.get(i)));
+            }
+        }
+
+        @Override
+        public void writeRow(String date, List<?> values) throws IOException {
+            out.write('\n');
+            out.write(quote(date));
+            for (int i = 0; i < columns.size(); i++) {
+                out.write(',');
+                Object value = values.get(i);
+                out.write(value instanceof Number || value instanceof Boolean
+                    ? value.toString()
+                    : quote(String.valueOf(value)));
+            }
+        }
+
+        @Override
+        protected void writeEnd() {
+            // Rows are not followed by a newline
+        }
+
+        private static String quote(String text) {
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0) {
+                return text;
+            }
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+    }
+
+    private static final class JsonWriter extends ExportWriter {
+
+        private JsonWriter(Writer out, List<String> columns) {
+            super(out, columns);
+        }
+
+        @Override
+        protected void writeStart(String dateColumn) throws IOException {
+            out.write('[');
+        }
+
+        @Override
+        public void writeRow(String date, List<?> values) throws IOException {
+            if (!firstRow) {
+                out.write(',');
+            }
+            firstRow = false;
+            out.write("{\"date\": ");
+            writeString(date);
+            out.write(", \"data\": {");
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writeString(columns.get(i));
+                out.write(": ");
+                Object value = values.get(i);
+                if (value instanceof Boolean || value instanceof Number && Double.isFinite(((Number) value).doubleValue())) {
+                    out.write(value.toString());
+                } else if (value instanceof Number) {
+                    // JSON has no NaN or infinity
+                    out.write("null");
+                } else {
+                    writeString(String.valueOf(value));
+                }
+            }
+            out.write("}}");
+        }
+
+        @Override
+        protected void writeEnd() throws IOException {
+            out.write(']');
+        }
+
+        private void writeString(String text) throws IOException {
+            out.write('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"' || c == '\\') {
+                    out.write('\\');
+                    out.write(c);
+                } else if (c < 0x20) {
+                    out.write(String.format("\\u%04x", (int) c));
+                } else {
+                    out.write(c);
+                }
+            }
+            out.write('"');
+        }
+    }
+}
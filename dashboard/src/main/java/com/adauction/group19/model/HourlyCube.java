@@ -0,0 +1,398 @@
+package com.adauction.group19.model;
+
+import com.adauction.group19.utils.MemoryFootprint;
+
+import java.util.Arrays;
+
+/**
+ * Pre-aggregated totals per (hour, demographic segment), built once from the
+ * campaign columns. A segment is one combination of gender, age range, income
+ * and context; users that never appeared in the impression log share their own
+ * segment, which matches every filter. Per-hour and per-day metrics are then
+ * answered by summing a handful of cells instead of scanning every row.
+ * <p>
+ * Each cell can also hold a {@link HyperLogLog} sketch of the users it saw
+ * impressions from, so the uniques of a range are estimated by merging the
+ * sketches of its cells.
+ */
+public class HourlyCube {
+
+    /**
+     * The totals held for every cell.
+     */
+    public enum Measure {
+        IMPRESSIONS, CLICKS, CONVERSIONS, BOUNCES, IMPRESSION_COST, CLICK_COST
+    }
+
+    private static final int GENDERS = Gender.values().length;
+    private static final int AGE_RANGES = AgeRange.values().length;
+    private static final int INCOMES = Income.values().length;
+    private static final int CONTEXTS = Context.values().length;
+
+    /**
+     * The segment for users without demographics, after all profiled segments.
+     */
+    public static final int NO_PROFILE_SEGMENT = GENDERS * AGE_RANGES * INCOMES * CONTEXTS;
+
+    /**
+     * The number of possible segments.
+     */
+    public static final int SEGMENT_COUNT = NO_PROFILE_SEGMENT + 1;
+
+    /**
+     * The largest cube that will be built. Campaigns spanning many years with
+     * every segment present fall back to scanning the columns.
+     */
+    private static final long MAX_CELLS = 4_000_000;
+
+    /**
+     * The sketch precision given to {@link #build} for a cube without user sketches.
+     */
+    public static final int NO_SKETCHES = 0;
+
+    private final long firstHour;
+    private final int hourCount;
+
+    /**
+     * The segments present in the data; cells only exist for these.
+     */
+    private final int[] segments;
+
+    private final int[] impressions;
+    private final int[] clicks;
+    private final int[] conversions;
+    private final int[] bounces;
+    private final double[] impressionCosts;
+    private final double[] clickCosts;
+
+    /**
+     * The users with impressions in each cell, null for empty cells or when
+     * sketches were not asked for.
+     */
+    private final HyperLogLog[] userSketches;
+    private final int sketchPrecision;
+
+    /**
+     * The compact segment index of each server log row, kept for bounce recounts.
+     */
+    private final int[] serverLogSegments;
+
+    /**
+     * The criteria the bounce counts were last computed with.
+     */
+    private BounceCriteria bounceCriteria;
+
+    private HourlyCube(long firstHour, int hourCount, int[] segments, int[] serverLogSegments, int sketchPrecision) {
+        this.firstHour = firstHour;
+        this.hourCount = hourCount;
+        this.segments = segments;
+        this.serverLogSegments = serverLogSegments;
+        this.sketchPrecision = sketchPrecision;
+
+        int cells = hourCount * segments.length;
+        impressions = new int[cells];
+        clicks = new int[cells];
+        conversions = new int[cells];
+        bounces = new int[cells];
+        impressionCosts = new double[cells];
+        clickCosts = new double[cells];
+        userSketches = sketchPrecision == NO_SKETCHES ? null : new HyperLogLog[cells];
+    }
+
+    /**
+     * Creates a cube sharing the counts of another, with its bounces still to be counted.
+     */
+    private HourlyCube(HourlyCube cube) {
+        firstHour = cube.firstHour;
+        hourCount = cube.hourCount;
+        segments = cube.segments;
+        serverLogSegments = cube.serverLogSegments;
+        sketchPrecision = cube.sketchPrecision;
+        impressions = cube.impressions;
+        clicks = cube.clicks;
+        conversions = cube.conversions;
+        impressionCosts = cube.impressionCosts;
+        clickCosts = cube.clickCosts;
+        userSketches = cube.userSketches;
+        bounces = new int[cube.bounces.length];
+    }
+
+    /**
+     * Builds the cube for the given columns.
+     * @param users the user dictionary
+     * @param impressionColumns the impression log
+     * @param clickColumns the click log
+     * @param serverLogColumns the server log
+     * @param bounceCriteria the criteria to count bounces with
+     * @param sketchPrecision the precision of the per-cell user sketches, or {@link #NO_SKETCHES}
+     * @return the cube, or null if the data spans too many hours to aggregate
+     */
+    public static HourlyCube build(UserDictionary users, CostEventColumns impressionColumns,
+                                   CostEventColumns clickColumns, ServerLogColumns serverLogColumns,
+                                   BounceCriteria bounceCriteria, int sketchPrecision) {
+        long minHour = Long.MAX_VALUE;
+        long maxHour = Long.MIN_VALUE;
+        for (int row = 0; row < impressionColumns.size(); row++) {
+            long hour = EpochSeconds.hourOf(impressionColumns.getTime(row));
+            minHour = Math.min(minHour, hour);
+            maxHour = Math.max(maxHour, hour);
+        }
+        for (int row = 0; row < clickColumns.size(); row++) {
+            long hour = EpochSeconds.hourOf(clickColumns.getTime(row));
+            minHour = Math.min(minHour, hour);
+            maxHour = Math.max(maxHour, hour);
+        }
+        for (int row = 0; row < serverLogColumns.size(); row++) {
+            long time = serverLogColumns.getEntryTime(row);
+            if (time != EpochSeconds.ABSENT) {
+                long hour = EpochSeconds.hourOf(time);
+                minHour = Math.min(minHour, hour);
+                maxHour = Math.max(maxHour, hour);
+            }
+        }
+        if (minHour > maxHour) {
+            minHour = 0;
+            maxHour = -1;
+        }
+
+        // Number the segments that actually occur
+        int[] compactSegment = new int[SEGMENT_COUNT];
+        Arrays.fill(compactSegment, -1);
+        int[] userSegments = new int[users.size()];
+        for (int user = 0; user < users.size(); user++) {
+            userSegments[user] = segmentOf(users, user);
+        }
+        int segmentCount = 0;
+        int[] presentSegments = new int[SEGMENT_COUNT];
+        for (int user = 0; user < users.size(); user++) {
+            int segment = userSegments[user];
+            if (compactSegment[segment] < 0) {
+                compactSegment[segment] = segmentCount;
+                presentSegments[segmentCount++] = segment;
+            }
+        }
+        if (compactSegment[NO_PROFILE_SEGMENT] < 0) {
+            // Rows with a missing user ID fall in the no-profile segment
+            compactSegment[NO_PROFILE_SEGMENT] = segmentCount;
+            presentSegments[segmentCount++] = NO_PROFILE_SEGMENT;
+        }
+
+        long hourCount = maxHour - minHour + 1;
+        if (hourCount * segmentCount > MAX_CELLS) {
+            return null;
+        }
+
+        int[] serverLogSegments = new int[serverLogColumns.size()];
+        HourlyCube cube = new HourlyCube(minHour, (int) hourCount,
+            Arrays.copyOf(presentSegments, segmentCount), serverLogSegments, sketchPrecision);
+
+        for (int row = 0; row < impressionColumns.size(); row++) {
+            int user = impressionColumns.getUser(row);
+            int cell = cube.cell(impressionColumns.getTime(row), compactSegment[userSegment(userSegments, user)]);
+            cube.impressions[cell]++;
+            cube.impressionCosts[cell] += impressionColumns.getCost(row);
+            if (cube.userSketches != null && user != UserDictionary.NO_USER) {
+                if (cube.userSketches[cell] == null) {
+                    cube.userSketches[cell] = new HyperLogLog(sketchPrecision);
+                }
+                cube.userSketches[cell].addUser(user);
+            }
+        }
+        for (int row = 0; row < clickColumns.size(); row++) {
+            int cell = cube.cell(clickColumns.getTime(row),
+                compactSegment[userSegment(userSegments, clickColumns.getUser(row))]);
+            cube.clicks[cell]++;
+            cube.clickCosts[cell] += clickColumns.getCost(row);
+        }
+        for (int row = 0; row < serverLogColumns.size(); row++) {
+            serverLogSegments[row] = compactSegment[userSegment(userSegments, serverLogColumns.getUser(row))];
+            long time = serverLogColumns.getEntryTime(row);
+            if (time != EpochSeconds.ABSENT && serverLogColumns.isConversion(row)) {
+                cube.conversions[cube.cell(time, serverLogSegments[row])]++;
+            }
+        }
+        cube.refreshBounces(bounceCriteria, serverLogColumns);
+        return cube;
+    }
+
+    /**
+     * Recounts the bounces if the criteria differ from the ones last used.
+     * The criteria object may have been changed in place, so it is compared by value.
+     * @param criteria the current bounce criteria
+     * @param serverLogColumns the server log the cube was built from
+     */
+    public void refreshBounces(BounceCriteria criteria, ServerLogColumns serverLogColumns) {
+        if (criteria.equals(bounceCriteria)) {
+            return;
+        }
+        Arrays.fill(bounces, 0);
+        for (int row = 0; row < serverLogColumns.size(); row++) {
+            long time = serverLogColumns.getEntryTime(row);
+            if (time != EpochSeconds.ABSENT
+                && criteria.isBounce(time, serverLogColumns.getExitTime(row), serverLogColumns.getPagesViewed(row))) {
+                bounces[cell(time, serverLogSegments[row])]++;
+            }
+        }
+        bounceCriteria = new BounceCriteria(criteria);
+    }
+
+    /**
+     * Returns a cube with the bounces counted under other criteria. Every other count
+     * is shared with this cube, which is left as it is.
+     * @param criteria the bounce criteria
+     * @param serverLogColumns the server log the cube was built from
+     * @return the new cube
+     */
+    public HourlyCube withBounces(BounceCriteria criteria, ServerLogColumns serverLogColumns) {
+        HourlyCube cube = new HourlyCube(this);
+        cube.refreshBounces(criteria, serverLogColumns);
+        return cube;
+    }
+
+    /**
+     * Estimates the heap used by the cube's cells and sketches.
+     * @return the estimated size in bytes
+     */
+    public long estimateBytes() {
+        int cells = impressions.length;
+        long bytes = 4 * MemoryFootprint.array(cells, Integer.BYTES) + 2 * MemoryFootprint.array(cells, Double.BYTES)
+            + MemoryFootprint.array(serverLogSegments.length, Integer.BYTES);
+        if (userSketches != null) {
+            bytes += MemoryFootprint.array(cells, MemoryFootprint.REFERENCE);
+            for (HyperLogLog sketch : userSketches) {
+                if (sketch != null) {
+                    bytes += MemoryFootprint.align(32) + MemoryFootprint.align(16 + sketch.estimateBytes());
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Works out which of the cube's segments pass a filter.
+     * @param filter the demographic filter
+     * @return a flag per segment, in the cube's segment order
+     */
+    public boolean[] segmentMask(DemographicFilter filter) {
+        boolean[] mask = new boolean[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            mask[i] = segmentMatches(filter, segments[i]);
+        }
+        return mask;
+    }
+
+    /**
+     * Sums a measure over a range of hours for the segments in the mask.
+     * @param measure the measure to sum
+     * @param mask the segments to include, from {@link #segmentMask}
+     * @param fromHour the first hour, as counted by {@link EpochSeconds#hourOf(long)}
+     * @param toHour the hour after the last one
+     * @return the total
+     */
+    public double sum(Measure measure, boolean[] mask, long fromHour, long toHour) {
+        long from = Math.max(fromHour, firstHour) - firstHour;
+        long to = Math.min(toHour, firstHour + hourCount) - firstHour;
+        double total = 0;
+        for (long hour = from; hour < to; hour++) {
+            int base = (int) hour * segments.length;
+            for (int segment = 0; segment < segments.length; segment++) {
+                if (mask[segment]) {
+                    total += value(measure, base + segment);
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns whether the cube holds user sketches.
+     * @return true if built with a sketch precision
+     */
+    public boolean hasUserSketches() {
+        return userSketches != null;
+    }
+
+    /**
+     * Merges the user sketches of a range of hours for the segments in the mask.
+     * @param mask the segments to include, from {@link #segmentMask}
+     * @param fromHour the first hour, as counted by {@link EpochSeconds#hourOf(long)}
+     * @param toHour the hour after the last one
+     * @return a new sketch of the users with impressions in the range
+     * @throws IllegalStateException if the cube was built without sketches
+     */
+    public HyperLogLog mergeUserSketches(boolean[] mask, long fromHour, long toHour) {
+        if (userSketches == null) {
+            throw new IllegalStateException("The cube was built without user sketches");
+        }
+        HyperLogLog merged = new HyperLogLog(sketchPrecision);
+        long from = Math.max(fromHour, firstHour) - firstHour;
+        long to = Math.min(toHour, firstHour + hourCount) - firstHour;
+        for (long hour = from; hour < to; hour++) {
+            int base = (int) hour * segments.length;
+            for (int segment = 0; segment < segments.length; segment++) {
+                if (mask[segment] && userSketches[base + segment] != null) {
+                    merged.merge(userSketches[base + segment]);
+                }
+            }
+        }
+        return merged;
+    }
+
+    private double value(Measure measure, int cell) {
+        switch (measure) {
+            case IMPRESSIONS:
+                return impressions[cell];
+            case CLICKS:
+                return clicks[cell];
+            case CONVERSIONS:
+                return conversions[cell];
+            case BOUNCES:
+                return bounces[cell];
+            case IMPRESSION_COST:
+                return impressionCosts[cell];
+            case CLICK_COST:
+            default:
+                return clickCosts[cell];
+        }
+    }
+
+    private int cell(long epochSecond, int segment) {
+        return (int) (EpochSeconds.hourOf(epochSecond) - firstHour) * segments.length + segment;
+    }
+
+    private static int userSegment(int[] userSegments, int user) {
+        return user == UserDictionary.NO_USER ? NO_PROFILE_SEGMENT : userSegments[user];
+    }
+
+    /**
+     * Returns the segment a user belongs to.
+     * @param users the user dictionary
+     * @param user the user code
+     * @return the segment index, {@link #NO_PROFILE_SEGMENT} for users without demographics
+     */
+    public static int segmentOf(UserDictionary users, int user) {
+        if (!users.hasProfile(user)) {
+            return NO_PROFILE_SEGMENT;
+        }
+        return ((users.getGender(user) * AGE_RANGES + users.getAgeRange(user)) * INCOMES
+            + users.getIncome(user)) * CONTEXTS + users.getContext(user);
+    }
+
+    /**
+     * Returns whether the users of a segment pass a filter.
+     * @param filter the demographic filter
+     * @param segment the segment index
+     * @return true if the segment matches
+     */
+    public static boolean segmentMatches(DemographicFilter filter, int segment) {
+        if (segment == NO_PROFILE_SEGMENT || filter.isUnrestricted()) {
+            return true;
+        }
+        int context = segment % CONTEXTS;
+        int income = (segment / CONTEXTS) % INCOMES;
+        int ageRange = (segment / (CONTEXTS * INCOMES)) % AGE_RANGES;
+        int gender = segment / (CONTEXTS * INCOMES * AGE_RANGES);
+        return filter.allows(0, gender) && filter.allows(1, ageRange)
+            && filter.allows(2, income) && filter.allows(3, context);
+    }
+}
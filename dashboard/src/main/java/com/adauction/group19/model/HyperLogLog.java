@@ -0,0 +1,232 @@
+package com.adauction.group19.model;
+
+import java.util.Arrays;
+
+/**
+ * A HyperLogLog sketch estimating the number of distinct users added to it.
+ * <p>
+ * A sketch of precision p keeps 2^p registers and has a standard error of about
+ * 1.04 / sqrt(2^p). Sketches of equal precision merge into the sketch of the union
+ * of their users, so the uniques of any range and filter can be estimated by
+ * merging the sketches of its hours and segments. A sketch holding few users keeps
+ * only its non-empty registers, sorted, and switches to a full register array once
+ * that list would take a quarter of its size.
+ */
+public class HyperLogLog {
+
+    /**
+     * The lowest and highest precision accepted.
+     */
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 16;
+
+    /**
+     * The precision used unless another is chosen, about 0.8% standard error.
+     */
+    public static final int DEFAULT_PRECISION = 14;
+
+    private final int precision;
+
+    /**
+     * The registers once dense, or null while the sketch is sparse.
+     */
+    private byte[] registers;
+
+    /**
+     * The non-empty registers while sparse, each as (index << 8 | value), sorted by index.
+     */
+    private int[] sparse = new int[4];
+    private int sparseSize;
+
+    /**
+     * Creates an empty sketch.
+     * @param precision the number of index bits, between {@link #MIN_PRECISION} and {@link #MAX_PRECISION}
+     */
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision must be between " + MIN_PRECISION + " and "
+                + MAX_PRECISION + ": " + precision);
+        }
+        this.precision = precision;
+    }
+
+    /**
+     * Returns the precision of the sketch.
+     * @return the number of index bits
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Adds a user, by its code in the campaign's {@link UserDictionary}.
+     * @param user the user code
+     */
+    public void addUser(int user) {
+        addHash(mix(user));
+    }
+
+    /**
+     * Adds an item by a well mixed 64-bit hash of it.
+     * @param hash the hash
+     */
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Leading zeros after the index bits, plus one, capped by a sentinel bit
+        int value = Long.numberOfLeadingZeros(hash << precision | 1L << (precision - 1)) + 1;
+        update(index, value);
+    }
+
+    /**
+     * Adds every item of another sketch to this one.
+     * @param other a sketch of the same precision
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of precision " + precision + " and "
+                + other.precision);
+        }
+        if (other.registers != null) {
+            toDense();
+            for (int index = 0; index < registers.length; index++) {
+                if (other.registers[index] > registers[index]) {
+                    registers[index] = other.registers[index];
+                }
+            }
+        } else {
+            for (int i = 0; i < other.sparseSize; i++) {
+                update(other.sparse[i] >>> 8, other.sparse[i] & 0xff);
+            }
+        }
+    }
+
+    /**
+     * Estimates the number of distinct items added.
+     * @return the estimate, rounded to a whole number
+     */
+    public long estimate() {
+        int m = 1 << precision;
+        double sum = 0;
+        int zeros = 0;
+        if (registers != null) {
+            for (byte register : registers) {
+                sum += 1.0 / (1L << register);
+                if (register == 0) {
+                    zeros++;
+                }
+            }
+        } else {
+            zeros = m - sparseSize;
+            sum = zeros;
+            for (int i = 0; i < sparseSize; i++) {
+                sum += 1.0 / (1L << (sparse[i] & 0xff));
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // Linear counting is more accurate while many registers are empty
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Returns whether nothing has been added.
+     * @return true if the sketch is empty
+     */
+    public boolean isEmpty() {
+        return registers == null && sparseSize == 0;
+    }
+
+    /**
+     * Returns an estimate of the memory held by the sketch.
+     * @return the size in bytes
+     */
+    public long estimateBytes() {
+        return registers != null ? registers.length : (long) sparse.length * Integer.BYTES;
+    }
+
+    private void update(int index, int value) {
+        if (registers != null) {
+            if (value > registers[index]) {
+                registers[index] = (byte) value;
+            }
+            return;
+        }
+        int position = find(index);
+        if (position >= 0) {
+            if (value > (sparse[position] & 0xff)) {
+                sparse[position] = index << 8 | value;
+            }
+            return;
+        }
+        if (sparseSize + 1 > (1 << precision) / 4 / Integer.BYTES) {
+            toDense();
+            update(index, value);
+            return;
+        }
+        position = -position - 1;
+        if (sparseSize == sparse.length) {
+            sparse = Arrays.copyOf(sparse, sparse.length * 2);
+        }
+        System.arraycopy(sparse, position, sparse, position + 1, sparseSize - position);
+        sparse[position] = index << 8 | value;
+        sparseSize++;
+    }
+
+    /**
+     * Finds a register in the sparse list.
+     * @return its position, or (-insertion point - 1) if it is empty
+     */
+    private int find(int index) {
+        int low = 0;
+        int high = sparseSize - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midIndex = sparse[mid] >>> 8;
+            if (midIndex < index) {
+                low = mid + 1;
+            } else if (midIndex > index) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    private void toDense() {
+        if (registers != null) {
+            return;
+        }
+        registers = new byte[1 << precision];
+        for (int i = 0; i < sparseSize; i++) {
+            registers[sparse[i] >>> 8] = (byte) (sparse[i] & 0xff);
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    /**
+     * Spreads a user code over 64 bits (the SplitMix64 finaliser).
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
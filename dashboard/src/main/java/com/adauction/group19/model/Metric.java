@@ -0,0 +1,62 @@
+package com.adauction.group19.model;
+
+import java.util.Locale;
+
+/**
+ * This enum represents the campaign metrics that can be charted.
+ */
+public enum Metric {
+    IMPRESSIONS("Impressions"),
+    CLICKS("Clicks"),
+    UNIQUES("Uniques"),
+    BOUNCES("Bounces"),
+    CONVERSIONS("Conversions"),
+    TOTAL_COST("Total Cost"),
+    CTR("CTR"),
+    CPA("CPA"),
+    CPC("CPC"),
+    CPM("CPM"),
+    BOUNCE_RATE("Bounce Rate");
+
+    private final String displayName;
+
+    Metric(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * Returns the name shown for the metric, e.g. as a chart series name.
+     * @return the display name
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Finds the metric with the given display name.
+     * @param displayName the display name
+     * @return the metric, or null if there is none
+     */
+    public static Metric fromDisplayName(String displayName) {
+        for (Metric metric : values()) {
+            if (metric.displayName.equals(displayName)) {
+                return metric;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads a metric by its display name, e.g. "Bounce Rate", or constant name, e.g. BOUNCE_RATE.
+     * @param name the name
+     * @return the metric
+     * @throws IllegalArgumentException if there is no such metric
+     */
+    public static Metric parse(String name) {
+        Metric metric = fromDisplayName(name.trim());
+        if (metric == null) {
+            metric = valueOf(name.trim().toUpperCase(Locale.ROOT).replace(' ', '_'));
+        }
+        return metric;
+    }
+}
@@ -0,0 +1,151 @@
+package com.adauction.group19.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A bounded cache of {@link MetricQueryEngine} results, evicting the least recently
+ * used entry when full. An entry is keyed by the compiled demographic filter, the
+ * time range and the granularity, so switching back to an earlier range or
+ * re-checking a metric does not rescan the logs. Entries record the bounce criteria
+ * their bounces were counted with; after a criteria change the engine recounts only
+ * the bounces and keeps the other totals.
+ * <p>
+ * The cache belongs to one {@link CampaignData}, and is shared with its views under
+ * other bounce criteria; it is cleared whenever rows are added. Methods are
+ * synchronized, as queries run both on the JavaFX thread and in the background.
+ */
+public class MetricQueryCache {
+
+    /**
+     * The default number of entries kept.
+     */
+    public static final int DEFAULT_CAPACITY = 128;
+
+    private final int capacity;
+    private final LinkedHashMap<Key, BucketTotals> entries;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a cache with the default capacity.
+     */
+    public MetricQueryCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a cache.
+     * @param capacity the maximum number of entries
+     */
+    public MetricQueryCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, BucketTotals> eldest) {
+                return size() > MetricQueryCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Looks up the totals for a query, counting a hit or a miss. Totals without
+     * uniques count as a miss when uniques are needed.
+     */
+    synchronized BucketTotals get(Key key, boolean needUniques) {
+        BucketTotals totals = entries.get(key);
+        if (totals == null || (needUniques && !totals.covers(Metric.UNIQUES))) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return totals;
+    }
+
+    synchronized void put(Key key, BucketTotals totals) {
+        entries.put(key, totals);
+    }
+
+    /**
+     * Removes every entry. The hit and miss counts are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     * @return the hit count
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that had to scan the logs.
+     * @return the miss count
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Returns the share of lookups answered from the cache.
+     * @return the hit rate between 0 and 1, or 0 before any lookup
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Returns the number of entries held.
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the maximum number of entries held.
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * The canonical form of a query for one filter.
+     */
+    static final class Key {
+        private final DemographicFilter filter;
+        private final long from;
+        private final long to;
+        private final TimeGranularity granularity;
+
+        /**
+         * @param granularity the bucket width, or null for a single bucket over all time
+         */
+        Key(DemographicFilter filter, long from, long to, TimeGranularity granularity) {
+            this.filter = filter;
+            this.from = from;
+            this.to = to;
+            this.granularity = granularity;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key that = (Key) o;
+            return from == that.from && to == that.to && granularity == that.granularity
+                && filter.equals(that.filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(filter, from, to, granularity);
+        }
+    }
+}
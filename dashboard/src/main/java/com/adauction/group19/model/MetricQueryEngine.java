@@ -0,0 +1,388 @@
+package com.adauction.group19.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Computes several metrics over a date range in one pass over the campaign data.
+ * <p>
+ * The range is split into buckets of the chosen granularity. Each log is scanned
+ * once, and every row in range is added to the bucket totals of each distinct
+ * filter it passes, found through the user's demographic segment. The metrics are
+ * then derived from those totals using the same formulas as {@link CampaignData}:
+ * server log entries are placed by their entry time, and uniques are distinct
+ * users in the impression log.
+ * <p>
+ * Uniques over whole hours are estimated by merging the campaign's per-hour
+ * {@link HyperLogLog} sketches, unless it counts uniques exactly, in which case
+ * the distinct users of each bucket are collected during the scan.
+ * <p>
+ * The totals for each filter are kept in the campaign's {@link MetricQueryCache},
+ * and the logs are only scanned for filters it cannot answer. When only the bounce
+ * criteria changed, just the bounces are recounted: campaign totals from the
+ * {@link BounceIndex}, and bucketed ones from one pass over the server log.
+ * <p>
+ * A query stops with a {@link CancellationException} if its thread is interrupted,
+ * so a query that is no longer wanted can be abandoned part way through.
+ */
+public class MetricQueryEngine {
+
+    /**
+     * How many rows are scanned between checks for interruption.
+     */
+    private static final int CANCEL_CHECK_INTERVAL = 1 << 16;
+
+    /**
+     * The time range used for campaign totals, which include rows with no time.
+     */
+    private static final long ALL_TIME_FROM = Long.MIN_VALUE;
+    private static final long ALL_TIME_TO = Long.MAX_VALUE;
+
+    private final CampaignData campaignData;
+
+    /**
+     * Creates an engine over the given campaign data.
+     * @param campaignData the campaign data to query
+     */
+    public MetricQueryEngine(CampaignSnapshot campaignData) {
+        // The interface is sealed, so every snapshot is campaign data
+        this.campaignData = (CampaignData) campaignData;
+    }
+
+    /**
+     * Returns the number of buckets a range is split into.
+     * @param from the start of the range
+     * @param to the end of the range, exclusive
+     * @param granularity the bucket width
+     * @return the number of buckets, the last of which may be cut short
+     */
+    public static int bucketCount(LocalDateTime from, LocalDateTime to, TimeGranularity granularity) {
+        long length = EpochSeconds.of(to) - EpochSeconds.of(from);
+        if (length <= 0) {
+            return 0;
+        }
+        return (int) ((length + granularity.getSeconds() - 1) / granularity.getSeconds());
+    }
+
+    /**
+     * Computes the given metrics for each bucket of [from, to).
+     * @param from the start of the range
+     * @param to the end of the range, exclusive
+     * @param granularity the bucket width
+     * @param filters the metrics to compute, each with its demographic filter
+     * @return the series of each metric, in the order of {@link Metric}
+     * @throws CancellationException if the thread is interrupted during the query
+     */
+    public Map<Metric, MetricSeries> query(LocalDateTime from, LocalDateTime to, TimeGranularity granularity,
+                                           Map<Metric, List<Set<Enum<?>>>> filters) {
+        return run(EpochSeconds.of(from), EpochSeconds.of(to), granularity, bucketCount(from, to, granularity),
+            filters);
+    }
+
+    /**
+     * Computes the given metrics over the whole campaign.
+     * @param filters the metrics to compute, each with its demographic filter
+     * @return the campaign total of each metric
+     * @throws CancellationException if the thread is interrupted during the query
+     */
+    public Map<Metric, Double> queryTotals(Map<Metric, List<Set<Enum<?>>>> filters) {
+        Map<Metric, Double> totals = new EnumMap<>(Metric.class);
+        run(ALL_TIME_FROM, ALL_TIME_TO, null, 1, filters)
+            .forEach((metric, series) -> totals.put(metric, series.getTotal()));
+        return totals;
+    }
+
+    /**
+     * Answers a query from the cache where possible, scanning the logs once for the rest.
+     * @param granularity the bucket width, or null for a single bucket over all time
+     */
+    private Map<Metric, MetricSeries> run(long start, long end, TimeGranularity granularity, int buckets,
+                                          Map<Metric, List<Set<Enum<?>>>> filters) {
+        // Metrics with equal filters share one set of totals
+        Map<DemographicFilter, List<Metric>> metricsByFilter = new LinkedHashMap<>();
+        for (Map.Entry<Metric, List<Set<Enum<?>>>> entry : filters.entrySet()) {
+            metricsByFilter.computeIfAbsent(new DemographicFilter(entry.getValue()), filter -> new ArrayList<>())
+                .add(entry.getKey());
+        }
+
+        // A copy, so an edit to the criteria during the scan cannot mismatch the cached bounces
+        BounceCriteria criteria = new BounceCriteria(campaignData.getBounceCriteria());
+        MetricQueryCache cache = campaignData.getQueryCache();
+        Map<DemographicFilter, BucketTotals> totalsByFilter = new HashMap<>();
+        List<Totals> missing = new ArrayList<>();
+        List<Totals> staleBounces = new ArrayList<>();
+        for (Map.Entry<DemographicFilter, List<Metric>> entry : metricsByFilter.entrySet()) {
+            boolean uniques = entry.getValue().contains(Metric.UNIQUES);
+            MetricQueryCache.Key key = new MetricQueryCache.Key(entry.getKey(), start, end, granularity);
+            BucketTotals cached = cache.get(key, uniques);
+            if (cached == null) {
+                missing.add(new Totals(entry.getKey(), key, buckets, uniques, null));
+            } else if (!cached.hasBouncesFor(criteria)) {
+                staleBounces.add(new Totals(entry.getKey(), key, buckets, false, cached));
+            } else {
+                totalsByFilter.put(entry.getKey(), cached);
+            }
+        }
+
+        if (granularity == null) {
+            // Campaign totals of bounces come straight from the index
+            for (Totals totals : staleBounces) {
+                totals.bounces[0] = campaignData.getBounceIndex().countBounces(criteria, totals.filter);
+            }
+        }
+        long width = granularity == null ? 0 : granularity.getSeconds();
+        HourlyCube uniquesCube = null;
+        if (missing.stream().anyMatch(totals -> totals.uniques) && isWholeHours(start)
+            && isWholeHours(end)) {
+            uniquesCube = campaignData.getUniquesCube();
+        }
+        boolean scanBounces = granularity != null && !staleBounces.isEmpty();
+        if (!missing.isEmpty() || scanBounces) {
+            scan(start, end, width, criteria, uniquesCube != null, missing.toArray(new Totals[0]),
+                scanBounces ? staleBounces.toArray(new Totals[0]) : new Totals[0]);
+        }
+
+        for (Totals totals : missing) {
+            if (totals.uniques && uniquesCube != null) {
+                estimateUniques(totals, uniquesCube, start, end, width);
+            }
+            BucketTotals built = totals.build(criteria);
+            cache.put(totals.key, built);
+            totalsByFilter.put(totals.filter, built);
+        }
+        for (Totals totals : staleBounces) {
+            BucketTotals refreshed = totals.cached.withBounces(totals.bounces, criteria);
+            cache.put(totals.key, refreshed);
+            totalsByFilter.put(totals.filter, refreshed);
+        }
+
+        Map<Metric, MetricSeries> result = new EnumMap<>(Metric.class);
+        for (Map.Entry<DemographicFilter, List<Metric>> entry : metricsByFilter.entrySet()) {
+            BucketTotals totals = totalsByFilter.get(entry.getKey());
+            for (Metric metric : entry.getValue()) {
+                result.put(metric, totals.toSeries(metric));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds every row in [start, end) to the totals whose filter it passes.
+     * @param width the bucket width in seconds, or 0 for a single bucket
+     * @param sketchedUniques whether uniques come from sketches rather than the scan
+     * @param allTotals totals that need every measure
+     * @param bounceTotals totals that only need their bounces recounted
+     */
+    private void scan(long start, long end, long width, BounceCriteria criteria, boolean sketchedUniques,
+                      Totals[] allTotals, Totals[] bounceTotals) {
+        UserDictionary users = campaignData.getUserDictionary();
+        int[] userSegments = new int[users.size()];
+        for (int user = 0; user < users.size(); user++) {
+            userSegments[user] = HourlyCube.segmentOf(users, user);
+        }
+        if (!sketchedUniques) {
+            for (Totals totals : allTotals) {
+                totals.prepare(users.size());
+            }
+        }
+
+        if (allTotals.length > 0) {
+            CostEventColumns impressions = campaignData.getImpressionColumns();
+            for (int row = 0; row < impressions.size(); row++) {
+                checkCancelled(row);
+                long time = impressions.getTime(row);
+                if (time < start || time >= end) {
+                    continue;
+                }
+                int bucket = bucketOf(time, start, width);
+                int user = impressions.getUser(row);
+                int segment = segmentOf(userSegments, user);
+                double cost = impressions.getCost(row);
+                for (Totals totals : allTotals) {
+                    if (totals.mask[segment]) {
+                        totals.impressions[bucket]++;
+                        totals.costs[bucket] += cost;
+                        if (totals.bucketUsers != null && user != UserDictionary.NO_USER) {
+                            totals.bucketUsers[bucket].set(user);
+                            totals.rangeUsers.set(user);
+                        }
+                    }
+                }
+            }
+
+            CostEventColumns clicks = campaignData.getClickColumns();
+            for (int row = 0; row < clicks.size(); row++) {
+                checkCancelled(row);
+                long time = clicks.getTime(row);
+                if (time < start || time >= end) {
+                    continue;
+                }
+                int bucket = bucketOf(time, start, width);
+                int segment = segmentOf(userSegments, clicks.getUser(row));
+                double cost = clicks.getCost(row);
+                for (Totals totals : allTotals) {
+                    if (totals.mask[segment]) {
+                        totals.clicks[bucket]++;
+                        totals.costs[bucket] += cost;
+                    }
+                }
+            }
+        }
+
+        ServerLogColumns serverLogs = campaignData.getServerLogColumns();
+        BounceIndex bounceIndex = campaignData.getBounceIndex();
+        for (int row = 0; row < serverLogs.size(); row++) {
+            checkCancelled(row);
+            long time = serverLogs.getEntryTime(row);
+            if (time < start || time >= end) {
+                continue;
+            }
+            int bucket = bucketOf(time, start, width);
+            int segment = segmentOf(userSegments, serverLogs.getUser(row));
+            boolean conversion = serverLogs.isConversion(row);
+            boolean bounce = bounceIndex.isBounce(row, criteria);
+            for (Totals totals : allTotals) {
+                if (totals.mask[segment]) {
+                    if (conversion) {
+                        totals.conversions[bucket]++;
+                    }
+                    if (bounce) {
+                        totals.bounces[bucket]++;
+                    }
+                }
+            }
+            if (bounce) {
+                for (Totals totals : bounceTotals) {
+                    if (totals.mask[segment]) {
+                        totals.bounces[bucket]++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills in the uniques of each bucket, and of the whole range, by merging the
+     * cube's user sketches.
+     */
+    private void estimateUniques(Totals totals, HourlyCube cube, long start, long end, long width) {
+        boolean[] mask = cube.segmentMask(totals.filter);
+        int buckets = totals.bounces.length;
+        totals.uniqueCounts = new int[buckets];
+        if (width == 0) {
+            HyperLogLog users = cube.mergeUserSketches(mask, Long.MIN_VALUE, Long.MAX_VALUE);
+            // The unfiltered campaign total is known exactly, see CampaignData#getTotalUniques
+            totals.rangeUniqueCount = totals.filter.isUnrestricted()
+                ? campaignData.getUserDictionary().getProfiledCount()
+                : (int) users.estimate();
+            totals.uniqueCounts[0] = totals.rangeUniqueCount;
+            return;
+        }
+        HyperLogLog range = null;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            long bucketStart = start + bucket * width;
+            HyperLogLog users = cube.mergeUserSketches(mask, EpochSeconds.hourOf(bucketStart),
+                EpochSeconds.hourOf(Math.min(bucketStart + width, end)));
+            totals.uniqueCounts[bucket] = (int) users.estimate();
+            if (range == null) {
+                range = users;
+            } else {
+                range.merge(users);
+            }
+        }
+        totals.rangeUniqueCount = range == null ? 0 : (int) range.estimate();
+    }
+
+    private static boolean isWholeHours(long time) {
+        return time == ALL_TIME_FROM || time == ALL_TIME_TO
+            || Math.floorMod(time, EpochSeconds.SECONDS_PER_HOUR) == 0;
+    }
+
+    private static int bucketOf(long time, long start, long width) {
+        return width == 0 ? 0 : (int) ((time - start) / width);
+    }
+
+    private static void checkCancelled(int row) {
+        if (row % CANCEL_CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Metric query was interrupted");
+        }
+    }
+
+    private static int segmentOf(int[] userSegments, int user) {
+        return user == UserDictionary.NO_USER ? HourlyCube.NO_PROFILE_SEGMENT : userSegments[user];
+    }
+
+    /**
+     * The per-bucket totals for one filter while the logs are scanned. Totals that
+     * only recount bounces for a cached entry have no other arrays.
+     */
+    private static class Totals {
+        private final DemographicFilter filter;
+        private final MetricQueryCache.Key key;
+        private final BucketTotals cached;
+        private final boolean[] mask = new boolean[HourlyCube.SEGMENT_COUNT];
+        private final long[] impressions;
+        private final long[] clicks;
+        private final long[] conversions;
+        private final long[] bounces;
+        private final double[] costs;
+        private final boolean uniques;
+        private BitSet[] bucketUsers;
+        private BitSet rangeUsers;
+        private int[] uniqueCounts;
+        private int rangeUniqueCount;
+
+        /**
+         * @param cached the entry whose bounces are recounted, or null to count everything
+         */
+        private Totals(DemographicFilter filter, MetricQueryCache.Key key, int buckets, boolean uniques,
+                       BucketTotals cached) {
+            this.filter = filter;
+            this.key = key;
+            this.uniques = uniques;
+            this.cached = cached;
+            for (int segment = 0; segment < mask.length; segment++) {
+                mask[segment] = HourlyCube.segmentMatches(filter, segment);
+            }
+            bounces = new long[buckets];
+            boolean all = cached == null;
+            impressions = all ? new long[buckets] : null;
+            clicks = all ? new long[buckets] : null;
+            conversions = all ? new long[buckets] : null;
+            costs = all ? new double[buckets] : null;
+        }
+
+        /**
+         * Allocates the user sets, only when uniques are needed and counted exactly.
+         */
+        private void prepare(int userCount) {
+            if (uniques) {
+                bucketUsers = new BitSet[impressions.length];
+                for (int bucket = 0; bucket < bucketUsers.length; bucket++) {
+                    bucketUsers[bucket] = new BitSet(userCount);
+                }
+                rangeUsers = new BitSet(userCount);
+            }
+        }
+
+        private BucketTotals build(BounceCriteria criteria) {
+            if (bucketUsers != null) {
+                uniqueCounts = new int[bucketUsers.length];
+                for (int bucket = 0; bucket < uniqueCounts.length; bucket++) {
+                    uniqueCounts[bucket] = bucketUsers[bucket].cardinality();
+                }
+                rangeUniqueCount = rangeUsers.cardinality();
+            }
+            return new BucketTotals(impressions, clicks, conversions, bounces, costs, uniqueCounts,
+                rangeUniqueCount, criteria);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.adauction.group19.model;
+
+/**
+ * The values of one metric for each time bucket of a query, and for the whole range.
+ */
+public class MetricSeries {
+    private final Metric metric;
+    private final double[] values;
+    private final double total;
+
+    /**
+     * Creates a series.
+     * @param metric the metric
+     * @param values the value for each bucket
+     * @param total the value over the whole range
+     */
+    public MetricSeries(Metric metric, double[] values, double total) {
+        this.metric = metric;
+        this.values = values;
+        this.total = total;
+    }
+
+    public Metric getMetric() {
+        return metric;
+    }
+
+    /**
+     * Returns the value for a bucket.
+     * @param bucket the bucket index
+     * @return the metric value
+     */
+    public double getValue(int bucket) {
+        return values[bucket];
+    }
+
+    /**
+     * Returns the number of buckets.
+     * @return the number of buckets
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns the value over the whole range. Rates are computed from the range
+     * totals and uniques are counted once across buckets, so this is not in general
+     * the sum of the bucket values.
+     * @return the range value
+     */
+    public double getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,202 @@
+package com.adauction.group19.model;
+
+/**
+ * A mergeable sketch of a distribution of non-negative values, answering quantile
+ * queries such as the median or 99th percentile cost without keeping the values.
+ * <p>
+ * Values are counted in buckets whose bounds grow geometrically, so every quantile
+ * is returned within a fixed relative error of a value that was added (the
+ * DDSketch scheme). Sketches with the same relative accuracy merge exactly by
+ * adding their bucket counts, so the quantiles of any set of days and segments
+ * come from merging their sketches. Values too small to bucket, including zero and
+ * negative values, are counted as zero.
+ */
+public class QuantileSketch {
+
+    /**
+     * The relative accuracy used unless another is chosen, 1%.
+     */
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+
+    /**
+     * The smallest value given its own bucket; anything below counts as zero.
+     */
+    private static final double MIN_INDEXED_VALUE = 1e-9;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+
+    /**
+     * The count of bucket (offset + i) is counts[i]. Empty until the first positive value.
+     */
+    private long[] counts = new long[0];
+    private int offset;
+
+    private long zeroCount;
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    /**
+     * Creates an empty sketch with the default relative accuracy.
+     */
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    /**
+     * Creates an empty sketch.
+     * @param relativeAccuracy the relative error allowed on quantiles, between 0 and 1 exclusive
+     */
+    public QuantileSketch(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1: " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    /**
+     * Returns the relative accuracy of the sketch.
+     * @return the relative error allowed on quantiles
+     */
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Adds a value.
+     * @param value the value, counted as zero if negative or tiny and ignored if not finite
+     */
+    public void add(double value) {
+        if (!Double.isFinite(value)) {
+            return;
+        }
+        if (value < MIN_INDEXED_VALUE) {
+            zeroCount++;
+        } else {
+            int index = indexOf(value);
+            ensureCapacity(index, index);
+            counts[index - offset]++;
+        }
+        count++;
+        min = count == 1 ? value : Math.min(min, value);
+        max = count == 1 ? value : Math.max(max, value);
+    }
+
+    /**
+     * Adds every value of another sketch to this one.
+     * @param other a sketch with the same relative accuracy
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches of accuracy " + relativeAccuracy + " and "
+                + other.relativeAccuracy);
+        }
+        if (other.count == 0) {
+            return;
+        }
+        if (other.counts.length > 0) {
+            ensureCapacity(other.offset, other.offset + other.counts.length - 1);
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[other.offset + i - offset] += other.counts[i];
+            }
+        }
+        zeroCount += other.zeroCount;
+        min = count == 0 ? other.min : Math.min(min, other.min);
+        max = count == 0 ? other.max : Math.max(max, other.max);
+        count += other.count;
+    }
+
+    /**
+     * Returns the number of values added.
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns whether nothing has been added.
+     * @return true if the sketch is empty
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Estimates a quantile of the values added. The lowest and highest quantiles
+     * are the exact minimum and maximum.
+     * @param quantile the quantile, between 0 and 1, for example 0.99 for the 99th percentile
+     * @return the estimate, or NaN if the sketch is empty
+     */
+    public double getQuantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + quantile);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.floor(quantile * (count - 1));
+        if (rank == 0) {
+            return min;
+        }
+        if (rank == count - 1) {
+            return max;
+        }
+        double value;
+        if (rank < zeroCount) {
+            value = 0;
+        } else {
+            value = max;
+            long seen = zeroCount;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen > rank) {
+                    value = valueOf(offset + i);
+                    break;
+                }
+            }
+        }
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * Returns an estimate of the memory held by the sketch.
+     * @return the size in bytes
+     */
+    public long estimateBytes() {
+        return (long) counts.length * Long.BYTES;
+    }
+
+    private int indexOf(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    /**
+     * Returns the value that bucket index stands for, within the relative accuracy
+     * of every value in the bucket.
+     */
+    private double valueOf(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    private void ensureCapacity(int lowIndex, int highIndex) {
+        if (counts.length == 0) {
+            offset = lowIndex;
+            counts = new long[highIndex - lowIndex + 1];
+            return;
+        }
+        int low = Math.min(lowIndex, offset);
+        int high = Math.max(highIndex, offset + counts.length - 1);
+        if (low == offset && high - low + 1 == counts.length) {
+            return;
+        }
+        long[] grown = new long[high - low + 1];
+        System.arraycopy(counts, 0, grown, offset - low, counts.length);
+        counts = grown;
+        offset = low;
+    }
+}
@@ -0,0 +1,121 @@
+package com.adauction.group19.model;
+
+import com.adauction.group19.utils.MemoryFootprint;
+
+import java.util.BitSet;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Bitmap index over the rows of one log. For every demographic value there is a
+ * bitmap of the rows whose user has that value, plus one for rows whose user has
+ * no demographics. A filter is resolved to the matching rows with OR within each
+ * dimension and AND across dimensions, so queries only visit the rows they count.
+ */
+public class SegmentIndex {
+
+    private final int rowCount;
+
+    /**
+     * The rows per dimension and enum ordinal.
+     */
+    private final BitSet[][] valueRows = new BitSet[DemographicFilter.DIMENSION_COUNT][];
+
+    /**
+     * The rows whose user has no demographics; these pass every filter.
+     */
+    private final BitSet noProfileRows;
+
+    private SegmentIndex(int rowCount) {
+        this.rowCount = rowCount;
+        for (int dimension = 0; dimension < valueRows.length; dimension++) {
+            valueRows[dimension] = new BitSet[DemographicFilter.valueCount(dimension)];
+            for (int ordinal = 0; ordinal < valueRows[dimension].length; ordinal++) {
+                valueRows[dimension][ordinal] = new BitSet(rowCount);
+            }
+        }
+        noProfileRows = new BitSet(rowCount);
+    }
+
+    /**
+     * Estimates the heap used by the bitmaps.
+     * @return the estimated size in bytes
+     */
+    public long estimateBytes() {
+        long bytes = bitmapBytes(noProfileRows);
+        for (BitSet[] dimension : valueRows) {
+            for (BitSet rows : dimension) {
+                bytes += bitmapBytes(rows);
+            }
+        }
+        return bytes;
+    }
+
+    private static long bitmapBytes(BitSet rows) {
+        return MemoryFootprint.align(24) + MemoryFootprint.array(rows.size() / Long.SIZE, Long.BYTES);
+    }
+
+    /**
+     * Builds the index for a log.
+     * @param users the user dictionary
+     * @param rowCount the number of rows in the log
+     * @param userOfRow gives the user code of a row
+     * @return the index
+     */
+    public static SegmentIndex build(UserDictionary users, int rowCount, IntUnaryOperator userOfRow) {
+        SegmentIndex index = new SegmentIndex(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            int user = userOfRow.applyAsInt(row);
+            if (user == UserDictionary.NO_USER || !users.hasProfile(user)) {
+                index.noProfileRows.set(row);
+            } else {
+                index.valueRows[0][users.getGender(user)].set(row);
+                index.valueRows[1][users.getAgeRange(user)].set(row);
+                index.valueRows[2][users.getIncome(user)].set(row);
+                index.valueRows[3][users.getContext(user)].set(row);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the rows that pass a filter.
+     * @param filter the demographic filter
+     * @return a new bitmap of the matching rows
+     */
+    public BitSet select(DemographicFilter filter) {
+        BitSet rows = new BitSet(rowCount);
+        if (filter.isUnrestricted()) {
+            rows.set(0, rowCount);
+            return rows;
+        }
+
+        boolean first = true;
+        for (int dimension = 0; dimension < valueRows.length; dimension++) {
+            if (!filter.isRestricted(dimension)) {
+                continue;
+            }
+            BitSet dimensionRows = new BitSet(rowCount);
+            for (int ordinal = 0; ordinal < valueRows[dimension].length; ordinal++) {
+                if (filter.allows(dimension, ordinal)) {
+                    dimensionRows.or(valueRows[dimension][ordinal]);
+                }
+            }
+            if (first) {
+                rows = dimensionRows;
+                first = false;
+            } else {
+                rows.and(dimensionRows);
+            }
+        }
+        rows.or(noProfileRows);
+        return rows;
+    }
+
+    /**
+     * Returns the number of rows indexed.
+     * @return the number of rows
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+}
@@ -0,0 +1,140 @@
+package com.adauction.group19.model;
+
+import com.adauction.group19.utils.MemoryFootprint;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Column store for the server log. Each column is a primitive array indexed by row.
+ */
+public class ServerLogColumns implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * The entry and exit times in epoch seconds, {@link EpochSeconds#ABSENT} if missing.
+     */
+    private long[] entryTimes = new long[INITIAL_CAPACITY];
+    private long[] exitTimes = new long[INITIAL_CAPACITY];
+
+    /**
+     * The number of pages viewed in each session.
+     */
+    private int[] pagesViewed = new int[INITIAL_CAPACITY];
+
+    /**
+     * Whether each session ended in a conversion.
+     */
+    private boolean[] conversions = new boolean[INITIAL_CAPACITY];
+
+    /**
+     * The user code of each session, see {@link UserDictionary}.
+     */
+    private int[] users = new int[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * Creates empty columns.
+     */
+    public ServerLogColumns() {
+    }
+
+    /**
+     * Creates columns that take ownership of the given arrays, which must all have the same length.
+     * @param entryTimes the entry time of each session
+     * @param exitTimes the exit time of each session
+     * @param pagesViewed the pages viewed in each session
+     * @param conversions whether each session converted
+     * @param users the user code of each session
+     */
+    ServerLogColumns(long[] entryTimes, long[] exitTimes, int[] pagesViewed, boolean[] conversions, int[] users) {
+        this.entryTimes = entryTimes;
+        this.exitTimes = exitTimes;
+        this.pagesViewed = pagesViewed;
+        this.conversions = conversions;
+        this.users = users;
+        this.size = entryTimes.length;
+    }
+
+    /**
+     * Appends a row.
+     * @param entryTime the entry time in epoch seconds
+     * @param exitTime the exit time in epoch seconds
+     * @param pages the number of pages viewed
+     * @param conversion whether the user converted
+     * @param user the user code
+     */
+    public void add(long entryTime, long exitTime, int pages, boolean conversion, int user) {
+        if (size == entryTimes.length) {
+            grow(size + 1);
+        }
+        entryTimes[size] = entryTime;
+        exitTimes[size] = exitTime;
+        pagesViewed[size] = pages;
+        conversions[size] = conversion;
+        users[size] = user;
+        size++;
+    }
+
+    public long getEntryTime(int row) {
+        return entryTimes[row];
+    }
+
+    public long getExitTime(int row) {
+        return exitTimes[row];
+    }
+
+    public int getPagesViewed(int row) {
+        return pagesViewed[row];
+    }
+
+    public boolean isConversion(int row) {
+        return conversions[row];
+    }
+
+    public int getUser(int row) {
+        return users[row];
+    }
+
+    /**
+     * Returns the number of rows.
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Releases the spare capacity left over from growing the arrays.
+     */
+    public void trimToSize() {
+        entryTimes = Arrays.copyOf(entryTimes, size);
+        exitTimes = Arrays.copyOf(exitTimes, size);
+        pagesViewed = Arrays.copyOf(pagesViewed, size);
+        conversions = Arrays.copyOf(conversions, size);
+        users = Arrays.copyOf(users, size);
+    }
+
+    /**
+     * Estimates the heap used by the columns.
+     * @return the estimated size in bytes
+     */
+    public long estimateBytes() {
+        return 2 * MemoryFootprint.array(entryTimes.length, Long.BYTES)
+            + MemoryFootprint.array(pagesViewed.length, Integer.BYTES)
+            + MemoryFootprint.array(conversions.length, Byte.BYTES)
+            + MemoryFootprint.array(users.length, Integer.BYTES);
+    }
+
+    private void grow(int minCapacity) {
+        int newLength = Math.max(minCapacity, entryTimes.length + (entryTimes.length >> 1));
+        entryTimes = Arrays.copyOf(entryTimes, newLength);
+        exitTimes = Arrays.copyOf(exitTimes, newLength);
+        pagesViewed = Arrays.copyOf(pagesViewed, newLength);
+        conversions = Arrays.copyOf(conversions, newLength);
+        users = Arrays.copyOf(users, newLength);
+    }
+}
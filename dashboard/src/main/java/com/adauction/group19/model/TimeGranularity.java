@@ -0,0 +1,24 @@
+package com.adauction.group19.model;
+
+/**
+ * This enum represents the width of the time buckets metrics are grouped into.
+ */
+public enum TimeGranularity {
+    HOURLY(EpochSeconds.SECONDS_PER_HOUR),
+    DAILY(EpochSeconds.SECONDS_PER_DAY),
+    WEEKLY(7 * EpochSeconds.SECONDS_PER_DAY);
+
+    private final long seconds;
+
+    TimeGranularity(long seconds) {
+        this.seconds = seconds;
+    }
+
+    /**
+     * Returns the width of one bucket.
+     * @return the bucket width in seconds
+     */
+    public long getSeconds() {
+        return seconds;
+    }
+}
@@ -0,0 +1,319 @@
+package com.adauction.group19.model;
+
+import com.adauction.group19.utils.MemoryFootprint;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Dictionary that encodes user IDs as dense int codes so the log columns can
+ * refer to users by int instead of by String. Each user's demographics from the
+ * impression log are kept alongside as byte enum ordinals.
+ */
+public class UserDictionary implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Code used for a missing (null) user ID.
+     */
+    public static final int NO_USER = -1;
+
+    /**
+     * Demographic code for a user that never appeared in the impression log.
+     */
+    public static final byte NO_PROFILE = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * The user IDs, indexed by code.
+     */
+    private String[] ids = new String[INITIAL_CAPACITY];
+
+    /**
+     * The demographics of each user, indexed by code.
+     */
+    private byte[] genders = new byte[INITIAL_CAPACITY];
+    private byte[] ageRanges = new byte[INITIAL_CAPACITY];
+    private byte[] incomes = new byte[INITIAL_CAPACITY];
+    private byte[] contexts = new byte[INITIAL_CAPACITY];
+
+    /**
+     * Open addressing hash table from ID to code + 1 (0 marks an empty slot).
+     */
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+
+    private int size;
+    private int profiledCount;
+
+    /**
+     * Returns the code for the given ID, adding it if it has not been seen before.
+     * @param id the user ID
+     * @return the code for the ID, or {@link #NO_USER} if id is null
+     */
+    public int intern(String id) {
+        if (id == null) {
+            return NO_USER;
+        }
+        int slot = findSlot(id);
+        if (table[slot] != 0) {
+            return table[slot] - 1;
+        }
+
+        int code = size++;
+        ensureCapacity(size);
+        ids[code] = id;
+        genders[code] = NO_PROFILE;
+        ageRanges[code] = NO_PROFILE;
+        incomes[code] = NO_PROFILE;
+        contexts[code] = NO_PROFILE;
+
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        } else {
+            table[slot] = code + 1;
+        }
+        return code;
+    }
+
+    /**
+     * Returns the code for the ID held in bytes [start, end) of a buffer, adding it if it
+     * has not been seen before. Each byte is read as one character (ISO-8859-1), which
+     * matches the String form for the ASCII IDs in the logs. A String is only created
+     * the first time an ID is seen.
+     * @param bytes the buffer holding the ID
+     * @param start the index of the first byte
+     * @param end the index after the last byte
+     * @return the code for the ID
+     */
+    public int intern(ByteBuffer bytes, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + (bytes.get(i) & 0xff);
+        }
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        while (table[slot] != 0) {
+            int code = table[slot] - 1;
+            if (matches(ids[code], bytes, start, end)) {
+                return code;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        byte[] idBytes = new byte[end - start];
+        bytes.get(start, idBytes);
+        return intern(new String(idBytes, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Returns the code for the given ID without adding it.
+     * @param id the user ID
+     * @return the code for the ID, or {@link #NO_USER} if it is not known
+     */
+    public int lookup(String id) {
+        if (id == null) {
+            return NO_USER;
+        }
+        return table[findSlot(id)] - 1;
+    }
+
+    /**
+     * Records the demographics of a user. Later calls overwrite earlier ones.
+     * @param code the user code
+     * @param gender the gender of the user
+     * @param ageRange the age range of the user
+     * @param income the income of the user
+     * @param context the context the user was seen in
+     */
+    public void setProfile(int code, Gender gender, AgeRange ageRange, Income income, Context context) {
+        if (code == NO_USER) {
+            return;
+        }
+        if (genders[code] == NO_PROFILE) {
+            profiledCount++;
+        }
+        genders[code] = (byte) gender.ordinal();
+        ageRanges[code] = (byte) ageRange.ordinal();
+        incomes[code] = (byte) income.ordinal();
+        contexts[code] = (byte) context.ordinal();
+    }
+
+    /**
+     * Records the demographics of a user from their enum ordinals.
+     * @param code the user code
+     * @param gender the gender ordinal
+     * @param ageRange the age range ordinal
+     * @param income the income ordinal
+     * @param context the context ordinal
+     */
+    void setProfileOrdinals(int code, byte gender, byte ageRange, byte income, byte context) {
+        if (genders[code] == NO_PROFILE) {
+            profiledCount++;
+        }
+        genders[code] = gender;
+        ageRanges[code] = ageRange;
+        incomes[code] = income;
+        contexts[code] = context;
+    }
+
+    /**
+     * Copies a user's demographics from another dictionary, if it has any.
+     * @param code the user code in this dictionary
+     * @param other the dictionary to copy from
+     * @param otherCode the user code in the other dictionary
+     */
+    public void copyProfile(int code, UserDictionary other, int otherCode) {
+        if (code == NO_USER || !other.hasProfile(otherCode)) {
+            return;
+        }
+        if (genders[code] == NO_PROFILE) {
+            profiledCount++;
+        }
+        genders[code] = other.genders[otherCode];
+        ageRanges[code] = other.ageRanges[otherCode];
+        incomes[code] = other.incomes[otherCode];
+        contexts[code] = other.contexts[otherCode];
+    }
+
+    /**
+     * Returns whether the user appeared in the impression log.
+     * @param code the user code
+     * @return true if the user has demographics
+     */
+    public boolean hasProfile(int code) {
+        return code != NO_USER && genders[code] != NO_PROFILE;
+    }
+
+    /**
+     * Returns the ID for the given code.
+     * @param code the user code
+     * @return the user ID, or null for {@link #NO_USER}
+     */
+    public String getId(int code) {
+        return code == NO_USER ? null : ids[code];
+    }
+
+    public byte getGender(int code) {
+        return code == NO_USER ? NO_PROFILE : genders[code];
+    }
+
+    public byte getAgeRange(int code) {
+        return code == NO_USER ? NO_PROFILE : ageRanges[code];
+    }
+
+    public byte getIncome(int code) {
+        return code == NO_USER ? NO_PROFILE : incomes[code];
+    }
+
+    public byte getContext(int code) {
+        return code == NO_USER ? NO_PROFILE : contexts[code];
+    }
+
+    /**
+     * Returns the number of distinct user IDs seen in any log.
+     * @return the number of codes handed out
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of users that appeared in the impression log.
+     * @return the number of users with demographics
+     */
+    public int getProfiledCount() {
+        return profiledCount;
+    }
+
+    /**
+     * Returns the mean length of the user IDs.
+     * @return the mean ID length, or 0 if there are no users
+     */
+    public int getAverageIdLength() {
+        if (size == 0) {
+            return 0;
+        }
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += ids[i].length();
+        }
+        return (int) (total / size);
+    }
+
+    /**
+     * Releases the spare capacity left over from growing the arrays.
+     */
+    public void trimToSize() {
+        ids = Arrays.copyOf(ids, size);
+        genders = Arrays.copyOf(genders, size);
+        ageRanges = Arrays.copyOf(ageRanges, size);
+        incomes = Arrays.copyOf(incomes, size);
+        contexts = Arrays.copyOf(contexts, size);
+    }
+
+    /**
+     * Estimates the heap used by the dictionary, including the ID strings.
+     * @return the estimated size in bytes
+     */
+    public long estimateBytes() {
+        long bytes = MemoryFootprint.array(ids.length, MemoryFootprint.REFERENCE)
+            + MemoryFootprint.array(table.length, Integer.BYTES)
+            + 4 * MemoryFootprint.array(genders.length, Byte.BYTES);
+        for (int i = 0; i < size; i++) {
+            bytes += MemoryFootprint.string(ids[i].length());
+        }
+        return bytes;
+    }
+
+    private int findSlot(String id) {
+        int mask = table.length - 1;
+        int slot = mix(id.hashCode()) & mask;
+        while (table[slot] != 0 && !ids[table[slot] - 1].equals(id)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static boolean matches(String id, ByteBuffer bytes, int start, int end) {
+        if (id.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            if (id.charAt(i) != (char) (bytes.get(start + i) & 0xff)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        int mask = capacity - 1;
+        for (int code = 0; code < size; code++) {
+            int slot = mix(ids[code].hashCode()) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = code + 1;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newLength = Math.max(capacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, newLength);
+        genders = Arrays.copyOf(genders, newLength);
+        ageRanges = Arrays.copyOf(ageRanges, newLength);
+        incomes = Arrays.copyOf(incomes, newLength);
+        contexts = Arrays.copyOf(contexts, newLength);
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,180 @@
+package com.adauction.group19.service;
+
+import com.adauction.group19.model.CampaignData;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps recently loaded campaigns in memory, so switching back to a campaign does
+ * not fetch its saved data and decode it again. Campaigns are keyed by ID and data
+ * version, so a campaign whose data has been replaced is loaded afresh.
+ * <p>
+ * The cache is bounded by the estimated heap size of the campaigns it holds,
+ * including their indexes, rather than by their number: the least recently used
+ * campaigns are evicted once the total passes the limit, and a campaign larger
+ * than the whole limit is not kept at all. Cached campaigns are frozen, so the
+ * same data can be handed out again however it was used in between.
+ */
+public class CampaignCache {
+
+    /**
+     * The share of the maximum heap the shared cache may fill.
+     */
+    private static final double DEFAULT_HEAP_SHARE = 0.25;
+
+    private static final CampaignCache instance =
+        new CampaignCache((long) (Runtime.getRuntime().maxMemory() * DEFAULT_HEAP_SHARE));
+
+    /**
+     * A cached campaign with the version and estimated size it was cached with.
+     */
+    private record Entry(int version, CampaignData campaignData, long bytes) {
+    }
+
+    private final long maxBytes;
+
+    /**
+     * The cached campaigns by ID, least recently used first.
+     */
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a cache.
+     * @param maxBytes the most estimated heap the cached campaigns may use
+     */
+    public CampaignCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cache shared by the application, which may use a quarter of the maximum heap.
+     * @return the shared cache
+     */
+    public static CampaignCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns a cached campaign, dropping it if it was cached with another version.
+     * @param campaignId the ID of the campaign
+     * @param version the version of the saved data
+     * @return the campaign data, or null if it is not cached
+     */
+    public synchronized CampaignData get(int campaignId, int version) {
+        Entry entry = entries.get(campaignId);
+        if (entry != null && entry.version() != version) {
+            remove(campaignId);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.campaignData();
+    }
+
+    /**
+     * Caches a campaign, freezing it first, and evicts the least recently used
+     * campaigns until the cache is within its limit again.
+     * @param campaignId the ID of the campaign
+     * @param version the version of the saved data
+     * @param campaignData the campaign data
+     */
+    public void put(int campaignId, int version, CampaignData campaignData) {
+        // Sized outside the lock, as freezing may build the indexes
+        long bytes = campaignData.freeze().estimateRetainedFootprint();
+        synchronized (this) {
+            remove(campaignId);
+            if (bytes > maxBytes) {
+                return;
+            }
+            entries.put(campaignId, new Entry(version, campaignData, bytes));
+            totalBytes += bytes;
+            Iterator<Map.Entry<Integer, Entry>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                totalBytes -= eldest.next().getValue().bytes();
+                eldest.remove();
+                evictions++;
+            }
+        }
+    }
+
+    /**
+     * Drops a campaign, e.g. when it is deleted or its data is replaced.
+     * @param campaignId the ID of the campaign
+     */
+    public synchronized void invalidate(int campaignId) {
+        remove(campaignId);
+    }
+
+    /**
+     * Drops every campaign.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    private void remove(int campaignId) {
+        Entry entry = entries.remove(campaignId);
+        if (entry != null) {
+            totalBytes -= entry.bytes();
+        }
+    }
+
+    /**
+     * Returns the most estimated heap the cached campaigns may use.
+     * @return the limit in bytes
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the estimated heap used by the cached campaigns.
+     * @return the size in bytes
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Returns the number of cached campaigns.
+     * @return the number of campaigns
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups that found their campaign.
+     * @return the hit count
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that did not find their campaign.
+     * @return the miss count
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of campaigns evicted to stay within the limit.
+     * @return the eviction count
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+}
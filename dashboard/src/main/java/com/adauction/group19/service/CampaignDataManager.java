@@ -1,6 +1,8 @@
 package com.adauction.group19.service;
 
 import com.adauction.group19.model.Campaign;
+import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.model.CampaignSummary;
 import com.adauction.group19.model.CampaignViewerAssignment;
 import com.adauction.group19.model.User;
 import com.adauction.group19.model.UserRole;
@@ -15,6 +17,12 @@ import java.util.List;
  * Handles storing and retrieving campaign data, and managing viewer assignments.
  */
 public class CampaignDataManager {
+    /**
+     * The columns of a campaign summary, leaving out the saved data.
+     */
+    private static final String SUMMARY_COLUMNS = "c.id, c.user_id, c.campaign_name, c.data_size, "
+        + "c.impression_count, c.click_count, c.server_log_count, c.created_at, c.data_version";
+
     private static CampaignDataManager instance;
     private final DatabaseManager dbManager;
 
@@ -38,14 +46,30 @@ public class CampaignDataManager {
      * @return The created Campaign object if successful, null otherwise
      */
     public Campaign addCampaign(int userId, String campaignName, byte[] data) {
+        return addCampaign(userId, campaignName, data, null);
+    }
+
+    /**
+     * Adds a new campaign to the database, recording its row counts for the campaign listing.
+     *
+     * @param userId The ID of the user creating the campaign
+     * @param campaignName The name of the campaign
+     * @param data The campaign data as bytes
+     * @param campaignData The campaign data the bytes were encoded from, or null if the row counts are unknown
+     * @return The created Campaign object if successful, null otherwise
+     */
+    public Campaign addCampaign(int userId, String campaignName, byte[] data, CampaignData campaignData) {
         try (Connection conn = dbManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(
-                 "INSERT INTO campaigns (user_id, campaign_name, data) VALUES (?, ?, ?)",
+                 "INSERT INTO campaigns (user_id, campaign_name, data, data_size, impression_count, click_count, "
+                     + "server_log_count) VALUES (?, ?, ?, ?, ?, ?, ?)",
                  Statement.RETURN_GENERATED_KEYS)) {
 
             pstmt.setInt(1, userId);
             pstmt.setString(2, campaignName);
             pstmt.setBytes(3, data);
+            pstmt.setLong(4, data.length);
+            setRowCounts(pstmt, 5, campaignData);
 
             int affectedRows = pstmt.executeUpdate();
 
@@ -64,12 +88,76 @@ public class CampaignDataManager {
         }
     }
 
+    /**
+     * Replaces the saved data of a campaign, e.g. after converting it to a newer format.
+     * The data version goes up, so copies of the old data held in memory are not used again.
+     *
+     * @param campaignId The ID of the campaign
+     * @param data The campaign data as bytes
+     * @param campaignData The campaign data the bytes were encoded from
+     * @return true if the campaign was updated, false otherwise
+     */
+    public boolean updateCampaignData(int campaignId, byte[] data, CampaignData campaignData) {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "UPDATE campaigns SET data = ?, data_size = ?, impression_count = ?, click_count = ?, "
+                         + "server_log_count = ?, data_version = data_version + 1 WHERE id = ?")) {
+
+            pstmt.setBytes(1, data);
+            pstmt.setLong(2, data.length);
+            setRowCounts(pstmt, 3, campaignData);
+            pstmt.setInt(6, campaignId);
+            boolean updated = pstmt.executeUpdate() == 1;
+            CampaignCache.getInstance().invalidate(campaignId);
+            return updated;
+        } catch (SQLException e) {
+            System.err.println("Error updating campaign data: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void setRowCounts(PreparedStatement pstmt, int firstIndex, CampaignData campaignData)
+            throws SQLException {
+        if (campaignData == null) {
+            for (int i = 0; i < 3; i++) {
+                pstmt.setNull(firstIndex + i, Types.INTEGER);
+            }
+        } else {
+            pstmt.setInt(firstIndex, campaignData.getImpressionCount());
+            pstmt.setInt(firstIndex + 1, campaignData.getClickCount());
+            pstmt.setInt(firstIndex + 2, campaignData.getServerLogCount());
+        }
+    }
+
+    /**
+     * Retrieves the saved data of a campaign.
+     *
+     * @param campaignId The ID of the campaign
+     * @return The campaign data as bytes, or null if the campaign does not exist
+     */
+    public byte[] getCampaignData(int campaignId) {
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "SELECT data FROM campaigns WHERE id = ?")) {
+
+            pstmt.setInt(1, campaignId);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return rs.getBytes("data");
+            }
+        } catch (SQLException e) {
+            System.err.println("Error retrieving campaign data: " + e.getMessage());
+        }
+        return null;
+    }
+
     public void deleteCampaign(int campaignId) {
         try (Connection conn = dbManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(
                      "DELETE FROM campaigns WHERE id = ?")) {
             pstmt.setInt(1, campaignId);
             pstmt.executeUpdate();  // assignments will be auto‑removed
+            CampaignCache.getInstance().invalidate(campaignId);
         } catch (SQLException e) {
             System.err.println("Error removing campaign: " + e.getMessage());
         }
@@ -77,25 +165,17 @@ public class CampaignDataManager {
 
 
     /**
-     * Retrieves all campaigns accessible to a user based on their role and assignments.
+     * Lists the campaigns accessible to a user without loading their data.
+     * Fetch the data of a chosen campaign with {@link #getCampaignData(int)}.
      *
      * @param userId The ID of the user
      * @param userRole The role of the user
-     * @return List of accessible campaigns
+     * @return List of accessible campaign summaries, oldest first
      */
-    public List<Campaign> getUserCampaigns(int userId, UserRole userRole) {
-        String sql;
-        if (userRole == UserRole.ADMIN) {
-            sql = "SELECT * FROM campaigns";
-        } else if (userRole == UserRole.USER) {
-            sql = "SELECT * FROM campaigns WHERE user_id = ?";
-        } else { // VIEWER
-            sql = "SELECT c.* FROM campaigns c " +
-                  "JOIN campaign_viewer_assignments cva ON c.id = cva.campaign_id " +
-                  "WHERE cva.viewer_id = ?";
-        }
+    public List<CampaignSummary> getUserCampaignSummaries(int userId, UserRole userRole) {
+        String sql = accessibleCampaignsQuery(SUMMARY_COLUMNS, userRole) + " ORDER BY c.id";
 
-        List<Campaign> campaigns = new ArrayList<>();
+        List<CampaignSummary> summaries = new ArrayList<>();
         try (Connection conn = dbManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
@@ -105,17 +185,107 @@ public class CampaignDataManager {
 
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                Campaign campaign = new Campaign();
-                campaign.setId(rs.getInt("id"));
-                campaign.setUserId(rs.getInt("user_id"));
-                campaign.setCampaignName(rs.getString("campaign_name"));
-                campaign.setData(rs.getBytes("data"));
-                campaigns.add(campaign);
+                summaries.add(readSummary(rs));
             }
         } catch (SQLException e) {
-            System.err.println("Error retrieving campaigns: " + e.getMessage());
+            System.err.println("Error retrieving campaign summaries: " + e.getMessage());
+        }
+        return summaries;
+    }
+
+    /**
+     * Checks whether a user can access any campaign.
+     *
+     * @param userId The ID of the user
+     * @param userRole The role of the user
+     * @return true if at least one campaign is accessible
+     */
+    public boolean hasUserCampaigns(int userId, UserRole userRole) {
+        String sql = "SELECT EXISTS(" + accessibleCampaignsQuery("1", userRole) + ")";
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            if (userRole != UserRole.ADMIN) {
+                pstmt.setInt(1, userId);
+            }
+
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() && rs.getBoolean(1);
+        } catch (SQLException e) {
+            System.err.println("Error checking for campaigns: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Looks up a campaign a user can access, by the same rules as the campaign listing,
+     * without loading its data.
+     *
+     * @param userId The ID of the user
+     * @param userRole The role of the user
+     * @param campaignId The ID of the campaign
+     * @return The summary of the campaign, or null if it does not exist or is not accessible
+     */
+    public CampaignSummary getUserCampaignSummary(int userId, UserRole userRole, int campaignId) {
+        String sql = accessibleCampaignsQuery(SUMMARY_COLUMNS, userRole)
+            + (userRole == UserRole.ADMIN ? " WHERE" : " AND") + " c.id = ?";
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            if (userRole != UserRole.ADMIN) {
+                pstmt.setInt(index++, userId);
+            }
+            pstmt.setInt(index, campaignId);
+
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return readSummary(rs);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error retrieving campaign summary: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Reads a row selected with {@link #SUMMARY_COLUMNS}.
+     */
+    private static CampaignSummary readSummary(ResultSet rs) throws SQLException {
+        CampaignSummary summary = new CampaignSummary();
+        summary.setId(rs.getInt("id"));
+        summary.setUserId(rs.getInt("user_id"));
+        summary.setCampaignName(rs.getString("campaign_name"));
+        summary.setDataSize(rs.getLong("data_size"));
+        int impressions = rs.getInt("impression_count");
+        if (!rs.wasNull()) {
+            summary.setImpressionCount(impressions);
+            summary.setClickCount(rs.getInt("click_count"));
+            summary.setServerLogCount(rs.getInt("server_log_count"));
+        }
+        summary.setDataVersion(rs.getInt("data_version"));
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        if (createdAt != null) {
+            summary.setCreatedAt(createdAt.toLocalDateTime());
+        }
+        return summary;
+    }
+
+    /**
+     * Builds the query for the campaigns a user can access. Admins see every campaign,
+     * users their own, and viewers those assigned to them; the latter two take the
+     * user ID as the only parameter.
+     */
+    private static String accessibleCampaignsQuery(String columns, UserRole userRole) {
+        if (userRole == UserRole.ADMIN) {
+            return "SELECT " + columns + " FROM campaigns c";
+        } else if (userRole == UserRole.USER) {
+            return "SELECT " + columns + " FROM campaigns c WHERE c.user_id = ?";
+        } else { // VIEWER
+            return "SELECT " + columns + " FROM campaigns c " +
+                   "JOIN campaign_viewer_assignments cva ON c.id = cva.campaign_id " +
+                   "WHERE cva.viewer_id = ?";
         }
-        return campaigns;
     }
 
     public void editCampaignName(int campaignId, String newName) {
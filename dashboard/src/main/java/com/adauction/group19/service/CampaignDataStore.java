@@ -1,26 +1,34 @@
 package com.adauction.group19.service;
 
 import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.model.CampaignSnapshot;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 /**
  * This class represents the data store for the campaign data.
  * It is used to store the campaign data and can be used to retrieve the data.
+ * <p>
+ * The store holds a frozen snapshot of the current campaign and replaces it
+ * atomically, so the screens, queries and exports running on other threads always
+ * see a whole campaign, and never one that is still changing.
  */
 public class CampaignDataStore {
     /**
      * The singleton instance of the CampaignDataStore.
      */
-    private static CampaignDataStore instance;
+    private static final CampaignDataStore instance = new CampaignDataStore();
 
     /**
-     * The campaign data to store.
+     * The campaign data to store, always frozen.
      */
-    private CampaignData campaignData;
+    private final AtomicReference<CampaignSnapshot> campaignData = new AtomicReference<>();
 
     /**
      * The path to the click log file.
      */
-    private String clickLogPath;
+    private volatile String clickLogPath;
 
     /**
      * Private constructor to prevent direct instantiation.
@@ -33,26 +41,38 @@ public class CampaignDataStore {
      * @return the singleton instance of the CampaignDataStore
      */
     public static CampaignDataStore getInstance() {
-        if (instance == null) {
-            instance = new CampaignDataStore();
-        }
         return instance;
     }
 
     /**
-     * Sets the campaign data.
-     * @param campaignData the campaign data to set
+     * Sets the campaign data, freezing it first if it is not already frozen.
+     * @param campaignData the campaign data to set, or null for none
      */
     public void setCampaignData(CampaignData campaignData) {
-        this.campaignData = campaignData;
+        this.campaignData.set(campaignData == null ? null : campaignData.freeze());
+    }
+
+    /**
+     * Replaces the campaign data with one derived from it, such as a view under
+     * other bounce criteria. If the data is replaced meanwhile, the update is
+     * applied again to the newer data.
+     * @param update the function deriving the new data from the current data
+     * @return the new campaign data, or null if there is none to update
+     */
+    public CampaignSnapshot updateCampaignData(UnaryOperator<CampaignSnapshot> update) {
+        return campaignData.updateAndGet(current -> current == null ? null : freeze(update.apply(current)));
+    }
+
+    private static CampaignSnapshot freeze(CampaignSnapshot snapshot) {
+        return snapshot instanceof CampaignData data ? data.freeze() : snapshot;
     }
 
     /**
-     * Returns the campaign data.
+     * Returns the campaign data, as a read-only snapshot.
      * @return the campaign data
      */
-    public CampaignData getCampaignData() {
-        return campaignData;
+    public CampaignSnapshot getCampaignData() {
+        return campaignData.get();
     }
 
     /**
@@ -72,7 +92,7 @@ public class CampaignDataStore {
     }
 
     public void clearCampaignData() {
-        this.campaignData = null;
+        this.campaignData.set(null);
         this.clickLogPath = null;
     }
 }
@@ -0,0 +1,149 @@
+package com.adauction.group19.service;
+
+import com.adauction.group19.model.Campaign;
+import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.utils.MemoryFootprint;
+import com.adauction.group19.utils.SerializationUtil;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.concurrent.Task;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * This class parses, indexes, serialises and saves a campaign off the JavaFX thread.
+ * Progress and a status message are updated as the logs are read, and the task can be
+ * cancelled while parsing. Once the indexes are built the campaign data is handed to
+ * the onParsed callback on the JavaFX thread, so it can be viewed while it is saved.
+ * From then on the task can no longer be cancelled, so the save is never interrupted
+ * half way through the database write.
+ */
+public class CampaignIngestionTask extends Task<CampaignData> {
+
+    /**
+     * The share of the progress bar used for reading the logs; the rest covers
+     * building the indexes and saving.
+     */
+    private static final double PARSE_SHARE = 0.9;
+    private static final double INDEX_SHARE = 0.95;
+
+    private final File impressionFile;
+    private final File clickFile;
+    private final File serverFile;
+    private final IngestionMode mode;
+    private final int userId;
+    private final String campaignName;
+    private final Consumer<CampaignData> onParsed;
+
+    private final Map<File, Long> bytesRead = new HashMap<>();
+    private volatile boolean parsed;
+    private final ReadOnlyBooleanWrapper parsedProperty = new ReadOnlyBooleanWrapper(this, "parsed");
+
+    /**
+     * Guards the switch from parsing to saving against a cancel arriving at the same time.
+     */
+    private final Object cancelLock = new Object();
+
+    /**
+     * Creates a task that ingests the given logs as a new campaign.
+     * @param impressionFile The file containing impression data.
+     * @param clickFile The file containing click data.
+     * @param serverFile The file containing server log data.
+     * @param mode How the logs are read.
+     * @param userId The ID of the user who owns the campaign.
+     * @param campaignName The name to save the campaign under.
+     * @param onParsed Called on the JavaFX thread once the campaign data is ready to view.
+     */
+    public CampaignIngestionTask(File impressionFile, File clickFile, File serverFile, IngestionMode mode,
+                                 int userId, String campaignName, Consumer<CampaignData> onParsed) {
+        this.impressionFile = impressionFile;
+        this.clickFile = clickFile;
+        this.serverFile = serverFile;
+        this.mode = mode;
+        this.userId = userId;
+        this.campaignName = campaignName;
+        this.onParsed = onParsed;
+    }
+
+    /**
+     * Whether parsing finished and the campaign data was handed over, so a later
+     * failure happened while saving.
+     * @return True if the campaign data was parsed.
+     */
+    public boolean isParsed() {
+        return parsed;
+    }
+
+    /**
+     * Whether parsing has finished, updated on the JavaFX thread. The task can no
+     * longer be cancelled once this is true.
+     * @return The parsed property.
+     */
+    public ReadOnlyBooleanProperty parsedProperty() {
+        return parsedProperty.getReadOnlyProperty();
+    }
+
+    /**
+     * Cancels the task while it is still parsing. Once the campaign is being saved
+     * this does nothing, so the save runs to the end.
+     * @param mayInterruptIfRunning Whether the parsing thread may be interrupted.
+     * @return True if the task was cancelled.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        synchronized (cancelLock) {
+            return !parsed && super.cancel(mayInterruptIfRunning);
+        }
+    }
+
+    @Override
+    protected CampaignData call() throws Exception {
+        long totalBytes = impressionFile.length() + clickFile.length() + serverFile.length();
+
+        FileParserService fileParserService = new FileParserService();
+        fileParserService.setProgressListener((file, read, size) -> {
+            bytesRead.put(file, read);
+            long allRead = bytesRead.values().stream().mapToLong(Long::longValue).sum();
+            updateMessage("Reading " + file.getName() + ": " + MemoryFootprint.format(read)
+                + " of " + MemoryFootprint.format(size));
+            updateProgress(PARSE_SHARE * allRead / Math.max(totalBytes, 1), 1);
+        });
+        CampaignData campaignData = fileParserService.parseCampaignData(impressionFile, clickFile, serverFile, mode);
+
+        if (isCancelled()) {
+            return null;
+        }
+        updateMessage("Building indexes");
+        // Frozen here, so the screens can query it while it is saved below
+        campaignData.freeze();
+        updateProgress(INDEX_SHARE, 1);
+
+        synchronized (cancelLock) {
+            if (isCancelled()) {
+                return null;
+            }
+            parsed = true;
+        }
+        Platform.runLater(() -> {
+            parsedProperty.set(true);
+            onParsed.accept(campaignData);
+        });
+
+        updateMessage("Saving " + campaignName + " (~"
+            + MemoryFootprint.format(campaignData.estimateMemoryFootprint()) + " in memory)");
+        byte[] data = SerializationUtil.serialiseCampaign(campaignData);
+        Campaign campaign = CampaignDataManager.getInstance().addCampaign(userId, campaignName, data, campaignData);
+        if (campaign != null) {
+            // A new campaign starts at data version 0, so loading it later needs no decoding
+            CampaignCache.getInstance().put(campaign.getId(), 0, campaignData);
+        }
+
+        updateMessage("Saved " + campaignName);
+        updateProgress(1, 1);
+        return campaignData;
+    }
+}
@@ -0,0 +1,67 @@
+package com.adauction.group19.service;
+
+import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.model.CampaignSummary;
+import com.adauction.group19.model.User;
+import com.adauction.group19.model.UserRole;
+import com.adauction.group19.utils.SerializationUtil;
+import javafx.concurrent.Task;
+
+import java.io.IOException;
+
+/**
+ * This class loads a saved campaign off the JavaFX thread. A campaign opened recently
+ * is taken from the campaign cache; otherwise its data is fetched, decoded and frozen
+ * here, so only the swap into the campaign data store is left for the JavaFX thread.
+ */
+public class CampaignLoadTask extends Task<CampaignData> {
+
+    private final CampaignSummary campaign;
+    private final User user;
+
+    /**
+     * Creates a task that loads the given campaign.
+     * @param campaign The campaign to load.
+     * @param user The user loading the campaign.
+     */
+    public CampaignLoadTask(CampaignSummary campaign, User user) {
+        this.campaign = campaign;
+        this.user = user;
+    }
+
+    /**
+     * Whether the user may re-save the campaign, which only its owner or an admin can.
+     * @return True if the user can update the campaign data.
+     */
+    private boolean canUpdate() {
+        return user.getRole() == UserRole.ADMIN || user.getId() == campaign.getUserId();
+    }
+
+    @Override
+    protected CampaignData call() throws Exception {
+        // Campaigns opened recently are still in memory, unless their data has changed since
+        CampaignCache cache = CampaignCache.getInstance();
+        CampaignData campaignData = cache.get(campaign.getId(), campaign.getDataVersion());
+        if (campaignData != null) {
+            return campaignData;
+        }
+
+        // The data is only fetched now, so the listing never holds it
+        byte[] savedData = CampaignDataManager.getInstance().getCampaignData(campaign.getId());
+        if (savedData == null) {
+            throw new IOException("The campaign could not be found.");
+        }
+        campaignData = SerializationUtil.deserialiseCampaign(savedData);
+
+        // Re-save campaigns from older versions in the compact format. This changes
+        // the data version, so the campaign is cached when it is next loaded.
+        if (SerializationUtil.isLegacyCampaign(savedData) && canUpdate()) {
+            campaignData.freeze();
+            byte[] data = SerializationUtil.serialiseCampaign(campaignData);
+            CampaignDataManager.getInstance().updateCampaignData(campaign.getId(), data, campaignData);
+        } else {
+            cache.put(campaign.getId(), campaign.getDataVersion(), campaignData);
+        }
+        return campaignData;
+    }
+}
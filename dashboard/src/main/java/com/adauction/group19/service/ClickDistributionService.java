@@ -1,75 +1,111 @@
 package com.adauction.group19.service;
 
-import com.adauction.group19.model.ClickData;
+import com.adauction.group19.model.CampaignSnapshot;
+import com.adauction.group19.model.ClickCostIndex;
+import com.adauction.group19.model.DemographicFilter;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.function.DoubleToIntFunction;
 
 public class ClickDistributionService {
-    
+
+    /**
+     * Bins the click costs of a loaded campaign, from its {@link ClickCostIndex} so
+     * re-binning does not visit the clicks again.
+     * @param campaignData the campaign data
+     * @param filter the demographic filter of the clicks to include
+     * @param numBins the number of bins
+     * @return the number of clicks per bin, keyed by the lowest cost of the bin
+     */
+    public Map<Double, Integer> calculateClickCostDistribution(CampaignSnapshot campaignData,
+                                                               List<Set<Enum<?>>> filter, int numBins) {
+        ClickCostIndex index = campaignData.getClickCostIndex();
+        DemographicFilter demographicFilter = new DemographicFilter(filter);
+        return createHistogramData(numBins, index.min(demographicFilter), index.max(demographicFilter),
+            index.count(demographicFilter), cost -> index.countBelow(demographicFilter, cost));
+    }
+
+    /**
+     * Bins the click costs of a click log file that has not been loaded as a campaign.
+     * @param filePath the path of the click log
+     * @param numBins the number of bins
+     * @return the number of clicks per bin, keyed by the lowest cost of the bin
+     * @throws IOException if the file cannot be read
+     */
     public Map<Double, Integer> calculateClickCostDistribution(String filePath, int numBins) throws IOException {
-        List<ClickData> clickData = loadClickData(filePath);
-        return createHistogramData(clickData, numBins);
+        double[] costs = loadClickCosts(filePath);
+        Arrays.sort(costs);
+        return createHistogramData(numBins, costs.length == 0 ? Double.NaN : costs[0],
+            costs.length == 0 ? Double.NaN : costs[costs.length - 1], costs.length,
+            cost -> countBelow(costs, cost));
     }
 
-    private List<ClickData> loadClickData(String filePath) throws IOException {
-        List<ClickData> data = new ArrayList<>();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private double[] loadClickCosts(String filePath) throws IOException {
+        double[] costs = new double[1024];
+        int count = 0;
 
         try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
             // Skip header
             br.readLine();
-            
+
             String line;
             while ((line = br.readLine()) != null) {
                 String[] values = line.split(",");
                 if (values.length == 3) {
-                    LocalDateTime date = LocalDateTime.parse(values[0], formatter);
-                    String id = values[1];
-                    double cost = Double.parseDouble(values[2]);
-                    data.add(new ClickData(date, id, cost));
+                    if (count == costs.length) {
+                        costs = Arrays.copyOf(costs, count * 2);
+                    }
+                    costs[count++] = Double.parseDouble(values[2]);
                 }
             }
         }
-        return data;
+        return Arrays.copyOf(costs, count);
     }
 
-    private Map<Double, Integer> createHistogramData(List<ClickData> data, int numBins) {
-        // Find min and max click costs
-        double minCost = data.stream()
-                .mapToDouble(ClickData::getClickCost)
-                .min()
-                .orElse(0.0);
-        double maxCost = data.stream()
-                .mapToDouble(ClickData::getClickCost)
-                .max()
-                .orElse(0.0);
-
-        // Calculate bin width
-        double binWidth = (maxCost - minCost) / numBins;
+    private static int countBelow(double[] sortedCosts, double cost) {
+        int from = 0;
+        int to = sortedCosts.length;
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (sortedCosts[mid] < cost) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
 
+    /**
+     * Splits [minCost, maxCost] into equal bins and counts each from the number of
+     * clicks below its edges, the last bin including the highest cost.
+     */
+    private Map<Double, Integer> createHistogramData(int numBins, double minCost, double maxCost, int total,
+                                                     DoubleToIntFunction countBelow) {
         // Create histogram using TreeMap to maintain order
         Map<Double, Integer> histogram = new TreeMap<>();
-        
-        // Initialize bins
-        for (int i = 0; i < numBins; i++) {
-            double binStart = minCost + (i * binWidth);
-            histogram.put(binStart, 0);
+        if (total == 0) {
+            return histogram;
         }
-
-        // Fill the bins
-        for (ClickData click : data) {
-            double cost = click.getClickCost();
-            double bin = minCost + (Math.floor((cost - minCost) / binWidth) * binWidth);
-            histogram.put(bin, histogram.getOrDefault(bin, 0) + 1);
+        if (numBins < 1 || maxCost == minCost) {
+            histogram.put(minCost, total);
+            return histogram;
         }
 
+        double binWidth = (maxCost - minCost) / numBins;
+        int below = 0;
+        for (int i = 0; i < numBins; i++) {
+            double binStart = minCost + (i * binWidth);
+            int belowNext = i == numBins - 1 ? total : countBelow.applyAsInt(minCost + ((i + 1) * binWidth));
+            histogram.put(binStart, belowNext - below);
+            below = belowNext;
+        }
         return histogram;
     }
-} 
\ No newline at end of file
+}
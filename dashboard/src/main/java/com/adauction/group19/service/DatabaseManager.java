@@ -2,6 +2,7 @@ package com.adauction.group19.service;
 
 import com.adauction.group19.model.User;
 import com.adauction.group19.model.UserRole;
+import org.h2.jdbcx.JdbcConnectionPool;
 import org.mindrot.jbcrypt.BCrypt;
 
 import java.io.File;
@@ -11,15 +12,27 @@ import java.util.List;
 
 /**
  * Manages database operations for the application.
- * Handles database initialization, connection, and user management.
+ * Handles database initialization, connection pooling, and user management.
  */
 public class DatabaseManager {
-  private static final String DB_URL = "jdbc:h2:./adauction";
+  /**
+   * The database URL. Each pooled connection keeps its H2 session open, and the
+   * session caches parsed statements by SQL text, so a bigger query cache lets the
+   * statements of all the DAO methods be reused rather than parsed again. The first
+   * process to open the file serves it to the others, so the dashboard and the
+   * query API can run at the same time.
+   */
+  private static final String DB_URL = "jdbc:h2:./adauction;AUTO_SERVER=TRUE;QUERY_CACHE_SIZE=64";
   private static final String DB_USER = "sa";
   private static final String DB_PASSWORD = "";
 
+  /**
+   * The most connections leased at once; further callers wait for one to be returned.
+   */
+  private static final int MAX_CONNECTIONS = 8;
+
   private static DatabaseManager instance;
-  private Connection connection;
+  private JdbcConnectionPool pool;
 
   /**
    * Private constructor to enforce singleton pattern.
@@ -74,11 +87,27 @@ CREATE TABLE IF NOT EXISTS campaigns (
   user_id       INT NOT NULL,
   campaign_name VARCHAR(100) NOT NULL,
   data          BLOB,
+  data_size        BIGINT,
+  impression_count INT,
+  click_count      INT,
+  server_log_count INT,
+  created_at       TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  data_version     INT DEFAULT 0 NOT NULL,
   FOREIGN KEY (user_id)
     REFERENCES users(id)
     ON DELETE CASCADE
 )""");
 
+      // Add the listing columns to campaigns tables created before they existed.
+      // Row counts of older campaigns stay unknown until they are re-saved.
+      stmt.execute("ALTER TABLE campaigns ADD COLUMN IF NOT EXISTS data_size BIGINT");
+      stmt.execute("ALTER TABLE campaigns ADD COLUMN IF NOT EXISTS impression_count INT");
+      stmt.execute("ALTER TABLE campaigns ADD COLUMN IF NOT EXISTS click_count INT");
+      stmt.execute("ALTER TABLE campaigns ADD COLUMN IF NOT EXISTS server_log_count INT");
+      stmt.execute("ALTER TABLE campaigns ADD COLUMN IF NOT EXISTS created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP");
+      stmt.execute("ALTER TABLE campaigns ADD COLUMN IF NOT EXISTS data_version INT DEFAULT 0 NOT NULL");
+      stmt.execute("UPDATE campaigns SET data_size = OCTET_LENGTH(data) WHERE data_size IS NULL AND data IS NOT NULL");
+
       // Create campaign_viewer_assignments table
       stmt.execute("""
 CREATE TABLE IF NOT EXISTS campaign_viewer_assignments (
@@ -157,34 +186,37 @@ CREATE TABLE IF NOT EXISTS campaign_viewer_assignments (
   }
 
   /**
-   * Gets a database connection.
+   * Leases a connection from the pool. Each caller gets its own connection, so this
+   * is safe from any thread; closing it returns it to the pool rather than closing
+   * the database.
    *
    * @return A Connection to the database
    * @throws SQLException If getting the connection fails
    */
   public Connection getConnection() throws SQLException {
-    if (connection == null || connection.isClosed()) {
-      try {
-        Class.forName("org.h2.Driver");
-        connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-      } catch (ClassNotFoundException e) {
-        System.err.println("H2 JDBC driver not found: " + e.getMessage());
-        throw new SQLException("H2 JDBC driver not found", e);
-      }
+    return getPool().getConnection();
+  }
+
+  /**
+   * Gets the connection pool, creating it if needed.
+   *
+   * @return The connection pool
+   */
+  private synchronized JdbcConnectionPool getPool() {
+    if (pool == null) {
+      pool = JdbcConnectionPool.create(DB_URL, DB_USER, DB_PASSWORD);
+      pool.setMaxConnections(MAX_CONNECTIONS);
     }
-    return connection;
+    return pool;
   }
 
   /**
-   * Closes the database connection.
+   * Closes the pooled database connections.
    */
-  public void closeConnection() {
-    try {
-      if (connection != null && !connection.isClosed()) {
-        connection.close();
-      }
-    } catch (SQLException e) {
-      System.err.println("Error closing database connection: " + e.getMessage());
+  public synchronized void closeConnection() {
+    if (pool != null) {
+      pool.dispose();
+      pool = null;
     }
   }
 
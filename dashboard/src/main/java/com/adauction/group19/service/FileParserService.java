@@ -3,12 +3,27 @@ package com.adauction.group19.service;
 import com.adauction.group19.model.*;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
 
 /**
  * This class provides services for parsing files containing campaign data.
@@ -16,27 +31,93 @@ import java.util.Arrays;
 public class FileParserService {
 
     /**
-     * Parse the campaign data from the given files.
+     * The default size in bytes of the chunks parsed in parallel.
+     */
+    private static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * How many chunks per thread may be parsed ahead of the one being appended.
+     */
+    private static final int CHUNKS_AHEAD_PER_THREAD = 2;
+
+    /**
+     * How often, in bytes read, progress is reported.
+     */
+    static final long PROGRESS_INTERVAL = 1024 * 1024;
+
+    private final int chunkSize;
+
+    private IngestionProgressListener progressListener;
+
+    /**
+     * Creates a parser that uses the default chunk size in parallel mode.
+     */
+    public FileParserService() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a parser with a custom chunk size for parallel mode.
+     * @param chunkSize The approximate size in bytes of each chunk.
+     */
+    public FileParserService(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Sets the listener told how far through each file parsing is.
+     * Parsing also stops with a {@link CancellationException} once the parsing
+     * thread is interrupted, as when a {@code javafx.concurrent.Task} is cancelled.
+     * @param progressListener The listener, or null for none.
+     */
+    public void setProgressListener(IngestionProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Parse the campaign data from the given files, one after another.
      * @param impressionFile The file containing impression data.
      * @param clickFile The file containing click data.
      * @param serverFile The file containing server log data.
      * @return The parsed campaign data.
      */
     public CampaignData parseCampaignData(File impressionFile, File clickFile, File serverFile) throws Exception {
+        return parseCampaignData(impressionFile, clickFile, serverFile, IngestionMode.SEQUENTIAL);
+    }
+
+    /**
+     * Parse the campaign data from the given files.
+     * Every mode produces the same campaign data, with the rows in file order.
+     * @param impressionFile The file containing impression data.
+     * @param clickFile The file containing click data.
+     * @param serverFile The file containing server log data.
+     * @param mode How to read the files.
+     * @return The parsed campaign data.
+     */
+    public CampaignData parseCampaignData(File impressionFile, File clickFile, File serverFile, IngestionMode mode) throws Exception {
         CampaignData campaignData = new CampaignData();
 
         // try: catch
         try {
-            // Parse the impression data
-            parseImpressions(impressionFile, campaignData);
-            // Parse the click data
-            parseClicks(clickFile, campaignData);
-            // Parse the server log data
-            parseServerLogs(serverFile, campaignData);
+            if (mode == IngestionMode.PARALLEL) {
+                parseInParallel(impressionFile, clickFile, serverFile, campaignData);
+            } else if (mode == IngestionMode.MAPPED) {
+                parseMapped(impressionFile, clickFile, serverFile, campaignData);
+            } else {
+                // Parse the impression data
+                parseImpressions(impressionFile, campaignData);
+                // Parse the click data
+                parseClicks(clickFile, campaignData);
+                // Parse the server log data
+                parseServerLogs(serverFile, campaignData);
+            }
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             throw new Exception("Error parsing campaign data: " + e.getMessage());
         }
 
+        campaignData.trimToSize();
         System.out.println("Parsing complete.");
         return campaignData;
     }
@@ -47,76 +128,123 @@ public class FileParserService {
      * @param campaignData The campaign data to add the impressions to.
      */
     private void parseImpressions(File file, CampaignData campaignData) {
+        try {
+            readLines(file, this::parseImpressionLine, campaignData);
+        } catch (IOException e) {
+            System.err.println("Error reading impression log: " + e.getMessage());
+        }
+
+        System.out.println("Impression log parsed successfully");
+    }
+
+    /**
+     * Read a log line by line, reporting progress about once per megabyte.
+     * Byte counts assume one byte per character and a one-byte line ending.
+     * @param file The file to read.
+     * @param lineParser The parser for each line.
+     * @param campaignData The campaign data to add the rows to.
+     * @throws IOException If the file cannot be read.
+     */
+    private void readLines(File file, BiConsumer<String, CampaignData> lineParser, CampaignData campaignData) throws IOException {
+        long totalBytes = file.length();
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             String line;
+            long bytesRead = 0;
+            long nextReport = PROGRESS_INTERVAL;
             while ((line = reader.readLine()) != null) {
-                // Skip the header line
-                if (line.startsWith("Date")) {
-                    continue;
-                }
-                // Process each line (CSV format)
-                String[] data = line.split(",");
-                // Parse date from column 1 (index 0)
-                LocalDateTime dateTime = parseDateTime(data[0]);
-                // Parse ID from column 2 (index 1)
-                String id = data[1];
-                // Parse gender from column 3 (index 2)
-                Gender gender = data[2].equals("Male") ? Gender.MALE : Gender.FEMALE;
-
-                // Parse age range from column 4 (index 3)
-                AgeRange ageRange;
-                switch (data[3]) {
-                    case "<25":
-                        ageRange = AgeRange.AGE_25_MINUS;
-                        break;
-                    case "25-34":
-                        ageRange = AgeRange.AGE_25_34;
-                        break;
-                    case "35-44":
-                        ageRange = AgeRange.AGE_35_44;
-                        break;
-                    case "45-54":
-                        ageRange = AgeRange.AGE_45_54;
-                        break;
-                    default:
-                        ageRange = AgeRange.AGE_55_PLUS;
-                        break;
+                lineParser.accept(line, campaignData);
+                bytesRead += line.length() + 1;
+                if (bytesRead >= nextReport) {
+                    reportProgress(file, Math.min(bytesRead, totalBytes), totalBytes);
+                    nextReport = bytesRead + PROGRESS_INTERVAL;
                 }
+            }
+        }
+        reportProgress(file, totalBytes, totalBytes);
+    }
 
-                // Parse income from column 5 (index 4)
-                Income income = Income.valueOf(data[4].toUpperCase());
-
-                // Parse context from column 6 (index 5)
-                Context context;
-                switch (data[5]) {
-                    case "Blog":
-                        context = Context.BLOG;
-                        break;
-                    case "News":
-                        context = Context.NEWS;
-                        break;
-                    case "Shopping":
-                        context = Context.SHOPPING;
-                        break;
-                    case "Social Media":
-                        context = Context.SOCIAL_MEDIA;
-                        break;
-                    default:
-                        context = Context.UNKNOWN;
-                        break;
-                }
+    /**
+     * Pass progress to the listener, stopping the parse if the thread has been interrupted.
+     * @param file The file being read.
+     * @param bytesRead The number of bytes of the file read so far.
+     * @param totalBytes The size of the file.
+     */
+    private void reportProgress(File file, long bytesRead, long totalBytes) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Parsing cancelled");
+        }
+        if (progressListener != null) {
+            progressListener.onProgress(file, bytesRead, totalBytes);
+        }
+    }
 
-                // Parse impression cost from column 7 (index 6)
-                double impressionCost = Double.parseDouble(data[6]);
+    /**
+     * Parse one line of the impression log.
+     * @param line The line to parse.
+     * @param campaignData The campaign data to add the impression to.
+     */
+    private void parseImpressionLine(String line, CampaignData campaignData) {
+        // Skip the header line
+        if (line.startsWith("Date")) {
+            return;
+        }
+        // Process each line (CSV format)
+        String[] data = line.split(",");
+        // Parse date from column 1 (index 0)
+        long dateTime = TimestampParser.parse(data[0]);
+        // Parse ID from column 2 (index 1)
+        String id = data[1];
+        // Parse gender from column 3 (index 2)
+        Gender gender = data[2].equals("Male") ? Gender.MALE : Gender.FEMALE;
 
-                // Add the impression, now including the ID
-                campaignData.addImpression(dateTime, id, gender, ageRange, income, context, impressionCost);
-            }
-        } catch (IOException e) {
-            System.err.println("Error reading impression log: " + e.getMessage());
+        // Parse age range from column 4 (index 3)
+        AgeRange ageRange;
+        switch (data[3]) {
+            case "<25":
+                ageRange = AgeRange.AGE_25_MINUS;
+                break;
+            case "25-34":
+                ageRange = AgeRange.AGE_25_34;
+                break;
+            case "35-44":
+                ageRange = AgeRange.AGE_35_44;
+                break;
+            case "45-54":
+                ageRange = AgeRange.AGE_45_54;
+                break;
+            default:
+                ageRange = AgeRange.AGE_55_PLUS;
+                break;
         }
 
-        System.out.println("Impression log parsed successfully");
+        // Parse income from column 5 (index 4)
+        Income income = Income.valueOf(data[4].toUpperCase());
+
+        // Parse context from column 6 (index 5)
+        Context context;
+        switch (data[5]) {
+            case "Blog":
+                context = Context.BLOG;
+                break;
+            case "News":
+                context = Context.NEWS;
+                break;
+            case "Shopping":
+                context = Context.SHOPPING;
+                break;
+            case "Social Media":
+                context = Context.SOCIAL_MEDIA;
+                break;
+            default:
+                context = Context.UNKNOWN;
+                break;
+        }
+
+        // Parse impression cost from column 7 (index 6)
+        double impressionCost = Double.parseDouble(data[6]);
+
+        // Add the impression, now including the ID
+        campaignData.addImpression(dateTime, id, gender, ageRange, income, context, impressionCost);
     }
 
 
@@ -126,24 +254,8 @@ public class FileParserService {
      * @param campaignData The campaign data to add the clicks to.
      */
     private void parseClicks(File file, CampaignData campaignData) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                // Skip header line
-                if (line.startsWith("Date")) {
-                    continue;
-                }
-
-                // Process each line (CSV format)
-                String[] data = line.split(",");
-                // Parse date
-                LocalDateTime dateTime = parseDateTime(data[0]);
-
-                // Parse click cost
-                double clickCost = Double.parseDouble(data[2]);
-
-                campaignData.addClick(dateTime, clickCost, data[1]);
-            }
+        try {
+            readLines(file, this::parseClickLine, campaignData);
         } catch (IOException e) {
             System.err.println("Error reading click log: " + e.getMessage());
         }
@@ -151,52 +263,262 @@ public class FileParserService {
         System.out.println("Click log parsed successfully");
     }
 
+    /**
+     * Parse one line of the click log.
+     * @param line The line to parse.
+     * @param campaignData The campaign data to add the click to.
+     */
+    private void parseClickLine(String line, CampaignData campaignData) {
+        // Skip header line
+        if (line.startsWith("Date")) {
+            return;
+        }
+
+        // Process each line (CSV format)
+        String[] data = line.split(",");
+        // Parse date
+        long dateTime = TimestampParser.parse(data[0]);
+
+        // Parse click cost
+        double clickCost = Double.parseDouble(data[2]);
+
+        campaignData.addClick(dateTime, clickCost, data[1]);
+    }
+
     /**
      * Parse the server log data from the given file.
      * @param file The file containing server log data.
      * @param campaignData The campaign data to add the server log entries to.
      */
     private void parseServerLogs(File file, CampaignData campaignData) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                // Skip header line
-                if (line.startsWith("Entry Date")) {
-                    continue;
+        try {
+            readLines(file, this::parseServerLogLine, campaignData);
+        } catch (IOException e) {
+            System.err.println("Error reading server log: " + e.getMessage());
+        }
+
+        System.out.println("Server log parsed successfully");
+    }
+
+    /**
+     * Parse one line of the server log.
+     * @param line The line to parse.
+     * @param campaignData The campaign data to add the server log entry to.
+     */
+    private void parseServerLogLine(String line, CampaignData campaignData) {
+        // Skip header line
+        if (line.startsWith("Entry Date")) {
+            return;
+        }
+
+        // Process each line (CSV format)
+        String[] data = line.split(",");
+        // Parse entry date and time
+        long entryDateTime = TimestampParser.parse(data[0]);
+
+        // Parse exit date and time
+        long exitDateTime = TimestampParser.parse(data[2]);
+
+        // Parse pages viewed
+        int pagesViewed = Integer.parseInt(data[3]);
+
+        // Parse conversion
+        boolean conversion = data[4].equals("Yes");
+
+        campaignData.addServerLogEntry(entryDateTime, exitDateTime, pagesViewed, conversion, data[1]);
+    }
+
+    /**
+     * Parse the three logs through memory-mapped files.
+     * @param impressionFile The file containing impression data.
+     * @param clickFile The file containing click data.
+     * @param serverFile The file containing server log data.
+     * @param campaignData The campaign data to add the rows to.
+     */
+    private void parseMapped(File impressionFile, File clickFile, File serverFile, CampaignData campaignData) {
+        MappedLogReader reader = new MappedLogReader(campaignData, this::reportProgress);
+        try {
+            reader.readImpressions(impressionFile);
+            System.out.println("Impression log parsed successfully");
+        } catch (ClosedByInterruptException e) {
+            throw new CancellationException("Parsing cancelled");
+        } catch (IOException e) {
+            System.err.println("Error reading impression log: " + e.getMessage());
+        }
+        try {
+            reader.readClicks(clickFile);
+            System.out.println("Click log parsed successfully");
+        } catch (ClosedByInterruptException e) {
+            throw new CancellationException("Parsing cancelled");
+        } catch (IOException e) {
+            System.err.println("Error reading click log: " + e.getMessage());
+        }
+        try {
+            reader.readServerLogs(serverFile);
+            System.out.println("Server log parsed successfully");
+        } catch (ClosedByInterruptException e) {
+            throw new CancellationException("Parsing cancelled");
+        } catch (IOException e) {
+            System.err.println("Error reading server log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parse the logs in parallel chunks. Each file is split into newline-aligned chunks,
+     * which are queued impressions first, then clicks, then server logs. Every chunk is
+     * parsed into its own campaign data on the common fork-join pool, and the chunks are
+     * appended in that order so the result matches a sequential read. Only a few chunks
+     * per thread are parsed ahead of the merge, so the click and server log chunks start
+     * as the last impression chunks are appended. Each chunk is dropped once appended,
+     * so the chunks never hold a second copy of the logs. A chunk that cannot be read
+     * fails the whole parse rather than leaving a gap in its log.
+     * @param impressionFile The file containing impression data.
+     * @param clickFile The file containing click data.
+     * @param serverFile The file containing server log data.
+     * @param campaignData The campaign data to add the rows to.
+     */
+    private void parseInParallel(File impressionFile, File clickFile, File serverFile, CampaignData campaignData) {
+        List<Chunk> chunks = new ArrayList<>();
+        addChunks(chunks, impressionFile, this::parseImpressionLine, "impression log");
+        addChunks(chunks, clickFile, this::parseClickLine, "click log");
+        addChunks(chunks, serverFile, this::parseServerLogLine, "server log");
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int maxAhead = Math.max(2, pool.getParallelism() * CHUNKS_AHEAD_PER_THREAD);
+        Deque<ForkJoinTask<CampaignData>> parsing = new ArrayDeque<>();
+        int submitted = 0;
+        try {
+            for (Chunk chunk : chunks) {
+                while (submitted < chunks.size() && parsing.size() < maxAhead) {
+                    Chunk next = chunks.get(submitted++);
+                    parsing.add(pool.submit(() -> parseChunk(next.file, next.start, next.end, next.lineParser,
+                        next.logName)));
                 }
+                // get() rather than join(), so a cancelled ingestion stops waiting at once
+                campaignData.append(parsing.remove().get());
+                reportProgress(chunk.file, chunk.end, chunk.file.length());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Parsing cancelled");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            // Chunks not started yet are skipped; running ones finish in the background
+            for (ForkJoinTask<CampaignData> task : parsing) {
+                task.cancel(false);
+            }
+        }
+    }
 
-                // Process each line (CSV format)
-                String[] data = line.split(",");
-                // Parse entry date and time
-                LocalDateTime entryDateTime = parseDateTime(data[0]);
+    /**
+     * A newline-aligned part of a log.
+     */
+    private static class Chunk {
+        private final File file;
+        private final long start;
+        private final long end;
+        private final BiConsumer<String, CampaignData> lineParser;
+        private final String logName;
 
-                // Parse exit date and time
-                LocalDateTime exitDateTime = parseDateTime(data[2]);
+        private Chunk(File file, long start, long end, BiConsumer<String, CampaignData> lineParser, String logName) {
+            this.file = file;
+            this.start = start;
+            this.end = end;
+            this.lineParser = lineParser;
+            this.logName = logName;
+        }
+    }
 
-                // Parse pages viewed
-                int pagesViewed = Integer.parseInt(data[3]);
+    private void addChunks(List<Chunk> chunks, File file, BiConsumer<String, CampaignData> lineParser,
+                           String logName) {
+        try {
+            for (long[] range : splitIntoChunks(file)) {
+                chunks.add(new Chunk(file, range[0], range[1], lineParser, logName));
+            }
+        } catch (ClosedByInterruptException e) {
+            throw new CancellationException("Parsing cancelled");
+        } catch (IOException e) {
+            System.err.println("Error reading " + logName + ": " + e.getMessage());
+        }
+    }
 
-                // Parse conversion
-                boolean conversion = data[4].equals("Yes");
+    /**
+     * Split a file into byte ranges of about the chunk size that each end just after a newline.
+     * @param file The file to split.
+     * @return The [start, end) offsets of each chunk.
+     * @throws IOException If the file cannot be read.
+     */
+    private List<long[]> splitIntoChunks(File file) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            while (start < size) {
+                long end = start + chunkSize < size ? nextLineStart(channel, start + chunkSize) : size;
+                chunks.add(new long[]{start, end});
+                start = end;
+            }
+        }
+        return chunks;
+    }
+
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
 
-                campaignData.addServerLogEntry(entryDateTime, exitDateTime, pagesViewed, conversion, data[1]);
+    /**
+     * Parse one chunk of a log.
+     * @throws UncheckedIOException If the chunk cannot be read in full.
+     */
+    private static CampaignData parseChunk(File file, long start, long end,
+                                           BiConsumer<String, CampaignData> lineParser, String logName) {
+        CampaignData chunkData = new CampaignData();
+        byte[] bytes = new byte[(int) (end - start)];
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) > 0) {
+                // Keep reading until the chunk is full
+            }
+            if (buffer.hasRemaining()) {
+                throw new IOException("the file ended early at byte " + (start + buffer.position()));
             }
         } catch (IOException e) {
-            System.err.println("Error reading server log: " + e.getMessage());
+            throw new UncheckedIOException("Error reading " + logName + ": " + e.getMessage(), e);
         }
 
-        System.out.println("Server log parsed successfully");
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineParser.accept(line, chunkData);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading " + logName + ": " + e.getMessage(), e);
+        }
+        return chunkData;
     }
 
     /**
      * Parse a date and time string in the format "yyyy-MM-dd HH:mm:ss".
+     * The log parsers use {@link TimestampParser} directly and keep the epoch seconds.
      * @param dateTime The date and time string to parse.
-     * @return The parsed date and time.
+     * @return The parsed date and time, or null for "n/a".
      */
     public static LocalDateTime parseDateTime(String dateTime) {
-        if (dateTime.equals("n/a")) {
-            return null;
-        }
-        return LocalDateTime.parse(dateTime, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        return EpochSeconds.toLocalDateTime(TimestampParser.parse(dateTime));
     }
 }
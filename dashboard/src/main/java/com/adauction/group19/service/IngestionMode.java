@@ -0,0 +1,23 @@
+package com.adauction.group19.service;
+
+/**
+ * This enum represents how {@link FileParserService} reads the campaign log files.
+ */
+public enum IngestionMode {
+    /**
+     * Read the three logs one after another, line by line, on the calling thread.
+     */
+    SEQUENTIAL,
+
+    /**
+     * Split each log into newline-aligned chunks and parse all chunks of all three
+     * logs at once on a fork-join pool.
+     */
+    PARALLEL,
+
+    /**
+     * Read the three logs one after another through memory-mapped files, parsing
+     * fields straight from the bytes with {@link MappedLogReader}.
+     */
+    MAPPED;
+}
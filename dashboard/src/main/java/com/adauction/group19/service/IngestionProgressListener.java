@@ -0,0 +1,19 @@
+package com.adauction.group19.service;
+
+import java.io.File;
+
+/**
+ * This interface is told how far {@link FileParserService} is through each campaign log.
+ * It is called on the parsing thread.
+ */
+@FunctionalInterface
+public interface IngestionProgressListener {
+
+    /**
+     * Called as a log file is read.
+     * @param file The file being read.
+     * @param bytesRead The number of bytes of the file read so far.
+     * @param totalBytes The size of the file.
+     */
+    void onProgress(File file, long bytesRead, long totalBytes);
+}
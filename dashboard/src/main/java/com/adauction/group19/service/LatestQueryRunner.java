@@ -0,0 +1,111 @@
+package com.adauction.group19.service;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * This class runs queries on a background thread and hands back only the result
+ * of the most recent one. Every submission takes a new generation number and
+ * interrupts the query before it, so a burst of requests does not queue up. A
+ * result is delivered, on the JavaFX thread by default, only if no newer query
+ * was submitted in the meantime.
+ */
+public class LatestQueryRunner {
+
+    private final ExecutorService executor;
+    private final Executor resultExecutor;
+    private final AtomicLong generation = new AtomicLong();
+    private Future<?> current;
+
+    /**
+     * Creates a runner that delivers results on the JavaFX thread.
+     * @param threadName The name of the background thread.
+     */
+    public LatestQueryRunner(String threadName) {
+        this(threadName, Platform::runLater);
+    }
+
+    /**
+     * Creates a runner that delivers results through the given executor.
+     * @param threadName The name of the background thread.
+     * @param resultExecutor Runs the result callbacks.
+     */
+    public LatestQueryRunner(String threadName, Executor resultExecutor) {
+        this.resultExecutor = resultExecutor;
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Submits a query, cancelling any query still in flight.
+     * @param query The query to run in the background.
+     * @param onResult Called with the result if this is still the latest query.
+     * @param <T> The result type.
+     * @return The generation of this query.
+     */
+    public synchronized <T> long submit(Callable<T> query, Consumer<T> onResult) {
+        long submitted = generation.incrementAndGet();
+        if (current != null) {
+            current.cancel(true);
+        }
+        current = executor.submit(() -> {
+            T result;
+            try {
+                result = query.call();
+            } catch (CancellationException e) {
+                return;
+            } catch (Exception e) {
+                System.err.println("Error running query: " + e.getMessage());
+                return;
+            }
+            if (isLatest(submitted)) {
+                // A newer query may still arrive before the callback runs
+                resultExecutor.execute(() -> {
+                    if (isLatest(submitted)) {
+                        onResult.accept(result);
+                    }
+                });
+            }
+        });
+        return submitted;
+    }
+
+    /**
+     * Cancels the query in flight, if any, so its result is never delivered.
+     */
+    public synchronized void cancel() {
+        generation.incrementAndGet();
+        if (current != null) {
+            current.cancel(true);
+            current = null;
+        }
+    }
+
+    /**
+     * Returns whether a generation is still the latest submitted.
+     * @param submitted The generation returned by {@link #submit}.
+     * @return True if no query was submitted or cancelled since.
+     */
+    public boolean isLatest(long submitted) {
+        return generation.get() == submitted;
+    }
+
+    /**
+     * Cancels the query in flight and stops the background thread.
+     */
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,360 @@
+package com.adauction.group19.service;
+
+import com.adauction.group19.model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeParseException;
+
+/**
+ * This class reads the campaign logs through memory-mapped files. Fields are found by
+ * scanning the mapped bytes for commas and newlines, and dates, IDs, enums and numbers
+ * are parsed straight from the bytes, so no String is created per field. A user ID is
+ * only turned into a String the first time it is seen.
+ * The results are the same as the line-by-line parser for the ASCII logs the
+ * dashboard reads.
+ */
+public class MappedLogReader {
+
+    /**
+     * The size in bytes of each mapped window. Windows end on a line boundary, so the
+     * longest allowed line is one window.
+     */
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private static final int MAX_FIELDS = 7;
+
+    /**
+     * Powers of ten that are exact as doubles, for the fast cost parse.
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * How often, in bytes read, progress is reported.
+     */
+    private static final long PROGRESS_INTERVAL = 1024 * 1024;
+
+    private final CampaignData campaignData;
+    private final IngestionProgressListener progressListener;
+
+    /**
+     * The window being read and the field bounds of the current line.
+     */
+    private MappedByteBuffer buffer;
+    private final int[] fieldStarts = new int[MAX_FIELDS];
+    private final int[] fieldEnds = new int[MAX_FIELDS];
+    private long lineNumber;
+    private String fileName;
+
+    /**
+     * Creates a reader that adds rows to the given campaign data.
+     * @param campaignData The campaign data to add the rows to.
+     */
+    public MappedLogReader(CampaignData campaignData) {
+        this(campaignData, null);
+    }
+
+    /**
+     * Creates a reader that adds rows to the given campaign data and reports how far
+     * through each file it is.
+     * @param campaignData The campaign data to add the rows to.
+     * @param progressListener The listener told about progress, or null for none.
+     */
+    public MappedLogReader(CampaignData campaignData, IngestionProgressListener progressListener) {
+        this.campaignData = campaignData;
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Read the impression log.
+     * @param file The file containing impression data.
+     * @throws IOException If the file cannot be read.
+     */
+    public void readImpressions(File file) throws IOException {
+        readLines(file, "Date", 7, this::parseImpression);
+    }
+
+    /**
+     * Read the click log.
+     * @param file The file containing click data.
+     * @throws IOException If the file cannot be read.
+     */
+    public void readClicks(File file) throws IOException {
+        readLines(file, "Date", 3, this::parseClick);
+    }
+
+    /**
+     * Read the server log.
+     * @param file The file containing server log data.
+     * @throws IOException If the file cannot be read.
+     */
+    public void readServerLogs(File file) throws IOException {
+        readLines(file, "Entry Date", 5, this::parseServerLog);
+    }
+
+    private void parseImpression() {
+        long epochSecond = parseTimestamp(0);
+        int user = campaignData.internUser(buffer, fieldStarts[1], fieldEnds[1]);
+        Gender gender = fieldEquals(2, "Male") ? Gender.MALE : Gender.FEMALE;
+
+        AgeRange ageRange;
+        if (fieldEquals(3, "<25")) {
+            ageRange = AgeRange.AGE_25_MINUS;
+        } else if (fieldEquals(3, "25-34")) {
+            ageRange = AgeRange.AGE_25_34;
+        } else if (fieldEquals(3, "35-44")) {
+            ageRange = AgeRange.AGE_35_44;
+        } else if (fieldEquals(3, "45-54")) {
+            ageRange = AgeRange.AGE_45_54;
+        } else {
+            ageRange = AgeRange.AGE_55_PLUS;
+        }
+
+        Income income = parseIncome(4);
+
+        Context context;
+        if (fieldEquals(5, "Blog")) {
+            context = Context.BLOG;
+        } else if (fieldEquals(5, "News")) {
+            context = Context.NEWS;
+        } else if (fieldEquals(5, "Shopping")) {
+            context = Context.SHOPPING;
+        } else if (fieldEquals(5, "Social Media")) {
+            context = Context.SOCIAL_MEDIA;
+        } else {
+            context = Context.UNKNOWN;
+        }
+
+        campaignData.addImpression(epochSecond, user, gender, ageRange, income, context, parseDouble(6));
+    }
+
+    private void parseClick() {
+        long epochSecond = parseTimestamp(0);
+        int user = campaignData.internUser(buffer, fieldStarts[1], fieldEnds[1]);
+        campaignData.addClick(epochSecond, parseDouble(2), user);
+    }
+
+    private void parseServerLog() {
+        long entryEpochSecond = parseTimestamp(0);
+        int user = campaignData.internUser(buffer, fieldStarts[1], fieldEnds[1]);
+        long exitEpochSecond = parseTimestamp(2);
+        int pagesViewed = parseInt(3);
+        boolean conversion = fieldEquals(4, "Yes");
+        campaignData.addServerLogEntry(entryEpochSecond, exitEpochSecond, pagesViewed, conversion, user);
+    }
+
+    /**
+     * Map the file window by window and hand each non-header line to the parser.
+     */
+    private void readLines(File file, String header, int fieldCount, Runnable lineParser) throws IOException {
+        fileName = file.getName();
+        lineNumber = 0;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            long nextReport = PROGRESS_INTERVAL;
+            while (position < size) {
+                long length = Math.min(WINDOW_SIZE, size - position);
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int limit = (int) length;
+                if (position + length < size) {
+                    limit = lastIndexOf((byte) '\n', limit) + 1;
+                    if (limit == 0) {
+                        throw new IOException("Line " + (lineNumber + 1) + " of " + fileName + " is too long");
+                    }
+                }
+
+                int lineStart = 0;
+                while (lineStart < limit) {
+                    int lineEnd = indexOf((byte) '\n', lineStart, limit);
+                    int contentEnd = lineEnd;
+                    if (contentEnd > lineStart && buffer.get(contentEnd - 1) == '\r') {
+                        contentEnd--;
+                    }
+                    lineNumber++;
+                    if (contentEnd > lineStart && !startsWith(lineStart, contentEnd, header)) {
+                        splitFields(lineStart, contentEnd, fieldCount);
+                        lineParser.run();
+                    }
+                    lineStart = lineEnd + 1;
+                    if (progressListener != null && position + lineStart >= nextReport) {
+                        progressListener.onProgress(file, position + lineStart, size);
+                        nextReport = position + lineStart + PROGRESS_INTERVAL;
+                    }
+                }
+                position += limit;
+            }
+            if (progressListener != null) {
+                progressListener.onProgress(file, size, size);
+            }
+        } finally {
+            buffer = null;
+        }
+    }
+
+    private void splitFields(int start, int end, int fieldCount) {
+        int field = 0;
+        fieldStarts[0] = start;
+        for (int i = start; i < end && field < fieldCount - 1; i++) {
+            if (buffer.get(i) == ',') {
+                fieldEnds[field] = i;
+                fieldStarts[++field] = i + 1;
+            }
+        }
+        if (field < fieldCount - 1) {
+            throw new IllegalArgumentException("Expected " + fieldCount + " fields on line " + lineNumber
+                + " of " + fileName);
+        }
+        // Like split(","), anything after the last expected field is ignored
+        int last = indexOf((byte) ',', fieldStarts[field], end);
+        fieldEnds[field] = Math.min(last, end);
+    }
+
+    /**
+     * Parse a "yyyy-MM-dd HH:mm:ss" field, or "n/a", into epoch seconds.
+     */
+    private long parseTimestamp(int field) {
+        try {
+            return TimestampParser.parse(buffer, fieldStarts[field], fieldEnds[field]);
+        } catch (DateTimeParseException e) {
+            throw invalidField(field, "date");
+        }
+    }
+
+    private int parseInt(int field) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        boolean negative = start < end && buffer.get(start) == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end || end - i > 9) {
+            return Integer.parseInt(fieldString(field));
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(fieldString(field));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parse a plain decimal such as "0.001713". The digits are read into a long and
+     * divided by an exact power of ten, which rounds the same way as
+     * {@link Double#parseDouble}. Anything else falls back to Double.parseDouble.
+     */
+    private double parseDouble(int field) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        boolean negative = start < end && buffer.get(start) == '-';
+        long mantissa = 0;
+        int fractionDigits = -1;
+        int digitCount = 0;
+        for (int i = negative ? start + 1 : start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (b >= '0' && b <= '9' && digitCount < 18) {
+                mantissa = mantissa * 10 + (b - '0');
+                digitCount++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else {
+                return Double.parseDouble(fieldString(field));
+            }
+        }
+        if (digitCount == 0 || mantissa >= 1L << 53 || fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(fieldString(field));
+        }
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private Income parseIncome(int field) {
+        for (Income income : Income.values()) {
+            if (fieldEqualsIgnoreCase(field, income.name())) {
+                return income;
+            }
+        }
+        // Same failure as Income.valueOf on the line-by-line path
+        throw new IllegalArgumentException("No enum constant " + Income.class.getCanonicalName() + "."
+            + fieldString(field).toUpperCase());
+    }
+
+    private boolean fieldEquals(int field, String value) {
+        int start = fieldStarts[field];
+        if (fieldEnds[field] - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (buffer.get(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean fieldEqualsIgnoreCase(int field, String value) {
+        int start = fieldStarts[field];
+        if (fieldEnds[field] - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.toUpperCase((char) buffer.get(start + i)) != Character.toUpperCase(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWith(int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buffer.get(start + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String fieldString(int field) {
+        byte[] bytes = new byte[fieldEnds[field] - fieldStarts[field]];
+        buffer.get(fieldStarts[field], bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private IllegalArgumentException invalidField(int field, String type) {
+        return new IllegalArgumentException("Invalid " + type + " '" + fieldString(field) + "' on line "
+            + lineNumber + " of " + fileName);
+    }
+
+    private int indexOf(byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private int lastIndexOf(byte value, int to) {
+        for (int i = to - 1; i >= 0; i--) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
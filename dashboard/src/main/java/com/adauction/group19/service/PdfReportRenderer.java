@@ -0,0 +1,296 @@
+package com.adauction.group19.service;
+
+import com.adauction.group19.model.CampaignReport;
+import com.adauction.group19.model.Metric;
+import com.adauction.group19.model.MetricSeries;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders a {@link CampaignReport} to PDF with PDFBox vector graphics: a small
+ * line chart per metric, then the notes. Nothing is drawn on screen or rasterised,
+ * so reports can be made without JavaFX, and a renderer holds no state, so reports
+ * can be rendered on several threads at once.
+ */
+public class PdfReportRenderer {
+
+    private static final PDRectangle PAGE_SIZE = PDRectangle.A4;
+    private static final float MARGIN = 36;
+    private static final float PANEL_HEIGHT = 150;
+    private static final float PANEL_GAP = 18;
+    private static final int PANEL_COLUMNS = 2;
+    private static final float LINE_HEIGHT = 15;
+
+    private static final PDFont TITLE_FONT = PDType1Font.HELVETICA_BOLD;
+    private static final PDFont TEXT_FONT = PDType1Font.HELVETICA;
+    private static final PDFont FOOTER_FONT = PDType1Font.HELVETICA_OBLIQUE;
+
+    private static final Color AXIS_COLOR = new Color(0x60, 0x60, 0x60);
+    private static final Color GRID_COLOR = new Color(0xDD, 0xDD, 0xDD);
+    private static final Color[] SERIES_COLORS = {
+        new Color(0x1F, 0x77, 0xB4), new Color(0xFF, 0x7F, 0x0E), new Color(0x2C, 0xA0, 0x2C),
+        new Color(0xD6, 0x27, 0x28), new Color(0x94, 0x67, 0xBD), new Color(0x8C, 0x56, 0x4B),
+        new Color(0xE3, 0x77, 0xC2), new Color(0x7F, 0x7F, 0x7F), new Color(0xBC, 0xBD, 0x22),
+        new Color(0x17, 0xBE, 0xCF), new Color(0x39, 0x3B, 0x79)
+    };
+
+    /**
+     * Renders a report to a file.
+     * @param report The report.
+     * @param file The PDF file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void render(CampaignReport report, File file) throws IOException {
+        try (PDDocument document = createDocument(report)) {
+            document.save(file);
+        }
+    }
+
+    /**
+     * Renders a report to a stream, leaving the stream open.
+     * @param report The report.
+     * @param out Where to write the PDF.
+     * @throws IOException If writing fails.
+     */
+    public void render(CampaignReport report, OutputStream out) throws IOException {
+        try (PDDocument document = createDocument(report)) {
+            document.save(out);
+        }
+    }
+
+    private PDDocument createDocument(CampaignReport report) throws IOException {
+        PDDocument document = new PDDocument();
+        try {
+            new Layout(document, report).draw();
+        } catch (IOException | RuntimeException e) {
+            document.close();
+            throw e;
+        }
+        return document;
+    }
+
+    /**
+     * Places the parts of one report on pages, starting a page whenever the next part does not fit.
+     */
+    private static final class Layout {
+        private final PDDocument document;
+        private final CampaignReport report;
+        private final float width = PAGE_SIZE.getWidth() - 2 * MARGIN;
+        private final String footer = "Generated on: " + LocalDate.now().format(DateTimeFormatter.ISO_DATE);
+        private PDPageContentStream content;
+        private float y;
+
+        private Layout(PDDocument document, CampaignReport report) {
+            this.document = document;
+            this.report = report;
+        }
+
+        private void draw() throws IOException {
+            try {
+                newPage();
+                text(TITLE_FONT, 16, MARGIN, y - 16, report.title());
+                y -= 24;
+                text(TEXT_FONT, 10, MARGIN, y - 10, report.labels().isEmpty() ? "No data in range"
+                    : report.labels().get(0) + " to " + report.labels().get(report.labels().size() - 1)
+                    + " (" + report.granularity().name().toLowerCase() + ")");
+                y -= 10 + PANEL_GAP;
+
+                drawPanels();
+                drawNotes();
+            } finally {
+                if (content != null) {
+                    content.close();
+                }
+            }
+        }
+
+        private void newPage() throws IOException {
+            if (content != null) {
+                content.close();
+            }
+            PDPage page = new PDPage(PAGE_SIZE);
+            document.addPage(page);
+            content = new PDPageContentStream(document, page);
+            text(FOOTER_FONT, 8, MARGIN, MARGIN - 10, footer);
+            y = PAGE_SIZE.getHeight() - MARGIN;
+        }
+
+        private void drawPanels() throws IOException {
+            float panelWidth = (width - (PANEL_COLUMNS - 1) * PANEL_GAP) / PANEL_COLUMNS;
+            List<MetricSeries> series = new ArrayList<>(report.series().values());
+            for (int i = 0; i < series.size(); i += PANEL_COLUMNS) {
+                if (y - PANEL_HEIGHT < MARGIN) {
+                    newPage();
+                }
+                for (int column = 0; column < PANEL_COLUMNS && i + column < series.size(); column++) {
+                    drawPanel(series.get(i + column), MARGIN + column * (panelWidth + PANEL_GAP),
+                        y - PANEL_HEIGHT, panelWidth, PANEL_HEIGHT);
+                }
+                y -= PANEL_HEIGHT + PANEL_GAP;
+            }
+        }
+
+        private void drawPanel(MetricSeries series, float x, float bottom, float panelWidth, float panelHeight)
+                throws IOException {
+            Metric metric = series.getMetric();
+            text(TITLE_FONT, 9, x, bottom + panelHeight - 9,
+                metric.getDisplayName() + " (total " + CampaignReport.formatValue(metric, series.getTotal()) + ")");
+
+            float plotLeft = x + 42;
+            float plotBottom = bottom + 14;
+            float plotWidth = x + panelWidth - plotLeft;
+            float plotHeight = panelHeight - 14 - 16;
+
+            double min = 0;
+            double max = 0;
+            for (int i = 0; i < series.size(); i++) {
+                double value = series.getValue(i);
+                if (Double.isFinite(value)) {
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+            }
+            if (max == min) {
+                max = min + 1;
+            }
+
+            // Grid lines with their values at the bottom, middle and top
+            content.setLineWidth(0.5f);
+            for (int tick = 0; tick <= 2; tick++) {
+                float tickY = plotBottom + plotHeight * tick / 2;
+                content.setStrokingColor(GRID_COLOR);
+                line(plotLeft, tickY, plotLeft + plotWidth, tickY);
+                String value = formatAxis(min + (max - min) * tick / 2);
+                text(TEXT_FONT, 6, plotLeft - 3 - textWidth(TEXT_FONT, 6, value), tickY - 2, value);
+            }
+            content.setStrokingColor(AXIS_COLOR);
+            line(plotLeft, plotBottom, plotLeft, plotBottom + plotHeight);
+
+            int points = Math.min(series.size(), report.labels().size());
+            if (points == 0) {
+                return;
+            }
+            String first = report.labels().get(0);
+            String last = report.labels().get(points - 1);
+            text(TEXT_FONT, 6, plotLeft, bottom + 4, first);
+            if (points > 1) {
+                text(TEXT_FONT, 6, plotLeft + plotWidth - textWidth(TEXT_FONT, 6, last), bottom + 4, last);
+            }
+
+            // The series, broken where a value is missing
+            float step = plotWidth / Math.max(1, points - 1);
+            content.setStrokingColor(SERIES_COLORS[metric.ordinal() % SERIES_COLORS.length]);
+            content.setNonStrokingColor(SERIES_COLORS[metric.ordinal() % SERIES_COLORS.length]);
+            content.setLineWidth(1);
+            if (points == 1) {
+                if (Double.isFinite(series.getValue(0))) {
+                    float pointY = plotBottom + (float) ((series.getValue(0) - min) / (max - min)) * plotHeight;
+                    content.addRect(plotLeft + plotWidth / 2 - 1.5f, pointY - 1.5f, 3, 3);
+                    content.fill();
+                }
+            } else {
+                boolean drawing = false;
+                for (int i = 0; i < points; i++) {
+                    double value = series.getValue(i);
+                    if (!Double.isFinite(value)) {
+                        if (drawing) {
+                            content.stroke();
+                            drawing = false;
+                        }
+                        continue;
+                    }
+                    float pointX = plotLeft + i * step;
+                    float pointY = plotBottom + (float) ((value - min) / (max - min)) * plotHeight;
+                    if (drawing) {
+                        content.lineTo(pointX, pointY);
+                    } else {
+                        content.moveTo(pointX, pointY);
+                        drawing = true;
+                    }
+                }
+                if (drawing) {
+                    content.stroke();
+                }
+            }
+            content.setNonStrokingColor(Color.BLACK);
+        }
+
+        private void drawNotes() throws IOException {
+            for (String note : report.notes()) {
+                if (y - 2 * LINE_HEIGHT < MARGIN) {
+                    newPage();
+                }
+                String line = note.trim();
+                boolean heading = line.startsWith("#");
+                if (heading) {
+                    line = line.substring(1);
+                    y -= LINE_HEIGHT / 2;
+                }
+                y -= LINE_HEIGHT;
+                text(heading ? TITLE_FONT : TEXT_FONT, heading ? 14 : 12, MARGIN, y, line);
+            }
+        }
+
+        private void line(float x1, float y1, float x2, float y2) throws IOException {
+            content.moveTo(x1, y1);
+            content.lineTo(x2, y2);
+            content.stroke();
+        }
+
+        private void text(PDFont font, float size, float x, float textY, String text) throws IOException {
+            content.beginText();
+            content.setFont(font, size);
+            content.newLineAtOffset(x, textY);
+            content.showText(printable(text));
+            content.endText();
+        }
+    }
+
+    /**
+     * Formats an axis value compactly, such as 12.5k for 12,500.
+     */
+    static String formatAxis(double value) {
+        double magnitude = Math.abs(value);
+        if (magnitude >= 1_000_000) {
+            return trim(value / 1_000_000) + "M";
+        }
+        if (magnitude >= 1_000) {
+            return trim(value / 1_000) + "k";
+        }
+        return trim(value);
+    }
+
+    private static String trim(double value) {
+        String text = String.format("%.2f", value);
+        return text.contains(".") ? text.replaceAll("0+$", "").replaceAll("\\.$", "") : text;
+    }
+
+    private static float textWidth(PDFont font, float size, String text) throws IOException {
+        return font.getStringWidth(printable(text)) / 1000 * size;
+    }
+
+    /**
+     * Replaces characters the standard fonts cannot show, which PDFBox would reject.
+     */
+    private static String printable(String text) {
+        StringBuilder printable = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            printable.append(c >= 0x20 && c < 0x7F || c == '•' ? c : '?');
+        }
+        return printable.toString();
+    }
+}
@@ -0,0 +1,560 @@
+package com.adauction.group19.service;
+
+import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.model.CampaignReport;
+import com.adauction.group19.model.CampaignSummary;
+import com.adauction.group19.model.DemographicFilter;
+import com.adauction.group19.model.ExportWriter;
+import com.adauction.group19.model.Metric;
+import com.adauction.group19.model.MetricQueryEngine;
+import com.adauction.group19.model.TimeGranularity;
+import com.adauction.group19.model.User;
+import com.adauction.group19.utils.SerializationUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A small HTTP server on the loopback address that answers metric queries over saved
+ * campaigns, so scripts and other tools can use the same data as the dashboard.
+ * Requests use HTTP basic authentication with a dashboard account, and see only the
+ * campaigns that account could load: all of them for admins, their own for users and
+ * the assigned ones for viewers.
+ * <p>
+ * Every endpoint is a GET returning JSON:
+ * <ul>
+ *   <li>{@code /api/campaigns} lists the accessible campaigns.</li>
+ *   <li>{@code /api/campaigns/{id}/totals} gives the total of each metric.</li>
+ *   <li>{@code /api/campaigns/{id}/series} gives each metric per bucket, in the shape of a JSON export.</li>
+ *   <li>{@code /api/campaigns/{id}/histogram} gives the number of clicks per cost bin.</li>
+ * </ul>
+ * Queries take {@code metrics}, {@code from} and {@code to} (inclusive dates), {@code granularity},
+ * {@code bins} and the filters {@code gender}, {@code age}, {@code income} and {@code context},
+ * each a comma-separated list where it can have several values.
+ * <p>
+ * Requests are handled on a fixed pool of threads. A campaign is decoded the first
+ * time it is queried and then shared, read-only, by every request for it; requests
+ * arriving while it is decoded wait for that one load rather than starting their own.
+ * Decoded campaigns are kept in a {@link CampaignCache} under the data version they
+ * were saved with, so the cache stays within its share of the heap and a campaign
+ * saved again by the dashboard is decoded afresh.
+ */
+public class QueryApiServer {
+
+    /**
+     * The port used when none is given.
+     */
+    public static final int DEFAULT_PORT = 8019;
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+        "Usage: QueryApiServer [--port N] [--threads N]",
+        "  --port N     port to listen on at 127.0.0.1 (default: " + DEFAULT_PORT + ")",
+        "  --threads N  requests handled at once (default: number of processors)");
+
+    /**
+     * Where the server finds accounts and saved campaigns.
+     */
+    public interface CampaignSource {
+        /**
+         * Checks a user name and password.
+         * @param username The user name.
+         * @param password The password.
+         * @return The user, or null if the account does not exist, is inactive or the password is wrong.
+         */
+        User authenticate(String username, String password);
+
+        /**
+         * Lists the campaigns a user can access.
+         * @param user The user.
+         * @return The campaigns.
+         */
+        List<CampaignSummary> listCampaigns(User user);
+
+        /**
+         * Looks up a campaign a user can access.
+         * @param user The user.
+         * @param campaignId The ID of the campaign.
+         * @return The campaign with its data version, or null if it does not exist or the user cannot access it.
+         */
+        CampaignSummary findCampaign(User user, int campaignId);
+
+        /**
+         * Reads the saved data of a campaign.
+         * @param campaignId The ID of the campaign.
+         * @return The saved bytes, or null if the campaign does not exist.
+         */
+        byte[] loadCampaign(int campaignId);
+    }
+
+    /**
+     * An error answered with an HTTP status.
+     */
+    private static final class ApiException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * A campaign at one version of its saved data.
+     */
+    private record CampaignVersion(int campaignId, int version) {
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final CampaignSource source;
+    private final CampaignCache cache;
+
+    /**
+     * The campaigns being decoded.
+     */
+    private final Map<CampaignVersion, CompletableFuture<CampaignData>> loads = new ConcurrentHashMap<>();
+    private final ClickDistributionService clickDistributionService = new ClickDistributionService();
+
+    /**
+     * Creates a server over the application database.
+     * @param port The port to listen on, or 0 for any free port.
+     * @param threads The number of requests handled at once.
+     * @throws IOException If the port cannot be bound.
+     */
+    public QueryApiServer(int port, int threads) throws IOException {
+        this(port, threads, databaseSource(), CampaignCache.getInstance());
+    }
+
+    /**
+     * Creates a server over the given accounts and campaigns.
+     * @param port The port to listen on, or 0 for any free port.
+     * @param threads The number of requests handled at once.
+     * @param source Where the accounts and campaigns are read from.
+     * @param cache Where decoded campaigns are kept.
+     * @throws IOException If the port cannot be bound.
+     */
+    public QueryApiServer(int port, int threads, CampaignSource source, CampaignCache cache) throws IOException {
+        this.source = source;
+        this.cache = cache;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+    }
+
+    /**
+     * Starts a server over the application database, which runs until the process is stopped.
+     * @param args The options.
+     */
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--port" -> port = Integer.parseInt(args[++i]);
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--help" -> {
+                        System.out.println(USAGE);
+                        return;
+                    }
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (threads < 1) {
+                throw new IllegalArgumentException("Thread count must be positive: " + threads);
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println(e instanceof ArrayIndexOutOfBoundsException ? "Missing option value" : e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try {
+            QueryApiServer apiServer = new QueryApiServer(port, threads);
+            apiServer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(apiServer::stop));
+            System.out.println("Query API listening on http://127.0.0.1:" + apiServer.getPort() + "/api/");
+        } catch (IOException e) {
+            System.err.println("Error starting the query API: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Starts answering requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops the server, letting requests being answered finish.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     * @return The port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            int status = 200;
+            String body;
+            try {
+                body = answer(exchange);
+            } catch (ApiException e) {
+                status = e.status;
+                body = "{\"error\": " + jsonString(e.getMessage()) + "}";
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                body = "{\"error\": " + jsonString(String.valueOf(e.getMessage())) + "}";
+            } catch (RuntimeException e) {
+                System.err.println("Error answering " + exchange.getRequestURI() + ": " + e);
+                status = 500;
+                body = "{\"error\": \"Internal error\"}";
+            }
+            if (status == 401) {
+                exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"adauction\"");
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String answer(HttpExchange exchange) throws ApiException, IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            throw new ApiException(405, "Only GET is supported");
+        }
+        User user = authenticate(exchange);
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        // The path is /api/campaigns[/{id}/{query}]
+        if (path.length < 3 || !path[2].equals("campaigns") || path.length == 4 || path.length > 5) {
+            throw new ApiException(404, "Unknown endpoint");
+        }
+        if (path.length == 3) {
+            return listCampaigns(user);
+        }
+
+        int campaignId;
+        try {
+            campaignId = Integer.parseInt(path[3]);
+        } catch (NumberFormatException e) {
+            throw new ApiException(404, "Campaign not found");
+        }
+        // Campaigns the user cannot access are reported as missing, so their IDs are not revealed
+        CampaignSummary summary = source.findCampaign(user, campaignId);
+        if (summary == null) {
+            throw new ApiException(404, "Campaign not found");
+        }
+        Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+        return switch (path[4]) {
+            case "totals" -> totals(getCampaign(summary), parameters);
+            case "series" -> series(getCampaign(summary), parameters);
+            case "histogram" -> histogram(getCampaign(summary), parameters);
+            default -> throw new ApiException(404, "Unknown endpoint");
+        };
+    }
+
+    private User authenticate(HttpExchange exchange) throws ApiException {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Basic ", 0, 6)) {
+            throw new ApiException(401, "Authentication required");
+        }
+        String credentials;
+        try {
+            credentials = new String(Base64.getDecoder().decode(header.substring(6).trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(401, "Malformed credentials");
+        }
+        int colon = credentials.indexOf(':');
+        User user = colon < 0 ? null
+            : source.authenticate(credentials.substring(0, colon), credentials.substring(colon + 1));
+        if (user == null) {
+            throw new ApiException(401, "Invalid user name or password");
+        }
+        return user;
+    }
+
+    /**
+     * Returns the shared data of a campaign at the version it was looked up with,
+     * decoding it if it is not cached and no other request is decoding it already.
+     */
+    private CampaignData getCampaign(CampaignSummary summary) throws ApiException {
+        int campaignId = summary.getId();
+        int version = summary.getDataVersion();
+        CampaignData cached = cache.get(campaignId, version);
+        if (cached != null) {
+            return cached;
+        }
+        CampaignVersion key = new CampaignVersion(campaignId, version);
+        CompletableFuture<CampaignData> load = new CompletableFuture<>();
+        CompletableFuture<CampaignData> existing = loads.putIfAbsent(key, load);
+        if (existing == null) {
+            try {
+                // Another request may have finished decoding it since the lookup above
+                CampaignData campaignData = cache.get(campaignId, version);
+                if (campaignData == null) {
+                    byte[] data = source.loadCampaign(campaignId);
+                    if (data == null) {
+                        throw new IOException("The campaign could not be found.");
+                    }
+                    campaignData = SerializationUtil.deserialiseCampaign(data);
+                    // Frozen by the cache before sharing, so concurrent queries only read the campaign
+                    cache.put(campaignId, version, campaignData);
+                }
+                load.complete(campaignData);
+            } catch (Exception e) {
+                load.completeExceptionally(e);
+            } finally {
+                loads.remove(key, load);
+            }
+            existing = load;
+        }
+        try {
+            return existing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(503, "Interrupted");
+        } catch (ExecutionException e) {
+            System.err.println("Error loading campaign " + campaignId + ": " + e.getCause().getMessage());
+            throw new ApiException(500, "The campaign could not be loaded");
+        }
+    }
+
+    private String listCampaigns(User user) {
+        StringBuilder json = new StringBuilder("[");
+        for (CampaignSummary summary : source.listCampaigns(user)) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append("{\"id\": ").append(summary.getId())
+                .append(", \"name\": ").append(jsonString(summary.getCampaignName()));
+            if (summary.hasRowCounts()) {
+                json.append(", \"impressions\": ").append(summary.getImpressionCount())
+                    .append(", \"clicks\": ").append(summary.getClickCount())
+                    .append(", \"serverLogs\": ").append(summary.getServerLogCount());
+            }
+            json.append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    private String totals(CampaignData campaignData, Map<String, String> parameters) {
+        Map<Metric, List<Set<Enum<?>>>> filters = filters(parameters);
+        Map<Metric, Double> totals;
+        String range;
+        if (parameters.containsKey("from") || parameters.containsKey("to")) {
+            LocalDate[] dates = range(campaignData, parameters);
+            totals = new EnumMap<>(Metric.class);
+            new MetricQueryEngine(campaignData).query(dates[0].atStartOfDay(), dates[1].plusDays(1).atStartOfDay(),
+                TimeGranularity.DAILY, filters).forEach((metric, series) -> totals.put(metric, series.getTotal()));
+            range = "\"from\": \"" + dates[0] + "\", \"to\": \"" + dates[1] + "\", ";
+        } else {
+            // Without a range the totals include rows with no time, as on the metrics screen
+            totals = new MetricQueryEngine(campaignData).queryTotals(filters);
+            range = "";
+        }
+        StringBuilder json = new StringBuilder("{").append(range).append("\"totals\": {");
+        totals.forEach((metric, total) -> {
+            if (json.charAt(json.length() - 1) != '{') {
+                json.append(',');
+            }
+            json.append(jsonString(metric.getDisplayName())).append(": ").append(jsonNumber(total));
+        });
+        return json.append("}}").toString();
+    }
+
+    private String series(CampaignData campaignData, Map<String, String> parameters) throws IOException {
+        LocalDate[] dates = range(campaignData, parameters);
+        String granularity = parameters.getOrDefault("granularity", "daily");
+        CampaignReport report = CampaignReport.query("", campaignData, dates[0].atStartOfDay(),
+            dates[1].plusDays(1).atStartOfDay(), TimeGranularity.valueOf(granularity.trim().toUpperCase(Locale.ROOT)),
+            filters(parameters));
+        StringWriter json = new StringWriter();
+        report.toExportData().write(ExportWriter.Format.JSON, json);
+        return json.toString();
+    }
+
+    private String histogram(CampaignData campaignData, Map<String, String> parameters) {
+        int bins = Integer.parseInt(parameters.getOrDefault("bins", "10").trim());
+        if (bins < 1 || bins > 10_000) {
+            throw new IllegalArgumentException("bins must be between 1 and 10000: " + bins);
+        }
+        Map<Double, Integer> histogram = clickDistributionService.calculateClickCostDistribution(campaignData,
+            filter(parameters), bins);
+        StringBuilder json = new StringBuilder("[");
+        histogram.forEach((from, count) -> {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append("{\"from\": ").append(jsonNumber(from)).append(", \"count\": ").append(count).append('}');
+        });
+        return json.append(']').toString();
+    }
+
+    /**
+     * Reads the metrics and demographic filter of a query, every metric sharing the filter.
+     */
+    private static Map<Metric, List<Set<Enum<?>>>> filters(Map<String, String> parameters) {
+        Set<Metric> metrics = EnumSet.allOf(Metric.class);
+        if (parameters.containsKey("metrics")) {
+            metrics = EnumSet.noneOf(Metric.class);
+            for (String name : split(parameters.get("metrics"))) {
+                metrics.add(Metric.parse(name));
+            }
+        }
+        List<Set<Enum<?>>> filter = filter(parameters);
+        Map<Metric, List<Set<Enum<?>>>> filters = new EnumMap<>(Metric.class);
+        for (Metric metric : metrics) {
+            filters.put(metric, filter);
+        }
+        return filters;
+    }
+
+    private static List<Set<Enum<?>>> filter(Map<String, String> parameters) {
+        List<Set<Enum<?>>> filter = new ArrayList<>();
+        for (int dimension = 0; dimension < DemographicFilter.DIMENSION_COUNT; dimension++) {
+            Set<Enum<?>> values = new HashSet<>();
+            String names = parameters.get(DemographicFilter.DIMENSION_NAMES.get(dimension));
+            if (names != null) {
+                for (String name : split(names)) {
+                    values.add(DemographicFilter.parseValue(dimension, name));
+                }
+            }
+            filter.add(values);
+        }
+        return filter;
+    }
+
+    /**
+     * Reads the inclusive date range of a query, defaulting to the campaign's first and last days.
+     */
+    private static LocalDate[] range(CampaignData campaignData, Map<String, String> parameters) {
+        try {
+            LocalDate from = parameters.containsKey("from")
+                ? LocalDate.parse(parameters.get("from").trim()) : campaignData.getFirstDate();
+            LocalDate to = parameters.containsKey("to")
+                ? LocalDate.parse(parameters.get("to").trim()) : campaignData.getLastDate();
+            if (to.isBefore(from)) {
+                throw new IllegalArgumentException("The range ends before it starts");
+            }
+            return new LocalDate[] {from, to};
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Dates are YYYY-MM-DD: " + e.getParsedString());
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static List<String> split(String value) {
+        List<String> parts = new ArrayList<>();
+        for (String part : value.split(",")) {
+            if (!part.isBlank()) {
+                parts.add(part.trim());
+            }
+        }
+        return parts;
+    }
+
+    private static String jsonNumber(double value) {
+        // JSON has no NaN or infinity
+        return Double.isFinite(value) ? Double.toString(value) : "null";
+    }
+
+    private static String jsonString(String text) {
+        StringBuilder json = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    /**
+     * The accounts and saved campaigns of the application database.
+     */
+    private static CampaignSource databaseSource() {
+        return new CampaignSource() {
+            @Override
+            public User authenticate(String username, String password) {
+                return DatabaseManager.getInstance().authenticateUser(username, password);
+            }
+
+            @Override
+            public List<CampaignSummary> listCampaigns(User user) {
+                return CampaignDataManager.getInstance().getUserCampaignSummaries(user.getId(), user.getRole());
+            }
+
+            @Override
+            public CampaignSummary findCampaign(User user, int campaignId) {
+                return CampaignDataManager.getInstance().getUserCampaignSummary(user.getId(), user.getRole(),
+                    campaignId);
+            }
+
+            @Override
+            public byte[] loadCampaign(int campaignId) {
+                return CampaignDataManager.getInstance().getCampaignData(campaignId);
+            }
+        };
+    }
+}
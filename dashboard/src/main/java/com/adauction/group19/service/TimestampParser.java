@@ -0,0 +1,163 @@
+package com.adauction.group19.service;
+
+import com.adauction.group19.model.EpochSeconds;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parser for the fixed "yyyy-MM-dd HH:mm:ss" timestamps in the campaign logs.
+ * The digits are read by position and turned into epoch seconds with plain
+ * arithmetic, so nothing is allocated per timestamp. "n/a" parses to
+ * {@link EpochSeconds#ABSENT}. Days past the end of the month are clamped to
+ * the last day, as {@code LocalDateTime.parse} does with its default resolver.
+ */
+public final class TimestampParser {
+
+    /**
+     * The length of a timestamp, e.g. "2015-01-01 12:01:21".
+     */
+    public static final int LENGTH = 19;
+
+    private static final String ABSENT_TEXT = "n/a";
+
+    private static final int DAYS_0000_TO_1970 = 719468;
+
+    private TimestampParser() {
+    }
+
+    /**
+     * Parse a timestamp from text.
+     * @param text The timestamp text.
+     * @return The epoch seconds, or {@link EpochSeconds#ABSENT} for "n/a".
+     * @throws DateTimeParseException If the text is not a valid timestamp.
+     */
+    public static long parse(CharSequence text) {
+        if (text.length() == ABSENT_TEXT.length() && ABSENT_TEXT.contentEquals(text)) {
+            return EpochSeconds.ABSENT;
+        }
+        if (text.length() != LENGTH || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != ' '
+            || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            throw invalid(text.toString());
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+        if (!inRange(year, month, day, hour, minute, second)) {
+            throw invalid(text.toString());
+        }
+        return toEpochSecond(year, month, day, hour, minute, second);
+    }
+
+    /**
+     * Parse a timestamp held in bytes [start, end) of a buffer, without copying it.
+     * @param bytes The buffer holding the timestamp.
+     * @param start The index of the first byte.
+     * @param end The index after the last byte.
+     * @return The epoch seconds, or {@link EpochSeconds#ABSENT} for "n/a".
+     * @throws DateTimeParseException If the bytes are not a valid timestamp.
+     */
+    public static long parse(ByteBuffer bytes, int start, int end) {
+        int length = end - start;
+        if (length == ABSENT_TEXT.length() && bytes.get(start) == 'n' && bytes.get(start + 1) == '/'
+            && bytes.get(start + 2) == 'a') {
+            return EpochSeconds.ABSENT;
+        }
+        if (length != LENGTH || bytes.get(start + 4) != '-' || bytes.get(start + 7) != '-'
+            || bytes.get(start + 10) != ' ' || bytes.get(start + 13) != ':' || bytes.get(start + 16) != ':') {
+            throw invalid(text(bytes, start, end));
+        }
+        int year = digits(bytes, start, 4);
+        int month = digits(bytes, start + 5, 2);
+        int day = digits(bytes, start + 8, 2);
+        int hour = digits(bytes, start + 11, 2);
+        int minute = digits(bytes, start + 14, 2);
+        int second = digits(bytes, start + 17, 2);
+        if (!inRange(year, month, day, hour, minute, second)) {
+            throw invalid(text(bytes, start, end));
+        }
+        return toEpochSecond(year, month, day, hour, minute, second);
+    }
+
+    /**
+     * Check the fields; a negative value marks a non-digit from {@link #digits}.
+     */
+    private static boolean inRange(int year, int month, int day, int hour, int minute, int second) {
+        return year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= 31
+            && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59 && second >= 0 && second <= 59;
+    }
+
+    /**
+     * Combine the fields into epoch seconds, using the days-from-civil calculation
+     * for the proleptic Gregorian calendar.
+     */
+    private static long toEpochSecond(int year, int month, int day, int hour, int minute, int second) {
+        day = Math.min(day, lengthOfMonth(year, month));
+
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        long epochDay = era * 146097 + dayOfEra - DAYS_0000_TO_1970;
+
+        return epochDay * EpochSeconds.SECONDS_PER_DAY + hour * EpochSeconds.SECONDS_PER_HOUR + minute * 60L + second;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Read a run of decimal digits.
+     * @return The value, or -1 if a character is not a digit.
+     */
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int digits(ByteBuffer bytes, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = bytes.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static String text(ByteBuffer bytes, int start, int end) {
+        byte[] copy = new byte[end - start];
+        bytes.get(start, copy);
+        return new String(copy, StandardCharsets.ISO_8859_1);
+    }
+
+    private static DateTimeParseException invalid(String text) {
+        return new DateTimeParseException("Text '" + text + "' is not a yyyy-MM-dd HH:mm:ss timestamp", text, 0);
+    }
+}
@@ -7,6 +7,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -44,15 +45,16 @@ public class PageVisitTracker {
      * Initializes the database table for storing page visits.
      */
     private void initDatabase() {
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            String sql = "CREATE TABLE IF NOT EXISTS page_visits (" +
-                         "id INT AUTO_INCREMENT PRIMARY KEY, " +
-                         "user_id INT NOT NULL, " +
-                         "page_name VARCHAR(50) NOT NULL, " +
-                         "UNIQUE (user_id, page_name), " +
-                         "FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE)";
-            
-            conn.createStatement().execute(sql);
+        String sql = "CREATE TABLE IF NOT EXISTS page_visits (" +
+                     "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                     "user_id INT NOT NULL, " +
+                     "page_name VARCHAR(50) NOT NULL, " +
+                     "UNIQUE (user_id, page_name), " +
+                     "FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE)";
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
         } catch (SQLException e) {
             System.err.println("Error initializing page_visits table: " + e.getMessage());
         }
@@ -69,9 +71,9 @@ public class PageVisitTracker {
         visitedPages.clear();
         loaded = false;
         
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            String sql = "SELECT page_name FROM page_visits WHERE user_id = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
+        String sql = "SELECT page_name FROM page_visits WHERE user_id = ?";
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, UserSession.getInstance().getCurrentUser().getId());
             
             ResultSet rs = stmt.executeQuery();
@@ -113,11 +115,11 @@ public class PageVisitTracker {
         
         visitedPages.add(pageName);
         
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            String sql = "INSERT INTO page_visits (user_id, page_name) VALUES (?, ?) " +
-                         "ON DUPLICATE KEY UPDATE page_name = page_name";
-            
-            PreparedStatement stmt = conn.prepareStatement(sql);
+        String sql = "INSERT INTO page_visits (user_id, page_name) VALUES (?, ?) " +
+                     "ON DUPLICATE KEY UPDATE page_name = page_name";
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, UserSession.getInstance().getCurrentUser().getId());
             stmt.setString(2, pageName);
             
@@ -138,10 +140,10 @@ public class PageVisitTracker {
         
         visitedPages.clear();
         
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            String sql = "DELETE FROM page_visits WHERE user_id = ?";
-            
-            PreparedStatement stmt = conn.prepareStatement(sql);
+        String sql = "DELETE FROM page_visits WHERE user_id = ?";
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, UserSession.getInstance().getCurrentUser().getId());
             
             stmt.executeUpdate();
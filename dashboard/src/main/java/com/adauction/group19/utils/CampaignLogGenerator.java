@@ -0,0 +1,411 @@
+package com.adauction.group19.utils;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic impression, click and server logs in the formats read by
+ * {@link com.adauction.group19.service.FileParserService}, for benchmarks and
+ * scale testing. The same settings and seed always give the same files.
+ * <p>
+ * Impressions are spread evenly over the date span and drawn from a fixed pool
+ * of users, each with fixed demographics. Each impression leads to a click with
+ * the click-through rate, and each click to one server log entry, which converts
+ * with the conversion rate. Rows are written as they are generated, so memory use
+ * does not grow with the row count.
+ * <p>
+ * Demographics can be skewed by weighting the categories, and a share of visits
+ * can be left with an "n/a" exit date as in the real server logs. Run from the
+ * command line with {@code --help} for the options.
+ */
+public class CampaignLogGenerator {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String[] GENDERS = {"Male", "Female"};
+    private static final String[] AGE_RANGES = {"<25", "25-34", "35-44", "45-54", ">54"};
+    private static final String[] INCOMES = {"Low", "Medium", "High"};
+    private static final String[] CONTEXTS = {"News", "Shopping", "Social Media", "Blog"};
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+        "Usage: CampaignLogGenerator [options]",
+        "  --out DIR                 directory to write the logs to (default: current directory)",
+        "  --seed N                  random seed (default: 19)",
+        "  --impressions N           number of impressions (default: 100000)",
+        "  --users N                 number of distinct users (default: 25000)",
+        "  --start YYYY-MM-DD        first day (default: 2015-01-01)",
+        "  --days N                  number of days (default: 14)",
+        "  --ctr RATE                share of impressions clicked (default: 0.05)",
+        "  --conversion-rate RATE    share of clicks converting (default: 0.1)",
+        "  --missing-exit-rate RATE  share of visits with an n/a exit date (default: 0)",
+        "  --gender-weights W,W      Male, Female",
+        "  --age-weights W,W,W,W,W   <25, 25-34, 35-44, 45-54, >54",
+        "  --income-weights W,W,W    Low, Medium, High",
+        "  --context-weights W,W,W,W News, Shopping, Social Media, Blog");
+
+    private long seed = 19;
+    private long impressionCount = 100_000;
+    private long userCount = 25_000;
+    private LocalDateTime start = LocalDateTime.of(2015, 1, 1, 0, 0);
+    private int days = 14;
+    private double clickThroughRate = 0.05;
+    private double conversionRate = 0.1;
+    private double missingExitRate = 0;
+
+    /**
+     * The weights of the categories, in the order of the arrays above.
+     */
+    private double[] genderWeights = uniform(GENDERS.length);
+    private double[] ageWeights = uniform(AGE_RANGES.length);
+    private double[] incomeWeights = uniform(INCOMES.length);
+    private double[] contextWeights = uniform(CONTEXTS.length);
+
+    /**
+     * The date text of the last second formatted, reused while rows share a second.
+     */
+    private long formattedSecond = Long.MIN_VALUE;
+    private String formattedDate;
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the number of impressions; the click and server log sizes follow from the rates.
+     * @param impressionCount the number of impressions
+     */
+    public void setImpressionCount(long impressionCount) {
+        if (impressionCount < 0) {
+            throw new IllegalArgumentException("Impression count must not be negative: " + impressionCount);
+        }
+        this.impressionCount = impressionCount;
+    }
+
+    /**
+     * Sets the number of distinct users the impressions are drawn from.
+     * @param userCount the number of users
+     */
+    public void setUserCount(long userCount) {
+        if (userCount < 1) {
+            throw new IllegalArgumentException("User count must be positive: " + userCount);
+        }
+        this.userCount = userCount;
+    }
+
+    public void setStart(LocalDateTime start) {
+        this.start = start;
+    }
+
+    /**
+     * Sets the number of days the impressions are spread over.
+     * @param days the date span in days
+     */
+    public void setDays(int days) {
+        if (days < 1) {
+            throw new IllegalArgumentException("Date span must be at least one day: " + days);
+        }
+        this.days = days;
+    }
+
+    /**
+     * Sets the share of impressions that lead to a click.
+     * @param clickThroughRate the rate, between 0 and 1
+     */
+    public void setClickThroughRate(double clickThroughRate) {
+        this.clickThroughRate = checkRate("Click-through rate", clickThroughRate);
+    }
+
+    /**
+     * Sets the share of clicks whose visit converts.
+     * @param conversionRate the rate, between 0 and 1
+     */
+    public void setConversionRate(double conversionRate) {
+        this.conversionRate = checkRate("Conversion rate", conversionRate);
+    }
+
+    /**
+     * Sets the share of server log entries whose exit date is "n/a".
+     * @param missingExitRate the rate, between 0 and 1
+     */
+    public void setMissingExitRate(double missingExitRate) {
+        this.missingExitRate = checkRate("Missing exit rate", missingExitRate);
+    }
+
+    /**
+     * Sets the relative weights of the genders, in the order Male, Female.
+     * @param weights one non-negative weight per gender
+     */
+    public void setGenderWeights(double... weights) {
+        genderWeights = checkWeights("gender", weights, GENDERS.length);
+    }
+
+    /**
+     * Sets the relative weights of the age ranges, in the order &lt;25, 25-34, 35-44, 45-54, &gt;54.
+     * @param weights one non-negative weight per age range
+     */
+    public void setAgeWeights(double... weights) {
+        ageWeights = checkWeights("age", weights, AGE_RANGES.length);
+    }
+
+    /**
+     * Sets the relative weights of the incomes, in the order Low, Medium, High.
+     * @param weights one non-negative weight per income
+     */
+    public void setIncomeWeights(double... weights) {
+        incomeWeights = checkWeights("income", weights, INCOMES.length);
+    }
+
+    /**
+     * Sets the relative weights of the contexts, in the order News, Shopping, Social Media, Blog.
+     * @param weights one non-negative weight per context
+     */
+    public void setContextWeights(double... weights) {
+        contextWeights = checkWeights("context", weights, CONTEXTS.length);
+    }
+
+    private static double[] uniform(int length) {
+        double[] weights = new double[length];
+        Arrays.fill(weights, 1);
+        return weights;
+    }
+
+    /**
+     * Checks a set of weights and returns a copy.
+     */
+    private static double[] checkWeights(String name, double[] weights, int length) {
+        if (weights.length != length) {
+            throw new IllegalArgumentException("Expected " + length + " " + name + " weights but got "
+                + weights.length);
+        }
+        double total = 0;
+        for (double weight : weights) {
+            if (!(weight >= 0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("Weights must be non-negative: " + weight);
+            }
+            total += weight;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("At least one " + name + " weight must be positive");
+        }
+        return weights.clone();
+    }
+
+    private static double checkRate(String name, double rate) {
+        if (!(rate >= 0 && rate <= 1)) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1: " + rate);
+        }
+        return rate;
+    }
+
+    /**
+     * Writes the three logs, replacing any existing files.
+     * @param impressionFile the impression log to write
+     * @param clickFile the click log to write
+     * @param serverFile the server log to write
+     * @return the number of clicks written, each with one server log entry
+     * @throws IOException if a file cannot be written
+     */
+    public long write(File impressionFile, File clickFile, File serverFile) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        long firstSecond = start.toEpochSecond(ZoneOffset.UTC);
+        double secondsPerImpression = impressionCount == 0 ? 0 : (double) days * 86_400 / impressionCount;
+        long clickCount = 0;
+
+        try (Writer impressions = new BufferedWriter(new FileWriter(impressionFile), 1 << 16);
+             Writer clicks = new BufferedWriter(new FileWriter(clickFile), 1 << 16);
+             Writer serverLogs = new BufferedWriter(new FileWriter(serverFile), 1 << 16)) {
+            impressions.write("Date,ID,Gender,Age,Income,Context,Impression Cost\n");
+            clicks.write("Date,ID,Click Cost\n");
+            serverLogs.write("Entry Date,ID,Exit Date,Pages Viewed,Conversion\n");
+
+            StringBuilder line = new StringBuilder(128);
+            for (long row = 0; row < impressionCount; row++) {
+                long user = random.nextLong(userCount);
+                long time = firstSecond + (long) (row * secondsPerImpression);
+                String id = userId(user);
+
+                line.setLength(0);
+                line.append(format(time)).append(',').append(id).append(',');
+                appendProfile(line, user);
+                appendCost(line, 0.0001 + random.nextDouble() * 0.003).append('\n');
+                impressions.append(line);
+
+                if (random.nextDouble() < clickThroughRate) {
+                    long clickTime = time + random.nextInt(5);
+                    line.setLength(0);
+                    line.append(format(clickTime)).append(',').append(id).append(',');
+                    appendCost(line, random.nextDouble() < 0.1 ? 0 : Math.exp(random.nextDouble() * 3)).append('\n');
+                    clicks.append(line);
+
+                    writeServerLog(serverLogs, line, random, clickTime, id);
+                    clickCount++;
+                }
+            }
+        }
+        return clickCount;
+    }
+
+    private void writeServerLog(Writer serverLogs, StringBuilder line, SplittableRandom random, long entryTime,
+                                String id) throws IOException {
+        // Mostly short visits, with a long tail
+        long dwellSeconds = (long) (-Math.log(1 - random.nextDouble()) * 60);
+        int pages = 1 + (int) (-Math.log(1 - random.nextDouble()) * 3);
+        boolean missingExit = random.nextDouble() < missingExitRate;
+        line.setLength(0);
+        line.append(format(entryTime)).append(',').append(id).append(',')
+            .append(missingExit ? "n/a" : format(entryTime + dwellSeconds)).append(',')
+            .append(pages).append(',')
+            .append(random.nextDouble() < conversionRate ? "Yes" : "No").append('\n');
+        serverLogs.append(line);
+    }
+
+    /**
+     * Appends a user's demographics, fixed for each user and drawn with the weights.
+     */
+    private void appendProfile(StringBuilder line, long user) {
+        long bits = mix(seed ^ ~user);
+        line.append(GENDERS[pick(genderWeights, bits)]).append(',')
+            .append(AGE_RANGES[pick(ageWeights, bits = mix(bits))]).append(',')
+            .append(INCOMES[pick(incomeWeights, bits = mix(bits))]).append(',')
+            .append(CONTEXTS[pick(contextWeights, mix(bits))]).append(',');
+    }
+
+    /**
+     * Picks a category with probability proportional to its weight, from random bits.
+     */
+    private static int pick(double[] weights, long bits) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double target = (bits >>> 11) * 0x1.0p-53 * total;
+        int last = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] > 0) {
+                last = i;
+                target -= weights[i];
+                if (target < 0) {
+                    return i;
+                }
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Returns the ID of a user, a large number as in the real logs.
+     */
+    private String userId(long user) {
+        return Long.toString(mix(seed ^ user) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Appends a cost with six decimal places.
+     */
+    private static StringBuilder appendCost(StringBuilder line, double cost) {
+        long micros = Math.round(cost * 1_000_000);
+        line.append(micros / 1_000_000).append('.');
+        String fraction = Long.toString(micros % 1_000_000);
+        for (int i = fraction.length(); i < 6; i++) {
+            line.append('0');
+        }
+        return line.append(fraction);
+    }
+
+    private String format(long epochSecond) {
+        if (epochSecond != formattedSecond) {
+            formattedDate = DATE_FORMAT.format(LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC));
+            formattedSecond = epochSecond;
+        }
+        return formattedDate;
+    }
+
+    /**
+     * Writes impression_log.csv, click_log.csv and server_log.csv to a directory.
+     * Run with {@code --help} for the options.
+     * @param args the options, each a name followed by its value
+     */
+    public static void main(String[] args) {
+        CampaignLogGenerator generator = new CampaignLogGenerator();
+        File directory = new File(".");
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (option.equals("--help")) {
+                    System.out.println(USAGE);
+                    return;
+                }
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing value for " + option);
+                }
+                String value = args[++i];
+                switch (option) {
+                    case "--out" -> directory = new File(value);
+                    case "--seed" -> generator.setSeed(Long.parseLong(value));
+                    case "--impressions" -> generator.setImpressionCount(Long.parseLong(value));
+                    case "--users" -> generator.setUserCount(Long.parseLong(value));
+                    case "--start" -> generator.setStart(LocalDate.parse(value).atStartOfDay());
+                    case "--days" -> generator.setDays(Integer.parseInt(value));
+                    case "--ctr" -> generator.setClickThroughRate(Double.parseDouble(value));
+                    case "--conversion-rate" -> generator.setConversionRate(Double.parseDouble(value));
+                    case "--missing-exit-rate" -> generator.setMissingExitRate(Double.parseDouble(value));
+                    case "--gender-weights" -> generator.setGenderWeights(parseWeights(value));
+                    case "--age-weights" -> generator.setAgeWeights(parseWeights(value));
+                    case "--income-weights" -> generator.setIncomeWeights(parseWeights(value));
+                    case "--context-weights" -> generator.setContextWeights(parseWeights(value));
+                    default -> throw new IllegalArgumentException("Unknown option: " + option);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+            return;
+        }
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            System.err.println("Cannot create directory " + directory);
+            System.exit(1);
+            return;
+        }
+        try {
+            long started = System.nanoTime();
+            long clicks = generator.write(new File(directory, "impression_log.csv"),
+                new File(directory, "click_log.csv"), new File(directory, "server_log.csv"));
+            System.out.printf("Wrote %d impressions and %d clicks and server log entries to %s in %.1f s%n",
+                generator.impressionCount, clicks, directory.getAbsolutePath(),
+                (System.nanoTime() - started) / 1e9);
+        } catch (IOException e) {
+            System.err.println("Error writing logs: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static double[] parseWeights(String value) {
+        String[] parts = value.split(",");
+        double[] weights = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            weights[i] = Double.parseDouble(parts[i].trim());
+        }
+        return weights;
+    }
+
+    /**
+     * Spreads a value over 64 bits (the SplitMix64 finaliser).
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
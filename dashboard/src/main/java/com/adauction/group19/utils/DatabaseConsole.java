@@ -46,6 +46,6 @@ public class DatabaseConsole {
    * @return The database connection URL
    */
   public static String getConnectionURL() {
-    return "jdbc:h2:./adauction";
+    return "jdbc:h2:./adauction;AUTO_SERVER=TRUE";
   }
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+package com.adauction.group19.utils;
+
+/**
+ * Utility class for estimating heap usage of campaign data.
+ * The estimates assume a 64-bit JVM with compressed oops (12 byte object headers,
+ * 4 byte references, 8 byte alignment), which is the default for heaps under 32 GB.
+ */
+public class MemoryFootprint {
+
+    /** Size of an object reference. */
+    public static final int REFERENCE = 4;
+
+    /** Size of an object header. */
+    private static final int OBJECT_HEADER = 12;
+
+    /** Size of an array header (object header plus length). */
+    private static final int ARRAY_HEADER = 16;
+
+    /** LocalDateTime plus its LocalDate and LocalTime. */
+    private static final int LOCAL_DATE_TIME = 24 + 24 + 24;
+
+    /** A boxed Double. */
+    private static final int BOXED_DOUBLE = 16;
+
+    /** A HashMap node plus its share of the bucket table at the default load factor. */
+    private static final int HASH_MAP_ENTRY = 32 + 6;
+
+    /**
+     * Rounds a size up to the 8 byte object alignment.
+     * @param bytes The unaligned size.
+     * @return The aligned size.
+     */
+    public static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Estimates the size of an array.
+     * @param length The number of elements.
+     * @param elementBytes The size of each element.
+     * @return The estimated size in bytes.
+     */
+    public static long array(int length, int elementBytes) {
+        return align(ARRAY_HEADER + (long) length * elementBytes);
+    }
+
+    /**
+     * Estimates the size of a Latin-1 String, including its backing array.
+     * @param length The number of characters.
+     * @return The estimated size in bytes.
+     */
+    public static long string(int length) {
+        return align(OBJECT_HEADER + 12) + array(length, Byte.BYTES);
+    }
+
+    /**
+     * Estimates the heap the original row layout ({@code List<Object[]>} rows plus a
+     * {@code HashMap<String, Object[]>} of demographics) would need for the same data.
+     * Every row holds its own LocalDateTime and String ID, as the parser created them.
+     *
+     * @param impressions The number of impressions.
+     * @param clicks The number of clicks.
+     * @param serverLogs The number of server log entries.
+     * @param users The number of users with demographics.
+     * @param idLength The typical length of a user ID.
+     * @return The estimated size in bytes.
+     */
+    public static long estimateRowLayout(int impressions, int clicks, int serverLogs, int users, int idLength) {
+        long id = string(idLength);
+
+        // Object[]{dateTime, cost, id}
+        long costRow = REFERENCE + array(3, REFERENCE) + LOCAL_DATE_TIME + BOXED_DOUBLE + id;
+        // Object[]{entry, exit, pages, conversion, id}; small Integers and Booleans are cached
+        long serverRow = REFERENCE + array(5, REFERENCE) + 2L * LOCAL_DATE_TIME + id;
+        // userMap entry: Object[]{gender, ageRange, income, context}, key shared with a row
+        long user = HASH_MAP_ENTRY + array(4, REFERENCE);
+
+        return (impressions + (long) clicks) * costRow + serverLogs * serverRow + users * user;
+    }
+
+    /**
+     * Formats a byte count for log output.
+     * @param bytes The byte count.
+     * @return The formatted size, e.g. "12.3 MB".
+     */
+    public static String format(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
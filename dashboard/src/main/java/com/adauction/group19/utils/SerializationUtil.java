@@ -1,5 +1,8 @@
 package com.adauction.group19.utils;
 
+import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.model.CampaignDataCodec;
+
 import java.io.*;
 
 /**
@@ -38,4 +41,42 @@ public class SerializationUtil {
             return ois.readObject();
         }
     }
+
+    /**
+     * Encodes campaign data in the compact binary format.
+     *
+     * @param campaignData The campaign data to encode.
+     * @return The encoded byte array.
+     */
+    public static byte[] serialiseCampaign(CampaignData campaignData) {
+        return CampaignDataCodec.encode(campaignData);
+    }
+
+    /**
+     * Decodes saved campaign data, in either the compact binary format or the
+     * Java serialization used by older versions.
+     *
+     * @param data The saved byte array.
+     * @return The campaign data.
+     * @throws IOException            If the data cannot be read.
+     * @throws ClassNotFoundException If the class of a serialised object cannot be found.
+     */
+    public static CampaignData deserialiseCampaign(byte[] data)
+            throws IOException, ClassNotFoundException {
+        if (CampaignDataCodec.isEncoded(data)) {
+            return CampaignDataCodec.decode(data);
+        }
+        return (CampaignData) deserialise(data);
+    }
+
+    /**
+     * Returns whether saved campaign data is in the old Java serialization format
+     * and should be re-encoded.
+     *
+     * @param data The saved byte array.
+     * @return True if the data is not in the compact binary format.
+     */
+    public static boolean isLegacyCampaign(byte[] data) {
+        return !CampaignDataCodec.isEncoded(data);
+    }
 }
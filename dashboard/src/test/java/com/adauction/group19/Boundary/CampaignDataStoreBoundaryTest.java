@@ -1,6 +1,7 @@
 package com.adauction.group19.Boundary;
 
 import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.model.CampaignSnapshot;
 import com.adauction.group19.service.CampaignDataStore;
 import com.adauction.group19.view.ViewMetricsScreen;
 import javafx.scene.Scene;
@@ -27,7 +28,7 @@ public class CampaignDataStoreBoundaryTest extends ApplicationTest {
         testData = createTestCampaignData(1000);
         CampaignDataStore.getInstance().setCampaignData(testData);
 
-        CampaignData data = CampaignDataStore.getInstance().getCampaignData();
+        CampaignSnapshot data = CampaignDataStore.getInstance().getCampaignData();
         assertEquals(testData, data);
     }
 
@@ -36,7 +37,7 @@ public class CampaignDataStoreBoundaryTest extends ApplicationTest {
         testData = createTestCampaignData(0);
         CampaignDataStore.getInstance().setCampaignData(testData);
 
-        CampaignData data = CampaignDataStore.getInstance().getCampaignData();
+        CampaignSnapshot data = CampaignDataStore.getInstance().getCampaignData();
         assertEquals(testData, data);
     }
 }
@@ -32,7 +32,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 public class BounceRegistrationScenarioTest extends ApplicationTest {
 
     private MetricsScreenController controller;
-    private CampaignData data;
+    private CampaignSnapshot data;
     private List<Set<Enum<?>>> filters = new ArrayList<>();
 
     @Override
@@ -40,8 +40,9 @@ public class BounceRegistrationScenarioTest extends ApplicationTest {
         // Setup authentication
         TestUtils.setupAuthenticatedSession();
         
-        data = CampaignDataUtil.createTestCampaignData(14);
-        CampaignDataStore.getInstance().setCampaignData(data);
+        CampaignData campaignData = CampaignDataUtil.createTestCampaignData(14);
+        CampaignDataStore.getInstance().setCampaignData(campaignData);
+        data = campaignData;
 
         for (int i = 0; i < 4; i++) {
             filters.add(new HashSet<>());
@@ -77,10 +78,11 @@ public class BounceRegistrationScenarioTest extends ApplicationTest {
             data.getBounceCriteria().isConsiderTimeOnSite()
         );
         
-        // Apply bounce criteria changes directly
+        // Apply bounce criteria changes directly, as a view of the stored campaign
         BounceCriteria bounceCriteria = data.getBounceCriteria();
         bounceCriteria.setConsiderTimeOnSite(false);
         bounceCriteria.setMinPagesViewed(1);
+        data = CampaignDataStore.getInstance().updateCampaignData(current -> current.withBounceCriteria(bounceCriteria));
         
         // Update the UI
         Platform.runLater(() -> {
@@ -0,0 +1,76 @@
+package com.adauction.group19.Unit;
+
+import com.adauction.group19.BatchMain;
+import com.adauction.group19.utils.CampaignLogGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchMainUnitTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @Test
+    void testCampaignsAreWrittenForEachRangeGranularityAndFormat() throws Exception {
+        File first = generate("first", 1);
+        File second = generate("second", 2);
+        File out = tempDir.resolve("out").toFile();
+
+        int status = run("--out", out.getPath(), "--format", "csv,json", "--granularity", "daily,hourly",
+            "--metrics", "Impressions,Bounce Rate", "--filter", "gender=Female",
+            "--range", "2015-01-02:2015-01-03", "--threads", "2", first.getPath(),
+            "--logs", new File(second, "impression_log.csv") + "," + new File(second, "click_log.csv") + ","
+                + new File(second, "server_log.csv"));
+        assertEquals(0, status, err.toString());
+        assertEquals(8, out.list().length);
+
+        List<String> daily = Files.readAllLines(new File(out, "first_2015-01-02_2015-01-03_daily.csv").toPath());
+        assertEquals(List.of("Date,Impressions,Bounce Rate"), daily.subList(0, 1));
+        assertEquals(3, daily.size());
+        assertTrue(daily.get(1).startsWith("2015-01-02,"));
+        List<String> hourly = Files.readAllLines(new File(out, "first_2015-01-02_2015-01-03_hourly.csv").toPath());
+        assertEquals(1 + 48, hourly.size());
+        assertTrue(new File(out, "impression_log_2015-01-02_2015-01-03_daily.json").isFile());
+    }
+
+    @Test
+    void testFailuresAndBadOptions() throws Exception {
+        File campaign = generate("campaign", 3);
+        File out = tempDir.resolve("out").toFile();
+
+        // One missing campaign fails the batch but the others are still written
+        assertEquals(1, run("--out", out.getPath(), campaign.getPath(), tempDir.resolve("missing").toString()));
+        assertTrue(new File(out, "campaign_2015-01-01_2015-01-14_daily.pdf").isFile());
+        assertTrue(err.toString().contains("missing"));
+
+        assertEquals(2, run(campaign.getPath(), "--filter", "age=banana"));
+        assertEquals(2, run(campaign.getPath(), "--range", "2015-01-09:yesterday"));
+        assertEquals(2, run(campaign.getPath(), "--granularity", "monthly"));
+        assertEquals(2, run());
+    }
+
+    private int run(String... args) {
+        return new BatchMain(new PrintStream(new ByteArrayOutputStream()), new PrintStream(err)).run(args);
+    }
+
+    private File generate(String name, long seed) throws Exception {
+        File directory = Files.createDirectory(tempDir.resolve(name)).toFile();
+        CampaignLogGenerator generator = new CampaignLogGenerator();
+        generator.setSeed(seed);
+        generator.setImpressionCount(5_000);
+        generator.write(new File(directory, "impression_log.csv"), new File(directory, "click_log.csv"),
+            new File(directory, "server_log.csv"));
+        return directory;
+    }
+}
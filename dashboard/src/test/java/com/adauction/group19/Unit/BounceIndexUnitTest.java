@@ -0,0 +1,103 @@
+package com.adauction.group19.Unit;
+
+import com.adauction.group19.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static com.adauction.group19.Util.CampaignDataUtil.filter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BounceIndexUnitTest {
+
+    private static final long START = 1_740_000_000L;
+
+    private UserDictionary users;
+    private ServerLogColumns serverLogs;
+    private BounceIndex index;
+
+    @BeforeEach
+    void setUp() {
+        users = new UserDictionary();
+        serverLogs = new ServerLogColumns();
+        Random random = new Random(19);
+        for (int i = 0; i < 50; i++) {
+            int user = users.intern("user" + i);
+            // Leave a few users without a profile
+            if (i % 10 != 0) {
+                users.setProfile(user, Gender.values()[i % 2], AgeRange.values()[i % AgeRange.values().length],
+                    Income.values()[i % Income.values().length], Context.values()[i % Context.values().length]);
+            }
+        }
+        for (int row = 0; row < 2000; row++) {
+            long entry = START + random.nextInt(86_400);
+            long exit = entry + random.nextInt(40) - 5;
+            if (row % 17 == 0) {
+                exit = EpochSeconds.ABSENT;
+            }
+            int user = row % 23 == 0 ? UserDictionary.NO_USER : random.nextInt(50);
+            serverLogs.add(entry, exit, random.nextInt(8), random.nextBoolean(), user);
+        }
+        index = BounceIndex.build(users, serverLogs);
+    }
+
+    @Test
+    void testRowsMatchBounceCriteria() {
+        for (BounceCriteria criteria : allCriteria()) {
+            for (int row = 0; row < serverLogs.size(); row++) {
+                assertEquals(isBounce(criteria, row), index.isBounce(row, criteria));
+            }
+        }
+    }
+
+    @Test
+    void testCountsMatchAScanOfTheRows() {
+        List<List<Set<Enum<?>>>> filters = new ArrayList<>();
+        filters.add(filter());
+        filters.add(filter(Gender.FEMALE));
+        filters.add(filter(Income.HIGH, AgeRange.AGE_25_34));
+        for (List<Set<Enum<?>>> filter : filters) {
+            DemographicFilter compiled = new DemographicFilter(filter);
+            for (BounceCriteria criteria : allCriteria()) {
+                int expected = 0;
+                for (int row = 0; row < serverLogs.size(); row++) {
+                    int user = serverLogs.getUser(row);
+                    int segment = user == UserDictionary.NO_USER
+                        ? HourlyCube.NO_PROFILE_SEGMENT : HourlyCube.segmentOf(users, user);
+                    if (HourlyCube.segmentMatches(compiled, segment) && isBounce(criteria, row)) {
+                        expected++;
+                    }
+                }
+                assertEquals(expected, index.countBounces(criteria, compiled));
+            }
+        }
+    }
+
+    @Test
+    void testEmptyLog() {
+        BounceIndex empty = BounceIndex.build(new UserDictionary(), new ServerLogColumns());
+        assertEquals(0, empty.countBounces(new BounceCriteria(), new DemographicFilter(filter())));
+    }
+
+    private boolean isBounce(BounceCriteria criteria, int row) {
+        return criteria.isBounce(serverLogs.getEntryTime(row), serverLogs.getExitTime(row),
+            serverLogs.getPagesViewed(row));
+    }
+
+    private static List<BounceCriteria> allCriteria() {
+        List<BounceCriteria> criteria = new ArrayList<>();
+        for (int pages = 0; pages <= 8; pages += 2) {
+            for (int seconds : new int[] {-1, 0, 4, 20, 60}) {
+                criteria.add(new BounceCriteria(pages, seconds, true, true));
+                criteria.add(new BounceCriteria(pages, seconds, true, false));
+                criteria.add(new BounceCriteria(pages, seconds, false, true));
+                criteria.add(new BounceCriteria(pages, seconds, false, false));
+            }
+        }
+        return criteria;
+    }
+}
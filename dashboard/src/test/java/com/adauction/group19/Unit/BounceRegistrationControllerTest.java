@@ -77,7 +77,8 @@ public class BounceRegistrationControllerTest extends ApplicationTest {
             BounceRegistrationController.instance.handleSave();
         });
 
-        BounceCriteria updatedCriteria = data.getBounceCriteria();
+        // The stored campaign is replaced by a view under the new criteria
+        BounceCriteria updatedCriteria = CampaignDataStore.getInstance().getCampaignData().getBounceCriteria();
         assertEquals(30, updatedCriteria.getMinPagesViewed());
         assertEquals(20, updatedCriteria.getMinTimeOnSiteSeconds());
         assertEquals(true, updatedCriteria.isConsiderPagesViewed());
@@ -0,0 +1,62 @@
+package com.adauction.group19.Unit;
+
+import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.service.CampaignCache;
+import org.junit.jupiter.api.Test;
+
+import static com.adauction.group19.Util.CampaignDataUtil.createTestCampaignData;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CampaignCacheUnitTest {
+
+    @Test
+    void testCampaignsAreKeyedByIdAndVersion() {
+        CampaignCache cache = new CampaignCache(Long.MAX_VALUE);
+        CampaignData campaignData = createTestCampaignData(7);
+        cache.put(1, 0, campaignData);
+
+        assertTrue(campaignData.isFrozen());
+        assertSame(campaignData, cache.get(1, 0));
+        assertNull(cache.get(2, 0));
+        // A newer version of the saved data replaces the cached one
+        assertNull(cache.get(1, 1));
+        assertNull(cache.get(1, 0));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(0, cache.getTotalBytes());
+
+        cache.put(1, 1, campaignData);
+        cache.invalidate(1);
+        assertNull(cache.get(1, 1));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedCampaignsAreEvictedBySize() {
+        CampaignData first = createTestCampaignData(7);
+        CampaignData second = createTestCampaignData(7);
+        CampaignData third = createTestCampaignData(7);
+        long bytes = first.freeze().estimateRetainedFootprint();
+        assertTrue(bytes > first.estimateMemoryFootprint());
+
+        // Room for two campaigns of this size, but not three
+        CampaignCache cache = new CampaignCache(bytes * 5 / 2);
+        cache.put(1, 0, first);
+        cache.put(2, 0, second);
+        assertSame(first, cache.get(1, 0));
+        cache.put(3, 0, third);
+
+        assertSame(first, cache.get(1, 0));
+        assertNull(cache.get(2, 0));
+        assertSame(third, cache.get(3, 0));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertTrue(cache.getTotalBytes() <= cache.getMaxBytes());
+
+        // A campaign bigger than the whole cache is not kept
+        CampaignCache small = new CampaignCache(bytes / 2);
+        small.put(1, 0, first);
+        assertEquals(0, small.size());
+        assertNull(small.get(1, 0));
+    }
+}
@@ -0,0 +1,102 @@
+package com.adauction.group19.Unit;
+
+import com.adauction.group19.model.*;
+import com.adauction.group19.utils.SerializationUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.adauction.group19.Util.CampaignDataUtil.createTestCampaignData;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CampaignDataCodecUnitTest {
+
+    private CampaignData campaignData;
+    private LocalDateTime baseDateTime;
+    private List<Set<Enum<?>>> filters = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        baseDateTime = LocalDateTime.of(2025, 3, 1, 12, 30, 0);
+        campaignData = new CampaignData();
+
+        campaignData.addImpression(baseDateTime, "a", Gender.MALE, AgeRange.AGE_25_34, Income.LOW, Context.BLOG, 1.0);
+        campaignData.addImpression(baseDateTime.plusMinutes(10), "b", Gender.FEMALE, AgeRange.AGE_55_PLUS, Income.HIGH, Context.NEWS, 0.001713);
+        campaignData.addImpression(baseDateTime.minusDays(3), "c", Gender.FEMALE, AgeRange.AGE_25_MINUS, Income.MEDIUM, Context.SHOPPING, 4.0);
+
+        campaignData.addClick(baseDateTime, 10.0, "a");
+        campaignData.addClick(baseDateTime.plusDays(1), 20.0, "d");
+        campaignData.addClick(baseDateTime.plusDays(2), 5.0, null);
+
+        campaignData.addServerLogEntry(baseDateTime, baseDateTime.plusSeconds(2), 1, false, "a");
+        campaignData.addServerLogEntry(baseDateTime, null, 5, true, "b");
+        campaignData.setBounceCriteria(new BounceCriteria(3, 30, true, false));
+
+        for (int i = 0; i < 4; i++) {
+            filters.add(new HashSet<>());
+        }
+    }
+
+    @Test
+    void testRoundTripKeepsEveryRow() throws Exception {
+        byte[] data = SerializationUtil.serialiseCampaign(campaignData);
+        assertFalse(SerializationUtil.isLegacyCampaign(data));
+        CampaignData copy = SerializationUtil.deserialiseCampaign(data);
+
+        assertRowsEqual(campaignData.getImpressions(filters), copy.getImpressions(filters));
+        assertRowsEqual(campaignData.getClicks(filters), copy.getClicks(filters));
+        assertRowsEqual(campaignData.getServerLogs(filters), copy.getServerLogs(filters));
+        assertEquals(campaignData.getBounceCriteria(), copy.getBounceCriteria());
+
+        filters.get(1).add(AgeRange.AGE_55_PLUS);
+        assertRowsEqual(campaignData.getImpressions(filters), copy.getImpressions(filters));
+
+        // The copy must still accept new rows
+        copy.addClick(baseDateTime, 1.0, "e");
+        assertEquals(campaignData.getTotalClicks(filters) + 1, copy.getTotalClicks(filters));
+    }
+
+    @Test
+    void testLegacySerialisationStillLoads() throws Exception {
+        byte[] legacy = SerializationUtil.serialise(campaignData);
+        assertTrue(SerializationUtil.isLegacyCampaign(legacy));
+
+        CampaignData copy = SerializationUtil.deserialiseCampaign(legacy);
+        assertRowsEqual(campaignData.getServerLogs(filters), copy.getServerLogs(filters));
+    }
+
+    @Test
+    void testEncodingIsSmallerThanSerialisation() throws Exception {
+        CampaignData data = createTestCampaignData(60);
+        data.trimToSize();
+
+        assertTrue(SerializationUtil.serialiseCampaign(data).length * 2 < SerializationUtil.serialise(data).length,
+            "Encoded campaign should be well under half the serialised size");
+    }
+
+    @Test
+    void testCorruptDataIsRejected() {
+        byte[] data = CampaignDataCodec.encode(campaignData);
+
+        assertThrows(IOException.class, () -> CampaignDataCodec.decode(Arrays.copyOf(data, data.length - 5)));
+        assertThrows(IOException.class, () -> CampaignDataCodec.decode(new byte[]{1, 2, 3}));
+
+        byte[] newer = data.clone();
+        newer[5] = (byte) (CampaignDataCodec.FORMAT_VERSION + 1);
+        assertThrows(IOException.class, () -> CampaignDataCodec.decode(newer));
+    }
+
+    private static void assertRowsEqual(List<Object[]> expected, List<Object[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i));
+        }
+    }
+}
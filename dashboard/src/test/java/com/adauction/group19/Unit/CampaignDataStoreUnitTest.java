@@ -1,6 +1,7 @@
 package com.adauction.group19.Unit;
 
 import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.model.CampaignSnapshot;
 import com.adauction.group19.service.CampaignDataStore;
 import com.adauction.group19.view.ViewMetricsScreen;
 import javafx.scene.Scene;
@@ -27,7 +28,7 @@ public class CampaignDataStoreUnitTest extends ApplicationTest {
 
     @Test
     public void testCampaignDataStore() {
-        CampaignData data = CampaignDataStore.getInstance().getCampaignData();
+        CampaignSnapshot data = CampaignDataStore.getInstance().getCampaignData();
         assertEquals(testData, data);
     }
 
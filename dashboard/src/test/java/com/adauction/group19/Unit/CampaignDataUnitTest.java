@@ -0,0 +1,220 @@
+package com.adauction.group19.Unit;
+
+import com.adauction.group19.model.*;
+import com.adauction.group19.service.CampaignDataStore;
+import com.adauction.group19.utils.SerializationUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.adauction.group19.Util.CampaignDataUtil.createTestCampaignData;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CampaignDataUnitTest {
+
+    private CampaignData campaignData;
+    private LocalDateTime baseDateTime;
+    private List<Set<Enum<?>>> filters = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        baseDateTime = LocalDateTime.of(2025, 3, 1, 12, 30, 0);
+        campaignData = new CampaignData();
+
+        campaignData.addImpression(baseDateTime, "a", Gender.MALE, AgeRange.AGE_25_34, Income.LOW, Context.BLOG, 1.0);
+        campaignData.addImpression(baseDateTime.plusMinutes(10), "b", Gender.FEMALE, AgeRange.AGE_35_44, Income.HIGH, Context.NEWS, 2.0);
+        campaignData.addImpression(baseDateTime.plusHours(1), "a", Gender.MALE, AgeRange.AGE_25_34, Income.LOW, Context.BLOG, 3.0);
+        campaignData.addImpression(baseDateTime.plusDays(1), "c", Gender.FEMALE, AgeRange.AGE_25_34, Income.LOW, Context.SHOPPING, 4.0);
+
+        campaignData.addClick(baseDateTime, 10.0, "a");
+        campaignData.addClick(baseDateTime.plusDays(1), 20.0, "c");
+
+        campaignData.addServerLogEntry(baseDateTime, baseDateTime.plusSeconds(2), 1, false, "a");
+        campaignData.addServerLogEntry(baseDateTime, null, 5, true, "b");
+
+        for (int i = 0; i < 4; i++) {
+            filters.add(new HashSet<>());
+        }
+    }
+
+    @Test
+    void testTotals() {
+        assertEquals(4, campaignData.getTotalImpressions(filters));
+        assertEquals(2, campaignData.getTotalClicks(filters));
+        assertEquals(3, campaignData.getTotalUniques(filters));
+        assertEquals(1, campaignData.getTotalConversions(filters));
+        assertEquals(1, campaignData.getTotalBounces(filters));
+        assertEquals(40.0, campaignData.getTotalCost(filters), 1e-9);
+    }
+
+    @Test
+    void testFilterOnDemographics() {
+        filters.get(0).add(Gender.MALE);
+
+        assertEquals(2, campaignData.getTotalImpressions(filters));
+        assertEquals(1, campaignData.getTotalClicks(filters));
+        assertEquals(14.0, campaignData.getTotalCost(filters), 1e-9);
+        assertEquals(0, campaignData.getTotalConversions(filters));
+    }
+
+    @Test
+    void testUsersWithoutImpressionsMatchAnyFilter() {
+        campaignData.addClick(baseDateTime, 5.0, "unknown");
+        filters.get(3).add(Context.NEWS);
+
+        // Click from "b" (NEWS) and from the user with no demographics
+        assertEquals(1, campaignData.getTotalClicks(filters));
+        campaignData.addClick(baseDateTime, 5.0, "b");
+        assertEquals(2, campaignData.getTotalClicks(filters));
+    }
+
+    @Test
+    void testDailyAndHourlyMetrics() {
+        assertEquals(3, campaignData.getImpressionsForDate(baseDateTime, filters));
+        assertEquals(1, campaignData.getImpressionsForDate(baseDateTime.plusDays(1), filters));
+        assertEquals(2, campaignData.getUniquesForDate(baseDateTime, filters));
+        assertEquals(16.0, campaignData.getTotalCostForDate(baseDateTime, filters), 1e-9);
+
+        assertEquals(2, campaignData.getHourlyImpressions(baseDateTime.withMinute(0), filters));
+        assertEquals(1, campaignData.getHourlyImpressions(baseDateTime.plusHours(1), filters));
+        assertEquals(13.0, campaignData.getHourlyTotalCost(baseDateTime, filters), 1e-9);
+        assertEquals(1, campaignData.getHourlyConversions(baseDateTime, filters));
+    }
+
+    @Test
+    void testHourlyCubeMatchesRows() {
+        CampaignData data = createTestCampaignData(10);
+        data.addImpression(LocalDateTime.now().minusDays(3).withHour(22), "other", Gender.FEMALE,
+            AgeRange.AGE_45_54, Income.HIGH, Context.NEWS, 1.5);
+        data.buildIndexes();
+        filters.get(0).add(Gender.FEMALE);
+
+        for (int i = 0; i <= 10; i++) {
+            LocalDateTime date = LocalDateTime.now().minusDays(i);
+            long impressions = data.getImpressions(filters).stream()
+                .filter(row -> ((LocalDateTime) row[0]).toLocalDate().equals(date.toLocalDate()))
+                .count();
+            double cost = data.getImpressions(filters).stream()
+                .filter(row -> ((LocalDateTime) row[0]).toLocalDate().equals(date.toLocalDate()))
+                .mapToDouble(row -> (double) row[1]).sum()
+                + data.getClicks(filters).stream()
+                .filter(row -> ((LocalDateTime) row[0]).toLocalDate().equals(date.toLocalDate()))
+                .mapToDouble(row -> (double) row[1]).sum();
+
+            assertEquals(impressions, data.getImpressionsForDate(date, filters));
+            assertEquals(cost, data.getTotalCostForDate(date, filters), 1e-9);
+            assertEquals(impressions, data.getHourlyImpressions(date.withHour(10), filters)
+                + data.getHourlyImpressions(date.withHour(22), filters));
+        }
+    }
+
+    @Test
+    void testBounceCriteriaEditedInPlaceIsPickedUp() {
+        assertTrue(campaignData.getHourlyBounceRate(baseDateTime, filters) > 0);
+        assertEquals(1, campaignData.getBouncesForDate(baseDateTime, filters));
+
+        // The bounce settings screen changes the existing criteria object
+        campaignData.getBounceCriteria().setMinPagesViewed(10);
+        assertEquals(2, campaignData.getBouncesForDate(baseDateTime, filters));
+
+        campaignData.getBounceCriteria().setConsiderPagesViewed(false);
+        campaignData.getBounceCriteria().setConsiderTimeOnSite(false);
+        assertEquals(0, campaignData.getBouncesForDate(baseDateTime, filters));
+    }
+
+    @Test
+    void testFrozenDataHasBounceViews() throws Exception {
+        campaignData.freeze();
+        assertThrows(IllegalStateException.class, () -> campaignData.addClick(baseDateTime, 1.0, "a"));
+        assertThrows(IllegalStateException.class, () -> campaignData.setBounceCriteria(new BounceCriteria()));
+
+        // Editing the returned criteria leaves the frozen data as it was
+        campaignData.getBounceCriteria().setMinPagesViewed(10);
+        assertEquals(1, campaignData.getBouncesForDate(baseDateTime, filters));
+
+        BounceCriteria criteria = campaignData.getBounceCriteria();
+        criteria.setMinPagesViewed(10);
+        CampaignData view = campaignData.withBounceCriteria(criteria);
+        assertTrue(view.isFrozen());
+        assertEquals(2, view.getBouncesForDate(baseDateTime, filters));
+        assertEquals(2, view.getTotalBounces(filters));
+        assertEquals(1, campaignData.getBouncesForDate(baseDateTime, filters));
+        assertEquals(campaignData.getTotalImpressions(filters), view.getTotalImpressions(filters));
+        assertSame(campaignData, campaignData.withBounceCriteria(campaignData.getBounceCriteria()));
+        assertThrows(IllegalStateException.class, () -> new CampaignData().withBounceCriteria(criteria));
+
+        // Readers of the store always see one whole snapshot while it is replaced
+        CampaignDataStore store = CampaignDataStore.getInstance();
+        store.setCampaignData(campaignData);
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> reads = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                reads.add(readers.submit(() -> {
+                    for (int j = 0; j < 2_000; j++) {
+                        int bounces = store.getCampaignData().getBouncesForDate(baseDateTime, filters);
+                        if (bounces != 1 && bounces != 2) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (int i = 0; i < 100; i++) {
+                store.updateCampaignData(data -> data.withBounceCriteria(
+                    data == campaignData ? criteria : campaignData.getBounceCriteria()));
+            }
+            for (Future<Boolean> read : reads) {
+                assertTrue(read.get());
+            }
+        } finally {
+            readers.shutdown();
+            store.clearCampaignData();
+        }
+    }
+
+    @Test
+    void testRowsAreRebuiltOnDemand() {
+        List<Object[]> serverLogs = campaignData.getServerLogs(filters);
+        assertEquals(2, serverLogs.size());
+        assertEquals(baseDateTime, serverLogs.get(0)[0]);
+        assertNull(serverLogs.get(1)[1]);
+        assertEquals("b", serverLogs.get(1)[4]);
+
+        List<Object[]> impressions = campaignData.getImpressions(filters);
+        assertEquals(2.0, impressions.get(1)[1]);
+        assertEquals("b", impressions.get(1)[2]);
+    }
+
+    @Test
+    void testSerialisationRoundTrip() throws Exception {
+        campaignData.trimToSize();
+        CampaignData copy = (CampaignData) SerializationUtil.deserialise(SerializationUtil.serialise(campaignData));
+
+        assertEquals(campaignData.getTotalImpressions(filters), copy.getTotalImpressions(filters));
+        assertEquals(campaignData.getTotalUniques(filters), copy.getTotalUniques(filters));
+        assertEquals(campaignData.getTotalCost(filters), copy.getTotalCost(filters), 1e-9);
+        assertEquals(campaignData.getTotalBounces(filters), copy.getTotalBounces(filters));
+
+        // The copy must still accept new rows after being trimmed
+        copy.addClick(baseDateTime, 1.0, "a");
+        assertEquals(3, copy.getTotalClicks(filters));
+    }
+
+    @Test
+    void testColumnarFootprintIsSmallerThanRowLayout() {
+        CampaignData data = createTestCampaignData(60);
+        data.trimToSize();
+
+        assertTrue(data.estimateMemoryFootprint() * 3 < data.estimateRowLayoutFootprint(),
+            "Columnar layout should use well under a third of the row layout");
+    }
+}
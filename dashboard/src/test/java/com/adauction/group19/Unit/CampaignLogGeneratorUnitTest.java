@@ -0,0 +1,91 @@
+package com.adauction.group19.Unit;
+
+import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.service.FileParserService;
+import com.adauction.group19.utils.CampaignLogGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static com.adauction.group19.Util.CampaignDataUtil.filter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CampaignLogGeneratorUnitTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testGeneratedLogsLoadWithTheConfiguredRates() throws Exception {
+        CampaignLogGenerator generator = new CampaignLogGenerator();
+        generator.setImpressionCount(20_000);
+        generator.setUserCount(2_000);
+        generator.setClickThroughRate(0.1);
+        generator.setConversionRate(0.5);
+        File[] logs = write(generator, "a");
+
+        CampaignData campaignData = new FileParserService().parseCampaignData(logs[0], logs[1], logs[2]);
+        List<Set<Enum<?>>> noFilter = filter();
+        assertEquals(20_000, campaignData.getTotalImpressions(noFilter));
+        assertEquals(2_000, campaignData.getTotalClicks(noFilter), 200);
+        assertEquals(campaignData.getClickCount(), campaignData.getServerLogCount());
+        assertEquals(campaignData.getClickCount() / 2.0, campaignData.getTotalConversions(noFilter), 100);
+        assertTrue(campaignData.getTotalUniques(noFilter) <= 2_000);
+        assertEquals(14, campaignData.getFirstDate().until(campaignData.getLastDate()).getDays() + 1);
+    }
+
+    @Test
+    void testSameSeedGivesSameLogs() throws Exception {
+        CampaignLogGenerator generator = new CampaignLogGenerator();
+        generator.setImpressionCount(1_000);
+        File[] first = write(generator, "first");
+        File[] second = write(generator, "second");
+        generator.setSeed(20);
+        File[] other = write(generator, "other");
+
+        for (int i = 0; i < first.length; i++) {
+            assertArrayEquals(Files.readAllBytes(first[i].toPath()), Files.readAllBytes(second[i].toPath()));
+        }
+        assertFalse(Files.readAllLines(first[0].toPath()).equals(Files.readAllLines(other[0].toPath())));
+        assertThrows(IllegalArgumentException.class, () -> generator.setClickThroughRate(1.5));
+    }
+
+    @Test
+    void testSkewAndMissingExitDates() throws Exception {
+        CampaignLogGenerator generator = new CampaignLogGenerator();
+        generator.setImpressionCount(10_000);
+        generator.setClickThroughRate(0.2);
+        generator.setGenderWeights(0, 1);
+        generator.setIncomeWeights(1, 0, 3);
+        generator.setMissingExitRate(0.25);
+        File[] logs = write(generator, "skewed");
+
+        List<String> impressions = Files.readAllLines(logs[0].toPath());
+        assertTrue(impressions.stream().skip(1).allMatch(line -> line.contains(",Female,")));
+        assertTrue(impressions.stream().skip(1).noneMatch(line -> line.contains(",Medium,")));
+        long high = impressions.stream().filter(line -> line.contains(",High,")).count();
+        assertEquals(0.75, high / 10_000.0, 0.05);
+
+        List<String> serverLogs = Files.readAllLines(logs[2].toPath());
+        long missing = serverLogs.stream().filter(line -> line.contains(",n/a,")).count();
+        assertEquals(0.25, missing / (double) (serverLogs.size() - 1), 0.05);
+        CampaignData campaignData = new FileParserService().parseCampaignData(logs[0], logs[1], logs[2]);
+        assertEquals(serverLogs.size() - 1, campaignData.getServerLogCount());
+
+        assertThrows(IllegalArgumentException.class, () -> generator.setAgeWeights(1, 2));
+        assertThrows(IllegalArgumentException.class, () -> generator.setContextWeights(0, 0, 0, 0));
+    }
+
+    private File[] write(CampaignLogGenerator generator, String name) throws Exception {
+        File directory = Files.createDirectory(tempDir.resolve(name)).toFile();
+        File[] logs = {new File(directory, "impressions.csv"), new File(directory, "clicks.csv"),
+            new File(directory, "server.csv")};
+        generator.write(logs[0], logs[1], logs[2]);
+        return logs;
+    }
+}
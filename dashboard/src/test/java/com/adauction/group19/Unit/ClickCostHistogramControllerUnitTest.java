@@ -1,5 +1,6 @@
 package com.adauction.group19.Unit;
 
+import com.adauction.group19.model.*;
 import com.adauction.group19.service.ClickDistributionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,8 +10,12 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import static com.adauction.group19.Util.CampaignDataUtil.filter;
 import static org.junit.jupiter.api.Assertions.*;
 
 
@@ -134,4 +139,45 @@ public class ClickCostHistogramControllerUnitTest {
     assertFalse(largeBins.isEmpty(),
         "Distribution should not be empty with large bin count");
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testCampaignDistributionMatchesTheClickLog() throws IOException {
+    CampaignData campaignData = new CampaignData();
+    LocalDateTime time = LocalDateTime.of(2025, 3, 19, 10, 0);
+    for (int i = 1; i <= 30; i++) {
+      campaignData.addClick(time.plusMinutes(i), i / 10.0, String.valueOf(i));
+    }
+
+    for (int bins : new int[] {5, 10, 20}) {
+      Map<Double, Integer> fromColumn = service.calculateClickCostDistribution(campaignData, filter(), bins);
+      Map<Double, Integer> fromFile = service.calculateClickCostDistribution(clickLogFile.getAbsolutePath(), bins);
+      assertEquals(bins, fromColumn.size());
+      assertEquals(fromFile, fromColumn);
+      assertEquals(30, fromColumn.values().stream().mapToInt(Integer::intValue).sum());
+    }
+  }
+
+  @Test
+  public void testCampaignDistributionHonoursFilters() {
+    CampaignData campaignData = new CampaignData();
+    LocalDateTime time = LocalDateTime.of(2025, 3, 19, 10, 0);
+    for (int i = 0; i < 40; i++) {
+      Gender gender = i % 2 == 0 ? Gender.MALE : Gender.FEMALE;
+      campaignData.addImpression(time, "user" + i, gender, AgeRange.AGE_25_34, Income.LOW, Context.BLOG, 0.1);
+      // Men's clicks cost 1 to 2, women's 3 to 4
+      campaignData.addClick(time.plusMinutes(i), (gender == Gender.MALE ? 1 : 3) + i / 40.0, "user" + i);
+    }
+
+    List<Set<Enum<?>>> female = filter(Gender.FEMALE);
+    Map<Double, Integer> distribution = service.calculateClickCostDistribution(campaignData, female, 4);
+    assertEquals(20, distribution.values().stream().mapToInt(Integer::intValue).sum());
+    assertTrue(distribution.keySet().stream().allMatch(cost -> cost >= 3), "Only women's clicks are binned");
+
+    // Clicks without a profile pass every filter
+    campaignData.addClick(time, 0.5, "unknown");
+    assertEquals(21, service.calculateClickCostDistribution(campaignData, female, 4)
+        .values().stream().mapToInt(Integer::intValue).sum());
+
+    assertTrue(service.calculateClickCostDistribution(new CampaignData(), female, 4).isEmpty());
+  }
+}
@@ -0,0 +1,68 @@
+package com.adauction.group19.Unit;
+
+import com.adauction.group19.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static com.adauction.group19.Util.CampaignDataUtil.filter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExportWriterUnitTest {
+
+    @Test
+    void testRowsAreQuotedAndEscaped() throws IOException {
+        StringWriter csv = new StringWriter();
+        try (ExportWriter writer = ExportWriter.create(ExportWriter.Format.CSV, csv, "Date", List.of("Name", "Value"))) {
+            writer.writeRow("2025-03-01", Arrays.asList("a, \"b\"", 1.5));
+            writer.writeRow("2025-03-02", Arrays.asList("plain", true));
+        }
+        assertEquals("Date,Name,Value\n2025-03-01,\"a, \"\"b\"\"\",1.5\n2025-03-02,plain,true", csv.toString());
+
+        StringWriter json = new StringWriter();
+        try (ExportWriter writer = ExportWriter.create(ExportWriter.Format.JSON, json, "Date", List.of("Name", "CTR"))) {
+            writer.writeRow("2025-03-01", Arrays.asList("say \"hi\"\n", Double.NaN));
+        }
+        assertEquals("[{\"date\": \"2025-03-01\", \"data\": {\"Name\": \"say \\\"hi\\\"\\u000a\",\"CTR\": null}}]",
+            json.toString());
+
+        StringWriter empty = new StringWriter();
+        ExportWriter.create(ExportWriter.Format.JSON, empty, "Date", List.of()).close();
+        assertEquals("[]", empty.toString());
+        assertEquals(ExportWriter.Format.JSON, ExportWriter.Format.fromExtension("json"));
+    }
+
+    @Test
+    void testRawEventsAreFiltered() throws IOException {
+        LocalDateTime time = LocalDateTime.of(2025, 3, 1, 9, 30);
+        CampaignData campaignData = new CampaignData();
+        campaignData.addImpression(time, "1", Gender.MALE, AgeRange.AGE_25_34, Income.LOW, Context.BLOG, 0.002);
+        campaignData.addImpression(time, "2", Gender.FEMALE, AgeRange.AGE_25_34, Income.LOW, Context.BLOG, 0.003);
+        campaignData.addClick(time.plusSeconds(5), 1.25, "2");
+        campaignData.addServerLogEntry(time.plusSeconds(5), null, 3, true, "2");
+        campaignData.addServerLogEntry(time.plusSeconds(9), time.plusMinutes(2), 1, false, "1");
+
+        List<Set<Enum<?>>> female = filter(Gender.FEMALE);
+
+        StringWriter impressions = new StringWriter();
+        campaignData.exportImpressions(female, ExportWriter.Format.CSV, impressions);
+        assertEquals("Date,Impression Cost,ID,Gender,Age,Income,Context\n"
+            + "2025-03-01 09:30:00,0.003,2,Female,25-34,Low,Blog", impressions.toString());
+
+        StringWriter clicks = new StringWriter();
+        campaignData.exportClicks(filter(), ExportWriter.Format.JSON, clicks);
+        assertEquals("[{\"date\": \"2025-03-01 09:30:05\", \"data\": {\"Click Cost\": 1.25,\"ID\": \"2\"}}]",
+            clicks.toString());
+
+        StringWriter serverLogs = new StringWriter();
+        campaignData.exportServerLogs(filter(), ExportWriter.Format.CSV, serverLogs);
+        assertEquals("Entry Date,Exit Date,Pages Viewed,Conversion,ID\n"
+            + "2025-03-01 09:30:05,n/a,3,true,2\n"
+            + "2025-03-01 09:30:09,2025-03-01 09:32:00,1,false,1", serverLogs.toString());
+    }
+}
@@ -0,0 +1,105 @@
+package com.adauction.group19.Unit;
+
+import com.adauction.group19.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HyperLogLogUnitTest {
+
+    @Test
+    void testSmallCountsAreExact() {
+        HyperLogLog sketch = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+        assertTrue(sketch.isEmpty());
+        assertEquals(0, sketch.estimate());
+        for (int user = 0; user < 50; user++) {
+            sketch.addUser(user);
+            sketch.addUser(user);
+        }
+        assertEquals(50, sketch.estimate());
+    }
+
+    @Test
+    void testLargeCountsAreWithinTheExpectedError() {
+        for (int precision : new int[] {10, 14}) {
+            HyperLogLog sketch = new HyperLogLog(precision);
+            int users = 200_000;
+            for (int user = 0; user < users; user++) {
+                sketch.addUser(user);
+            }
+            double standardError = 1.04 / Math.sqrt(1 << precision);
+            assertEquals(users, sketch.estimate(), users * standardError * 3);
+        }
+    }
+
+    @Test
+    void testMergeIsTheSketchOfTheUnion() {
+        HyperLogLog left = new HyperLogLog(12);
+        HyperLogLog right = new HyperLogLog(12);
+        HyperLogLog union = new HyperLogLog(12);
+        Random random = new Random(7);
+        for (int i = 0; i < 30_000; i++) {
+            int user = random.nextInt(50_000);
+            (i % 2 == 0 ? left : right).addUser(user);
+            union.addUser(user);
+        }
+        // One side stays sparse, so both merge paths are used
+        HyperLogLog small = new HyperLogLog(12);
+        small.addUser(3);
+        small.addUser(60_000);
+        union.addUser(60_000);
+
+        left.merge(right);
+        left.merge(small);
+        assertEquals(union.estimate(), left.estimate());
+    }
+
+    @Test
+    void testInvalidPrecisions() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(HyperLogLog.MIN_PRECISION - 1));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(HyperLogLog.MAX_PRECISION + 1));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(10).merge(new HyperLogLog(11)));
+    }
+
+    @Test
+    void testCampaignUniquesMatchExactCounts() {
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 0, 0);
+        CampaignData campaignData = new CampaignData();
+        Random random = new Random(19);
+        Set<Integer> femaleIds = new HashSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            int id = random.nextInt(5_000);
+            if (id % 2 == 1) {
+                femaleIds.add(id);
+            }
+            campaignData.addImpression(start.plusMinutes(random.nextInt(3 * 24 * 60)), "user" + id,
+                Gender.values()[id % 2], AgeRange.values()[id % AgeRange.values().length],
+                Income.values()[id % Income.values().length], Context.values()[id % Context.values().length], 0.1);
+        }
+        List<Set<Enum<?>>> female = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            female.add(new HashSet<>());
+        }
+        female.get(0).add(Gender.FEMALE);
+
+        int estimatedTotal = campaignData.getTotalUniques(female);
+        int estimatedDay = campaignData.getUniquesForDate(start.plusDays(1), female);
+
+        campaignData.setUniquesPrecision(CampaignData.EXACT_UNIQUES);
+        int exactTotal = campaignData.getTotalUniques(female);
+        int exactDay = campaignData.getUniquesForDate(start.plusDays(1), female);
+        assertEquals(femaleIds.size(), exactTotal);
+        // Three standard errors at the default precision
+        assertEquals(exactTotal, estimatedTotal, exactTotal * 0.025);
+        assertEquals(exactDay, estimatedDay, exactDay * 0.025);
+
+        assertThrows(IllegalArgumentException.class, () -> campaignData.setUniquesPrecision(2));
+    }
+}
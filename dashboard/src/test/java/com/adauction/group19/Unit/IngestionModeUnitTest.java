@@ -0,0 +1,180 @@
+package com.adauction.group19.Unit;
+
+import com.adauction.group19.model.CampaignData;
+import com.adauction.group19.model.Gender;
+import com.adauction.group19.service.FileParserService;
+import com.adauction.group19.service.IngestionMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IngestionModeUnitTest {
+
+    private static final String[] AGES = {"<25", "25-34", "35-44", "45-54", ">54"};
+    private static final String[] INCOMES = {"Low", "Medium", "High"};
+    private static final String[] CONTEXTS = {"Blog", "News", "Shopping", "Social Media", "Hobbies", "Travel"};
+
+    @TempDir
+    Path tempDir;
+
+    private File impressionFile;
+    private File clickFile;
+    private File serverFile;
+    private List<Set<Enum<?>>> filters = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        StringBuilder impressions = new StringBuilder("Date,ID,Gender,Age,Income,Context,Impression Cost\n");
+        StringBuilder clicks = new StringBuilder("Date,ID,Click Cost\n");
+        StringBuilder serverLogs = new StringBuilder("Entry Date,ID,Exit Date,Pages Viewed,Conversion\n");
+        for (int i = 0; i < 3000; i++) {
+            String time = String.format("2015-01-%02d %02d:%02d:%02d", 1 + i % 14, i % 24, i % 60, (i * 7) % 60);
+            String id = String.valueOf(8895519749317550000L + i % 700);
+            impressions.append(time).append(',').append(id).append(',')
+                .append(i % 3 == 0 ? "Female" : "Male").append(',')
+                .append(AGES[i % AGES.length]).append(',')
+                .append(INCOMES[i % INCOMES.length]).append(',')
+                .append(CONTEXTS[i % CONTEXTS.length]).append(',')
+                .append(String.format("%.6f", (i % 100) / 1000.0)).append('\n');
+            if (i % 3 == 0) {
+                clicks.append(time).append(',').append(id).append(',')
+                    .append(String.format("%.6f", (i % 50) / 10.0)).append('\n');
+                serverLogs.append(time).append(',').append(id).append(',')
+                    .append(i % 9 == 0 ? "n/a" : time).append(',')
+                    .append(1 + i % 6).append(',')
+                    .append(i % 4 == 0 ? "Yes" : "No").append('\n');
+            }
+        }
+        impressionFile = write("impression_log.csv", impressions);
+        clickFile = write("click_log.csv", clicks);
+        serverFile = write("server_log.csv", serverLogs);
+
+        for (int i = 0; i < 4; i++) {
+            filters.add(new HashSet<>());
+        }
+    }
+
+    private File write(String name, StringBuilder content) throws IOException {
+        Path path = tempDir.resolve(name);
+        Files.writeString(path, content);
+        return path.toFile();
+    }
+
+    @Test
+    void testParallelMatchesSequential() throws Exception {
+        // Small chunks so every file is split many times
+        FileParserService parser = new FileParserService(1000);
+        CampaignData sequential = parser.parseCampaignData(impressionFile, clickFile, serverFile, IngestionMode.SEQUENTIAL);
+        CampaignData parallel = parser.parseCampaignData(impressionFile, clickFile, serverFile, IngestionMode.PARALLEL);
+
+        assertSameData(sequential, parallel);
+    }
+
+    @Test
+    void testMappedMatchesSequential() throws Exception {
+        FileParserService parser = new FileParserService();
+        CampaignData sequential = parser.parseCampaignData(impressionFile, clickFile, serverFile, IngestionMode.SEQUENTIAL);
+        CampaignData mapped = parser.parseCampaignData(impressionFile, clickFile, serverFile, IngestionMode.MAPPED);
+
+        assertSameData(sequential, mapped);
+        List<Object[]> expected = sequential.getImpressions(filters);
+        List<Object[]> actual = mapped.getImpressions(filters);
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    void testMappedHandlesWindowsLineEndings() throws Exception {
+        File crlfClicks = write("click_log_crlf.csv",
+            new StringBuilder("Date,ID,Click Cost\r\n2015-01-01 12:01:21,42,11.794442\r\n2015-01-02 00:00:00,42,0.5"));
+        CampaignData data = new FileParserService().parseCampaignData(impressionFile, crlfClicks, serverFile, IngestionMode.MAPPED);
+
+        List<Object[]> clicks = data.getClicks(filters);
+        assertEquals(2, clicks.size());
+        assertEquals("42", clicks.get(0)[2]);
+        assertEquals(11.794442, (double) clicks.get(0)[1]);
+        assertEquals(0.5, (double) clicks.get(1)[1]);
+    }
+
+    private void assertSameData(CampaignData expectedData, CampaignData actualData) {
+        assertEquals(3000, actualData.getTotalImpressions(filters));
+        assertEquals(expectedData.getTotalClicks(filters), actualData.getTotalClicks(filters));
+        assertEquals(expectedData.getTotalUniques(filters), actualData.getTotalUniques(filters));
+        assertEquals(expectedData.getTotalConversions(filters), actualData.getTotalConversions(filters));
+        assertEquals(expectedData.getTotalBounces(filters), actualData.getTotalBounces(filters));
+        assertEquals(expectedData.getTotalCost(filters), actualData.getTotalCost(filters), 1e-9);
+
+        filters.get(0).add(Gender.FEMALE);
+        assertEquals(expectedData.getTotalImpressions(filters), actualData.getTotalImpressions(filters));
+
+        // Rows come back in file order
+        List<Object[]> expected = expectedData.getServerLogs(filters);
+        List<Object[]> actual = actualData.getServerLogs(filters);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i));
+        }
+        filters.get(0).clear();
+    }
+
+    @Test
+    void testMalformedFilesAreReported() {
+        FileParserService parser = new FileParserService(1000);
+
+        assertThrows(Exception.class,
+            () -> parser.parseCampaignData(clickFile, clickFile, serverFile, IngestionMode.PARALLEL));
+        assertThrows(Exception.class,
+            () -> parser.parseCampaignData(clickFile, clickFile, serverFile, IngestionMode.MAPPED));
+        assertThrows(Exception.class,
+            () -> parser.parseCampaignData(impressionFile, impressionFile, serverFile, IngestionMode.MAPPED));
+        assertThrows(Exception.class,
+            () -> parser.parseCampaignData(impressionFile, clickFile, impressionFile, IngestionMode.MAPPED));
+    }
+
+    @Test
+    void testProgressReachesEveryFileSize() throws Exception {
+        for (IngestionMode mode : IngestionMode.values()) {
+            FileParserService parser = new FileParserService(1000);
+            Map<File, Long> progress = new HashMap<>();
+            parser.setProgressListener((file, bytesRead, totalBytes) -> {
+                assertTrue(bytesRead <= totalBytes, mode.name());
+                assertTrue(bytesRead >= progress.getOrDefault(file, 0L), mode.name());
+                progress.put(file, bytesRead);
+            });
+            parser.parseCampaignData(impressionFile, clickFile, serverFile, mode);
+
+            assertEquals(impressionFile.length(), progress.get(impressionFile), mode.name());
+            assertEquals(clickFile.length(), progress.get(clickFile), mode.name());
+            assertEquals(serverFile.length(), progress.get(serverFile), mode.name());
+        }
+    }
+
+    @Test
+    void testInterruptCancelsParsing() {
+        for (IngestionMode mode : IngestionMode.values()) {
+            FileParserService parser = new FileParserService(1000);
+            Thread.currentThread().interrupt();
+            try {
+                assertThrows(CancellationException.class,
+                    () -> parser.parseCampaignData(impressionFile, clickFile, serverFile, mode), mode.name());
+            } finally {
+                Thread.interrupted();
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.adauction.group19.Unit;
+
+import com.adauction.group19.service.LatestQueryRunner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatestQueryRunnerUnitTest {
+
+    private LatestQueryRunner runner;
+    private List<String> delivered;
+
+    @BeforeEach
+    void setUp() {
+        // Deliver results on the query thread, as there is no JavaFX thread here
+        runner = new LatestQueryRunner("test-query", Runnable::run);
+        delivered = new CopyOnWriteArrayList<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        runner.shutdown();
+    }
+
+    @Test
+    void testNewerQueryInterruptsOlderOne() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        long first = runner.submit(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "first";
+        }, delivered::add);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        long second = runner.submit(() -> "second", result -> {
+            delivered.add(result);
+            done.countDown();
+        });
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "The older query should be interrupted");
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("second"), delivered);
+        assertFalse(runner.isLatest(first));
+        assertTrue(runner.isLatest(second));
+    }
+
+    @Test
+    void testCancelledQueryIsNotDelivered() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+
+        runner.submit(() -> {
+            started.countDown();
+            // Ignores interruption, so it runs to the end after being cancelled
+            while (true) {
+                try {
+                    release.await();
+                    break;
+                } catch (InterruptedException ignored) {
+                }
+            }
+            finished.countDown();
+            return "cancelled";
+        }, delivered::add);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        runner.cancel();
+        release.countDown();
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        CountDownLatch done = new CountDownLatch(1);
+        runner.submit(() -> "latest", result -> {
+            delivered.add(result);
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("latest"), delivered);
+    }
+
+    @Test
+    void testFailedQueryIsNotDelivered() throws Exception {
+        runner.<String>submit(() -> {
+            throw new IllegalStateException("broken");
+        }, delivered::add);
+
+        CountDownLatch done = new CountDownLatch(1);
+        runner.submit(() -> "after", result -> {
+            delivered.add(result);
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("after"), delivered);
+    }
+}
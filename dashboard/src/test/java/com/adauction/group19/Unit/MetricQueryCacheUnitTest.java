@@ -0,0 +1,152 @@
+package com.adauction.group19.Unit;
+
+import com.adauction.group19.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.adauction.group19.Util.CampaignDataUtil.filter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricQueryCacheUnitTest {
+
+    private CampaignData campaignData;
+    private MetricQueryCache cache;
+    private LocalDateTime from;
+
+    @BeforeEach
+    void setUp() {
+        from = LocalDateTime.of(2025, 3, 1, 0, 0);
+        campaignData = new CampaignData();
+        campaignData.addImpression(from.plusHours(1), "a", Gender.MALE, AgeRange.AGE_25_34, Income.LOW, Context.BLOG, 1.0);
+        campaignData.addImpression(from.plusDays(1), "b", Gender.FEMALE, AgeRange.AGE_55_PLUS, Income.HIGH, Context.NEWS, 2.0);
+        campaignData.addClick(from.plusHours(2), 3.0, "a");
+        campaignData.addServerLogEntry(from.plusHours(2), from.plusHours(2).plusSeconds(3), 1, false, "a");
+        campaignData.addServerLogEntry(from.plusDays(1), from.plusDays(1).plusSeconds(30), 5, true, "b");
+        cache = campaignData.getQueryCache();
+    }
+
+    @Test
+    void testRepeatedQueryIsAHit() {
+        double first = bounces(filter(Gender.MALE, Gender.FEMALE));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        // The same filter built from other sets in another order is the same key
+        double second = bounces(filter(Gender.FEMALE, Gender.MALE));
+        assertEquals(first, second);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0.5, cache.getHitRate());
+
+        bounces(filter(Gender.MALE));
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    void testMetricsWithOneFilterShareAnEntry() {
+        Map<Metric, List<Set<Enum<?>>>> filters = new EnumMap<>(Metric.class);
+        filters.put(Metric.CLICKS, filter());
+        filters.put(Metric.CPC, filter());
+        new MetricQueryEngine(campaignData).query(from, from.plusDays(2), TimeGranularity.DAILY, filters);
+        assertEquals(1, cache.size());
+
+        // Uniques need user sets the first query did not build
+        filters.put(Metric.UNIQUES, filter());
+        Map<Metric, MetricSeries> result =
+            new MetricQueryEngine(campaignData).query(from, from.plusDays(2), TimeGranularity.DAILY, filters);
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, result.get(Metric.UNIQUES).getTotal());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testBounceCriteriaChangesAreNotServedStale() {
+        assertEquals(1, bounces(filter()));
+
+        // Edited in place, as the bounce settings screen does
+        campaignData.getBounceCriteria().setMinTimeOnSiteSeconds(60);
+        assertEquals(2, bounces(filter()));
+        // Found in the cache with only its bounces recounted
+        assertEquals(1, cache.getHitCount());
+
+        campaignData.setBounceCriteria(new BounceCriteria(2, 4, true, false));
+        assertEquals(1, cache.size());
+        assertEquals(1, bounces(filter()));
+    }
+
+    @Test
+    void testBounceCriteriaChangesKeepOtherTotals() {
+        Map<Metric, List<Set<Enum<?>>>> filters = new EnumMap<>(Metric.class);
+        filters.put(Metric.CLICKS, filter());
+        filters.put(Metric.BOUNCES, filter());
+        Map<Metric, MetricSeries> before =
+            new MetricQueryEngine(campaignData).query(from, from.plusDays(2), TimeGranularity.DAILY, filters);
+        assertEquals(1, before.get(Metric.BOUNCES).getValue(0));
+
+        campaignData.setBounceCriteria(new BounceCriteria(6, 4, true, false));
+        Map<Metric, MetricSeries> after =
+            new MetricQueryEngine(campaignData).query(from, from.plusDays(2), TimeGranularity.DAILY, filters);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.size());
+        assertEquals(before.get(Metric.CLICKS).getTotal(), after.get(Metric.CLICKS).getTotal());
+        assertEquals(1, after.get(Metric.BOUNCES).getValue(0));
+        assertEquals(1, after.get(Metric.BOUNCES).getValue(1));
+
+        // The recounted bounces are cached for the new criteria
+        new MetricQueryEngine(campaignData).query(from, from.plusDays(2), TimeGranularity.DAILY, filters);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, campaignData.getTotalBounces(filter()));
+    }
+
+    @Test
+    void testBounceViewsShareTheCache() {
+        Map<Metric, List<Set<Enum<?>>>> filters = new EnumMap<>(Metric.class);
+        filters.put(Metric.CLICKS, filter());
+        filters.put(Metric.BOUNCES, filter());
+        new MetricQueryEngine(campaignData.freeze()).query(from, from.plusDays(2), TimeGranularity.DAILY, filters);
+
+        CampaignData view = campaignData.withBounceCriteria(new BounceCriteria(6, 4, true, false));
+        assertSame(cache, view.getQueryCache());
+        Map<Metric, MetricSeries> result =
+            new MetricQueryEngine(view).query(from, from.plusDays(2), TimeGranularity.DAILY, filters);
+        // Found in the cache with only its bounces recounted
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, result.get(Metric.BOUNCES).getTotal());
+        assertEquals(1, result.get(Metric.CLICKS).getTotal());
+    }
+
+    @Test
+    void testAddingRowsClearsTheCache() {
+        assertEquals(1, bounces(filter()));
+        campaignData.addServerLogEntry(from.plusHours(3), from.plusHours(3).plusSeconds(1), 1, false, "a");
+        assertEquals(0, cache.size());
+        assertEquals(2, bounces(filter()));
+
+        // Results cached after the first clear are dropped too
+        campaignData.addServerLogEntry(from.plusHours(4), from.plusHours(4).plusSeconds(1), 1, false, "a");
+        assertEquals(0, cache.size());
+        assertEquals(3, bounces(filter()));
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        for (int i = 0; i < MetricQueryCache.DEFAULT_CAPACITY + 10; i++) {
+            Map<Metric, List<Set<Enum<?>>>> filters = new EnumMap<>(Metric.class);
+            filters.put(Metric.IMPRESSIONS, filter());
+            new MetricQueryEngine(campaignData).query(from, from.plusHours(i + 1), TimeGranularity.HOURLY, filters);
+        }
+        assertEquals(MetricQueryCache.DEFAULT_CAPACITY, cache.size());
+    }
+
+    private double bounces(List<Set<Enum<?>>> filter) {
+        Map<Metric, List<Set<Enum<?>>>> filters = new EnumMap<>(Metric.class);
+        filters.put(Metric.BOUNCES, filter);
+        return new MetricQueryEngine(campaignData).queryTotals(filters).get(Metric.BOUNCES);
+    }
+}
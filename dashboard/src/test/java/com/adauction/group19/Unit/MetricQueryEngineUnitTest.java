@@ -0,0 +1,209 @@
+package com.adauction.group19.Unit;
+
+import com.adauction.group19.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+import static com.adauction.group19.Util.CampaignDataUtil.filter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricQueryEngineUnitTest {
+
+    private static final double DELTA = 1e-9;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 3, 1);
+    private static final int DAYS = 10;
+
+    private CampaignData campaignData;
+    private List<Set<Enum<?>>> noFilter;
+    private List<Set<Enum<?>>> femaleFilter;
+
+    @BeforeEach
+    void setUp() {
+        campaignData = new CampaignData();
+        Random random = new Random(19);
+        Gender[] genders = Gender.values();
+        AgeRange[] ageRanges = AgeRange.values();
+        Income[] incomes = Income.values();
+        Context[] contexts = Context.values();
+
+        for (int i = 0; i < 2000; i++) {
+            LocalDateTime time = FIRST_DAY.atStartOfDay().plusSeconds(random.nextInt(DAYS * 86400));
+            campaignData.addImpression(time, "user" + random.nextInt(150),
+                genders[random.nextInt(genders.length)], ageRanges[random.nextInt(ageRanges.length)],
+                incomes[random.nextInt(incomes.length)], contexts[random.nextInt(contexts.length)],
+                random.nextDouble() / 100);
+        }
+        for (int i = 0; i < 400; i++) {
+            LocalDateTime time = FIRST_DAY.atStartOfDay().plusSeconds(random.nextInt(DAYS * 86400));
+            // Some clicks come from users with no impression, so no profile
+            campaignData.addClick(time, random.nextDouble() * 5, "user" + random.nextInt(200));
+        }
+        for (int i = 0; i < 400; i++) {
+            LocalDateTime entry = FIRST_DAY.atStartOfDay().plusSeconds(random.nextInt(DAYS * 86400));
+            LocalDateTime exit = random.nextInt(10) == 0 ? null : entry.plusSeconds(random.nextInt(120));
+            campaignData.addServerLogEntry(entry, exit, 1 + random.nextInt(4), random.nextInt(5) == 0,
+                "user" + random.nextInt(200));
+        }
+        campaignData.setBounceCriteria(new BounceCriteria(2, 60, true, true));
+        campaignData.buildIndexes();
+
+        noFilter = filter();
+        femaleFilter = filter(Gender.FEMALE);
+    }
+
+    @Test
+    void testDailyBucketsMatchPerDateMetrics() {
+        for (List<Set<Enum<?>>> filter : List.of(noFilter, femaleFilter)) {
+            Map<Metric, MetricSeries> result = query(TimeGranularity.DAILY, filter);
+
+            for (int day = 0; day < DAYS; day++) {
+                LocalDateTime date = FIRST_DAY.plusDays(day).atStartOfDay();
+                assertEquals(campaignData.getImpressionsForDate(date, filter), value(result, Metric.IMPRESSIONS, day));
+                assertEquals(campaignData.getClicksForDate(date, filter), value(result, Metric.CLICKS, day));
+                assertEquals(campaignData.getUniquesForDate(date, filter), value(result, Metric.UNIQUES, day));
+                assertEquals(campaignData.getBouncesForDate(date, filter), value(result, Metric.BOUNCES, day));
+                assertEquals(campaignData.getConversionsForDate(date, filter), value(result, Metric.CONVERSIONS, day));
+                assertEquals(campaignData.getTotalCostForDate(date, filter), value(result, Metric.TOTAL_COST, day), DELTA);
+                assertEquals(campaignData.getCTRForDate(date, filter), value(result, Metric.CTR, day), DELTA);
+                assertEquals(campaignData.getCPAForDate(date, filter), value(result, Metric.CPA, day), DELTA);
+                assertEquals(campaignData.getCPCForDate(date, filter), value(result, Metric.CPC, day), DELTA);
+                assertEquals(campaignData.getCPMForDate(date, filter), value(result, Metric.CPM, day), DELTA);
+                assertEquals(campaignData.getBounceRateForDate(date, filter), value(result, Metric.BOUNCE_RATE, day), DELTA);
+            }
+        }
+    }
+
+    @Test
+    void testHourlyBucketsMatchHourlyMetrics() {
+        LocalDateTime from = FIRST_DAY.plusDays(3).atStartOfDay();
+        Map<Metric, MetricSeries> result = new MetricQueryEngine(campaignData)
+            .query(from, from.plusDays(1), TimeGranularity.HOURLY, allMetrics(femaleFilter));
+
+        assertEquals(24, result.get(Metric.IMPRESSIONS).size());
+        for (int hour = 0; hour < 24; hour++) {
+            LocalDateTime dateTime = from.plusHours(hour);
+            assertEquals(campaignData.getHourlyImpressions(dateTime, femaleFilter), value(result, Metric.IMPRESSIONS, hour));
+            assertEquals(campaignData.getHourlyClicks(dateTime, femaleFilter), value(result, Metric.CLICKS, hour));
+            assertEquals(campaignData.getHourlyConversions(dateTime, femaleFilter), value(result, Metric.CONVERSIONS, hour));
+            assertEquals(campaignData.getHourlyTotalCost(dateTime, femaleFilter), value(result, Metric.TOTAL_COST, hour), DELTA);
+            assertEquals(campaignData.getHourlyCPM(dateTime, femaleFilter), value(result, Metric.CPM, hour), DELTA);
+            assertEquals(campaignData.getHourlyBounceRate(dateTime, femaleFilter), value(result, Metric.BOUNCE_RATE, hour), DELTA);
+        }
+    }
+
+    @Test
+    void testRangeTotalsMatchCampaignTotals() {
+        for (List<Set<Enum<?>>> filter : List.of(noFilter, femaleFilter)) {
+            Map<Metric, MetricSeries> result = query(TimeGranularity.WEEKLY, filter);
+
+            assertEquals(2, result.get(Metric.IMPRESSIONS).size());
+            assertEquals(campaignData.getTotalImpressions(filter), result.get(Metric.IMPRESSIONS).getTotal());
+            assertEquals(campaignData.getTotalClicks(filter), result.get(Metric.CLICKS).getTotal());
+            assertEquals(campaignData.getTotalBounces(filter), result.get(Metric.BOUNCES).getTotal());
+            assertEquals(campaignData.getTotalConversions(filter), result.get(Metric.CONVERSIONS).getTotal());
+            assertEquals(campaignData.getTotalCost(filter), result.get(Metric.TOTAL_COST).getTotal(), DELTA);
+            assertEquals(campaignData.getCTR(filter), result.get(Metric.CTR).getTotal(), DELTA);
+            assertEquals(campaignData.getCPA(filter), result.get(Metric.CPA).getTotal(), DELTA);
+            assertEquals(campaignData.getCPC(filter), result.get(Metric.CPC).getTotal(), DELTA);
+            assertEquals(campaignData.getCPM(filter), result.get(Metric.CPM).getTotal(), DELTA);
+            assertEquals(campaignData.getBounceRate(filter), result.get(Metric.BOUNCE_RATE).getTotal(), DELTA);
+
+            // A weekly bucket covers all seven days, not only the first
+            double firstWeek = 0;
+            for (int day = 0; day < 7; day++) {
+                firstWeek += campaignData.getImpressionsForDate(FIRST_DAY.plusDays(day).atStartOfDay(), filter);
+            }
+            assertEquals(firstWeek, value(result, Metric.IMPRESSIONS, 0));
+        }
+    }
+
+    @Test
+    void testAllTimeTotalsMatchCampaignTotals() {
+        for (List<Set<Enum<?>>> filter : List.of(noFilter, femaleFilter)) {
+            Map<Metric, Double> totals = new MetricQueryEngine(campaignData).queryTotals(allMetrics(filter));
+
+            assertEquals(campaignData.getTotalImpressions(filter), totals.get(Metric.IMPRESSIONS));
+            assertEquals(campaignData.getTotalClicks(filter), totals.get(Metric.CLICKS));
+            assertEquals(campaignData.getTotalBounces(filter), totals.get(Metric.BOUNCES));
+            assertEquals(campaignData.getTotalCost(filter), totals.get(Metric.TOTAL_COST), DELTA);
+            assertEquals(campaignData.getBounceRate(filter), totals.get(Metric.BOUNCE_RATE), DELTA);
+        }
+    }
+
+    @Test
+    void testUniquesAreCountedOnceAcrossBuckets() {
+        Map<Metric, MetricSeries> result = query(TimeGranularity.DAILY, noFilter);
+        MetricSeries uniques = result.get(Metric.UNIQUES);
+
+        double bucketSum = 0;
+        for (int day = 0; day < uniques.size(); day++) {
+            bucketSum += uniques.getValue(day);
+        }
+        assertEquals(campaignData.getTotalUniques(noFilter), uniques.getTotal());
+        assertTrue(uniques.getTotal() < bucketSum);
+    }
+
+    @Test
+    void testMetricsKeepTheirOwnFilters() {
+        Map<Metric, List<Set<Enum<?>>>> filters = new EnumMap<>(Metric.class);
+        filters.put(Metric.IMPRESSIONS, noFilter);
+        filters.put(Metric.CLICKS, femaleFilter);
+        filters.put(Metric.CTR, null);
+        LocalDateTime from = FIRST_DAY.atStartOfDay();
+        Map<Metric, MetricSeries> result = new MetricQueryEngine(campaignData)
+            .query(from, from.plusDays(DAYS), TimeGranularity.DAILY, filters);
+
+        assertEquals(filters.keySet(), result.keySet());
+        assertEquals(campaignData.getTotalImpressions(noFilter), result.get(Metric.IMPRESSIONS).getTotal());
+        assertEquals(campaignData.getTotalClicks(femaleFilter), result.get(Metric.CLICKS).getTotal());
+        assertEquals(campaignData.getCTR(noFilter), result.get(Metric.CTR).getTotal(), DELTA);
+    }
+
+    @Test
+    void testEmptyRangeHasNoBuckets() {
+        LocalDateTime from = FIRST_DAY.atStartOfDay();
+        assertEquals(0, MetricQueryEngine.bucketCount(from, from, TimeGranularity.DAILY));
+        assertEquals(2, MetricQueryEngine.bucketCount(from, from.plusHours(25), TimeGranularity.DAILY));
+
+        MetricSeries series = new MetricQueryEngine(campaignData)
+            .query(from, from, TimeGranularity.DAILY, allMetrics(noFilter)).get(Metric.CPA);
+        assertEquals(0, series.size());
+        assertEquals(0, series.getTotal());
+    }
+
+    @Test
+    void testInterruptCancelsQuery() {
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> query(TimeGranularity.DAILY, noFilter));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    private Map<Metric, MetricSeries> query(TimeGranularity granularity, List<Set<Enum<?>>> filter) {
+        LocalDateTime from = FIRST_DAY.atStartOfDay();
+        return new MetricQueryEngine(campaignData).query(from, from.plusDays(DAYS), granularity, allMetrics(filter));
+    }
+
+    private static double value(Map<Metric, MetricSeries> result, Metric metric, int bucket) {
+        return result.get(metric).getValue(bucket);
+    }
+
+    private static Map<Metric, List<Set<Enum<?>>>> allMetrics(List<Set<Enum<?>>> filter) {
+        Map<Metric, List<Set<Enum<?>>>> filters = new EnumMap<>(Metric.class);
+        for (Metric metric : Metric.values()) {
+            filters.put(metric, filter);
+        }
+        return filters;
+    }
+}
@@ -0,0 +1,72 @@
+package com.adauction.group19.Unit;
+
+import com.adauction.group19.model.*;
+import com.adauction.group19.service.PdfReportRenderer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PdfReportRendererUnitTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+    @Test
+    void testReportIsDrawnAsVectorsWithItsText() throws IOException {
+        CampaignData campaignData = new CampaignData();
+        for (int day = 0; day < 5; day++) {
+            for (int i = 0; i <= day; i++) {
+                String id = "user" + day + "-" + i;
+                campaignData.addImpression(START.plusDays(day).plusHours(i), id, Gender.FEMALE, AgeRange.AGE_25_34,
+                    Income.LOW, Context.BLOG, 0.01);
+                campaignData.addClick(START.plusDays(day).plusHours(i), 1.5, id);
+            }
+        }
+        Map<Metric, List<Set<Enum<?>>>> filters = new EnumMap<>(Metric.class);
+        for (Metric metric : Metric.values()) {
+            filters.put(metric, null);
+        }
+        CampaignReport report = CampaignReport.query("Spring Campaign", campaignData, START, START.plusDays(5),
+            TimeGranularity.DAILY, filters);
+        assertEquals(List.of("2025-03-01", "2025-03-02", "2025-03-03", "2025-03-04", "2025-03-05"), report.labels());
+        assertTrue(report.notes().contains("• Impressions: 2025-03-05 (5)"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PdfReportRenderer().render(report, out);
+        try (PDDocument document = PDDocument.load(out.toByteArray())) {
+            // Eleven charts and the notes do not fit on one page
+            assertTrue(document.getNumberOfPages() >= 2);
+            assertFalse(document.getPage(0).getResources().getXObjectNames().iterator().hasNext(),
+                "Charts are drawn, not embedded as images");
+            String text = new PDFTextStripper().getText(document);
+            assertTrue(text.contains("Spring Campaign"));
+            assertTrue(text.contains("Impressions (total 15)"));
+            assertTrue(text.contains("CTR: 100.00%"));
+        }
+    }
+
+    @Test
+    void testEmptyRangeAndUnprintableText() throws IOException {
+        Map<Metric, List<Set<Enum<?>>>> filters = new EnumMap<>(Metric.class);
+        filters.put(Metric.CPC, null);
+        CampaignReport report = CampaignReport.query("Café ☃", new CampaignData(), START, START,
+            TimeGranularity.HOURLY, filters);
+        assertTrue(report.labels().isEmpty());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PdfReportRenderer().render(report.withNotes(List.of("#Notes", "ünicode")), out);
+        try (PDDocument document = PDDocument.load(out.toByteArray())) {
+            assertEquals(1, document.getNumberOfPages());
+            assertTrue(new PDFTextStripper().getText(document).contains("No data in range"));
+        }
+    }
+}
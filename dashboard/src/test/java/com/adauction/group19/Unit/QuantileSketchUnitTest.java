@@ -0,0 +1,101 @@
+package com.adauction.group19.Unit;
+
+import com.adauction.group19.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static com.adauction.group19.Util.CampaignDataUtil.filter;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuantileSketchUnitTest {
+
+    private static final double[] QUANTILES = {0, 0.1, 0.5, 0.9, 0.99, 1};
+
+    @Test
+    void testQuantilesAreWithinTheRelativeAccuracy() {
+        QuantileSketch sketch = new QuantileSketch();
+        Random random = new Random(3);
+        double[] values = new double[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // Skewed like click costs, spanning several orders of magnitude
+            values[i] = Math.exp(random.nextGaussian() * 2);
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+        assertEquals(values.length, sketch.getCount());
+        for (double quantile : QUANTILES) {
+            double exact = values[(int) Math.floor(quantile * (values.length - 1))];
+            assertEquals(exact, sketch.getQuantile(quantile), exact * QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+        }
+    }
+
+    @Test
+    void testMergeEqualsOneSketchOfAllValues() {
+        QuantileSketch left = new QuantileSketch();
+        QuantileSketch right = new QuantileSketch();
+        QuantileSketch all = new QuantileSketch();
+        Random random = new Random(5);
+        for (int i = 0; i < 10_000; i++) {
+            double value = i % 10 == 0 ? 0 : random.nextDouble() * (i % 2 == 0 ? 1 : 1000);
+            (i % 2 == 0 ? left : right).add(value);
+            all.add(value);
+        }
+        left.merge(right);
+        left.merge(new QuantileSketch());
+        assertEquals(all.getCount(), left.getCount());
+        for (double quantile : QUANTILES) {
+            assertEquals(all.getQuantile(quantile), left.getQuantile(quantile));
+        }
+        // A tenth of the values are zero
+        assertEquals(0, left.getQuantile(0.05));
+    }
+
+    @Test
+    void testEdgeCases() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+        sketch.add(Double.NaN);
+        assertTrue(sketch.isEmpty());
+        sketch.add(2.5);
+        assertEquals(2.5, sketch.getQuantile(0.5));
+        assertThrows(IllegalArgumentException.class, () -> sketch.getQuantile(1.5));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(0));
+        assertThrows(IllegalArgumentException.class, () -> sketch.merge(new QuantileSketch(0.05)));
+    }
+
+    @Test
+    void testCampaignCostsPerDayAndSegment() {
+        LocalDateTime day = LocalDateTime.of(2025, 3, 1, 0, 0);
+        CampaignData campaignData = new CampaignData();
+        for (int i = 1; i <= 100; i++) {
+            Gender gender = i % 2 == 0 ? Gender.MALE : Gender.FEMALE;
+            campaignData.addImpression(day.plusMinutes(i), "user" + i, gender, AgeRange.AGE_25_34, Income.LOW,
+                Context.BLOG, i / 1000.0);
+            // Women's clicks on the second day cost ten times as much
+            double clickCost = gender == Gender.FEMALE ? i / 10.0 : i / 100.0;
+            campaignData.addClick(day.plusDays(1).plusMinutes(i), clickCost, "user" + i);
+        }
+
+        List<Set<Enum<?>>> female = filter(Gender.FEMALE);
+        QuantileSketch femaleClicks = campaignData.getTotalCostSketch(CostQuantileIndex.Costs.CLICKS, female);
+        assertEquals(50, femaleClicks.getCount());
+        assertEquals(9.9, femaleClicks.getQuantile(1));
+        assertEquals(4.9, femaleClicks.getQuantile(0.5), 4.9 * QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+
+        assertEquals(100, campaignData.getCostSketchForDate(CostQuantileIndex.Costs.CLICKS, day.plusDays(1),
+            filter()).getCount());
+        assertTrue(campaignData.getCostSketchForDate(CostQuantileIndex.Costs.CLICKS, day, filter()).isEmpty());
+        QuantileSketch impressions = campaignData.getCostSketchForDate(CostQuantileIndex.Costs.IMPRESSIONS, day,
+            filter());
+        assertEquals(0.1, impressions.getQuantile(1));
+
+        // New rows are included
+        campaignData.addClick(day.plusDays(1), 50, "user1");
+        assertEquals(50, campaignData.getTotalCostSketch(CostQuantileIndex.Costs.CLICKS, female).getQuantile(1));
+    }
+}
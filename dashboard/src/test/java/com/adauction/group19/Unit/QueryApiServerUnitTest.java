@@ -0,0 +1,170 @@
+package com.adauction.group19.Unit;
+
+import com.adauction.group19.model.*;
+import com.adauction.group19.service.CampaignCache;
+import com.adauction.group19.service.QueryApiServer;
+import com.adauction.group19.utils.SerializationUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryApiServerUnitTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicInteger version = new AtomicInteger();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private QueryApiServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        LocalDateTime time = LocalDateTime.of(2025, 3, 1, 9, 0);
+        CampaignData campaignData = new CampaignData();
+        campaignData.addImpression(time, "1", Gender.MALE, AgeRange.AGE_25_34, Income.LOW, Context.BLOG, 0.002);
+        campaignData.addImpression(time.plusDays(1), "2", Gender.FEMALE, AgeRange.AGE_35_44, Income.HIGH,
+            Context.NEWS, 0.003);
+        campaignData.addImpression(time.plusDays(1), "2", Gender.FEMALE, AgeRange.AGE_35_44, Income.HIGH,
+            Context.NEWS, 0.003);
+        campaignData.addClick(time.plusDays(1).plusSeconds(5), 1.5, "2");
+        campaignData.addClick(time.plusSeconds(5), 0.5, "1");
+        byte[] saved = SerializationUtil.serialiseCampaign(campaignData);
+
+        Map<String, User> users = Map.of("admin", user(1, UserRole.ADMIN), "viewer", user(2, UserRole.VIEWER));
+        server = new QueryApiServer(0, 4, new QueryApiServer.CampaignSource() {
+            @Override
+            public User authenticate(String username, String password) {
+                return password.equals("secret") ? users.get(username) : null;
+            }
+
+            @Override
+            public List<CampaignSummary> listCampaigns(User user) {
+                List<CampaignSummary> campaigns = new ArrayList<>();
+                for (int id = 1; id <= (user.isAdmin() ? 2 : 1); id++) {
+                    campaigns.add(summary(id));
+                }
+                return campaigns;
+            }
+
+            @Override
+            public CampaignSummary findCampaign(User user, int campaignId) {
+                return campaignId == 1 || user.isAdmin() && campaignId == 2 ? summary(campaignId) : null;
+            }
+
+            @Override
+            public byte[] loadCampaign(int campaignId) {
+                loads.incrementAndGet();
+                return saved;
+            }
+        }, new CampaignCache(Long.MAX_VALUE));
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void testQueriesAreAnsweredFromOneSharedLoad() throws Exception {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            responses.add(client.sendAsync(request("viewer", "/api/campaigns/1/totals?metrics=Impressions,Clicks"),
+                HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(200, response.get().statusCode());
+            assertEquals("{\"totals\": {\"Impressions\": 3.0,\"Clicks\": 2.0}}", response.get().body());
+        }
+        assertEquals(1, loads.get());
+
+        assertEquals("{\"from\": \"2025-03-02\", \"to\": \"2025-03-02\", \"totals\": {\"Clicks\": 1.0}}",
+            get("viewer", "/api/campaigns/1/totals?metrics=clicks&from=2025-03-02&to=2025-03-02").body());
+        assertEquals("[{\"date\": \"2025-03-01\", \"data\": {\"Impressions\": 0.0}},"
+                + "{\"date\": \"2025-03-02\", \"data\": {\"Impressions\": 2.0}}]",
+            get("viewer", "/api/campaigns/1/series?metrics=Impressions&gender=Female").body());
+        assertEquals("[{\"from\": 0.5, \"count\": 1},{\"from\": 1.0, \"count\": 1}]",
+            get("admin", "/api/campaigns/2/histogram?bins=2").body());
+        assertEquals("[{\"id\": 1, \"name\": \"Campaign 1\"}]", get("viewer", "/api/campaigns").body());
+    }
+
+    @Test
+    void testCampaignsSavedAgainAreLoadedAgain() throws Exception {
+        assertEquals(200, get("viewer", "/api/campaigns/1/totals").statusCode());
+        assertEquals(200, get("viewer", "/api/campaigns/1/totals").statusCode());
+        assertEquals(1, loads.get());
+
+        version.incrementAndGet();
+        assertEquals(200, get("viewer", "/api/campaigns/1/totals").statusCode());
+        assertEquals(200, get("viewer", "/api/campaigns/1/totals").statusCode());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testAccessAndBadQueriesAreRefused() throws Exception {
+        assertEquals(401, client.send(HttpRequest.newBuilder(uri("/api/campaigns")).build(),
+            HttpResponse.BodyHandlers.ofString()).statusCode());
+        HttpResponse<String> wrongPassword = client.send(HttpRequest.newBuilder(uri("/api/campaigns"))
+            .header("Authorization", basic("admin", "guess")).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(401, wrongPassword.statusCode());
+        assertTrue(wrongPassword.headers().firstValue("WWW-Authenticate").isPresent());
+
+        // Campaigns that are not assigned to a viewer look like missing ones
+        assertEquals(404, get("viewer", "/api/campaigns/2/totals").statusCode());
+        assertEquals(404, get("admin", "/api/campaigns/3/totals").statusCode());
+        assertEquals(404, get("admin", "/api/campaigns/1/everything").statusCode());
+        assertEquals(0, loads.get());
+
+        assertEquals(400, get("admin", "/api/campaigns/1/series?age=banana").statusCode());
+        assertEquals(400, get("admin", "/api/campaigns/1/series?granularity=monthly").statusCode());
+        assertEquals(400, get("admin", "/api/campaigns/1/series?from=yesterday").statusCode());
+        assertEquals(400, get("admin", "/api/campaigns/1/histogram?bins=0").statusCode());
+        assertEquals(405, client.send(HttpRequest.newBuilder(uri("/api/campaigns"))
+            .header("Authorization", basic("admin", "secret")).DELETE().build(),
+            HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    private CampaignSummary summary(int id) {
+        CampaignSummary summary = new CampaignSummary();
+        summary.setId(id);
+        summary.setCampaignName("Campaign " + id);
+        summary.setDataVersion(version.get());
+        return summary;
+    }
+
+    private HttpResponse<String> get(String username, String path) throws Exception {
+        return client.send(request(username, path), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest request(String username, String path) {
+        return HttpRequest.newBuilder(uri(path)).header("Authorization", basic(username, "secret")).build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getPort() + path);
+    }
+
+    private static String basic(String username, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString((username + ":" + password)
+            .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static User user(int id, UserRole role) {
+        User user = new User("user" + id, "", role);
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,79 @@
+package com.adauction.group19.Unit;
+
+import com.adauction.group19.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentIndexUnitTest {
+
+    private UserDictionary users;
+    private int[] rowUsers;
+    private List<Set<Enum<?>>> filters;
+
+    @BeforeEach
+    void setUp() {
+        users = new UserDictionary();
+        int male = users.intern("male");
+        int female = users.intern("female");
+        int unknown = users.intern("unknown");
+        users.setProfile(male, Gender.MALE, AgeRange.AGE_25_34, Income.LOW, Context.BLOG);
+        users.setProfile(female, Gender.FEMALE, AgeRange.AGE_35_44, Income.HIGH, Context.NEWS);
+
+        rowUsers = new int[]{male, female, unknown, male, UserDictionary.NO_USER, female};
+
+        filters = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            filters.add(new HashSet<>());
+        }
+    }
+
+    private BitSet select() {
+        SegmentIndex index = SegmentIndex.build(users, rowUsers.length, row -> rowUsers[row]);
+        return index.select(new DemographicFilter(filters));
+    }
+
+    @Test
+    void testUnrestrictedSelectsAllRows() {
+        assertEquals(rowUsers.length, select().cardinality());
+    }
+
+    @Test
+    void testValuesInOneDimensionAreCombinedWithOr() {
+        filters.get(2).add(Income.LOW);
+        filters.get(2).add(Income.HIGH);
+
+        assertEquals(rowUsers.length, select().cardinality());
+    }
+
+    @Test
+    void testDimensionsAreCombinedWithAnd() {
+        filters.get(0).add(Gender.FEMALE);
+        filters.get(3).add(Context.BLOG);
+
+        // Only the rows without demographics pass
+        BitSet rows = select();
+        assertEquals(2, rows.cardinality());
+        assertTrue(rows.get(2));
+        assertTrue(rows.get(4));
+    }
+
+    @Test
+    void testSelectionAgreesWithFilter() {
+        filters.get(1).add(AgeRange.AGE_35_44);
+        DemographicFilter filter = new DemographicFilter(filters);
+
+        BitSet rows = select();
+        for (int row = 0; row < rowUsers.length; row++) {
+            boolean expected = rowUsers[row] == UserDictionary.NO_USER || filter.matches(users, rowUsers[row]);
+            assertEquals(expected, rows.get(row), "row " + row);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.adauction.group19.Unit;
+
+import com.adauction.group19.model.EpochSeconds;
+import com.adauction.group19.service.TimestampParser;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimestampParserUnitTest {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Test
+    void testMatchesLocalDateTimeParse() {
+        LocalDateTime dateTime = LocalDateTime.of(1999, 12, 31, 23, 59, 59);
+        // Every 7 hours and 13 seconds across a few leap years
+        for (int i = 0; i < 5000; i++) {
+            String text = dateTime.format(FORMATTER);
+            long expected = LocalDateTime.parse(text, FORMATTER).toEpochSecond(ZoneOffset.UTC);
+            assertEquals(expected, TimestampParser.parse(text), text);
+            dateTime = dateTime.plusHours(7).plusSeconds(13);
+        }
+    }
+
+    @Test
+    void testLeapDays() {
+        assertEquals(LocalDateTime.of(2016, 2, 29, 0, 0).toEpochSecond(ZoneOffset.UTC),
+            TimestampParser.parse("2016-02-29 00:00:00"));
+        assertEquals(LocalDateTime.of(2000, 2, 29, 12, 0).toEpochSecond(ZoneOffset.UTC),
+            TimestampParser.parse("2000-02-29 12:00:00"));
+    }
+
+    @Test
+    void testAbsentValue() {
+        assertEquals(EpochSeconds.ABSENT, TimestampParser.parse("n/a"));
+    }
+
+    @Test
+    void testInvalidTimestampsAreRejected() {
+        assertThrows(DateTimeParseException.class, () -> TimestampParser.parse("2015-01-01"));
+        assertThrows(DateTimeParseException.class, () -> TimestampParser.parse("2015-13-01 00:00:00"));
+        assertThrows(DateTimeParseException.class, () -> TimestampParser.parse("2015-01-01 24:00:00"));
+        assertThrows(DateTimeParseException.class, () -> TimestampParser.parse("2015-01-01T00:00:00"));
+        assertThrows(DateTimeParseException.class, () -> TimestampParser.parse("Male"));
+    }
+
+    @Test
+    void testParsesFromBytes() {
+        ByteBuffer bytes = ByteBuffer.wrap("x,2015-01-01 12:01:21,n/a".getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(LocalDateTime.of(2015, 1, 1, 12, 1, 21).toEpochSecond(ZoneOffset.UTC),
+            TimestampParser.parse(bytes, 2, 21));
+        assertEquals(EpochSeconds.ABSENT, TimestampParser.parse(bytes, 22, 25));
+        assertThrows(DateTimeParseException.class, () -> TimestampParser.parse(bytes, 0, 19));
+    }
+}
@@ -5,7 +5,10 @@ import com.adauction.group19.model.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 
 public class CampaignDataUtil {
@@ -56,6 +59,22 @@ public class CampaignDataUtil {
         return data;
     }
 
+    /**
+     * Creates a filter in the form the metric methods take, allowing only the given
+     * values in their dimensions. With no values it lets every row through.
+     */
+    public static List<Set<Enum<?>>> filter(Enum<?>... allowed) {
+        List<Set<Enum<?>>> filter = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            filter.add(new HashSet<>());
+        }
+        for (Enum<?> value : allowed) {
+            int position = value instanceof Gender ? 0 : value instanceof AgeRange ? 1 : value instanceof Income ? 2 : 3;
+            filter.get(position).add(value);
+        }
+        return filter;
+    }
+
     public static <T> T randomChoice(List<T> list) {
         int index = ThreadLocalRandom.current().nextInt(list.size());
         return list.get(index);